@@ -0,0 +1,82 @@
+package com.example.app.benchmarks;
+
+import com.example.app.MovieBatchLoader;
+import com.example.app.MovieRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Many threads looking up single movies by ID: one find per lookup vs lookups coalesced by a
+ * shared MovieBatchLoader. Compare throughput and the number of queries the loader sent
+ * (printed at teardown) for each window.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(32)
+@State(Scope.Benchmark)
+public class BatchLoaderBenchmark {
+
+    @Param({"1", "5"})
+    public int windowMillis;
+
+    private MongoClient client;
+    private MovieRepository repository;
+    private MovieBatchLoader loader;
+    private final List<ObjectId> movieIds = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        client = BenchmarkSupport.connect();
+        repository = new MovieRepository(BenchmarkSupport.seededDatabase(client));
+        BenchmarkSupport.seededDatabase(client).getCollection("movies")
+                .find().projection(Projections.include("_id")).limit(5_000)
+                .forEach(movie -> movieIds.add(movie.getObjectId("_id")));
+        loader = repository.newBatchLoader(100, Duration.ofMillis(windowMillis));
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.printf("%nloader: %d lookups, %d deduplicated, %d queries%n",
+                loader.getRequestCount(), loader.getDeduplicatedCount(), loader.getBatchCount());
+        loader.close();
+        client.close();
+    }
+
+    @Benchmark
+    public Document direct() {
+        return repository.findMovieById(pick());
+    }
+
+    @Benchmark
+    public Document coalesced() {
+        return loader.load(pick()).join();
+    }
+
+    private ObjectId pick() {
+        return movieIds.get(ThreadLocalRandom.current().nextInt(movieIds.size()));
+    }
+}
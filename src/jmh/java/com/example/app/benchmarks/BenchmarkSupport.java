@@ -0,0 +1,114 @@
+package com.example.app.benchmarks;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Shared setup for the benchmarks: connects to a local mongod and seeds a
+ * synthetic mflix-like movies collection.
+ *
+ * Tunable through system properties (pass them with -jvmArgsAppend):
+ *   bench.uri    - connection string (default mongodb://localhost:27017)
+ *   bench.db     - database name (default mflix_bench)
+ *   bench.movies - number of movies to seed (default 20000)
+ */
+public final class BenchmarkSupport {
+    public static final String URI = System.getProperty("bench.uri", "mongodb://localhost:27017");
+    public static final String DATABASE = System.getProperty("bench.db", "mflix_bench");
+    public static final int MOVIES = Integer.getInteger("bench.movies", 20_000);
+
+    private static final String[] WORDS = {
+            "the", "night", "return", "last", "city", "love", "war", "king", "dark", "river",
+            "story", "ghost", "summer", "secret", "titanic", "island", "road", "blood", "star", "house"
+    };
+    private static final String[] GENRES = {
+            "Drama", "Comedy", "Action", "Thriller", "Romance", "Crime", "Horror",
+            "Adventure", "Sci-Fi", "Documentary", "Animation", "Family", "Mystery", "Western"
+    };
+
+    private BenchmarkSupport() {
+    }
+
+    public static MongoClient connect() {
+        return MongoClients.create(URI);
+    }
+
+    /**
+     * Returns the benchmark database, seeding the movies collection if it holds fewer than bench.movies documents
+     */
+    public static MongoDatabase seededDatabase(MongoClient client) {
+        MongoDatabase database = client.getDatabase(DATABASE);
+        MongoCollection<Document> movies = database.getCollection("movies");
+        if (movies.countDocuments() < MOVIES) {
+            movies.drop();
+            Random random = new Random(42);
+            List<Document> batch = new ArrayList<>(1000);
+            for (int i = 0; i < MOVIES; i++) {
+                batch.add(syntheticMovie(random, i));
+                if (batch.size() == 1000) {
+                    movies.insertMany(batch, new InsertManyOptions().ordered(false));
+                    batch.clear();
+                }
+            }
+            if (!batch.isEmpty()) {
+                movies.insertMany(batch, new InsertManyOptions().ordered(false));
+            }
+        }
+        return database;
+    }
+
+    /**
+     * Builds a movie shaped like the sample_mflix documents, including the bulky plot/cast/awards fields
+     */
+    public static Document syntheticMovie(Random random, int sequence) {
+        String title = capitalize(WORDS[random.nextInt(WORDS.length)]) + " "
+                + capitalize(WORDS[random.nextInt(WORDS.length)]) + " " + sequence;
+
+        List<String> genres = new ArrayList<>();
+        int genreCount = 1 + random.nextInt(3);
+        while (genres.size() < genreCount) {
+            String genre = GENRES[random.nextInt(GENRES.length)];
+            if (!genres.contains(genre)) {
+                genres.add(genre);
+            }
+        }
+
+        List<String> cast = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            cast.add("Actor " + random.nextInt(5000));
+        }
+
+        StringBuilder plot = new StringBuilder();
+        for (int i = 0; i < 40; i++) {
+            plot.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+        }
+
+        return new Document("title", title)
+                .append("year", 1950 + random.nextInt(75))
+                .append("genres", genres)
+                .append("plot", plot.toString().trim())
+                .append("fullplot", plot.toString().repeat(3).trim())
+                .append("runtime", 70 + random.nextInt(110))
+                .append("rated", random.nextBoolean() ? "PG-13" : "R")
+                .append("cast", cast)
+                .append("directors", List.of("Director " + random.nextInt(800)))
+                .append("awards", new Document("wins", random.nextInt(10))
+                        .append("nominations", random.nextInt(20))
+                        .append("text", "Nominated for " + random.nextInt(5) + " awards."))
+                .append("imdb", new Document("rating", Math.round(random.nextDouble() * 90) / 10.0 + 1.0)
+                        .append("votes", random.nextInt(500_000))
+                        .append("id", 100_000 + sequence));
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.app.benchmarks;
+
+import com.example.app.MovieBulkWriter;
+import com.example.app.MovieRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingest throughput (movies/s): one insertOne per movie vs MovieBulkWriter batches.
+ * Writes go to a scratch database so the seeded benchmark data is left alone.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class BulkIngestBenchmark {
+    private static final int MOVIES_PER_INVOCATION = 1000;
+
+    private MongoClient client;
+    private MongoDatabase database;
+    private MovieRepository repository;
+    private final Random random = new Random(11);
+
+    @Setup
+    public void setUp() {
+        client = BenchmarkSupport.connect();
+        database = client.getDatabase(BenchmarkSupport.DATABASE + "_ingest");
+        repository = new MovieRepository(database);
+    }
+
+    @Setup(Level.Iteration)
+    public void clear() {
+        database.getCollection("movies").drop();
+    }
+
+    @TearDown
+    public void tearDown() {
+        database.drop();
+        client.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVIES_PER_INVOCATION)
+    public void perDocumentInsert() {
+        for (int i = 0; i < MOVIES_PER_INVOCATION; i++) {
+            repository.createMovie(BenchmarkSupport.syntheticMovie(random, i));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MOVIES_PER_INVOCATION)
+    public long bulkWriterInsert() {
+        try (MovieBulkWriter writer = repository.newBulkWriter(500, Duration.ofMillis(50), 2000)) {
+            for (int i = 0; i < MOVIES_PER_INVOCATION; i++) {
+                Document movie = BenchmarkSupport.syntheticMovie(random, i);
+                writer.insertMovie(movie);
+            }
+            writer.flush();
+            return writer.getSucceededCount();
+        }
+    }
+}
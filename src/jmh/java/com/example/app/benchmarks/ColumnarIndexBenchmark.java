@@ -0,0 +1,124 @@
+package com.example.app.benchmarks;
+
+import com.example.app.Movie;
+import com.example.app.MovieCodec;
+import com.example.app.MovieColumnarIndex;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Year/genre/rating scans over decoded Documents held on the heap vs the off-heap MovieColumnarIndex.
+ * No server is involved. Setup prints the memory each representation holds: the retained heap of
+ * the Document list (measured around a full GC) and the columnar index's off-heap size.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g"})
+@State(Scope.Benchmark)
+public class ColumnarIndexBenchmark {
+
+    @Param({"20000", "200000"})
+    public int movies;
+
+    private List<Document> documents;
+    private MovieColumnarIndex index;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(3);
+        List<RawBsonDocument> encoded = new ArrayList<>(movies);
+        for (int i = 0; i < movies; i++) {
+            Document movie = BenchmarkSupport.syntheticMovie(random, i).append("_id", new ObjectId());
+            encoded.add(RawBsonDocument.parse(movie.toJson()));
+        }
+
+        long heapBefore = usedHeapAfterGc();
+        DocumentCodec documentCodec = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+        documents = new ArrayList<>(movies);
+        for (RawBsonDocument raw : encoded) {
+            documents.add(documentCodec.decode(new BsonBinaryReader(raw.getByteBuffer().asNIO()),
+                    DecoderContext.builder().build()));
+        }
+        long documentBytes = usedHeapAfterGc() - heapBefore;
+
+        MovieCodec movieCodec = new MovieCodec();
+        List<Movie> typed = new ArrayList<>(movies);
+        for (RawBsonDocument raw : encoded) {
+            typed.add(movieCodec.decode(new BsonBinaryReader(raw.getByteBuffer().asNIO()),
+                    DecoderContext.builder().build()));
+        }
+        index = MovieColumnarIndex.of(typed);
+
+        System.out.printf("%n%d movies: Documents retain ~%d bytes on heap (%d/movie); "
+                        + "columnar index holds %d bytes off heap (%d/movie)%n",
+                movies, documentBytes, documentBytes / movies, index.offHeapBytes(), index.offHeapBytes() / movies);
+    }
+
+    private static long usedHeapAfterGc() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    @Benchmark
+    public int countByYearDocuments() {
+        int count = 0;
+        for (Document movie : documents) {
+            if (Integer.valueOf(1999).equals(movie.get("year"))) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int countByYearColumnar() {
+        return index.countMoviesByYear(1999);
+    }
+
+    @Benchmark
+    public int genreYearRatingDocuments() {
+        int count = 0;
+        for (Document movie : documents) {
+            Object year = movie.get("year");
+            Document imdb = movie.get("imdb", Document.class);
+            Object rating = imdb == null ? null : imdb.get("rating");
+            if (year instanceof Integer y && y >= 1990 && y <= 2010
+                    && rating instanceof Number r && r.doubleValue() >= 7.0
+                    && movie.getList("genres", String.class).contains("Drama")) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public int genreYearRatingColumnar() {
+        return index.countMovies("Drama", 1990, 2010, 7.0);
+    }
+}
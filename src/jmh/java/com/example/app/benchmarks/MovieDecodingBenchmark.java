@@ -0,0 +1,86 @@
+package com.example.app.benchmarks;
+
+import com.example.app.Movie;
+import com.example.app.MovieCodec;
+import com.mongodb.MongoClientSettings;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.DocumentCodec;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding cost of one movie document: generic Document vs the hand-written MovieCodec,
+ * on the full document and on the bytes a title/year/rating projection would return.
+ * No server is involved. Run with -prof gc to compare allocation per operation.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovieDecodingBenchmark {
+
+    private final DocumentCodec documentCodec = new DocumentCodec(MongoClientSettings.getDefaultCodecRegistry());
+    private final MovieCodec movieCodec = new MovieCodec();
+    private final DecoderContext context = DecoderContext.builder().build();
+
+    private byte[] fullBytes;
+    private byte[] projectedBytes;
+
+    @Setup
+    public void setUp() {
+        BsonDocument full = BenchmarkSupport.syntheticMovie(new Random(7), 1).toBsonDocument();
+        fullBytes = toBytes(full);
+
+        // What the server returns for MovieFields.projection(TITLE, YEAR, IMDB_RATING)
+        BsonDocument projected = new BsonDocument("title", full.get("title"))
+                .append("year", full.get("year"))
+                .append("imdb", new BsonDocument("rating", full.getDocument("imdb").get("rating")));
+        projectedBytes = toBytes(projected);
+    }
+
+    private static byte[] toBytes(BsonDocument document) {
+        ByteBuffer buffer = new RawBsonDocument(document, new BsonDocumentCodec()).getByteBuffer().asNIO();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    @Benchmark
+    public Document documentFull() {
+        return documentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(fullBytes)), context);
+    }
+
+    @Benchmark
+    public Movie movieCodecFull() {
+        return movieCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(fullBytes)), context);
+    }
+
+    @Benchmark
+    public Document documentProjected() {
+        return documentCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(projectedBytes)), context);
+    }
+
+    @Benchmark
+    public Movie movieCodecProjected() {
+        return movieCodec.decode(new BsonBinaryReader(ByteBuffer.wrap(projectedBytes)), context);
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.app.benchmarks;
+
+import com.example.app.Movie;
+import com.example.app.MovieFields;
+import com.example.app.MoviePage;
+import com.example.app.MovieRepository;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Projections;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One benchmark per MovieRepository operation against the seeded dataset, reported both as
+ * throughput (ops/s) and as a latency distribution (SampleTime gives p50/p90/p99/p99.9).
+ * Add -prof gc to get the allocation rate and bytes allocated per operation:
+ *
+ *   mvn -Pjmh compile exec:exec -Djmh.args="MovieRepositoryBenchmark -prof gc"
+ *
+ * Reads run against the seeded collection with the repository's indexes in place. Writes run
+ * against a scratch copy of the first movies so the read dataset never changes between runs;
+ * deleteMovieById is measured together with the createMovie that feeds it.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MovieRepositoryBenchmark {
+    private static final int SCRATCH_MOVIES = 1000;
+    private static final String[] GENRES = {"Drama", "Comedy", "Action", "Thriller", "Western"};
+
+    private MongoClient client;
+    private MongoDatabase scratchDatabase;
+    private MovieRepository repository;
+    private MovieRepository scratchRepository;
+    private final List<ObjectId> movieIds = new ArrayList<>();
+    private final List<ObjectId> scratchIds = new ArrayList<>();
+
+    @Setup
+    public void setUp() {
+        client = BenchmarkSupport.connect();
+        repository = new MovieRepository(BenchmarkSupport.seededDatabase(client));
+        repository.ensureIndexes();
+        BenchmarkSupport.seededDatabase(client).getCollection("movies")
+                .find().projection(Projections.include("_id")).limit(5000)
+                .forEach(movie -> movieIds.add(movie.getObjectId("_id")));
+
+        scratchDatabase = client.getDatabase(BenchmarkSupport.DATABASE + "_ops");
+        scratchDatabase.drop();
+        scratchRepository = new MovieRepository(scratchDatabase);
+        Random random = new Random(5);
+        for (int i = 0; i < SCRATCH_MOVIES; i++) {
+            scratchIds.add(scratchRepository.createMovie(BenchmarkSupport.syntheticMovie(random, i)));
+        }
+        scratchRepository.ensureIndexes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        scratchDatabase.drop();
+        client.close();
+    }
+
+    /**
+     * Per-thread source of random keys so threads do not contend on a shared Random
+     */
+    @State(Scope.Thread)
+    public static class Keys {
+        private final Random random = new Random();
+
+        ObjectId pick(List<ObjectId> ids) {
+            return ids.get(random.nextInt(ids.size()));
+        }
+
+        int year() {
+            return 1950 + random.nextInt(75);
+        }
+
+        String genre() {
+            return GENRES[random.nextInt(GENRES.length)];
+        }
+
+        double rating() {
+            return 1.0 + random.nextInt(90) / 10.0;
+        }
+    }
+
+    // Reads
+
+    @Benchmark
+    public Document findMovieById(Keys keys) {
+        return repository.findMovieById(keys.pick(movieIds));
+    }
+
+    @Benchmark
+    public Movie findMovieByIdProjected(Keys keys) {
+        return repository.findMovieById(keys.pick(movieIds), MovieFields.TITLE, MovieFields.YEAR);
+    }
+
+    @Benchmark
+    public Map<ObjectId, Document> findMoviesByIds(Keys keys) {
+        List<ObjectId> ids = new ArrayList<>(10);
+        for (int i = 0; i < 10; i++) {
+            ids.add(keys.pick(movieIds));
+        }
+        return repository.findMoviesByIds(ids);
+    }
+
+    @Benchmark
+    public List<Document> findMoviesByTitle() {
+        return repository.findMoviesByTitle("Ghost River");
+    }
+
+    @Benchmark
+    public List<Document> findMoviesByYear(Keys keys) {
+        return repository.findMoviesByYear(keys.year());
+    }
+
+    @Benchmark
+    public List<Movie> findMoviesByYearProjected(Keys keys) {
+        return repository.findMoviesByYear(keys.year(), MovieFields.ID, MovieFields.TITLE);
+    }
+
+    @Benchmark
+    public List<Document> findMoviesByGenre(Keys keys) {
+        return repository.findMoviesByGenre(keys.genre());
+    }
+
+    @Benchmark
+    public List<Document> getAllMovies() {
+        return repository.getAllMovies(100);
+    }
+
+    @Benchmark
+    public MoviePage getMoviesPage() {
+        return repository.getMoviesPage(50, null);
+    }
+
+    @Benchmark
+    public MoviePage findMoviesByGenrePage(Keys keys) {
+        return repository.findMoviesByGenrePage(keys.genre(), 50, null);
+    }
+
+    @Benchmark
+    public long countMovies() {
+        return repository.countMovies();
+    }
+
+    @Benchmark
+    public long countMoviesByYear(Keys keys) {
+        return repository.countMoviesByYear(keys.year());
+    }
+
+    // Writes (scratch database)
+
+    @Benchmark
+    public long updateMovieRating(Keys keys) {
+        return scratchRepository.updateMovieRating(keys.pick(scratchIds), keys.rating());
+    }
+
+    @Benchmark
+    public long addGenreToMovie(Keys keys) {
+        return scratchRepository.addGenreToMovie(keys.pick(scratchIds), keys.genre());
+    }
+
+    @Benchmark
+    public ObjectId createMovie(Keys keys) {
+        return scratchRepository.createMovie(BenchmarkSupport.syntheticMovie(keys.random, SCRATCH_MOVIES));
+    }
+
+    @Benchmark
+    public long createAndDeleteMovie(Keys keys) {
+        ObjectId id = scratchRepository.createMovie(BenchmarkSupport.syntheticMovie(keys.random, SCRATCH_MOVIES));
+        return scratchRepository.deleteMovieById(id);
+    }
+}
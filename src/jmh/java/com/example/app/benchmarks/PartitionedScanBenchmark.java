@@ -0,0 +1,80 @@
+package com.example.app.benchmarks;
+
+import com.example.app.MovieRepository;
+import com.example.app.PartitionedMovieScanner;
+import com.mongodb.client.MongoClient;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Full-collection scan on one cursor vs PartitionedMovieScanner with 1..8 parallel cursors. Each
+ * movie gets a little work (hashing its fields) so the consumer side is not free.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx512m"})
+@State(Scope.Benchmark)
+public class PartitionedScanBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int partitions;
+
+    private MongoClient client;
+    private MovieRepository repository;
+    private PartitionedMovieScanner scanner;
+
+    @Setup
+    public void setUp() {
+        client = BenchmarkSupport.connect();
+        repository = new MovieRepository(BenchmarkSupport.seededDatabase(client));
+        scanner = new PartitionedMovieScanner(BenchmarkSupport.seededDatabase(client), partitions, 1000, progress -> { });
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public long singleCursor() {
+        try (Stream<Document> movies = repository.streamAllMovies(0, 1000)) {
+            return movies.mapToLong(PartitionedScanBenchmark::work).sum();
+        }
+    }
+
+    @Benchmark
+    public long partitioned() {
+        LongAdder total = new LongAdder();
+        scanner.scan(partitions, movie -> total.add(work(movie)));
+        return total.sum();
+    }
+
+    /**
+     * The boundary lookup alone ($sample + $bucketAuto), which partitioned() pays on every scan
+     */
+    @Benchmark
+    public int boundaries() {
+        return scanner.partitions(partitions).size();
+    }
+
+    private static long work(Document movie) {
+        return movie.values().stream().mapToLong(value -> value == null ? 0 : value.hashCode()).sum();
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.app.benchmarks;
+
+import com.example.app.MovieRepository;
+import com.example.app.RawMovieWriter;
+import com.mongodb.client.MongoClient;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Forwarding movies as JSON the current way (decode to Document, then toJson) vs the raw path
+ * (RawBsonDocument piped straight to the stream), plus reading a single field per movie from each.
+ * Run with -prof gc to compare allocation per operation (gc.alloc.rate.norm).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx512m"})
+@State(Scope.Benchmark)
+public class RawReadBenchmark {
+
+    @Param({"1000", "10000"})
+    public int limit;
+
+    private final JsonWriterSettings settings = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+
+    private MongoClient client;
+    private MovieRepository repository;
+
+    @Setup
+    public void setUp() {
+        client = BenchmarkSupport.connect();
+        repository = new MovieRepository(BenchmarkSupport.seededDatabase(client));
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public long documentToJson() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 1 << 16);
+        try (Stream<Document> movies = repository.streamAllMovies(limit, 1000)) {
+            Iterator<Document> iterator = movies.iterator();
+            while (iterator.hasNext()) {
+                writer.write(iterator.next().toJson(settings));
+                writer.write('\n');
+            }
+        }
+        writer.flush();
+        return out.count;
+    }
+
+    @Benchmark
+    public long rawToJson() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (Stream<RawBsonDocument> movies = repository.streamRawAllMovies(limit, 1000)) {
+            RawMovieWriter.writeJsonLines(movies, out, settings);
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long rawToBson() throws IOException {
+        CountingOutputStream out = new CountingOutputStream();
+        try (Stream<RawBsonDocument> movies = repository.streamRawAllMovies(limit, 1000)) {
+            RawMovieWriter.writeBson(movies, out);
+        }
+        return out.count;
+    }
+
+    @Benchmark
+    public long documentTitles() {
+        try (Stream<Document> movies = repository.streamAllMovies(limit, 1000)) {
+            return movies.mapToLong(movie -> movie.getString("title").length()).sum();
+        }
+    }
+
+    @Benchmark
+    public long rawTitles() {
+        try (Stream<RawBsonDocument> movies = repository.streamRawAllMovies(limit, 1000)) {
+            return movies.mapToLong(movie -> movie.getString("title").getValue().length()).sum();
+        }
+    }
+
+    /**
+     * Discards the bytes but counts them, so the output cannot be optimized away
+     */
+    private static final class CountingOutputStream extends OutputStream {
+        long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+    }
+}
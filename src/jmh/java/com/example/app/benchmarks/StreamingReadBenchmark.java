@@ -0,0 +1,120 @@
+package com.example.app.benchmarks;
+
+import com.example.app.MovieRepository;
+import com.mongodb.client.MongoClient;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the list-returning reads with the cursor-backed streaming reads:
+ * time to first result, full consumption time and peak heap per iteration.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx512m"})
+@State(Scope.Benchmark)
+public class StreamingReadBenchmark {
+
+    @Param({"the", "e"})
+    public String titleFragment;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    private MongoClient client;
+    private MovieRepository repository;
+
+    @Setup
+    public void setUp() {
+        client = BenchmarkSupport.connect();
+        repository = new MovieRepository(BenchmarkSupport.seededDatabase(client));
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    /**
+     * Peak heap used during the iteration, reported next to the timing results
+     */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class HeapCounters {
+        public long peakHeapBytes;
+
+        @Setup(Level.Iteration)
+        public void resetPeak() {
+            System.gc();
+            for (MemoryPoolMXBean pool : heapPools()) {
+                pool.resetPeakUsage();
+            }
+        }
+
+        @TearDown(Level.Iteration)
+        public void capturePeak() {
+            long peak = 0;
+            for (MemoryPoolMXBean pool : heapPools()) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+            peakHeapBytes = peak;
+        }
+
+        private static List<MemoryPoolMXBean> heapPools() {
+            return ManagementFactory.getMemoryPoolMXBeans().stream()
+                    .filter(pool -> pool.getType() == MemoryType.HEAP)
+                    .toList();
+        }
+    }
+
+    @Benchmark
+    public Document listFirstResult(HeapCounters counters) {
+        List<Document> movies = repository.findMoviesByTitle(titleFragment);
+        return movies.isEmpty() ? null : movies.get(0);
+    }
+
+    @Benchmark
+    public Document streamFirstResult(HeapCounters counters) {
+        try (Stream<Document> movies = repository.streamMoviesByTitle(titleFragment, batchSize)) {
+            return movies.findFirst().orElse(null);
+        }
+    }
+
+    @Benchmark
+    public long listFullScan(HeapCounters counters) {
+        long titleChars = 0;
+        for (Document movie : repository.findMoviesByTitle(titleFragment)) {
+            titleChars += movie.getString("title").length();
+        }
+        return titleChars;
+    }
+
+    @Benchmark
+    public long streamFullScan(HeapCounters counters) {
+        try (Stream<Document> movies = repository.streamMoviesByTitle(titleFragment, batchSize)) {
+            return movies.mapToLong(movie -> movie.getString("title").length()).sum();
+        }
+    }
+}
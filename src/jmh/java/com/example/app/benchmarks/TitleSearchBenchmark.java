@@ -0,0 +1,60 @@
+package com.example.app.benchmarks;
+
+import com.example.app.MovieRepository;
+import com.example.app.TitleSearchMode;
+import com.mongodb.client.MongoClient;
+import org.bson.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title search latency per mode against the seeded dataset. Indexes and the normalized
+ * title backfill are created once in setup.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class TitleSearchBenchmark {
+
+    @Param({"PREFIX", "TEXT", "REGEX"})
+    public TitleSearchMode mode;
+
+    @Param({"Ghost", "Summer Road"})
+    public String title;
+
+    private MongoClient client;
+    private MovieRepository repository;
+
+    @Setup
+    public void setUp() {
+        client = BenchmarkSupport.connect();
+        repository = new MovieRepository(BenchmarkSupport.seededDatabase(client));
+        repository.ensureIndexes();
+    }
+
+    @TearDown
+    public void tearDown() {
+        client.close();
+    }
+
+    @Benchmark
+    public List<Document> findMoviesByTitle() {
+        return repository.findMoviesByTitle(title, mode);
+    }
+}
@@ -8,27 +8,48 @@ import com.mongodb.ServerApiVersion;
 import com.mongodb.client.MongoClient;
 import com.mongodb.client.MongoClients;
 import com.mongodb.client.MongoDatabase;
-import com.mongodb.client.MongoCollection;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.ConnectionPoolListener;
 import org.bson.Document;
 import org.bson.types.ObjectId;
+import java.io.IOException;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
-import java.util.ArrayList;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
+import java.util.Random;
 
 public class App {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("memory")) {
+            // Sin conexión: la misma demo sobre un almacén en memoria
+            runInMemory();
+            System.exit(0);
+            return;
+        }
+
         // Cargar las credenciales de forma separada desde el archivo de configuración
         String dbUser;
         String dbPassword;
         String dbHost;
         String dbName;
+        MongoClientTuning tuning;
+        CollectionExplorer.Settings exploreSettings;
+        MovieReadPolicy readPolicy;
+        Path viewSnapshotFile;
+        int replySizeSampleEvery;
         
         try {
             dbUser = ConfigManager.getDbUser();
             dbPassword = ConfigManager.getDbPassword();
             dbHost = ConfigManager.getDbHost();
             dbName = ConfigManager.getDbName();
+            tuning = ConfigManager.getClientTuning();
+            exploreSettings = ConfigManager.getExploreSettings();
+            readPolicy = ConfigManager.getReadPolicy();
+            viewSnapshotFile = ConfigManager.getViewSnapshotFile();
+            replySizeSampleEvery = ConfigManager.getReplySizeSampleEvery();
         } catch (RuntimeException e) {
             System.err.println("━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━━");
             System.err.println("ERROR: No se pudo cargar el archivo de configuración");
@@ -76,14 +97,10 @@ public class App {
             encodedUser, encodedPassword, dbHost, dbName
         );
 
-        ServerApi serverApi = ServerApi.builder()
-                .version(ServerApiVersion.V1)
-                .build();
-
-        MongoClientSettings settings = MongoClientSettings.builder()
-                .applyConnectionString(new ConnectionString(connectionString))
-                .serverApi(serverApi)
-                .build();
+        ConnectionPoolMetrics poolMetrics = new ConnectionPoolMetrics();
+        MovieMetrics movieMetrics = new MovieMetrics(new RepositoryMetrics(), new CommandMetrics(replySizeSampleEvery));
+        MongoClientSettings settings = buildClientSettings(connectionString, tuning, poolMetrics,
+                movieMetrics.commandMetrics());
 
         // Create a new client and connect to the server
         try (MongoClient mongoClient = MongoClients.create(settings)) {
@@ -99,107 +116,66 @@ public class App {
                 System.out.println("=== Exploring sample_mflix Database ===");
                 System.out.println();
 
-                // List all collections in the database
+                // Explore every collection concurrently: a count and a sample document each
+                CollectionExplorer.ExplorationReport exploration =
+                        new CollectionExplorer(mflixDb, exploreSettings).explore();
+
                 System.out.println("Collections in sample_mflix:");
-                List<String> collectionNames = new ArrayList<>();
-                mflixDb.listCollectionNames().into(collectionNames);
-                
-                for (String collectionName : collectionNames) {
-                    System.out.println("  - " + collectionName);
+                for (CollectionExplorer.CollectionSummary summary : exploration.collections()) {
+                    System.out.println("  - " + summary.name());
                 }
                 System.out.println();
 
-                // Explore schema of each collection by getting sample documents
-                for (String collectionName : collectionNames) {
-                    System.out.println("--- Collection: " + collectionName + " ---");
-                    MongoCollection<Document> collection = mflixDb.getCollection(collectionName);
-                    
-                    // Get count
-                    long count = collection.countDocuments();
-                    System.out.println("Document count: " + count);
-                    
-                    // Get a sample document to show schema
-                    Document sampleDoc = collection.find().limit(1).first();
-                    if (sampleDoc != null) {
+                for (CollectionExplorer.CollectionSummary summary : exploration.collections()) {
+                    System.out.println("--- Collection: " + summary.name() + " ---");
+                    if (summary.error() != null) {
+                        System.out.println("Could not explore this collection: " + summary.error());
+                        System.out.println();
+                        continue;
+                    }
+                    System.out.println("Document count: " + summary.documentCount()
+                            + (summary.exactCount() ? "" : " (estimated)"));
+
+                    if (summary.sample() != null) {
                         System.out.println("Sample document structure:");
-                        System.out.println(sampleDoc.toJson());
+                        System.out.println(summary.sample().toJson());
                     } else {
                         System.out.println("No documents found in this collection.");
                     }
                     System.out.println();
                 }
+                System.out.println("Explored " + exploration.collections().size() + " collection(s) in "
+                        + exploration.elapsedMillis() + " ms (" + exploration.sequentialMillis()
+                        + " ms of queries, up to " + exploration.concurrency() + " at once on "
+                        + (exploration.virtualThreads() ? "virtual" : "platform") + " threads)");
+                System.out.println();
 
                 // Demonstrate CRUD operations with MovieRepository
                 System.out.println("=== Demonstrating CRUD Operations on Movies Collection ===");
                 System.out.println();
                 
-                MovieRepository movieRepo = new MovieRepository(mflixDb);
-                
-                // READ operations
-                System.out.println("1. READ Operations:");
-                System.out.println("   Total movies in database: " + movieRepo.countMovies());
-                
-                // Find movies by title
-                List<Document> titanicMovies = movieRepo.findMoviesByTitle("Titanic");
-                System.out.println("   Movies with 'Titanic' in title: " + titanicMovies.size());
-                if (!titanicMovies.isEmpty()) {
-                    Document firstTitanic = titanicMovies.get(0);
-                    System.out.println("     Example: " + firstTitanic.getString("title") + " (" + firstTitanic.getInteger("year") + ")");
+                MovieRepository baseRepo = new MovieRepository(mflixDb, movieMetrics.repositoryMetrics());
+                MovieIndexManager.IndexReport indexReport = baseRepo.ensureIndexes();
+                // Index builds may take longer than a read budget; everything after gets app.read.timeoutMs
+                MovieRepository movieRepo = readPolicy.applyTo(baseRepo);
+                System.out.println("Indexes present: " + indexReport.present());
+                if (!indexReport.created().isEmpty()) {
+                    System.out.println("Indexes created: " + indexReport.created());
                 }
-                
-                // Find movies by year
-                List<Document> movies2010 = movieRepo.findMoviesByYear(2010);
-                System.out.println("   Movies from 2010: " + movies2010.size());
-                
-                // Find movies by genre
-                List<Document> actionMovies = movieRepo.findMoviesByGenre("Action");
-                System.out.println("   Action movies (limited to 10): " + actionMovies.size());
-                if (!actionMovies.isEmpty()) {
-                    System.out.println("     Example: " + actionMovies.get(0).getString("title"));
-                }
-                System.out.println();
-                
-                // CREATE operation
-                System.out.println("2. CREATE Operation:");
-                Document newMovie = new Document("title", "Test Movie 2025")
-                        .append("year", 2025)
-                        .append("genres", List.of("Drama", "Sci-Fi"))
-                        .append("plot", "A test movie for MongoDB operations demo")
-                        .append("runtime", 120)
-                        .append("imdb", new Document("rating", 8.5).append("votes", 1000));
-                
-                ObjectId newMovieId = movieRepo.createMovie(newMovie);
-                System.out.println("   Created new movie with ID: " + newMovieId);
                 System.out.println();
                 
-                // UPDATE operations
-                System.out.println("3. UPDATE Operations:");
-                long updatedRating = movieRepo.updateMovieRating(newMovieId, 9.0);
-                System.out.println("   Updated rating for movie: " + updatedRating + " document(s) modified");
-                
-                long addedGenre = movieRepo.addGenreToMovie(newMovieId, "Thriller");
-                System.out.println("   Added genre to movie: " + addedGenre + " document(s) modified");
-                
-                // Verify update
-                Document updatedMovie = movieRepo.findMovieById(newMovieId);
-                if (updatedMovie != null) {
-                    System.out.println("   Updated movie: " + updatedMovie.getString("title"));
-                    System.out.println("   New rating: " + updatedMovie.get("imdb", Document.class).get("rating"));
-                    System.out.println("   Genres: " + updatedMovie.getList("genres", String.class));
+                demonstrateCrud(movieRepo);
+
+                if (viewSnapshotFile != null) {
+                    demonstrateView(mflixDb, viewSnapshotFile);
                 }
-                System.out.println();
-                
-                // DELETE operation
-                System.out.println("4. DELETE Operation:");
-                long deleted = movieRepo.deleteMovieById(newMovieId);
-                System.out.println("   Deleted movie: " + deleted + " document(s) deleted");
-                
-                // Verify deletion
-                Document deletedMovie = movieRepo.findMovieById(newMovieId);
-                System.out.println("   Verification - Movie exists after deletion: " + (deletedMovie != null));
-                System.out.println();
-                
-                System.out.println("✓ All CRUD operations completed successfully!");
+
+                ConnectionPoolMetrics.Snapshot pool = poolMetrics.snapshot();
+                System.out.println("Connection pool: " + pool.connectionsCreated() + " connection(s) created, "
+                        + pool.checkedOut() + " checkout(s), peak in use " + pool.peakInUse()
+                        + ", max checkout wait " + String.format("%.2f ms", pool.maxCheckOutWaitMillis())
+                        + ", checkout failures " + pool.checkOutFailures());
+                movieMetrics.publishTo(App::printMetrics);
 
             } catch (MongoException e) {
                 System.err.println("MongoDB error occurred:");
@@ -214,4 +190,155 @@ public class App {
         
         System.exit(0);
     }
+
+    /**
+     * Starts the materialized view from a snapshot file (written first if missing) and reads from
+     * it before the view has been filled
+     */
+    static void demonstrateView(MongoDatabase mflixDb, Path snapshotFile) throws IOException {
+        System.out.println("=== Materialized View from a Snapshot File ===");
+        System.out.println();
+        MovieSnapshot snapshot = Files.exists(snapshotFile)
+                ? MovieSnapshot.open(snapshotFile)
+                : MovieSnapshot.write(snapshotFile, mflixDb);
+        System.out.println("Snapshot " + snapshotFile + ": " + snapshot.size() + " movies, created "
+                + snapshot.createdAt());
+
+        try (MovieMaterializedView view = new MovieMaterializedView(mflixDb)) {
+            long start = System.nanoTime();
+            view.start(snapshot);
+            List<Movie> topRated = view.findTopRated("Drama", 3);
+            System.out.printf("First read after %.1f ms (from the file: %s)%n", (System.nanoTime() - start) / 1e6,
+                    view.syncStats().servingFromSnapshot());
+            for (Movie movie : topRated) {
+                System.out.println("  - " + movie.title() + " (" + movie.year() + "): " + movie.imdbRating());
+            }
+        }
+        System.out.println();
+    }
+
+    /**
+     * Runs the READ, CREATE, UPDATE and DELETE walkthrough against any MovieStore
+     */
+    static void demonstrateCrud(MovieStore movieRepo) {
+        // READ operations
+        System.out.println("1. READ Operations:");
+        System.out.println("   Total movies in database: " + movieRepo.countMovies());
+        
+        // Find movies by title (only the fields printed below are fetched and decoded)
+        List<Movie> titanicMovies = movieRepo.findMoviesByTitle("Titanic", TitleSearchMode.TEXT,
+                MovieFields.TITLE, MovieFields.YEAR);
+        System.out.println("   Movies with 'Titanic' in title: " + titanicMovies.size());
+        if (!titanicMovies.isEmpty()) {
+            Movie firstTitanic = titanicMovies.get(0);
+            System.out.println("     Example: " + firstTitanic.title() + " (" + firstTitanic.year() + ")");
+        }
+        
+        // Find movies by year
+        List<Movie> movies2010 = movieRepo.findMoviesByYear(2010, MovieFields.ID);
+        System.out.println("   Movies from 2010: " + movies2010.size());
+        
+        // Find movies by genre
+        List<Movie> actionMovies = movieRepo.findMoviesByGenre("Action", MovieFields.TITLE);
+        System.out.println("   Action movies (limited to 10): " + actionMovies.size());
+        if (!actionMovies.isEmpty()) {
+            System.out.println("     Example: " + actionMovies.get(0).title());
+        }
+        System.out.println();
+        
+        // CREATE operation
+        System.out.println("2. CREATE Operation:");
+        Document newMovie = new Document("title", "Test Movie 2025")
+                .append("year", 2025)
+                .append("genres", List.of("Drama", "Sci-Fi"))
+                .append("plot", "A test movie for MongoDB operations demo")
+                .append("runtime", 120)
+                .append("imdb", new Document("rating", 8.5).append("votes", 1000));
+        
+        ObjectId newMovieId = movieRepo.createMovie(newMovie);
+        System.out.println("   Created new movie with ID: " + newMovieId);
+        System.out.println();
+        
+        // UPDATE operations
+        System.out.println("3. UPDATE Operations:");
+        long updatedRating = movieRepo.updateMovieRating(newMovieId, 9.0);
+        System.out.println("   Updated rating for movie: " + updatedRating + " document(s) modified");
+        
+        long addedGenre = movieRepo.addGenreToMovie(newMovieId, "Thriller");
+        System.out.println("   Added genre to movie: " + addedGenre + " document(s) modified");
+        
+        // Verify update
+        Movie updatedMovie = movieRepo.findMovieById(newMovieId,
+                MovieFields.TITLE, MovieFields.IMDB_RATING, MovieFields.GENRES);
+        if (updatedMovie != null) {
+            System.out.println("   Updated movie: " + updatedMovie.title());
+            System.out.println("   New rating: " + updatedMovie.imdbRating());
+            System.out.println("   Genres: " + updatedMovie.genres());
+        }
+        System.out.println();
+        
+        // DELETE operation
+        System.out.println("4. DELETE Operation:");
+        long deleted = movieRepo.deleteMovieById(newMovieId);
+        System.out.println("   Deleted movie: " + deleted + " document(s) deleted");
+        
+        // Verify deletion
+        Document deletedMovie = movieRepo.findMovieById(newMovieId);
+        System.out.println("   Verification - Movie exists after deletion: " + (deletedMovie != null));
+        System.out.println();
+        
+        System.out.println("✓ All CRUD operations completed successfully!");
+        System.out.println();
+    }
+
+    /**
+     * The CRUD walkthrough against an InMemoryMovieStore seeded with synthetic movies: no
+     * config.properties, network or cluster needed
+     */
+    static void runInMemory() {
+        System.out.println("=== Demonstrating CRUD Operations on an In-Memory Movie Store ===");
+        System.out.println();
+        MovieMetrics movieMetrics = new MovieMetrics();
+        InMemoryMovieStore store = new InMemoryMovieStore(movieMetrics.repositoryMetrics());
+        LoadGenerator.seed(store, LoadGenerator.Settings.defaults().seedMovies(), new Random(42));
+        demonstrateCrud(store);
+        movieMetrics.publishTo(App::printMetrics);
+    }
+
+    /**
+     * Client settings from the connection string plus the configured pool/transport tuning
+     */
+    static MongoClientSettings buildClientSettings(String connectionString, MongoClientTuning tuning,
+                                                   ConnectionPoolListener poolListener,
+                                                   CommandListener commandListener) {
+        ServerApi serverApi = ServerApi.builder()
+                .version(ServerApiVersion.V1)
+                .build();
+
+        MongoClientSettings.Builder builder = MongoClientSettings.builder()
+                .applyConnectionString(new ConnectionString(connectionString))
+                .serverApi(serverApi);
+        if (commandListener != null) {
+            builder.addCommandListener(commandListener);
+        }
+        return tuning.applyTo(builder, poolListener).build();
+    }
+
+    /**
+     * Prints client-side time per repository call next to server-side time per command
+     */
+    static void printMetrics(MovieMetrics.Report report) {
+        System.out.println();
+        System.out.println("Repository operations (client side, ms):");
+        report.operations().forEach((method, operation) -> System.out.println(String.format(
+                "  %-24s calls %4d  p50 %8.2f  p99 %8.2f  max %8.2f  errors %d  timeouts %d  hedged %d (won %d)",
+                method, operation.latency().count(), operation.latency().p50() / 1e6,
+                operation.latency().p99() / 1e6, operation.latency().max() / 1e6, operation.errors(),
+                operation.timeouts(), operation.hedges(), operation.hedgeWins())));
+        System.out.println("Driver commands (server round trip, ms):");
+        report.commands().forEach((command, stats) -> System.out.println(String.format(
+                "  %-24s calls %4d  p50 %8.2f  p99 %8.2f  mean reply %8s bytes  failures %d",
+                command, stats.duration().count(), stats.duration().p50() / 1e6, stats.duration().p99() / 1e6,
+                stats.replySamples() == 0 ? "-" : String.format("%.0f", stats.meanReplyBytes()), stats.failures())));
+    }
 }
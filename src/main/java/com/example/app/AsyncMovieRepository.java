@@ -0,0 +1,320 @@
+package com.example.app;
+
+import com.example.app.RepositoryMetrics.Operation;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.result.DeleteResult;
+import com.mongodb.client.result.UpdateResult;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.codecs.configuration.CodecRegistries;
+import org.bson.types.ObjectId;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+/**
+ * Asynchronous counterpart of {@link MovieRepository} on the reactive-streams driver: every
+ * operation returns a CompletableFuture completed from the driver's Publisher, so no thread
+ * waits while a query is in flight and independent lookups can be fanned out and combined.
+ * Concurrency is bounded by the connection pool (db.pool.maxSize), not by a thread pool.
+ *
+ * It sends the same filters, projections, updates and page queries as MovieRepository and
+ * records each operation, from the call to completion, in the same kind of RepositoryMetrics.
+ * Futures complete on driver threads, so callbacks chained with thenApply and friends must not
+ * block; use the *Async variants with an executor for slow work. Failures complete the future
+ * exceptionally with the driver's exception as the cause.
+ */
+public class AsyncMovieRepository {
+    private final MongoCollection<Document> moviesCollection;
+    private final MongoCollection<Movie> typedMoviesCollection;
+    private final RepositoryMetrics metrics;
+
+    public AsyncMovieRepository(MongoDatabase database) {
+        this(database, new RepositoryMetrics());
+    }
+
+    /**
+     * Repository recording the latency and errors of every operation into the given metrics
+     */
+    public AsyncMovieRepository(MongoDatabase database, RepositoryMetrics metrics) {
+        this.metrics = metrics;
+        this.moviesCollection = database.getCollection("movies");
+        this.typedMoviesCollection = moviesCollection
+                .withCodecRegistry(CodecRegistries.fromRegistries(
+                        CodecRegistries.fromCodecs(new MovieCodec()),
+                        moviesCollection.getCodecRegistry()))
+                .withDocumentClass(Movie.class);
+    }
+
+    public RepositoryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Create - Insert a new movie document
+     */
+    public CompletableFuture<ObjectId> createMovie(Document movie) {
+        return timed(Operation.CREATE_MOVIE, () -> {
+            MovieRepository.addNormalizedTitle(movie);
+            return first(moviesCollection.insertOne(movie)).thenApply(result -> movie.getObjectId("_id"));
+        });
+    }
+
+    /**
+     * Read - Find a movie by ID; completes with null when there is none
+     */
+    public CompletableFuture<Document> findMovieById(ObjectId id) {
+        return timed(Operation.FIND_MOVIE_BY_ID, () -> first(moviesCollection.find(Filters.eq("_id", id)).first()));
+    }
+
+    /**
+     * Read - Find a movie by ID, decoding only the requested fields
+     */
+    public CompletableFuture<Movie> findMovieById(ObjectId id, MovieFields... fields) {
+        return timed(Operation.FIND_MOVIE_BY_ID, () -> first(typedMoviesCollection
+                .find(Filters.eq("_id", id))
+                .projection(MovieFields.projection(fields))
+                .first()));
+    }
+
+    /**
+     * Read - Find several movies by ID in one round trip ($in). Duplicate IDs are sent once;
+     * IDs with no movie are absent from the returned map.
+     */
+    public CompletableFuture<Map<ObjectId, Document>> findMoviesByIds(Collection<ObjectId> ids) {
+        if (ids.isEmpty()) {
+            return CompletableFuture.completedFuture(new HashMap<>());
+        }
+        return timed(Operation.FIND_MOVIES_BY_IDS, () -> {
+            Set<ObjectId> distinct = new LinkedHashSet<>(ids);
+            return all(moviesCollection.find(Filters.in("_id", distinct)).batchSize(distinct.size()))
+                    .thenApply(found -> {
+                        Map<ObjectId, Document> movies = new HashMap<>(distinct.size() * 2);
+                        for (Document movie : found) {
+                            movies.put(movie.getObjectId("_id"), movie);
+                        }
+                        return movies;
+                    });
+        });
+    }
+
+    /**
+     * Read - Find movies by title (case-insensitive partial match)
+     */
+    public CompletableFuture<List<Document>> findMoviesByTitle(String title) {
+        return findMoviesByTitle(title, TitleSearchMode.REGEX);
+    }
+
+    /**
+     * Read - Find movies by title using the given search mode
+     */
+    public CompletableFuture<List<Document>> findMoviesByTitle(String title, TitleSearchMode mode) {
+        return timed(Operation.FIND_MOVIES_BY_TITLE, () ->
+                all(moviesCollection.find(MovieRepository.titleFilter(title, mode))));
+    }
+
+    /**
+     * Read - Find movies by title (case-insensitive partial match), decoding only the requested fields
+     */
+    public CompletableFuture<List<Movie>> findMoviesByTitle(String title, MovieFields... fields) {
+        return findMoviesByTitle(title, TitleSearchMode.REGEX, fields);
+    }
+
+    /**
+     * Read - Find movies by title using the given search mode, decoding only the requested fields
+     */
+    public CompletableFuture<List<Movie>> findMoviesByTitle(String title, TitleSearchMode mode, MovieFields... fields) {
+        return timed(Operation.FIND_MOVIES_BY_TITLE, () -> all(typedMoviesCollection
+                .find(MovieRepository.titleFilter(title, mode))
+                .projection(MovieFields.projection(fields))));
+    }
+
+    /**
+     * Read - Find movies by year
+     */
+    public CompletableFuture<List<Document>> findMoviesByYear(int year) {
+        return timed(Operation.FIND_MOVIES_BY_YEAR, () -> all(moviesCollection.find(Filters.eq("year", year))));
+    }
+
+    /**
+     * Read - Find movies by year, decoding only the requested fields
+     */
+    public CompletableFuture<List<Movie>> findMoviesByYear(int year, MovieFields... fields) {
+        return timed(Operation.FIND_MOVIES_BY_YEAR, () -> all(typedMoviesCollection
+                .find(Filters.eq("year", year))
+                .projection(MovieFields.projection(fields))));
+    }
+
+    /**
+     * Read - Find movies by genre (limited to 10)
+     */
+    public CompletableFuture<List<Document>> findMoviesByGenre(String genre) {
+        return timed(Operation.FIND_MOVIES_BY_GENRE, () ->
+                all(moviesCollection.find(Filters.in("genres", genre)).limit(10)));
+    }
+
+    /**
+     * Read - Find movies by genre (limited to 10), decoding only the requested fields
+     */
+    public CompletableFuture<List<Movie>> findMoviesByGenre(String genre, MovieFields... fields) {
+        return timed(Operation.FIND_MOVIES_BY_GENRE, () -> all(typedMoviesCollection
+                .find(Filters.in("genres", genre))
+                .projection(MovieFields.projection(fields))
+                .limit(10)));
+    }
+
+    /**
+     * Read - Get all movies (with limit)
+     */
+    public CompletableFuture<List<Document>> getAllMovies(int limit) {
+        return timed(Operation.GET_ALL_MOVIES, () -> all(moviesCollection.find().limit(limit)));
+    }
+
+    /**
+     * Read - Get all movies (with limit), decoding only the requested fields
+     */
+    public CompletableFuture<List<Movie>> getAllMovies(int limit, MovieFields... fields) {
+        return timed(Operation.GET_ALL_MOVIES, () -> all(typedMoviesCollection
+                .find()
+                .projection(MovieFields.projection(fields))
+                .limit(limit)));
+    }
+
+    /**
+     * Read - One page of all movies in _id order; see {@link MovieRepository#getMoviesPage}
+     */
+    public CompletableFuture<MoviePage> getMoviesPage(int pageSize, String pageToken) {
+        return timed(Operation.GET_MOVIES_PAGE, () -> all(moviesCollection
+                .find(MovieRepository.moviesPageFilter(pageToken))
+                .sort(MovieRepository.MOVIES_PAGE_SORT)
+                .limit(MovieRepository.checkPageSize(pageSize) + 1))
+                .thenApply(movies -> MovieRepository.toPage(movies, pageSize, MovieRepository.MOVIES_PAGE_KEY)));
+    }
+
+    /**
+     * Read - One page of a genre's movies ordered by (year, _id); see {@link MovieRepository#findMoviesByGenrePage}
+     */
+    public CompletableFuture<MoviePage> findMoviesByGenrePage(String genre, int pageSize, String pageToken) {
+        return timed(Operation.FIND_MOVIES_BY_GENRE_PAGE, () -> all(moviesCollection
+                .find(MovieRepository.genrePageFilter(genre, pageToken))
+                .sort(MovieRepository.GENRE_PAGE_SORT)
+                .limit(MovieRepository.checkPageSize(pageSize) + 1))
+                .thenApply(movies -> MovieRepository.toPage(movies, pageSize, MovieRepository.GENRE_PAGE_KEY)));
+    }
+
+    /**
+     * Update - Update a movie's rating
+     */
+    public CompletableFuture<Long> updateMovieRating(ObjectId id, Object rating) {
+        return timed(Operation.UPDATE_MOVIE_RATING, () -> first(moviesCollection
+                .updateOne(Filters.eq("_id", id), Updates.set("imdb.rating", rating)))
+                .thenApply(UpdateResult::getModifiedCount));
+    }
+
+    /**
+     * Update - Add a genre to a movie
+     */
+    public CompletableFuture<Long> addGenreToMovie(ObjectId id, String genre) {
+        return timed(Operation.ADD_GENRE_TO_MOVIE, () -> first(moviesCollection
+                .updateOne(Filters.eq("_id", id), Updates.addToSet("genres", genre)))
+                .thenApply(UpdateResult::getModifiedCount));
+    }
+
+    /**
+     * Delete - Delete a movie by ID
+     */
+    public CompletableFuture<Long> deleteMovieById(ObjectId id) {
+        return timed(Operation.DELETE_MOVIE_BY_ID, () -> first(moviesCollection.deleteOne(Filters.eq("_id", id)))
+                .thenApply(DeleteResult::getDeletedCount));
+    }
+
+    /**
+     * Count total movies
+     */
+    public CompletableFuture<Long> countMovies() {
+        return timed(Operation.COUNT_MOVIES, () -> first(moviesCollection.countDocuments()));
+    }
+
+    /**
+     * Count movies by filter
+     */
+    public CompletableFuture<Long> countMoviesByYear(int year) {
+        return timed(Operation.COUNT_MOVIES_BY_YEAR, () -> first(moviesCollection.countDocuments(Filters.eq("year", year))));
+    }
+
+    /**
+     * Records the operation once its future completes; a call that throws before returning one
+     * (e.g. an invalid page token) completes exceptionally instead
+     */
+    private <T> CompletableFuture<T> timed(Operation operation, Supplier<CompletableFuture<T>> call) {
+        long start = System.nanoTime();
+        CompletableFuture<T> result;
+        try {
+            result = call.get();
+        } catch (RuntimeException e) {
+            metrics.record(operation, System.nanoTime() - start, e);
+            return CompletableFuture.failedFuture(e);
+        }
+        result.whenComplete((value, error) -> metrics.record(operation, System.nanoTime() - start,
+                error instanceof CompletionException && error.getCause() != null ? error.getCause() : error));
+        return result;
+    }
+
+    /**
+     * Every item the publisher emits
+     */
+    private static <T> CompletableFuture<List<T>> all(Publisher<T> publisher) {
+        CollectingSubscriber<T> subscriber = new CollectingSubscriber<>();
+        publisher.subscribe(subscriber);
+        return subscriber.result;
+    }
+
+    /**
+     * The single item of a publisher that emits at most one; null when it emits none
+     */
+    private static <T> CompletableFuture<T> first(Publisher<T> publisher) {
+        return all(publisher).thenApply(items -> items.isEmpty() ? null : items.get(0));
+    }
+
+    /**
+     * Requests everything and completes result with the items once the publisher completes
+     */
+    private static final class CollectingSubscriber<T> implements Subscriber<T> {
+        private final CompletableFuture<List<T>> result = new CompletableFuture<>();
+        private final List<T> items = new ArrayList<>();
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            subscription.request(Long.MAX_VALUE);
+        }
+
+        @Override
+        public void onNext(T item) {
+            // signals are serial (reactive-streams rule 1.3), so the list needs no lock
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            result.completeExceptionally(error);
+        }
+
+        @Override
+        public void onComplete() {
+            result.complete(items);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.app;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * MovieRepository that serves findMovieById and findMoviesByIds from a read-through {@link MovieCache}.
+ * Writes made through this repository invalidate the affected entry; writes made any other
+ * way (other processes, a MovieBulkWriter) are only picked up once the entry expires.
+ */
+public class CachingMovieRepository extends MovieRepository {
+    private final MovieCache cache;
+
+    public CachingMovieRepository(MongoDatabase database, MovieCache cache) {
+        this(database, cache, new RepositoryMetrics());
+    }
+
+    /**
+     * Cache hits are not timed; the findMovieById latency covers the server reads behind misses
+     */
+    public CachingMovieRepository(MongoDatabase database, MovieCache cache, RepositoryMetrics metrics) {
+        super(database, metrics);
+        this.cache = cache;
+    }
+
+    private CachingMovieRepository(CachingMovieRepository base, MongoCollection<Document> moviesCollection) {
+        super(base, moviesCollection);
+        this.cache = base.cache;
+    }
+
+    public MovieCache getCache() {
+        return cache;
+    }
+
+    /**
+     * Views share the cache, so a timeout or read preference only applies to cache misses
+     */
+    @Override
+    protected MovieRepository derive(MongoCollection<Document> moviesCollection) {
+        return new CachingMovieRepository(this, moviesCollection);
+    }
+
+    /**
+     * Read - Find a movie by ID, going to the server only on a cache miss
+     */
+    @Override
+    public Document findMovieById(ObjectId id) {
+        Document cached = cache.get(id);
+        if (cached != null) {
+            return cached;
+        }
+        long loadToken = cache.loadToken();
+        Document movie = super.findMovieById(id);
+        if (movie != null) {
+            cache.put(id, movie, loadToken);
+        }
+        return movie;
+    }
+
+    /**
+     * Read - Find several movies by ID, querying the server only for the cache misses
+     */
+    @Override
+    public Map<ObjectId, Document> findMoviesByIds(Collection<ObjectId> ids) {
+        Map<ObjectId, Document> movies = new HashMap<>();
+        List<ObjectId> misses = new ArrayList<>();
+        for (ObjectId id : ids) {
+            Document cached = cache.get(id);
+            if (cached != null) {
+                movies.put(id, cached);
+            } else {
+                misses.add(id);
+            }
+        }
+        if (misses.isEmpty()) {
+            return movies;
+        }
+        long loadToken = cache.loadToken();
+        Map<ObjectId, Document> loaded = super.findMoviesByIds(misses);
+        loaded.forEach((id, movie) -> cache.put(id, movie, loadToken));
+        movies.putAll(loaded);
+        return movies;
+    }
+
+    @Override
+    public long updateMovieRating(ObjectId id, Object rating) {
+        try {
+            return super.updateMovieRating(id, rating);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public long addGenreToMovie(ObjectId id, String genre) {
+        try {
+            return super.addGenreToMovie(id, genre);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+
+    @Override
+    public long deleteMovieById(ObjectId id) {
+        try {
+            return super.deleteMovieById(id);
+        } finally {
+            cache.invalidate(id);
+        }
+    }
+}
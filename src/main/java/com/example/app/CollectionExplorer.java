@@ -0,0 +1,172 @@
+package com.example.app;
+
+import com.mongodb.MongoException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Explores every collection of a database concurrently: a document count and one sample
+ * document per collection, as App prints at startup.
+ *
+ * Collections are explored on virtual threads when the JVM provides them (Java 21+) and on a
+ * fixed pool of platform threads otherwise; either way at most {@code concurrency} collections
+ * are queried at once. Counts come from estimatedDocumentCount() (collection metadata, no scan)
+ * unless exact counts are requested. A failure on one collection is reported in its summary and
+ * does not stop the others.
+ */
+public class CollectionExplorer {
+
+    /**
+     * Exploration settings, read from config.properties:
+     *
+     *   app.explore.concurrency   collections queried at once (8)
+     *   app.explore.exactCounts   use countDocuments() instead of estimatedDocumentCount() (false)
+     */
+    public record Settings(int concurrency, boolean exactCounts) {
+
+        public static Settings defaults() {
+            return from(new Properties());
+        }
+
+        public static Settings from(Properties properties) {
+            return new Settings(
+                    MongoClientTuning.intProperty(properties, "app.explore.concurrency", 8, 1),
+                    MongoClientTuning.booleanProperty(properties, "app.explore.exactCounts", false));
+        }
+    }
+
+    /**
+     * What was learned about one collection. sample is null for an empty collection;
+     * error is non-null (and the other fields empty) when the collection could not be read.
+     */
+    public record CollectionSummary(
+            String name,
+            long documentCount,
+            boolean exactCount,
+            Document sample,
+            long elapsedMillis,
+            String error) {
+    }
+
+    /**
+     * Summaries in listCollectionNames() order, plus the wall-clock time of the whole phase
+     */
+    public record ExplorationReport(
+            List<CollectionSummary> collections,
+            long elapsedMillis,
+            boolean virtualThreads,
+            int concurrency) {
+
+        /**
+         * Sum of the per-collection times, i.e. roughly what a sequential exploration would take
+         */
+        public long sequentialMillis() {
+            return collections.stream().mapToLong(CollectionSummary::elapsedMillis).sum();
+        }
+    }
+
+    private final MongoDatabase database;
+    private final Settings settings;
+
+    public CollectionExplorer(MongoDatabase database, Settings settings) {
+        this.database = database;
+        this.settings = settings;
+    }
+
+    public ExplorationReport explore() {
+        long start = System.nanoTime();
+        List<String> collectionNames = new ArrayList<>();
+        database.listCollectionNames().into(collectionNames);
+
+        Semaphore permits = new Semaphore(settings.concurrency());
+        ExecutorService virtualThreads = newVirtualThreadExecutor();
+        ExecutorService executor = virtualThreads != null
+                ? virtualThreads
+                : Executors.newFixedThreadPool(Math.max(1, Math.min(settings.concurrency(), collectionNames.size())),
+                        runnable -> {
+                            Thread thread = new Thread(runnable, "collection-explorer");
+                            thread.setDaemon(true);
+                            return thread;
+                        });
+
+        List<CollectionSummary> summaries = new ArrayList<>(collectionNames.size());
+        try {
+            List<Future<CollectionSummary>> futures = new ArrayList<>(collectionNames.size());
+            for (String name : collectionNames) {
+                futures.add(executor.submit(() -> {
+                    permits.acquire();
+                    try {
+                        return explore(name);
+                    } finally {
+                        permits.release();
+                    }
+                }));
+            }
+            for (Future<CollectionSummary> future : futures) {
+                summaries.add(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoInterruptedException("Interrupted while exploring collections", e);
+        } catch (ExecutionException e) {
+            // explore(name) records its own failures; an interrupted permit wait or an Error ends up here
+            Throwable cause = e.getCause();
+            if (cause instanceof Error error) {
+                throw error;
+            }
+            if (cause instanceof InterruptedException interrupted) {
+                Thread.currentThread().interrupt();
+                throw new MongoInterruptedException("Interrupted while exploring collections", interrupted);
+            }
+            throw new IllegalStateException("Exploring collections failed", cause);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        return new ExplorationReport(List.copyOf(summaries), elapsedMillis, virtualThreads != null,
+                settings.concurrency());
+    }
+
+    private CollectionSummary explore(String name) {
+        long start = System.nanoTime();
+        try {
+            MongoCollection<Document> collection = database.getCollection(name);
+            long count = settings.exactCounts() ? collection.countDocuments() : collection.estimatedDocumentCount();
+            Document sample = collection.find().limit(1).first();
+            return new CollectionSummary(name, count, settings.exactCounts(), sample, elapsedMillis(start), null);
+        } catch (RuntimeException e) {
+            // anything other than a server error is a bug; keep its type in the report
+            String error = e instanceof MongoException ? e.getMessage() : e.toString();
+            return new CollectionSummary(name, 0, settings.exactCounts(), null, elapsedMillis(start), error);
+        }
+    }
+
+    private static long elapsedMillis(long startNanos) {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+    }
+
+    /**
+     * Executors.newVirtualThreadPerTaskExecutor() when running on Java 21+, null otherwise.
+     * Looked up reflectively so the project still compiles for Java 17.
+     */
+    static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+}
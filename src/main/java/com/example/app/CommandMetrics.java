@@ -0,0 +1,126 @@
+package com.example.app;
+
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandListener;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonBinaryWriter;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.EncoderContext;
+import org.bson.io.BasicOutputBuffer;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Driver CommandListener recording, per command name (find, getMore, insert, aggregate, ...),
+ * the command duration as seen on the connection (send to reply, no decoding) and, optionally,
+ * the reply size.
+ *
+ * Measuring a reply size re-encodes the reply document, which costs roughly as much as decoding
+ * it, so it is off by default. new CommandMetrics(n) measures every n-th reply of each command
+ * (1 = all of them); sizes and means are over the measured replies only.
+ */
+public class CommandMetrics implements CommandListener {
+
+    /**
+     * Duration in nanoseconds of succeeded and failed commands, failures, and the number and total
+     * bytes of the replies measured
+     */
+    public record CommandSnapshot(LatencyHistogram.Snapshot duration, long failures, long replySamples,
+                                  long replyBytes, long maxReplyBytes) {
+
+        public double meanReplyBytes() {
+            return replySamples == 0 ? 0 : (double) replyBytes / replySamples;
+        }
+    }
+
+    private static final class CommandStats {
+        final LatencyHistogram duration = new LatencyHistogram();
+        final LongAdder failures = new LongAdder();
+        final AtomicLong replies = new AtomicLong();
+        final LongAdder replySamples = new LongAdder();
+        final LongAdder replyBytes = new LongAdder();
+        final AtomicLong maxReplyBytes = new AtomicLong();
+    }
+
+    // Largest scratch buffer kept per thread; bigger replies use a throwaway one
+    private static final int MAX_RETAINED_BUFFER_BYTES = 1024 * 1024;
+    private static final ThreadLocal<BasicOutputBuffer> REPLY_BUFFER = ThreadLocal.withInitial(BasicOutputBuffer::new);
+    private static final BsonDocumentCodec REPLY_CODEC = new BsonDocumentCodec();
+
+    private final Map<String, CommandStats> commands = new ConcurrentHashMap<>();
+    private final int replySampleEvery;
+
+    public CommandMetrics() {
+        this(0);
+    }
+
+    /**
+     * @param replySampleEvery measure the size of every n-th reply per command; 0 measures none
+     */
+    public CommandMetrics(int replySampleEvery) {
+        if (replySampleEvery < 0) {
+            throw new IllegalArgumentException("replySampleEvery must not be negative: " + replySampleEvery);
+        }
+        this.replySampleEvery = replySampleEvery;
+    }
+
+    @Override
+    public void commandSucceeded(CommandSucceededEvent event) {
+        CommandStats stats = commands.computeIfAbsent(event.getCommandName(), name -> new CommandStats());
+        stats.duration.record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        if (replySampleEvery > 0 && event.getResponse() != null
+                && stats.replies.getAndIncrement() % replySampleEvery == 0) {
+            long size = replySize(event.getResponse());
+            stats.replySamples.increment();
+            stats.replyBytes.add(size);
+            if (size > stats.maxReplyBytes.get()) {
+                stats.maxReplyBytes.accumulateAndGet(size, Math::max);
+            }
+        }
+    }
+
+    @Override
+    public void commandFailed(CommandFailedEvent event) {
+        CommandStats stats = commands.computeIfAbsent(event.getCommandName(), name -> new CommandStats());
+        stats.duration.record(event.getElapsedTime(TimeUnit.NANOSECONDS));
+        stats.failures.increment();
+    }
+
+    /**
+     * Commands seen so far, keyed by command name
+     */
+    public Map<String, CommandSnapshot> snapshot() {
+        Map<String, CommandSnapshot> snapshot = new TreeMap<>();
+        commands.forEach((name, stats) -> snapshot.put(name, new CommandSnapshot(
+                stats.duration.snapshot(), stats.failures.sum(), stats.replySamples.sum(), stats.replyBytes.sum(),
+                stats.maxReplyBytes.get())));
+        return snapshot;
+    }
+
+    /**
+     * Encoded size of the reply. The driver hands listeners a view over the wire bytes that is
+     * only valid during the callback, so it is measured here rather than kept.
+     */
+    static long replySize(BsonDocument reply) {
+        if (reply instanceof RawBsonDocument raw) {
+            return raw.getByteBuffer().remaining();
+        }
+        BasicOutputBuffer buffer = REPLY_BUFFER.get();
+        buffer.truncateToPosition(0);
+        try (BsonBinaryWriter writer = new BsonBinaryWriter(buffer)) {
+            REPLY_CODEC.encode(writer, reply, EncoderContext.builder().build());
+        }
+        int size = buffer.getPosition();
+        if (size > MAX_RETAINED_BUFFER_BYTES) {
+            REPLY_BUFFER.remove();
+        }
+        return size;
+    }
+}
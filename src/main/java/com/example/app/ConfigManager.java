@@ -2,6 +2,9 @@ package com.example.app;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
 import java.util.Properties;
 
 public class ConfigManager {
@@ -38,9 +41,57 @@ public class ConfigManager {
         return properties.getProperty("db.name");
     }
 
+    /**
+     * Pool and transport settings (db.pool.*, db.*TimeoutMs, db.compressors, db.readPreference,
+     * db.writeConcern), validated; see {@link MongoClientTuning} for keys and defaults
+     */
+    public static MongoClientTuning getClientTuning() {
+        return MongoClientTuning.from(properties);
+    }
+
+    /**
+     * Startup exploration settings (app.explore.*); see {@link CollectionExplorer.Settings}
+     */
+    public static CollectionExplorer.Settings getExploreSettings() {
+        return CollectionExplorer.Settings.from(properties);
+    }
+
+    /**
+     * Read time budget and hedging (app.read.*); see {@link MovieReadPolicy}
+     */
+    public static MovieReadPolicy getReadPolicy() {
+        return MovieReadPolicy.from(properties);
+    }
+
+    /**
+     * Workload for the load generator (app.load.*); see {@link LoadGenerator.Settings}
+     */
+    public static LoadGenerator.Settings getLoadSettings() {
+        return LoadGenerator.Settings.from(properties);
+    }
+
+    /**
+     * Measure the size of every n-th reply per driver command (app.metrics.replySizeSampleEvery);
+     * 0, the default, measures none; see {@link CommandMetrics}
+     */
+    public static int getReplySizeSampleEvery() {
+        return MongoClientTuning.intProperty(properties, "app.metrics.replySizeSampleEvery", 0, 0);
+    }
+
+    /**
+     * Snapshot file the materialized view starts from (app.view.snapshotFile), or null when unset
+     */
+    public static Path getViewSnapshotFile() {
+        String file = properties.getProperty("app.view.snapshotFile");
+        return file == null || file.isBlank() ? null : Path.of(file.trim());
+    }
+
+    /**
+     * Atlas connection string, with user and password URL-encoded
+     */
     public static String getConnectionString() {
-        String user = getDbUser();
-        String password = getDbPassword();
+        String user = URLEncoder.encode(getDbUser(), StandardCharsets.UTF_8);
+        String password = URLEncoder.encode(getDbPassword(), StandardCharsets.UTF_8);
         String host = getDbHost();
         String dbName = getDbName();
         
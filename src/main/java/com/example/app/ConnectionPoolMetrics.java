@@ -0,0 +1,117 @@
+package com.example.app;
+
+import com.mongodb.event.ConnectionCheckOutFailedEvent;
+import com.mongodb.event.ConnectionCheckedInEvent;
+import com.mongodb.event.ConnectionCheckedOutEvent;
+import com.mongodb.event.ConnectionClosedEvent;
+import com.mongodb.event.ConnectionCreatedEvent;
+import com.mongodb.event.ConnectionPoolClearedEvent;
+import com.mongodb.event.ConnectionPoolListener;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records driver connection pool events, summed over all servers, so pool sizes can be chosen
+ * from observed checkout waits and peak concurrency rather than guessed.
+ */
+public class ConnectionPoolMetrics implements ConnectionPoolListener {
+
+    /**
+     * Point-in-time copy of the counters
+     */
+    public record Snapshot(
+            long connectionsCreated,
+            long connectionsClosed,
+            long checkedOut,
+            long checkOutFailures,
+            Map<ConnectionCheckOutFailedEvent.Reason, Long> checkOutFailuresByReason,
+            long inUse,
+            long peakInUse,
+            long poolClears,
+            double meanCheckOutWaitMillis,
+            double maxCheckOutWaitMillis) {
+
+        public long openConnections() {
+            return connectionsCreated - connectionsClosed;
+        }
+    }
+
+    private final LongAdder connectionsCreated = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+    private final LongAdder checkedOut = new LongAdder();
+    private final LongAdder poolClears = new LongAdder();
+    private final LongAdder checkOutWaitNanos = new LongAdder();
+    private final AtomicLong maxCheckOutWaitNanos = new AtomicLong();
+    private final AtomicLong inUse = new AtomicLong();
+    private final AtomicLong peakInUse = new AtomicLong();
+    private final Map<ConnectionCheckOutFailedEvent.Reason, LongAdder> failures =
+            new EnumMap<>(ConnectionCheckOutFailedEvent.Reason.class);
+
+    public ConnectionPoolMetrics() {
+        for (ConnectionCheckOutFailedEvent.Reason reason : ConnectionCheckOutFailedEvent.Reason.values()) {
+            failures.put(reason, new LongAdder());
+        }
+    }
+
+    @Override
+    public void connectionCreated(ConnectionCreatedEvent event) {
+        connectionsCreated.increment();
+    }
+
+    @Override
+    public void connectionClosed(ConnectionClosedEvent event) {
+        connectionsClosed.increment();
+    }
+
+    @Override
+    public void connectionPoolCleared(ConnectionPoolClearedEvent event) {
+        poolClears.increment();
+    }
+
+    @Override
+    public void connectionCheckedOut(ConnectionCheckedOutEvent event) {
+        checkedOut.increment();
+        long waited = event.getElapsedTime(TimeUnit.NANOSECONDS);
+        checkOutWaitNanos.add(waited);
+        maxCheckOutWaitNanos.accumulateAndGet(waited, Math::max);
+        long current = inUse.incrementAndGet();
+        peakInUse.accumulateAndGet(current, Math::max);
+    }
+
+    @Override
+    public void connectionCheckedIn(ConnectionCheckedInEvent event) {
+        inUse.decrementAndGet();
+    }
+
+    @Override
+    public void connectionCheckOutFailed(ConnectionCheckOutFailedEvent event) {
+        failures.get(event.getReason()).increment();
+    }
+
+    public Snapshot snapshot() {
+        Map<ConnectionCheckOutFailedEvent.Reason, Long> failuresByReason =
+                new EnumMap<>(ConnectionCheckOutFailedEvent.Reason.class);
+        long totalFailures = 0;
+        for (Map.Entry<ConnectionCheckOutFailedEvent.Reason, LongAdder> entry : failures.entrySet()) {
+            long count = entry.getValue().sum();
+            failuresByReason.put(entry.getKey(), count);
+            totalFailures += count;
+        }
+        long checkOuts = checkedOut.sum();
+        return new Snapshot(
+                connectionsCreated.sum(),
+                connectionsClosed.sum(),
+                checkOuts,
+                totalFailures,
+                failuresByReason,
+                inUse.get(),
+                peakInUse.get(),
+                poolClears.sum(),
+                checkOuts == 0 ? 0 : checkOutWaitNanos.sum() / 1e6 / checkOuts,
+                maxCheckOutWaitNanos.get() / 1e6);
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.app;
+
+import com.example.app.RepositoryMetrics.Operation;
+import com.mongodb.MongoException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.ReadPreference;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Hedged secondaryPreferred reads: when a read has not answered within the configured latency
+ * percentile of its operation (p95 by default, never sooner than the minimum delay), the same
+ * read is sent again and whichever answers first is returned. Server selection picks randomly
+ * among the eligible members, so the second read usually lands on another replica and a single
+ * slow member no longer holds up the caller. At most one extra read is sent per call.
+ *
+ * Both reads run on the given executor while the caller waits. The slower one cannot be
+ * cancelled mid-flight and finishes in the background; the policy's timeout bounds each of them.
+ * With hedging disabled, reads run on the caller's thread exactly as on the repository.
+ * Hedges and hedges won by the second read are recorded in the repository's metrics.
+ */
+public class HedgedMovieReader {
+
+    /**
+     * Latencies needed before the percentile replaces the minimum delay
+     */
+    static final int MIN_SAMPLES = 20;
+    private static final long DELAY_REFRESH_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private record HedgeDelay(long nanos, long computedAt) {
+    }
+
+    private record Answer<T>(T value, boolean fromSecond) {
+    }
+
+    private final MovieRepository repository;
+    private final RepositoryMetrics metrics;
+    private final MovieReadPolicy policy;
+    private final Executor executor;
+    private final Map<Operation, HedgeDelay> delays = new ConcurrentHashMap<>();
+
+    /**
+     * Reads go through repository with secondaryPreferred and the policy's timeout applied
+     */
+    public HedgedMovieReader(MovieRepository repository, MovieReadPolicy policy, Executor executor) {
+        this.repository = policy.applyTo(repository.withReadPreference(ReadPreference.secondaryPreferred()));
+        this.metrics = repository.getMetrics();
+        this.policy = policy;
+        this.executor = executor;
+    }
+
+    public Document findMovieById(ObjectId id) {
+        return hedge(Operation.FIND_MOVIE_BY_ID, () -> repository.findMovieById(id));
+    }
+
+    public Movie findMovieById(ObjectId id, MovieFields... fields) {
+        return hedge(Operation.FIND_MOVIE_BY_ID, () -> repository.findMovieById(id, fields));
+    }
+
+    public Map<ObjectId, Document> findMoviesByIds(Collection<ObjectId> ids) {
+        return hedge(Operation.FIND_MOVIES_BY_IDS, () -> repository.findMoviesByIds(ids));
+    }
+
+    public List<Document> findMoviesByYear(int year) {
+        return hedge(Operation.FIND_MOVIES_BY_YEAR, () -> repository.findMoviesByYear(year));
+    }
+
+    public List<Document> findMoviesByGenre(String genre) {
+        return hedge(Operation.FIND_MOVIES_BY_GENRE, () -> repository.findMoviesByGenre(genre));
+    }
+
+    /**
+     * How long a read of this operation may take before it is hedged; refreshed at most once a second
+     */
+    long hedgeDelayNanos(Operation operation) {
+        long now = System.nanoTime();
+        HedgeDelay delay = delays.get(operation);
+        if (delay == null || now - delay.computedAt() >= DELAY_REFRESH_NANOS) {
+            long minNanos = policy.hedgeMinDelay().toNanos();
+            LatencyHistogram latency = metrics.latency(operation);
+            long nanos = latency.count() < MIN_SAMPLES
+                    ? minNanos
+                    : Math.max(minNanos, latency.valueAtQuantile(policy.hedgePercentile() / 100.0));
+            delay = new HedgeDelay(nanos, now);
+            delays.put(operation, delay);
+        }
+        return delay.nanos();
+    }
+
+    private <T> T hedge(Operation operation, Supplier<T> read) {
+        if (!policy.hedgeEnabled()) {
+            return read.get();
+        }
+        CompletableFuture<T> first = CompletableFuture.supplyAsync(read, executor);
+        try {
+            return first.get(hedgeDelayNanos(operation), TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            // Slower than the percentile: send the second read below
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoInterruptedException("Interrupted while waiting for a read", e);
+        }
+
+        CompletableFuture<T> second = CompletableFuture.supplyAsync(read, executor);
+        CompletableFuture<Answer<T>> answer = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        first.whenComplete((value, error) -> settle(answer, failures, value, error, false));
+        second.whenComplete((value, error) -> settle(answer, failures, value, error, true));
+        try {
+            Answer<T> result = answer.get();
+            metrics.recordHedge(operation, result.fromSecond());
+            return result.value();
+        } catch (ExecutionException e) {
+            metrics.recordHedge(operation, false);
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoInterruptedException("Interrupted while waiting for a hedged read", e);
+        }
+    }
+
+    /**
+     * The first success wins; the call fails only when both reads failed, with the second failure
+     */
+    private static <T> void settle(CompletableFuture<Answer<T>> answer, AtomicInteger failures,
+                                   T value, Throwable error, boolean fromSecond) {
+        if (error == null) {
+            answer.complete(new Answer<>(value, fromSecond));
+        } else if (failures.incrementAndGet() == 2) {
+            answer.completeExceptionally(error);
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable error) {
+        Throwable cause = error;
+        while (cause instanceof CompletionException && cause.getCause() != null) {
+            cause = cause.getCause();
+        }
+        return cause instanceof RuntimeException runtime
+                ? runtime
+                : new MongoException("Hedged read failed", cause);
+    }
+}
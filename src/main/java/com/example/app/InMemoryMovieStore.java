@@ -0,0 +1,548 @@
+package com.example.app;
+
+import com.example.app.RepositoryMetrics.Operation;
+import com.mongodb.MongoWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.WriteError;
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * MovieStore held entirely on the heap, for tests, offline runs of the application and
+ * load tests that should measure the caller rather than the network.
+ *
+ * Movies are kept in a concurrent hash map by _id, with concurrent hash indexes from year and
+ * from genre to _id and an ordered _id set for pagination. A movie and its index entries change
+ * together under the map's per-key lock, and a changed movie is replaced rather than modified,
+ * so readers never see a half-applied update. Lookups by year and genre go through the indexes;
+ * title searches scan every movie, as the unanchored regex does on the server.
+ *
+ * Matching follows MongoDB: years match numerically (2010.0 is 2010, "1999è" is never a year),
+ * genres may be an array or a single string, and updates report 0 modified when nothing changed.
+ * TitleSearchMode.TEXT matches titles containing the search text; it does not reproduce the text
+ * index's stop-word handling.
+ */
+public class InMemoryMovieStore implements MovieStore {
+
+    private static final int GENRE_LIMIT = 10;
+    private static final MovieCodec MOVIE_CODEC = new MovieCodec();
+    private static final Comparator<Document> YEAR_THEN_ID = Comparator
+            .comparingDouble((Document movie) -> ((Number) movie.get("year")).doubleValue())
+            .thenComparing(movie -> movie.getObjectId("_id"));
+
+    private final ConcurrentMap<ObjectId, Document> byId = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, Set<ObjectId>> byYear = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Set<ObjectId>> byGenre = new ConcurrentHashMap<>();
+    private final ConcurrentSkipListSet<ObjectId> idOrder = new ConcurrentSkipListSet<>();
+    private final RepositoryMetrics metrics;
+
+    public InMemoryMovieStore() {
+        this(new RepositoryMetrics());
+    }
+
+    public InMemoryMovieStore(RepositoryMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public RepositoryMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public ObjectId createMovie(Document movie) {
+        return metrics.time(Operation.CREATE_MOVIE, () -> {
+            Object rawId = movie.get("_id");
+            if (rawId == null) {
+                rawId = new ObjectId();
+                movie.put("_id", rawId);
+            }
+            if (!(rawId instanceof ObjectId id)) {
+                throw new IllegalArgumentException("_id must be an ObjectId: " + rawId);
+            }
+            MovieRepository.addNormalizedTitle(movie);
+            Document stored = copy(movie);
+            byId.compute(id, (key, existing) -> {
+                if (existing != null) {
+                    throw duplicateKey(id);
+                }
+                index(stored);
+                return stored;
+            });
+            return id;
+        });
+    }
+
+    @Override
+    public Document findMovieById(ObjectId id) {
+        return metrics.time(Operation.FIND_MOVIE_BY_ID, () -> copyOrNull(byId.get(id)));
+    }
+
+    @Override
+    public Map<ObjectId, Document> findMoviesByIds(Collection<ObjectId> ids) {
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        return metrics.time(Operation.FIND_MOVIES_BY_IDS, () -> {
+            Map<ObjectId, Document> movies = new HashMap<>(ids.size() * 2);
+            for (ObjectId id : ids) {
+                Document movie = byId.get(id);
+                if (movie != null) {
+                    movies.putIfAbsent(id, copy(movie));
+                }
+            }
+            return movies;
+        });
+    }
+
+    @Override
+    public List<Document> findMoviesByTitle(String title) {
+        return findMoviesByTitle(title, TitleSearchMode.REGEX);
+    }
+
+    @Override
+    public List<Document> findMoviesByTitle(String title, TitleSearchMode mode) {
+        return metrics.time(Operation.FIND_MOVIES_BY_TITLE,
+                () -> copies(scan(titleMatcher(title, mode)), 0));
+    }
+
+    @Override
+    public List<Document> findMoviesByYear(int year) {
+        return metrics.time(Operation.FIND_MOVIES_BY_YEAR, () -> copies(moviesOfYear(year), 0));
+    }
+
+    @Override
+    public List<Document> findMoviesByGenre(String genre) {
+        return metrics.time(Operation.FIND_MOVIES_BY_GENRE, () -> copies(moviesOfGenre(genre), GENRE_LIMIT));
+    }
+
+    @Override
+    public List<Document> getAllMovies(int limit) {
+        return metrics.time(Operation.GET_ALL_MOVIES, () -> copies(byId.values(), limit));
+    }
+
+    @Override
+    public Movie findMovieById(ObjectId id, MovieFields... fields) {
+        return metrics.time(Operation.FIND_MOVIE_BY_ID, () -> {
+            Document movie = byId.get(id);
+            return movie == null ? null : project(movie, fields);
+        });
+    }
+
+    @Override
+    public List<Movie> findMoviesByTitle(String title, MovieFields... fields) {
+        return findMoviesByTitle(title, TitleSearchMode.REGEX, fields);
+    }
+
+    @Override
+    public List<Movie> findMoviesByTitle(String title, TitleSearchMode mode, MovieFields... fields) {
+        return metrics.time(Operation.FIND_MOVIES_BY_TITLE,
+                () -> projections(scan(titleMatcher(title, mode)), 0, fields));
+    }
+
+    @Override
+    public List<Movie> findMoviesByYear(int year, MovieFields... fields) {
+        return metrics.time(Operation.FIND_MOVIES_BY_YEAR, () -> projections(moviesOfYear(year), 0, fields));
+    }
+
+    @Override
+    public List<Movie> findMoviesByGenre(String genre, MovieFields... fields) {
+        return metrics.time(Operation.FIND_MOVIES_BY_GENRE,
+                () -> projections(moviesOfGenre(genre), GENRE_LIMIT, fields));
+    }
+
+    @Override
+    public List<Movie> getAllMovies(int limit, MovieFields... fields) {
+        return metrics.time(Operation.GET_ALL_MOVIES, () -> projections(byId.values(), limit, fields));
+    }
+
+    @Override
+    public MoviePage getMoviesPage(int pageSize, String pageToken) {
+        return metrics.time(Operation.GET_MOVIES_PAGE, () -> {
+            checkPageSize(pageSize);
+            Set<ObjectId> ids = idOrder;
+            if (pageToken != null) {
+                BsonValue lastId = PageToken.decode(pageToken).get("_id");
+                if (lastId == null || !lastId.isObjectId()) {
+                    throw new IllegalArgumentException("Invalid page token: " + pageToken);
+                }
+                ids = idOrder.tailSet(lastId.asObjectId().getValue(), false);
+            }
+            List<Document> movies = new ArrayList<>(pageSize + 1);
+            for (ObjectId id : ids) {
+                Document movie = byId.get(id);
+                if (movie != null) {
+                    movies.add(copy(movie));
+                    if (movies.size() > pageSize) {
+                        break;
+                    }
+                }
+            }
+            return page(movies, pageSize, List.of("_id"));
+        });
+    }
+
+    @Override
+    public MoviePage findMoviesByGenrePage(String genre, int pageSize, String pageToken) {
+        return metrics.time(Operation.FIND_MOVIES_BY_GENRE_PAGE, () -> {
+            checkPageSize(pageSize);
+            Predicate<Document> after = movie -> true;
+            if (pageToken != null) {
+                BsonDocument lastKey = PageToken.decode(pageToken);
+                BsonValue lastYear = lastKey.get("year");
+                BsonValue lastId = lastKey.get("_id");
+                if (lastYear == null || !lastYear.isNumber() || lastId == null || !lastId.isObjectId()) {
+                    throw new IllegalArgumentException("Invalid page token: " + pageToken);
+                }
+                double year = lastYear.asNumber().doubleValue();
+                ObjectId id = lastId.asObjectId().getValue();
+                after = movie -> {
+                    int byYear = Double.compare(((Number) movie.get("year")).doubleValue(), year);
+                    return byYear > 0 || (byYear == 0 && movie.getObjectId("_id").compareTo(id) > 0);
+                };
+            }
+            List<Document> movies = moviesOfGenre(genre).stream()
+                    .filter(movie -> movie.get("year") instanceof Number)
+                    .filter(after)
+                    .sorted(YEAR_THEN_ID)
+                    .limit(pageSize + 1L)
+                    .map(InMemoryMovieStore::copy)
+                    .collect(ArrayList::new, ArrayList::add, ArrayList::addAll);
+            return page(movies, pageSize, List.of("year", "_id"));
+        });
+    }
+
+    @Override
+    public Stream<Document> streamMoviesByTitle(String title, int batchSize) {
+        checkBatchSize(batchSize);
+        return scan(titleMatcher(title, TitleSearchMode.REGEX)).stream().map(InMemoryMovieStore::copy);
+    }
+
+    @Override
+    public Stream<Document> streamMoviesByYear(int year, int batchSize) {
+        checkBatchSize(batchSize);
+        return moviesOfYear(year).stream().map(InMemoryMovieStore::copy);
+    }
+
+    @Override
+    public Stream<Document> streamAllMovies(int limit, int batchSize) {
+        checkBatchSize(batchSize);
+        Stream<Document> movies = byId.values().stream();
+        return (limit > 0 ? movies.limit(limit) : movies).map(InMemoryMovieStore::copy);
+    }
+
+    @Override
+    public long updateMovieRating(ObjectId id, Object rating) {
+        return metrics.timeLong(Operation.UPDATE_MOVIE_RATING, () -> modify(id, movie -> {
+            Object imdb = movie.get("imdb");
+            if (imdb instanceof Document imdbDocument) {
+                if (imdbDocument.containsKey("rating") && Objects.equals(imdbDocument.get("rating"), rating)) {
+                    return false;
+                }
+                imdbDocument.put("rating", rating);
+            } else if (imdb == null) {
+                movie.put("imdb", new Document("rating", rating));
+            } else {
+                throw new IllegalArgumentException("imdb is not a document in movie " + id);
+            }
+            return true;
+        }));
+    }
+
+    @Override
+    public long addGenreToMovie(ObjectId id, String genre) {
+        return metrics.timeLong(Operation.ADD_GENRE_TO_MOVIE, () -> modify(id, movie -> {
+            Object genres = movie.get("genres");
+            if (genres == null) {
+                movie.put("genres", new ArrayList<>(List.of(genre)));
+                return true;
+            }
+            if (!(genres instanceof List<?> list)) {
+                throw new IllegalArgumentException("genres is not an array in movie " + id);
+            }
+            if (list.contains(genre)) {
+                return false;
+            }
+            List<Object> updated = new ArrayList<>(list);
+            updated.add(genre);
+            movie.put("genres", updated);
+            return true;
+        }));
+    }
+
+    @Override
+    public long deleteMovieById(ObjectId id) {
+        return metrics.timeLong(Operation.DELETE_MOVIE_BY_ID, () -> {
+            boolean[] deleted = {false};
+            byId.computeIfPresent(id, (key, existing) -> {
+                unindex(existing);
+                deleted[0] = true;
+                return null;
+            });
+            return deleted[0] ? 1 : 0;
+        });
+    }
+
+    @Override
+    public long countMovies() {
+        return metrics.timeLong(Operation.COUNT_MOVIES, byId::size);
+    }
+
+    @Override
+    public long countMoviesByYear(int year) {
+        return metrics.timeLong(Operation.COUNT_MOVIES_BY_YEAR, () -> {
+            Set<ObjectId> ids = byYear.get(year);
+            return ids == null ? 0 : ids.size();
+        });
+    }
+
+    /**
+     * Apply change to a copy of the movie and swap it in, re-indexing it, when change reports a modification
+     */
+    private long modify(ObjectId id, Predicate<Document> change) {
+        boolean[] modified = {false};
+        byId.computeIfPresent(id, (key, existing) -> {
+            Document updated = copy(existing);
+            if (!change.test(updated)) {
+                return existing;
+            }
+            unindex(existing);
+            index(updated);
+            modified[0] = true;
+            return updated;
+        });
+        return modified[0] ? 1 : 0;
+    }
+
+    private void index(Document movie) {
+        ObjectId id = movie.getObjectId("_id");
+        idOrder.add(id);
+        Integer year = yearKey(movie.get("year"));
+        if (year != null) {
+            byYear.computeIfAbsent(year, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+        for (String genre : genres(movie)) {
+            byGenre.computeIfAbsent(genre, key -> ConcurrentHashMap.newKeySet()).add(id);
+        }
+    }
+
+    private void unindex(Document movie) {
+        ObjectId id = movie.getObjectId("_id");
+        idOrder.remove(id);
+        Integer year = yearKey(movie.get("year"));
+        if (year != null) {
+            removeFrom(byYear, year, id);
+        }
+        for (String genre : genres(movie)) {
+            removeFrom(byGenre, genre, id);
+        }
+    }
+
+    private static <K> void removeFrom(ConcurrentMap<K, Set<ObjectId>> index, K key, ObjectId id) {
+        Set<ObjectId> ids = index.get(key);
+        if (ids != null) {
+            ids.remove(id);
+        }
+    }
+
+    /**
+     * The year as an index key when it is a whole number, as an equality query on year would match it
+     */
+    private static Integer yearKey(Object year) {
+        if (year instanceof Integer value) {
+            return value;
+        }
+        if (year instanceof Number number) {
+            double value = number.doubleValue();
+            if (value == Math.rint(value) && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+        }
+        return null;
+    }
+
+    private static List<String> genres(Document movie) {
+        Object genres = movie.get("genres");
+        if (genres instanceof String genre) {
+            return List.of(genre);
+        }
+        if (!(genres instanceof List<?> list)) {
+            return List.of();
+        }
+        List<String> names = new ArrayList<>(list.size());
+        for (Object genre : list) {
+            if (genre instanceof String name) {
+                names.add(name);
+            }
+        }
+        return names;
+    }
+
+    private List<Document> moviesOfYear(int year) {
+        return lookup(byYear.get(year), movie -> Objects.equals(yearKey(movie.get("year")), year));
+    }
+
+    private List<Document> moviesOfGenre(String genre) {
+        return lookup(byGenre.get(genre), movie -> genres(movie).contains(genre));
+    }
+
+    /**
+     * Movies of an index entry, re-checked against the predicate in case the movie changed since it was read
+     */
+    private List<Document> lookup(Set<ObjectId> ids, Predicate<Document> matches) {
+        if (ids == null) {
+            return List.of();
+        }
+        List<Document> movies = new ArrayList<>(ids.size());
+        for (ObjectId id : ids) {
+            Document movie = byId.get(id);
+            if (movie != null && matches.test(movie)) {
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+
+    private List<Document> scan(Predicate<Document> matches) {
+        List<Document> movies = new ArrayList<>();
+        for (Document movie : byId.values()) {
+            if (matches.test(movie)) {
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+
+    private static Predicate<Document> titleMatcher(String title, TitleSearchMode mode) {
+        return switch (mode) {
+            case PREFIX -> {
+                String prefix = MovieRepository.normalizeTitle(title);
+                yield movie -> movie.get(MovieRepository.NORMALIZED_TITLE_FIELD) instanceof String normalized
+                        && normalized.startsWith(prefix);
+            }
+            case TEXT -> {
+                Pattern pattern = Pattern.compile(Pattern.quote(title), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+                yield movie -> movie.get("title") instanceof String value && pattern.matcher(value).find();
+            }
+            case REGEX -> {
+                Pattern pattern = Pattern.compile(title, Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE);
+                yield movie -> movie.get("title") instanceof String value && pattern.matcher(value).find();
+            }
+        };
+    }
+
+    private static List<Document> copies(Collection<Document> movies, int limit) {
+        int size = limit > 0 ? Math.min(limit, movies.size()) : movies.size();
+        List<Document> copies = new ArrayList<>(size);
+        Iterator<Document> iterator = movies.iterator();
+        while (iterator.hasNext() && copies.size() < size) {
+            copies.add(copy(iterator.next()));
+        }
+        return copies;
+    }
+
+    private static List<Movie> projections(Collection<Document> movies, int limit, MovieFields... fields) {
+        int size = limit > 0 ? Math.min(limit, movies.size()) : movies.size();
+        List<Movie> projected = new ArrayList<>(size);
+        Iterator<Document> iterator = movies.iterator();
+        while (iterator.hasNext() && projected.size() < size) {
+            projected.add(project(iterator.next(), fields));
+        }
+        return projected;
+    }
+
+    /**
+     * The movie decoded by MovieCodec with only the requested fields set, as a projected read returns it
+     */
+    static Movie project(Document movie, MovieFields... fields) {
+        Movie full = MOVIE_CODEC.decode(new BsonDocumentReader(movie.toBsonDocument()), DecoderContext.builder().build());
+        Set<MovieFields> requested = fields.length == 0 ? EnumSet.allOf(MovieFields.class) : EnumSet.of(fields[0], fields);
+        return new Movie(
+                requested.contains(MovieFields.ID) ? full.id() : null,
+                requested.contains(MovieFields.TITLE) ? full.title() : null,
+                requested.contains(MovieFields.YEAR) ? full.year() : null,
+                requested.contains(MovieFields.GENRES) ? full.genres() : null,
+                requested.contains(MovieFields.RUNTIME) ? full.runtime() : null,
+                requested.contains(MovieFields.IMDB_RATING) ? full.imdbRating() : null,
+                requested.contains(MovieFields.IMDB_VOTES) ? full.imdbVotes() : null);
+    }
+
+    private static MoviePage page(List<Document> movies, int pageSize, List<String> keyFields) {
+        if (movies.size() <= pageSize) {
+            return new MoviePage(movies, null);
+        }
+        movies.remove(pageSize);
+        BsonDocument last = movies.get(pageSize - 1).toBsonDocument();
+        BsonDocument lastKey = new BsonDocument();
+        for (String field : keyFields) {
+            lastKey.put(field, last.get(field));
+        }
+        return new MoviePage(movies, PageToken.encode(lastKey));
+    }
+
+    /**
+     * Deep copy of nested documents and lists, so callers and the store never share mutable state
+     */
+    static Document copy(Document movie) {
+        Document copy = new Document();
+        movie.forEach((key, value) -> copy.put(key, copyValue(value)));
+        return copy;
+    }
+
+    private static Object copyValue(Object value) {
+        if (value instanceof Document document) {
+            return copy(document);
+        }
+        if (value instanceof List<?> list) {
+            List<Object> copy = new ArrayList<>(list.size());
+            for (Object element : list) {
+                copy.add(copyValue(element));
+            }
+            return copy;
+        }
+        return value;
+    }
+
+    private static Document copyOrNull(Document movie) {
+        return movie == null ? null : copy(movie);
+    }
+
+    private static MongoWriteException duplicateKey(ObjectId id) {
+        return new MongoWriteException(new WriteError(11000,
+                "E11000 duplicate key error collection: movies index: _id_ dup key: { _id: " + id + " }",
+                new BsonDocument()), new ServerAddress("in-memory"), Set.of());
+    }
+
+    private static void checkBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+    }
+
+    private static void checkPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+    }
+}
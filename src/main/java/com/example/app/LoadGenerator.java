@@ -0,0 +1,576 @@
+package com.example.app;
+
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Drives a mixed read/write workload through every MovieStore operation for a fixed time and
+ * reports throughput and latency percentiles per interval and overall.
+ *
+ * Keys are movie IDs loaded from the store and picked with a Zipfian distribution, so a few
+ * movies are hot and most are cold, as in production. With a target rate (open loop) operations
+ * are scheduled at fixed intervals and response time is measured from the scheduled start, so
+ * time spent queued behind a slow call counts against the latency (correcting for coordinated
+ * omission); service time is measured from the actual start. Without a target rate (closed loop)
+ * each worker issues its next call as soon as the previous one returns and both times coincide.
+ *
+ * Writes change the data (ratings, genres) and insert and delete scratch movies: point it at a
+ * copy of the data or an in-memory store.
+ */
+public class LoadGenerator {
+
+    /**
+     * Workload settings, read from config.properties:
+     *
+     *   app.load.readPercent         share of reads in the mix, 0-100 (90)
+     *   app.load.targetOpsPerSecond  open-loop request rate, 0 for a closed loop (0)
+     *   app.load.concurrency         worker threads, i.e. the most calls in flight (16)
+     *   app.load.durationSeconds     how long to run (60)
+     *   app.load.keys                movie IDs in the key space (10000)
+     *   app.load.zipfTheta           key skew, 0 for uniform up to 0.999 (0.99)
+     *   app.load.reportSeconds       length of each reported interval (10)
+     *   app.load.soak                also sample heap, GC and thread counts each interval (false)
+     *   app.load.seedMovies          movies generated for the in-memory store (20000)
+     */
+    public record Settings(int readPercent, int targetOpsPerSecond, int concurrency, Duration duration,
+                           int keys, double zipfTheta, Duration reportInterval, boolean soak, int seedMovies) {
+
+        public Settings {
+            if (readPercent < 0 || readPercent > 100) {
+                throw new IllegalArgumentException("readPercent must be between 0 and 100: " + readPercent);
+            }
+            if (targetOpsPerSecond < 0 || concurrency <= 0 || keys <= 0 || seedMovies < 0) {
+                throw new IllegalArgumentException("targetOpsPerSecond and seedMovies must not be negative; "
+                        + "concurrency and keys must be positive");
+            }
+            if (zipfTheta < 0 || zipfTheta >= 1) {
+                throw new IllegalArgumentException("zipfTheta must be in [0, 1): " + zipfTheta);
+            }
+            if (duration.isNegative() || duration.isZero() || reportInterval.isNegative() || reportInterval.isZero()) {
+                throw new IllegalArgumentException("duration and reportInterval must be positive");
+            }
+        }
+
+        public static Settings defaults() {
+            return from(new Properties());
+        }
+
+        public static Settings from(Properties properties) {
+            int readPercent = MongoClientTuning.intProperty(properties, "app.load.readPercent", 90, 0);
+            if (readPercent > 100) {
+                throw new IllegalArgumentException(
+                        "Valor no válido para app.load.readPercent: " + readPercent + " (máximo 100)");
+            }
+            return new Settings(
+                    readPercent,
+                    MongoClientTuning.intProperty(properties, "app.load.targetOpsPerSecond", 0, 0),
+                    MongoClientTuning.intProperty(properties, "app.load.concurrency", 16, 1),
+                    Duration.ofSeconds(MongoClientTuning.intProperty(properties, "app.load.durationSeconds", 60, 1)),
+                    MongoClientTuning.intProperty(properties, "app.load.keys", 10_000, 1),
+                    MongoClientTuning.doubleProperty(properties, "app.load.zipfTheta", 0.99, 0, 0.999),
+                    Duration.ofSeconds(MongoClientTuning.intProperty(properties, "app.load.reportSeconds", 10, 1)),
+                    MongoClientTuning.booleanProperty(properties, "app.load.soak", false),
+                    MongoClientTuning.intProperty(properties, "app.load.seedMovies", 20_000, 0));
+        }
+
+        public boolean openLoop() {
+            return targetOpsPerSecond > 0;
+        }
+    }
+
+    /**
+     * JVM state at the end of an interval. heapAfterGcBytes is the heap left live by the last
+     * collection of each pool, the figure that keeps climbing when something leaks; gcCount
+     * and gcMillis cover the interval only.
+     */
+    public record JvmSample(long heapUsedBytes, long heapAfterGcBytes, long heapMaxBytes,
+                            long gcCount, long gcMillis, int threads) {
+    }
+
+    /**
+     * One reporting interval. jvm is null outside soak mode and pool is null without a
+     * connection pool (in-memory store).
+     */
+    public record IntervalReport(Duration elapsed, long operations, long errors, double operationsPerSecond,
+                                 LatencyHistogram.Snapshot responseTime, LatencyHistogram.Snapshot serviceTime,
+                                 JvmSample jvm, ConnectionPoolMetrics.Snapshot pool) {
+    }
+
+    /**
+     * The whole run: totals plus every interval report
+     */
+    public record LoadReport(long operations, long errors, Duration elapsed,
+                             LatencyHistogram.Snapshot responseTime, LatencyHistogram.Snapshot serviceTime,
+                             List<IntervalReport> intervals) {
+
+        public double operationsPerSecond() {
+            return elapsed.isZero() ? 0 : operations / (elapsed.toNanos() / 1e9);
+        }
+
+        /**
+         * Change in live heap after GC from the first to the last soak sample (0 without soak);
+         * steady growth over a long run points at a leak
+         */
+        public long heapAfterGcGrowthBytes() {
+            List<JvmSample> samples = intervals.stream().map(IntervalReport::jvm).filter(jvm -> jvm != null).toList();
+            return samples.size() < 2 ? 0
+                    : samples.get(samples.size() - 1).heapAfterGcBytes() - samples.get(0).heapAfterGcBytes();
+        }
+    }
+
+    /**
+     * The calls in the mix; reads and writes are each picked uniformly within their share
+     */
+    enum Action {
+        FIND_BY_ID(true),
+        FIND_PROJECTED(true),
+        FIND_BY_IDS(true),
+        FIND_BY_TITLE_REGEX(true),
+        FIND_BY_TITLE_PREFIX(true),
+        FIND_BY_TITLE_TEXT(true),
+        FIND_BY_TITLE_PROJECTED(true),
+        FIND_BY_TITLE_TEXT_PROJECTED(true),
+        STREAM_BY_TITLE(true),
+        FIND_BY_YEAR(true),
+        FIND_BY_YEAR_PROJECTED(true),
+        STREAM_BY_YEAR(true),
+        FIND_BY_GENRE(true),
+        FIND_BY_GENRE_PROJECTED(true),
+        GENRE_PAGE(true),
+        MOVIES_PAGE(true),
+        GET_ALL(true),
+        GET_ALL_PROJECTED(true),
+        STREAM_ALL(true),
+        COUNT_BY_YEAR(true),
+        COUNT(true),
+        UPDATE_RATING(false),
+        ADD_GENRE(false),
+        CREATE_AND_DELETE(false);
+
+        private static final List<Action> READS = Stream.of(values()).filter(action -> action.read).toList();
+        private static final List<Action> WRITES = Stream.of(values()).filter(action -> !action.read).toList();
+
+        final boolean read;
+
+        Action(boolean read) {
+            this.read = read;
+        }
+
+        static Action pick(Random random, int readPercent) {
+            List<Action> actions = random.nextInt(100) < readPercent ? READS : WRITES;
+            return actions.get(random.nextInt(actions.size()));
+        }
+    }
+
+    /**
+     * Zipfian ranks in [0, items), rank 0 the most frequent, using the rejection-free method of
+     * Gray et al. ("Quickly generating billion-record synthetic databases") that YCSB uses.
+     * theta 0 is uniform; the closer to 1, the more skewed.
+     */
+    static final class Zipfian {
+        private final int items;
+        private final double theta;
+        private final double alpha;
+        private final double zetaN;
+        private final double eta;
+
+        Zipfian(int items, double theta) {
+            if (items <= 0 || theta < 0 || theta >= 1) {
+                throw new IllegalArgumentException("items must be positive and theta in [0, 1)");
+            }
+            this.items = items;
+            this.theta = theta;
+            this.alpha = 1 / (1 - theta);
+            this.zetaN = zeta(items, theta);
+            this.eta = items < 2 ? 0 : (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetaN);
+        }
+
+        int next(Random random) {
+            double u = random.nextDouble();
+            double uz = u * zetaN;
+            if (items == 1 || uz < 1) {
+                return 0;
+            }
+            if (uz < 1 + Math.pow(0.5, theta)) {
+                return 1;
+            }
+            return Math.min(items - 1, (int) (items * Math.pow(eta * u - eta + 1, alpha)));
+        }
+
+        private static double zeta(int n, double theta) {
+            double sum = 0;
+            for (int i = 1; i <= n; i++) {
+                sum += 1 / Math.pow(i, theta);
+            }
+            return sum;
+        }
+    }
+
+    /**
+     * Counters for one interval (or the whole run), filled by all workers at once
+     */
+    private static final class Window {
+        final LatencyHistogram responseTime = new LatencyHistogram();
+        final LatencyHistogram serviceTime = new LatencyHistogram();
+        final LongAdder errors = new LongAdder();
+
+        void record(long responseNanos, long serviceNanos, boolean failed) {
+            responseTime.record(responseNanos);
+            serviceTime.record(serviceNanos);
+            if (failed) {
+                errors.increment();
+            }
+        }
+    }
+
+    private static final String[] GENRES = {"Action", "Comedy", "Drama", "Horror", "Romance", "Sci-Fi", "Thriller"};
+    private static final String[] WORDS = {"dark", "night", "love", "city", "last", "river", "star", "secret"};
+    private static final int MULTI_GET_SIZE = 10;
+    private static final int PAGE_SIZE = 20;
+
+    private final MovieStore store;
+    private final Settings settings;
+    private final ConnectionPoolMetrics poolMetrics;
+
+    public LoadGenerator(MovieStore store, Settings settings) {
+        this(store, settings, null);
+    }
+
+    /**
+     * poolMetrics, when given, is sampled into every interval report so pool exhaustion (peak in
+     * use at db.pool.maxSize, checkout failures) shows up next to the latencies
+     */
+    public LoadGenerator(MovieStore store, Settings settings, ConnectionPoolMetrics poolMetrics) {
+        this.store = store;
+        this.settings = settings;
+        this.poolMetrics = poolMetrics;
+    }
+
+    /**
+     * Run the workload for the configured duration, calling reporter at the end of each interval
+     */
+    public LoadReport run(Consumer<IntervalReport> reporter) {
+        List<Movie> keys = new ArrayList<>(store.getAllMovies(settings.keys(),
+                MovieFields.ID, MovieFields.TITLE, MovieFields.YEAR, MovieFields.GENRES));
+        if (keys.isEmpty()) {
+            throw new IllegalStateException("The store has no movies to use as keys");
+        }
+        // spread the hot ranks over the key space instead of the oldest _ids
+        Collections.shuffle(keys, new Random(keys.size()));
+        Zipfian zipfian = new Zipfian(keys.size(), settings.zipfTheta());
+
+        JvmSampler jvm = settings.soak() ? new JvmSampler() : null;
+        Window total = new Window();
+        AtomicReference<Window> current = new AtomicReference<>(new Window());
+        AtomicLong sequence = new AtomicLong();
+        AtomicBoolean stopped = new AtomicBoolean();
+        long start = System.nanoTime();
+        long end = start + settings.duration().toNanos();
+        long interval = settings.openLoop() ? TimeUnit.SECONDS.toNanos(1) / settings.targetOpsPerSecond() : 0;
+
+        List<Thread> workers = new ArrayList<>(settings.concurrency());
+        for (int i = 0; i < settings.concurrency(); i++) {
+            Thread worker = new Thread(() -> {
+                Random random = ThreadLocalRandom.current();
+                while (!stopped.get()) {
+                    long intended;
+                    if (settings.openLoop()) {
+                        intended = start + sequence.getAndIncrement() * interval;
+                        if (intended >= end || !parkUntil(intended)) {
+                            return;
+                        }
+                    } else {
+                        intended = System.nanoTime();
+                    }
+                    long begin = System.nanoTime();
+                    // a late open-loop slot still runs: skipping it would hide the backlog it measures
+                    if (!settings.openLoop() && begin >= end) {
+                        return;
+                    }
+                    boolean failed = false;
+                    try {
+                        execute(Action.pick(random, settings.readPercent()), keys, zipfian, random);
+                    } catch (RuntimeException e) {
+                        failed = true;
+                    }
+                    long done = System.nanoTime();
+                    current.get().record(done - intended, done - begin, failed);
+                    total.record(done - intended, done - begin, failed);
+                }
+            }, "load-" + i);
+            worker.setDaemon(true);
+            worker.start();
+            workers.add(worker);
+        }
+
+        List<IntervalReport> intervals = new ArrayList<>();
+        try {
+            long intervalStart = start;
+            long now = start;
+            while (now < end) {
+                TimeUnit.NANOSECONDS.sleep(Math.min(intervalStart + settings.reportInterval().toNanos(), end) - now);
+                if (System.nanoTime() >= end) {
+                    // the last interval also holds the operations still draining after the end
+                    for (Thread worker : workers) {
+                        worker.join();
+                    }
+                }
+                now = System.nanoTime();
+                Window finished = current.getAndSet(new Window());
+                long operations = finished.responseTime.count();
+                IntervalReport report = new IntervalReport(Duration.ofNanos(now - start), operations,
+                        finished.errors.sum(), operations / ((now - intervalStart) / 1e9),
+                        finished.responseTime.snapshot(), finished.serviceTime.snapshot(),
+                        jvm == null ? null : jvm.sample(), poolMetrics == null ? null : poolMetrics.snapshot());
+                intervals.add(report);
+                reporter.accept(report);
+                intervalStart = now;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoInterruptedException("Interrupted while generating load", e);
+        } finally {
+            stopped.set(true);
+        }
+        return new LoadReport(total.responseTime.count(), total.errors.sum(),
+                Duration.ofNanos(System.nanoTime() - start), total.responseTime.snapshot(),
+                total.serviceTime.snapshot(), intervals);
+    }
+
+    private void execute(Action action, List<Movie> keys, Zipfian zipfian, Random random) {
+        Movie key = keys.get(zipfian.next(random));
+        int year = key.year() != null ? key.year() : 2000;
+        String genre = key.genres() != null && !key.genres().isEmpty() ? key.genres().get(0) : "Drama";
+        switch (action) {
+            case FIND_BY_ID -> store.findMovieById(key.id());
+            case FIND_PROJECTED -> store.findMovieById(key.id(), MovieFields.TITLE, MovieFields.YEAR, MovieFields.IMDB_RATING);
+            case FIND_BY_IDS -> {
+                List<ObjectId> ids = new ArrayList<>(MULTI_GET_SIZE);
+                for (int i = 0; i < MULTI_GET_SIZE; i++) {
+                    ids.add(keys.get(zipfian.next(random)).id());
+                }
+                store.findMoviesByIds(ids);
+            }
+            case FIND_BY_TITLE_REGEX -> store.findMoviesByTitle(firstWord(key.title()));
+            case FIND_BY_TITLE_PREFIX -> store.findMoviesByTitle(firstWord(key.title()), TitleSearchMode.PREFIX);
+            case FIND_BY_TITLE_TEXT -> store.findMoviesByTitle(firstWord(key.title()), TitleSearchMode.TEXT);
+            case FIND_BY_TITLE_PROJECTED -> store.findMoviesByTitle(firstWord(key.title()), MovieFields.TITLE, MovieFields.YEAR);
+            case FIND_BY_TITLE_TEXT_PROJECTED -> store.findMoviesByTitle(firstWord(key.title()), TitleSearchMode.TEXT,
+                    MovieFields.TITLE, MovieFields.YEAR);
+            case STREAM_BY_TITLE -> {
+                try (Stream<Document> movies = store.streamMoviesByTitle(firstWord(key.title()), MovieRepository.DEFAULT_BATCH_SIZE)) {
+                    movies.count();
+                }
+            }
+            case FIND_BY_YEAR -> store.findMoviesByYear(year);
+            case FIND_BY_YEAR_PROJECTED -> store.findMoviesByYear(year, MovieFields.ID, MovieFields.TITLE);
+            case STREAM_BY_YEAR -> {
+                try (Stream<Document> movies = store.streamMoviesByYear(year, MovieRepository.DEFAULT_BATCH_SIZE)) {
+                    movies.count();
+                }
+            }
+            case FIND_BY_GENRE -> store.findMoviesByGenre(genre);
+            case FIND_BY_GENRE_PROJECTED -> store.findMoviesByGenre(genre, MovieFields.TITLE, MovieFields.IMDB_RATING);
+            case GENRE_PAGE -> store.findMoviesByGenrePage(genre, PAGE_SIZE, null);
+            case MOVIES_PAGE -> store.getMoviesPage(PAGE_SIZE, null);
+            case GET_ALL -> store.getAllMovies(PAGE_SIZE);
+            case GET_ALL_PROJECTED -> store.getAllMovies(PAGE_SIZE, MovieFields.TITLE, MovieFields.YEAR);
+            case STREAM_ALL -> {
+                try (Stream<Document> movies = store.streamAllMovies(PAGE_SIZE, PAGE_SIZE)) {
+                    movies.count();
+                }
+            }
+            case COUNT_BY_YEAR -> store.countMoviesByYear(year);
+            case COUNT -> store.countMovies();
+            case UPDATE_RATING -> store.updateMovieRating(key.id(), (10 + random.nextInt(91)) / 10.0);
+            case ADD_GENRE -> store.addGenreToMovie(key.id(), GENRES[random.nextInt(GENRES.length)]);
+            case CREATE_AND_DELETE -> store.deleteMovieById(store.createMovie(new Document("title", "Load test movie")
+                    .append("year", year)
+                    .append("genres", List.of(genre))));
+        }
+    }
+
+    private static String firstWord(String title) {
+        if (title == null || title.isBlank()) {
+            return "the";
+        }
+        return title.trim().split("\\s+", 2)[0];
+    }
+
+    /**
+     * Wait for the scheduled start; false if the worker was interrupted
+     */
+    private static boolean parkUntil(long deadline) {
+        long remaining;
+        while ((remaining = deadline - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(remaining);
+            if (Thread.currentThread().isInterrupted()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Heap, GC and thread counts from the platform MXBeans; GC figures are deltas since the previous sample
+     */
+    private static final class JvmSampler {
+        private long lastGcCount;
+        private long lastGcMillis;
+
+        JvmSampler() {
+            long[] gc = gcTotals();
+            lastGcCount = gc[0];
+            lastGcMillis = gc[1];
+        }
+
+        JvmSample sample() {
+            MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+            long afterGc = 0;
+            for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+                MemoryUsage collected = pool.getCollectionUsage();
+                if (pool.getType() == MemoryType.HEAP && collected != null) {
+                    afterGc += collected.getUsed();
+                }
+            }
+            long[] gc = gcTotals();
+            JvmSample sample = new JvmSample(heap.getUsed(), afterGc, heap.getMax(),
+                    gc[0] - lastGcCount, gc[1] - lastGcMillis, ManagementFactory.getThreadMXBean().getThreadCount());
+            lastGcCount = gc[0];
+            lastGcMillis = gc[1];
+            return sample;
+        }
+
+        private static long[] gcTotals() {
+            long count = 0;
+            long millis = 0;
+            for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+                count += Math.max(0, collector.getCollectionCount());
+                millis += Math.max(0, collector.getCollectionTime());
+            }
+            return new long[]{count, millis};
+        }
+    }
+
+    /**
+     * Fill an empty in-memory store with movies shaped like the sample_mflix ones
+     */
+    static void seed(MovieStore store, int movies, Random random) {
+        for (int i = 0; i < movies; i++) {
+            List<String> genres = new ArrayList<>();
+            int genreCount = 1 + random.nextInt(3);
+            while (genres.size() < genreCount) {
+                String genre = GENRES[random.nextInt(GENRES.length)];
+                if (!genres.contains(genre)) {
+                    genres.add(genre);
+                }
+            }
+            store.createMovie(new Document("title", capitalize(WORDS[random.nextInt(WORDS.length)]) + " "
+                    + capitalize(WORDS[random.nextInt(WORDS.length)]) + " " + i)
+                    .append("year", 1950 + random.nextInt(75))
+                    .append("genres", genres)
+                    .append("runtime", 70 + random.nextInt(110))
+                    .append("imdb", new Document("rating", (10 + random.nextInt(91)) / 10.0)
+                            .append("votes", random.nextInt(500_000))));
+        }
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+
+    public static void main(String[] args) {
+        String target = args.length > 0 ? args[0] : "memory";
+        if (!target.equals("memory") && !target.equals("mongo")) {
+            System.err.println("Usage: LoadGenerator memory");
+            System.err.println("       LoadGenerator mongo [connectionString] [database]");
+            System.exit(2);
+            return;
+        }
+        Settings settings = ConfigManager.getLoadSettings();
+        MovieMetrics metrics = new MovieMetrics();
+        System.out.printf("Load: %s, %d%% reads, %s, %d workers, zipf %.2f over %,d keys, %d s%s%n", target,
+                settings.readPercent(), settings.openLoop() ? settings.targetOpsPerSecond() + " ops/s" : "closed loop",
+                settings.concurrency(), settings.zipfTheta(), settings.keys(), settings.duration().toSeconds(),
+                settings.soak() ? ", soak" : "");
+
+        try {
+            LoadReport report;
+            if (target.equals("memory")) {
+                InMemoryMovieStore store = new InMemoryMovieStore(metrics.repositoryMetrics());
+                seed(store, settings.seedMovies(), new Random(42));
+                report = new LoadGenerator(store, settings).run(LoadGenerator::printInterval);
+            } else {
+                String connectionString = args.length > 1 ? args[1] : ConfigManager.getConnectionString();
+                ConnectionPoolMetrics poolMetrics = new ConnectionPoolMetrics();
+                try (MongoClient mongoClient = MongoClients.create(App.buildClientSettings(connectionString,
+                        ConfigManager.getClientTuning(), poolMetrics, metrics.commandMetrics()))) {
+                    MovieRepository repository = new MovieRepository(
+                            mongoClient.getDatabase(args.length > 2 ? args[2] : "sample_mflix"), metrics.repositoryMetrics());
+                    // PREFIX and TEXT title searches need title_lower and the text index
+                    repository.ensureIndexes();
+                    report = new LoadGenerator(repository, settings, poolMetrics).run(LoadGenerator::printInterval);
+                }
+            }
+            System.out.printf("✓ %,d operations in %.1f s (%.0f ops/s), %d errors%n", report.operations(),
+                    report.elapsed().toMillis() / 1000.0, report.operationsPerSecond(), report.errors());
+            System.out.printf("  response time ms: p50 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                    report.responseTime().p50() / 1e6, report.responseTime().p99() / 1e6,
+                    report.responseTime().p999() / 1e6, report.responseTime().max() / 1e6);
+            System.out.printf("  service time ms:  p50 %.2f  p99 %.2f  p99.9 %.2f  max %.2f%n",
+                    report.serviceTime().p50() / 1e6, report.serviceTime().p99() / 1e6,
+                    report.serviceTime().p999() / 1e6, report.serviceTime().max() / 1e6);
+            if (settings.soak()) {
+                System.out.printf("  live heap after GC grew %.1f MB over the run%n", report.heapAfterGcGrowthBytes() / 1e6);
+            }
+            metrics.publishTo(App::printMetrics);
+        } catch (RuntimeException e) {
+            System.err.println("Load run failed: " + e.getMessage());
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+
+    private static void printInterval(IntervalReport report) {
+        StringBuilder line = new StringBuilder(String.format(
+                "  %5ds  %8.0f ops/s  p50 %7.2f  p99 %7.2f  p99.9 %7.2f  max %7.2f ms  errors %d",
+                report.elapsed().toSeconds(), report.operationsPerSecond(), report.responseTime().p50() / 1e6,
+                report.responseTime().p99() / 1e6, report.responseTime().p999() / 1e6,
+                report.responseTime().max() / 1e6, report.errors()));
+        if (report.jvm() != null) {
+            line.append(String.format("  heap %.0f/%.0f MB (after GC %.0f)  GC %d (%d ms)  threads %d",
+                    report.jvm().heapUsedBytes() / 1e6, report.jvm().heapMaxBytes() / 1e6,
+                    report.jvm().heapAfterGcBytes() / 1e6, report.jvm().gcCount(), report.jvm().gcMillis(),
+                    report.jvm().threads()));
+        }
+        if (report.pool() != null) {
+            line.append(String.format("  pool in use %d (peak %d)  checkout failures %d",
+                    report.pool().inUse(), report.pool().peakInUse(), report.pool().checkOutFailures()));
+        }
+        System.out.println(line);
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.app;
+
+/**
+ * Destination for metrics reports (stdout, a log, a metrics backend).
+ * See {@link MovieMetrics#publishTo(MetricsSink)}.
+ */
+@FunctionalInterface
+public interface MetricsSink {
+
+    void publish(MovieMetrics.Report report);
+}
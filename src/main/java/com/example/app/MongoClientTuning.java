@@ -0,0 +1,244 @@
+package com.example.app;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoCompressor;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import com.mongodb.event.ConnectionPoolListener;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Connection pool and transport settings for the MongoClient, read from config.properties.
+ * Every key is optional. A key that is not set is left as the connection string has it, or as
+ * the driver's default (in parentheses) when the connection string doesn't set it either; only
+ * the keys present override the connection string.
+ *
+ *   db.pool.maxSize          maximum connections per server (100)
+ *   db.pool.minSize          connections kept open per server (0)
+ *   db.pool.maxConnecting    connections being established at once per server (2)
+ *   db.pool.maxWaitTimeMs    how long a checkout waits for a free connection (120000)
+ *   db.pool.maxIdleTimeMs    idle time before a pooled connection is closed, 0 = never (0)
+ *   db.connectTimeoutMs      TCP connect timeout (10000)
+ *   db.readTimeoutMs         socket read timeout, 0 = none (0)
+ *   db.compressors           comma-separated list of zstd, snappy, zlib (none)
+ *   db.readPreference        primary, primaryPreferred, secondary, secondaryPreferred, nearest (primary)
+ *   db.writeConcern          majority, acknowledged, unacknowledged, journaled, or a node count (acknowledged)
+ *
+ * Components are null for keys that are not set.
+ */
+public record MongoClientTuning(
+        Integer maxPoolSize,
+        Integer minPoolSize,
+        Integer maxConnecting,
+        Long maxWaitTimeMs,
+        Long maxIdleTimeMs,
+        Integer connectTimeoutMs,
+        Integer readTimeoutMs,
+        List<String> compressors,
+        ReadPreference readPreference,
+        WriteConcern writeConcern) {
+
+    /**
+     * No overrides: the connection string and the driver decide everything
+     */
+    public static MongoClientTuning defaults() {
+        return from(new Properties());
+    }
+
+    /**
+     * Parses and validates the tuning keys, failing with the offending key in the message
+     */
+    public static MongoClientTuning from(Properties properties) {
+        Integer maxPoolSize = optionalInt(properties, "db.pool.maxSize", 1);
+        Integer minPoolSize = optionalInt(properties, "db.pool.minSize", 0);
+        if (minPoolSize != null && maxPoolSize != null && minPoolSize > maxPoolSize) {
+            throw new IllegalArgumentException(
+                    "db.pool.minSize (" + minPoolSize + ") no puede ser mayor que db.pool.maxSize (" + maxPoolSize + ")");
+        }
+        Integer maxWaitTimeMs = optionalInt(properties, "db.pool.maxWaitTimeMs", 0);
+        Integer maxIdleTimeMs = optionalInt(properties, "db.pool.maxIdleTimeMs", 0);
+        String compressors = properties.getProperty("db.compressors");
+        String readPreference = properties.getProperty("db.readPreference");
+        String writeConcern = properties.getProperty("db.writeConcern");
+        return new MongoClientTuning(
+                maxPoolSize,
+                minPoolSize,
+                optionalInt(properties, "db.pool.maxConnecting", 1),
+                maxWaitTimeMs == null ? null : maxWaitTimeMs.longValue(),
+                maxIdleTimeMs == null ? null : maxIdleTimeMs.longValue(),
+                optionalInt(properties, "db.connectTimeoutMs", 0),
+                optionalInt(properties, "db.readTimeoutMs", 0),
+                isBlank(compressors) ? null : compressors(compressors),
+                isBlank(readPreference) ? null : readPreference(readPreference),
+                isBlank(writeConcern) ? null : writeConcern(writeConcern));
+    }
+
+    /**
+     * Applies the keys that are set on top of whatever the builder already holds (e.g. the
+     * connection string); everything else is left untouched
+     */
+    public MongoClientSettings.Builder applyTo(MongoClientSettings.Builder builder, ConnectionPoolListener poolListener) {
+        builder.applyToConnectionPoolSettings(pool -> {
+                    if (maxPoolSize != null) {
+                        pool.maxSize(maxPoolSize);
+                    }
+                    if (minPoolSize != null) {
+                        pool.minSize(minPoolSize);
+                    }
+                    if (maxConnecting != null) {
+                        pool.maxConnecting(maxConnecting);
+                    }
+                    if (maxWaitTimeMs != null) {
+                        pool.maxWaitTime(maxWaitTimeMs, TimeUnit.MILLISECONDS);
+                    }
+                    if (maxIdleTimeMs != null) {
+                        pool.maxConnectionIdleTime(maxIdleTimeMs, TimeUnit.MILLISECONDS);
+                    }
+                    if (poolListener != null) {
+                        pool.addConnectionPoolListener(poolListener);
+                    }
+                })
+                .applyToSocketSettings(socket -> {
+                    if (connectTimeoutMs != null) {
+                        socket.connectTimeout(connectTimeoutMs, TimeUnit.MILLISECONDS);
+                    }
+                    if (readTimeoutMs != null) {
+                        socket.readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS);
+                    }
+                });
+        if (readPreference != null) {
+            builder.readPreference(readPreference);
+        }
+        if (writeConcern != null) {
+            builder.writeConcern(writeConcern);
+        }
+        if (compressors != null) {
+            List<MongoCompressor> compressorList = new ArrayList<>();
+            for (String compressor : compressors) {
+                compressorList.add(switch (compressor) {
+                    case "zstd" -> MongoCompressor.createZstdCompressor();
+                    case "snappy" -> MongoCompressor.createSnappyCompressor();
+                    default -> MongoCompressor.createZlibCompressor();
+                });
+            }
+            builder.compressorList(compressorList);
+        }
+        return builder;
+    }
+
+    private static Integer optionalInt(Properties properties, String key, int min) {
+        return isBlank(properties.getProperty(key)) ? null : intProperty(properties, key, 0, min);
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+
+    static int intProperty(Properties properties, String key, int defaultValue, int min) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        int parsed;
+        try {
+            parsed = Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor no válido para " + key + ": '" + value + "' (se esperaba un entero)", e);
+        }
+        if (parsed < min) {
+            throw new IllegalArgumentException("Valor no válido para " + key + ": " + parsed + " (mínimo " + min + ")");
+        }
+        return parsed;
+    }
+
+    static double doubleProperty(Properties properties, String key, double defaultValue, double min, double max) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        double parsed;
+        try {
+            parsed = Double.parseDouble(value.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Valor no válido para " + key + ": '" + value + "' (se esperaba un número)", e);
+        }
+        if (!(parsed >= min && parsed <= max)) {
+            throw new IllegalArgumentException("Valor no válido para " + key + ": " + parsed
+                    + " (debe estar entre " + min + " y " + max + ")");
+        }
+        return parsed;
+    }
+
+    static boolean booleanProperty(Properties properties, String key, boolean defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null || value.isBlank()) {
+            return defaultValue;
+        }
+        return switch (value.trim().toLowerCase(Locale.ROOT)) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new IllegalArgumentException(
+                    "Valor no válido para " + key + ": '" + value + "' (se esperaba true o false)");
+        };
+    }
+
+    /**
+     * zstd and snappy need zstd-jni / snappy-java on the classpath; fail at startup rather than on first use
+     */
+    private static List<String> compressors(String value) {
+        List<String> compressors = new ArrayList<>();
+        for (String name : value.split(",")) {
+            String compressor = name.trim().toLowerCase(Locale.ROOT);
+            if (compressor.isEmpty()) {
+                continue;
+            }
+            String requiredClass = switch (compressor) {
+                case "zstd" -> "com.github.luben.zstd.Zstd";
+                case "snappy" -> "org.xerial.snappy.Snappy";
+                case "zlib" -> null;
+                default -> throw new IllegalArgumentException(
+                        "Compresor desconocido en db.compressors: '" + name.trim() + "' (zstd, snappy o zlib)");
+            };
+            if (requiredClass != null && !isOnClasspath(requiredClass)) {
+                throw new IllegalArgumentException("db.compressors incluye " + compressor
+                        + " pero su librería no está en el classpath (" + requiredClass + ")");
+            }
+            compressors.add(compressor);
+        }
+        return List.copyOf(compressors);
+    }
+
+    private static boolean isOnClasspath(String className) {
+        try {
+            Class.forName(className, false, MongoClientTuning.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+
+    private static ReadPreference readPreference(String value) {
+        try {
+            return ReadPreference.valueOf(value.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Valor no válido para db.readPreference: '" + value + "'", e);
+        }
+    }
+
+    private static WriteConcern writeConcern(String value) {
+        String trimmed = value.trim();
+        if (trimmed.chars().allMatch(Character::isDigit) && !trimmed.isEmpty()) {
+            return new WriteConcern(Integer.parseInt(trimmed));
+        }
+        WriteConcern writeConcern = WriteConcern.valueOf(trimmed);
+        if (writeConcern == null) {
+            throw new IllegalArgumentException("Valor no válido para db.writeConcern: '" + value + "'");
+        }
+        return writeConcern;
+    }
+}
@@ -0,0 +1,19 @@
+package com.example.app;
+
+import org.bson.types.ObjectId;
+
+import java.util.List;
+
+/**
+ * Typed view of a movie document holding only the fields the application reads.
+ * Fields left out of a projection (or missing/mistyped in the document) are null.
+ */
+public record Movie(
+        ObjectId id,
+        String title,
+        Integer year,
+        List<String> genres,
+        Integer runtime,
+        Double imdbRating,
+        Integer imdbVotes) {
+}
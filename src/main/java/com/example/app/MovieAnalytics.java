@@ -0,0 +1,221 @@
+package com.example.app;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.BucketOptions;
+import com.mongodb.client.model.Facet;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Movie statistics computed by aggregation pipelines on the server, so only the small
+ * per-group results travel over the wire instead of every matching movie.
+ *
+ * Movies whose year, runtime or imdb.rating is not numeric (the mflix data has a few
+ * strings there) are left out of the statistics on that field; $avg ignores them as well.
+ */
+public class MovieAnalytics {
+
+    /**
+     * Number of movies listing the genre and their mean imdb.rating (null when none is rated)
+     */
+    public record GenreStats(String genre, long movies, Double averageRating) {
+    }
+
+    /**
+     * Number of movies released in the year and their mean imdb.rating (null when none is rated)
+     */
+    public record YearStats(int year, long movies, Double averageRating) {
+    }
+
+    /**
+     * Movies with fromMinutes <= runtime < toMinutes
+     */
+    public record RuntimeBucket(int fromMinutes, int toMinutes, long movies) {
+    }
+
+    /**
+     * One bucket per pair of consecutive boundaries (empty ones included) plus the movies
+     * whose runtime falls outside the boundaries
+     */
+    public record RuntimeHistogram(List<RuntimeBucket> buckets, long outOfRange) {
+    }
+
+    /**
+     * Genre, year and runtime statistics computed in a single round trip
+     */
+    public record Overview(List<GenreStats> byGenre, List<YearStats> byYear, RuntimeHistogram runtimes) {
+    }
+
+    private static final String OUT_OF_RANGE = "other";
+
+    private final MongoCollection<Document> moviesCollection;
+    private final MongoCollection<Movie> typedMoviesCollection;
+    private final boolean allowDiskUse;
+
+    public MovieAnalytics(MongoDatabase database) {
+        this(database, false);
+    }
+
+    /**
+     * allowDiskUse lets $group and $sort stages spill to disk instead of failing once they
+     * exceed the server's per-stage memory limit (100 MB by default)
+     */
+    public MovieAnalytics(MongoDatabase database, boolean allowDiskUse) {
+        this.moviesCollection = database.getCollection("movies");
+        this.typedMoviesCollection = MovieRepository.typedCollection(moviesCollection);
+        this.allowDiskUse = allowDiskUse;
+    }
+
+    /**
+     * Movie count and mean rating per genre, most common genre first
+     */
+    public List<GenreStats> statsByGenre() {
+        return toGenreStats(aggregate(genreStatsPipeline()));
+    }
+
+    /**
+     * Movie count and mean rating per year, oldest first
+     */
+    public List<YearStats> statsByYear() {
+        return toYearStats(aggregate(yearStatsPipeline()));
+    }
+
+    /**
+     * The n best-rated movies of a genre, decoding only the requested fields
+     */
+    public List<Movie> topRatedInGenre(String genre, int n, MovieFields... fields) {
+        if (n <= 0) {
+            throw new IllegalArgumentException("n must be positive: " + n);
+        }
+        List<Movie> movies = new ArrayList<>();
+        typedMoviesCollection.aggregate(topRatedPipeline(genre, n, fields)).allowDiskUse(allowDiskUse).into(movies);
+        return movies;
+    }
+
+    /**
+     * Runtime histogram over ascending boundaries in minutes, e.g. 0, 60, 90, 120, 180
+     */
+    public RuntimeHistogram runtimeHistogram(List<Integer> boundaries) {
+        return toRuntimeHistogram(boundaries, aggregate(runtimeHistogramPipeline(boundaries)));
+    }
+
+    /**
+     * statsByGenre, statsByYear and runtimeHistogram in one round trip through $facet.
+     * The facets share one collection scan; they cannot use indexes.
+     */
+    public Overview overview(List<Integer> runtimeBoundaries) {
+        List<Bson> pipeline = List.of(Aggregates.facet(
+                new Facet("byGenre", genreStatsPipeline()),
+                new Facet("byYear", yearStatsPipeline()),
+                new Facet("runtimes", runtimeHistogramPipeline(runtimeBoundaries))));
+        Document result = moviesCollection.aggregate(pipeline).allowDiskUse(allowDiskUse).first();
+        if (result == null) {
+            return new Overview(List.of(), List.of(), toRuntimeHistogram(runtimeBoundaries, List.of()));
+        }
+        return new Overview(
+                toGenreStats(result.getList("byGenre", Document.class)),
+                toYearStats(result.getList("byYear", Document.class)),
+                toRuntimeHistogram(runtimeBoundaries, result.getList("runtimes", Document.class)));
+    }
+
+    static List<Bson> genreStatsPipeline() {
+        return List.of(
+                Aggregates.unwind("$genres"),
+                Aggregates.group("$genres",
+                        Accumulators.sum("movies", 1),
+                        Accumulators.avg("averageRating", "$imdb.rating")),
+                Aggregates.sort(Sorts.orderBy(Sorts.descending("movies"), Sorts.ascending("_id"))));
+    }
+
+    static List<Bson> yearStatsPipeline() {
+        return List.of(
+                Aggregates.match(Filters.type("year", "number")),
+                Aggregates.group("$year",
+                        Accumulators.sum("movies", 1),
+                        Accumulators.avg("averageRating", "$imdb.rating")),
+                Aggregates.sort(Sorts.ascending("_id")));
+    }
+
+    static List<Bson> topRatedPipeline(String genre, int n, MovieFields... fields) {
+        return List.of(
+                Aggregates.match(Filters.and(Filters.eq("genres", genre), Filters.type("imdb.rating", "number"))),
+                Aggregates.sort(Sorts.orderBy(Sorts.descending("imdb.rating"), Sorts.ascending("_id"))),
+                Aggregates.limit(n),
+                Aggregates.project(MovieFields.projection(fields)));
+    }
+
+    static List<Bson> runtimeHistogramPipeline(List<Integer> boundaries) {
+        checkBoundaries(boundaries);
+        return List.of(
+                Aggregates.match(Filters.type("runtime", "number")),
+                Aggregates.bucket("$runtime", boundaries, new BucketOptions()
+                        .defaultBucket(OUT_OF_RANGE)
+                        .output(Accumulators.sum("movies", 1))));
+    }
+
+    private List<Document> aggregate(List<Bson> pipeline) {
+        return moviesCollection.aggregate(pipeline).allowDiskUse(allowDiskUse).into(new ArrayList<>());
+    }
+
+    private static List<GenreStats> toGenreStats(List<Document> results) {
+        List<GenreStats> stats = new ArrayList<>(results.size());
+        for (Document result : results) {
+            stats.add(new GenreStats(String.valueOf(result.get("_id")), count(result), averageRating(result)));
+        }
+        return stats;
+    }
+
+    private static List<YearStats> toYearStats(List<Document> results) {
+        List<YearStats> stats = new ArrayList<>(results.size());
+        for (Document result : results) {
+            stats.add(new YearStats(((Number) result.get("_id")).intValue(), count(result), averageRating(result)));
+        }
+        return stats;
+    }
+
+    private static RuntimeHistogram toRuntimeHistogram(List<Integer> boundaries, List<Document> results) {
+        long[] counts = new long[boundaries.size() - 1];
+        long outOfRange = 0;
+        for (Document result : results) {
+            Object lowerBound = result.get("_id");
+            if (OUT_OF_RANGE.equals(lowerBound)) {
+                outOfRange = count(result);
+            } else {
+                counts[boundaries.indexOf(((Number) lowerBound).intValue())] = count(result);
+            }
+        }
+        List<RuntimeBucket> buckets = new ArrayList<>(counts.length);
+        for (int i = 0; i < counts.length; i++) {
+            buckets.add(new RuntimeBucket(boundaries.get(i), boundaries.get(i + 1), counts[i]));
+        }
+        return new RuntimeHistogram(buckets, outOfRange);
+    }
+
+    private static long count(Document result) {
+        return ((Number) result.get("movies")).longValue();
+    }
+
+    private static Double averageRating(Document result) {
+        Object average = result.get("averageRating");
+        return average instanceof Number number ? number.doubleValue() : null;
+    }
+
+    private static void checkBoundaries(List<Integer> boundaries) {
+        if (boundaries.size() < 2) {
+            throw new IllegalArgumentException("At least two runtime boundaries are needed: " + boundaries);
+        }
+        for (int i = 1; i < boundaries.size(); i++) {
+            if (boundaries.get(i) <= boundaries.get(i - 1)) {
+                throw new IllegalArgumentException("Runtime boundaries must be strictly ascending: " + boundaries);
+            }
+        }
+    }
+}
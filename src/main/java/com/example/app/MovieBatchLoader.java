@@ -0,0 +1,212 @@
+package com.example.app;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Coalesces concurrent single-movie lookups into one multi-get (DataLoader-style).
+ *
+ * The first lookup into an empty batch opens a window; the batch is sent when the window closes
+ * or when it reaches maxBatchSize IDs, whichever comes first. Each lookup returns a future that
+ * completes with the movie, or null when no movie has that ID. A lookup for an ID that is
+ * already queued or in flight shares the existing future instead of being sent again.
+ *
+ * A full batch is sent on the thread whose lookup filled it; a window that closes is sent on the
+ * loader's own thread. Results are not cached: once a batch completes, a new lookup for the same
+ * ID goes to the server again.
+ */
+public class MovieBatchLoader implements AutoCloseable {
+
+    private final Function<Collection<ObjectId>, Map<ObjectId, Document>> batchFind;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final ScheduledExecutorService flusher;
+    private final Object bufferLock = new Object();
+    private final Map<ObjectId, CompletableFuture<Document>> inFlight = new ConcurrentHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong deduplicated = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private Map<ObjectId, CompletableFuture<Document>> buffer = new LinkedHashMap<>();
+    private long generation;
+    private volatile boolean closed;
+
+    /**
+     * batchFind is usually MovieRepository::findMoviesByIds; see {@link MovieRepository#newBatchLoader}
+     */
+    public MovieBatchLoader(Function<Collection<ObjectId>, Map<ObjectId, Document>> batchFind,
+                            int maxBatchSize, Duration window) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        if (window.isNegative()) {
+            throw new IllegalArgumentException("window must not be negative: " + window);
+        }
+        this.batchFind = batchFind;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "movie-batch-loader");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Queue a lookup; the future completes with the movie or null
+     */
+    public CompletableFuture<Document> load(ObjectId id) {
+        if (closed) {
+            throw new IllegalStateException("MovieBatchLoader is closed");
+        }
+        requests.incrementAndGet();
+        Map<ObjectId, CompletableFuture<Document>> fullBatch = null;
+        CompletableFuture<Document> result;
+        synchronized (bufferLock) {
+            // close() may have drained the buffer since the check above; nothing would send this lookup
+            if (closed) {
+                throw new IllegalStateException("MovieBatchLoader is closed");
+            }
+            CompletableFuture<Document> existing = inFlight.get(id);
+            if (existing != null) {
+                deduplicated.incrementAndGet();
+                return existing;
+            }
+            result = new CompletableFuture<>();
+            inFlight.put(id, result);
+            buffer.put(id, result);
+            if (buffer.size() >= maxBatchSize) {
+                fullBatch = drainBuffer();
+            } else if (buffer.size() == 1) {
+                long windowGeneration = generation;
+                flusher.schedule(() -> flushWindow(windowGeneration), windowNanos, TimeUnit.NANOSECONDS);
+            }
+        }
+        if (fullBatch != null) {
+            execute(fullBatch);
+        }
+        return result;
+    }
+
+    /**
+     * Queue several lookups; the future completes with the movies found, keyed by ID
+     */
+    public CompletableFuture<Map<ObjectId, Document>> loadAll(Collection<ObjectId> ids) {
+        Map<ObjectId, CompletableFuture<Document>> futures = new LinkedHashMap<>();
+        for (ObjectId id : ids) {
+            futures.computeIfAbsent(id, this::load);
+        }
+        return CompletableFuture.allOf(futures.values().toArray(new CompletableFuture<?>[0]))
+                .thenApply(ignored -> {
+                    Map<ObjectId, Document> movies = new LinkedHashMap<>();
+                    futures.forEach((id, future) -> {
+                        Document movie = future.join();
+                        if (movie != null) {
+                            movies.put(id, movie);
+                        }
+                    });
+                    return movies;
+                });
+    }
+
+    /**
+     * Send whatever is queued now and wait for it to complete
+     */
+    public void flush() {
+        Map<ObjectId, CompletableFuture<Document>> batch;
+        synchronized (bufferLock) {
+            batch = drainBuffer();
+        }
+        execute(batch);
+    }
+
+    /**
+     * Lookups made, including the ones that shared a queued or in-flight ID
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * Lookups that shared a queued or in-flight ID instead of adding it to a batch
+     */
+    public long getDeduplicatedCount() {
+        return deduplicated.get();
+    }
+
+    /**
+     * Multi-get queries sent
+     */
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Send the pending lookups and stop the loader's thread
+     */
+    @Override
+    public void close() {
+        Map<ObjectId, CompletableFuture<Document>> batch;
+        synchronized (bufferLock) {
+            closed = true;
+            batch = drainBuffer();
+        }
+        flusher.shutdownNow();
+        execute(batch);
+    }
+
+    private void flushWindow(long windowGeneration) {
+        Map<ObjectId, CompletableFuture<Document>> batch;
+        synchronized (bufferLock) {
+            // The batch this window was opened for may already have been sent when it filled up
+            if (windowGeneration != generation) {
+                return;
+            }
+            batch = drainBuffer();
+        }
+        execute(batch);
+    }
+
+    private Map<ObjectId, CompletableFuture<Document>> drainBuffer() {
+        Map<ObjectId, CompletableFuture<Document>> batch = buffer;
+        buffer = new LinkedHashMap<>();
+        generation++;
+        return batch;
+    }
+
+    private void execute(Map<ObjectId, CompletableFuture<Document>> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        batches.incrementAndGet();
+        List<ObjectId> ids = new ArrayList<>(batch.keySet());
+        Map<ObjectId, Document> movies;
+        try {
+            movies = batchFind.apply(ids);
+        } catch (RuntimeException e) {
+            batch.forEach((id, future) -> {
+                inFlight.remove(id, future);
+                future.completeExceptionally(e);
+            });
+            return;
+        }
+        batch.forEach((id, future) -> {
+            inFlight.remove(id, future);
+            future.complete(movies.get(id));
+        });
+    }
+}
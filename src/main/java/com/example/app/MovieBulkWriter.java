@@ -0,0 +1,268 @@
+package com.example.app;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import com.mongodb.client.model.DeleteOneModel;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertOneModel;
+import com.mongodb.client.model.UpdateOneModel;
+import com.mongodb.client.model.Updates;
+import com.mongodb.client.model.WriteModel;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects movie writes and sends them to the server as unordered bulkWrite batches.
+ *
+ * A batch is flushed when it reaches maxBatchSize operations or when flushInterval elapses,
+ * whichever comes first. At most maxPendingOperations operations may be queued or in flight;
+ * submitting more blocks the caller until a batch completes. Each submitted operation returns
+ * a future that completes with its own {@link OperationResult}, successful or not.
+ *
+ * Several batches may be in flight at once and operations inside a batch are unordered, so
+ * two writes to the same movie are only guaranteed to apply in order if the caller waits for
+ * the first one's future before submitting the second.
+ */
+public class MovieBulkWriter implements AutoCloseable {
+
+    public enum OperationType {
+        INSERT,
+        UPDATE_RATING,
+        ADD_GENRE,
+        DELETE
+    }
+
+    /**
+     * Outcome of one queued operation. error is null when the operation succeeded.
+     */
+    public record OperationResult(OperationType type, ObjectId movieId, boolean succeeded, String error) {
+    }
+
+    private record PendingOperation(
+            OperationType type,
+            ObjectId movieId,
+            WriteModel<Document> model,
+            CompletableFuture<OperationResult> result) {
+    }
+
+    private final MongoCollection<Document> moviesCollection;
+    private final int maxBatchSize;
+    private final Semaphore capacity;
+    private final ScheduledExecutorService flusher;
+    private final Object bufferLock = new Object();
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    private List<PendingOperation> buffer = new ArrayList<>();
+    // written under bufferLock, so no operation can join the buffer after close() has drained it
+    private volatile boolean closed;
+
+    public MovieBulkWriter(MongoCollection<Document> moviesCollection, int maxBatchSize,
+                           Duration flushInterval, int maxPendingOperations) {
+        if (maxBatchSize <= 0) {
+            throw new IllegalArgumentException("maxBatchSize must be positive: " + maxBatchSize);
+        }
+        if (maxPendingOperations < maxBatchSize) {
+            throw new IllegalArgumentException("maxPendingOperations must be at least maxBatchSize");
+        }
+        if (flushInterval.toMillis() <= 0) {
+            throw new IllegalArgumentException("flushInterval must be at least 1 ms: " + flushInterval);
+        }
+        this.moviesCollection = moviesCollection;
+        this.maxBatchSize = maxBatchSize;
+        this.capacity = new Semaphore(maxPendingOperations);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "movie-bulk-writer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalMillis = flushInterval.toMillis();
+        flusher.scheduleWithFixedDelay(this::flushQuietly, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Queue an insert. An _id is assigned up front when the movie has none, and the
+     * normalized title is added as createMovie does.
+     */
+    public CompletableFuture<OperationResult> insertMovie(Document movie) {
+        ObjectId id = movie.getObjectId("_id");
+        if (id == null) {
+            id = new ObjectId();
+            movie.put("_id", id);
+        }
+        MovieRepository.addNormalizedTitle(movie);
+        return submit(OperationType.INSERT, id, new InsertOneModel<>(movie));
+    }
+
+    /**
+     * Queue a rating update
+     */
+    public CompletableFuture<OperationResult> updateMovieRating(ObjectId id, Object rating) {
+        return submit(OperationType.UPDATE_RATING, id,
+                new UpdateOneModel<>(Filters.eq("_id", id), Updates.set("imdb.rating", rating)));
+    }
+
+    /**
+     * Queue a genre addition
+     */
+    public CompletableFuture<OperationResult> addGenreToMovie(ObjectId id, String genre) {
+        return submit(OperationType.ADD_GENRE, id,
+                new UpdateOneModel<>(Filters.eq("_id", id), Updates.addToSet("genres", genre)));
+    }
+
+    /**
+     * Queue a delete
+     */
+    public CompletableFuture<OperationResult> deleteMovieById(ObjectId id) {
+        return submit(OperationType.DELETE, id, new DeleteOneModel<>(Filters.eq("_id", id)));
+    }
+
+    /**
+     * Send whatever is buffered now and wait for it to complete
+     */
+    public void flush() {
+        List<PendingOperation> batch;
+        synchronized (bufferLock) {
+            batch = drainBuffer();
+        }
+        execute(batch);
+    }
+
+    public long getSucceededCount() {
+        return succeeded.get();
+    }
+
+    public long getFailedCount() {
+        return failed.get();
+    }
+
+    public long getBatchCount() {
+        return batches.get();
+    }
+
+    /**
+     * Flush the remaining operations and stop the background flusher
+     */
+    @Override
+    public void close() {
+        synchronized (bufferLock) {
+            closed = true;
+        }
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        flush();
+    }
+
+    private CompletableFuture<OperationResult> submit(OperationType type, ObjectId id, WriteModel<Document> model) {
+        if (closed) {
+            throw new IllegalStateException("MovieBulkWriter is closed");
+        }
+        try {
+            capacity.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoInterruptedException("Interrupted while waiting for bulk write capacity", e);
+        }
+
+        PendingOperation operation = new PendingOperation(type, id, model, new CompletableFuture<>());
+        List<PendingOperation> fullBatch = null;
+        synchronized (bufferLock) {
+            if (closed) {
+                capacity.release();
+                throw new IllegalStateException("MovieBulkWriter is closed");
+            }
+            buffer.add(operation);
+            if (buffer.size() >= maxBatchSize) {
+                fullBatch = drainBuffer();
+            }
+        }
+        if (fullBatch != null) {
+            execute(fullBatch);
+        }
+        return operation.result();
+    }
+
+    private List<PendingOperation> drainBuffer() {
+        List<PendingOperation> batch = buffer;
+        buffer = new ArrayList<>();
+        return batch;
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Failures are reported per operation; never let the scheduler die
+        }
+    }
+
+    private void execute(List<PendingOperation> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<WriteModel<Document>> models = new ArrayList<>(batch.size());
+        for (PendingOperation operation : batch) {
+            models.add(operation.model());
+        }
+
+        // failure is tracked apart from the text: an exception message may be null
+        boolean[] rejected = new boolean[batch.size()];
+        String[] errors = new String[batch.size()];
+        try {
+            moviesCollection.bulkWrite(models, new BulkWriteOptions().ordered(false));
+        } catch (MongoBulkWriteException e) {
+            for (BulkWriteError error : e.getWriteErrors()) {
+                rejected[error.getIndex()] = true;
+                errors[error.getIndex()] = error.getMessage();
+            }
+            if (e.getWriteConcernError() != null) {
+                String message = "Write concern error: " + e.getWriteConcernError().getMessage();
+                for (int i = 0; i < errors.length; i++) {
+                    if (!rejected[i]) {
+                        rejected[i] = true;
+                        errors[i] = message;
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            Arrays.fill(rejected, true);
+            Arrays.fill(errors, String.valueOf(e));
+        } catch (Error e) {
+            // no result to report, but no caller may be left waiting either
+            failed.addAndGet(batch.size());
+            for (PendingOperation operation : batch) {
+                operation.result().completeExceptionally(e);
+            }
+            throw e;
+        } finally {
+            batches.incrementAndGet();
+            capacity.release(batch.size());
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            PendingOperation operation = batch.get(i);
+            boolean ok = !rejected[i];
+            (ok ? succeeded : failed).incrementAndGet();
+            operation.result().complete(new OperationResult(operation.type(), operation.movieId(), ok, errors[i]));
+        }
+    }
+}
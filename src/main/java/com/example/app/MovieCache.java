@@ -0,0 +1,184 @@
+package com.example.app;
+
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * Bounded in-process cache of movie documents keyed by _id, with LRU eviction and an optional TTL.
+ *
+ * Entries are stored as encoded BSON (RawBsonDocument), which gives an exact byte size for the
+ * byte bound and hands every caller its own decoded Document, so cached values cannot be
+ * mutated from outside.
+ */
+public class MovieCache {
+    /**
+     * Rough per-entry bookkeeping cost (map node, key, wrapper) added to the BSON size
+     */
+    private static final int ENTRY_OVERHEAD_BYTES = 96;
+
+    private record Entry(RawBsonDocument document, long expiresAtNanos) {
+        long sizeInBytes() {
+            return document.getByteBuffer().remaining() + ENTRY_OVERHEAD_BYTES;
+        }
+    }
+
+    private final int maxEntries;
+    private final long maxBytes;
+    private final long ttlNanos;
+    private final LongSupplier nanoClock;
+    private final DocumentCodec documentCodec = new DocumentCodec();
+    private final LinkedHashMap<ObjectId, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final AtomicLong invalidations = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private long currentBytes;
+
+    /**
+     * @param maxEntries maximum number of cached movies
+     * @param maxBytes   maximum approximate size of the cached movies; 0 for no byte bound
+     * @param ttl        time an entry stays valid after it is cached; Duration.ZERO for no expiry
+     */
+    public MovieCache(int maxEntries, long maxBytes, Duration ttl) {
+        this(maxEntries, maxBytes, ttl, System::nanoTime);
+    }
+
+    MovieCache(int maxEntries, long maxBytes, Duration ttl, LongSupplier nanoClock) {
+        if (maxEntries <= 0) {
+            throw new IllegalArgumentException("maxEntries must be positive: " + maxEntries);
+        }
+        this.maxEntries = maxEntries;
+        this.maxBytes = maxBytes > 0 ? maxBytes : Long.MAX_VALUE;
+        this.ttlNanos = ttl.isZero() ? Long.MAX_VALUE : ttl.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /**
+     * Returns a fresh copy of the cached movie, or null on a miss
+     */
+    public Document get(ObjectId id) {
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(id);
+            if (entry != null && isExpired(entry)) {
+                removeEntry(id);
+                expirations.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.document().decode(documentCodec);
+    }
+
+    /**
+     * Token to pass to {@link #put(ObjectId, Document, long)} for a value loaded after this call.
+     * Take it before querying the server.
+     */
+    public long loadToken() {
+        return invalidations.get();
+    }
+
+    /**
+     * Cache a movie loaded from the server. The value is dropped if any invalidation happened
+     * since the token was taken, because the load may have raced with a write.
+     */
+    public void put(ObjectId id, Document movie, long loadToken) {
+        RawBsonDocument encoded = new RawBsonDocument(movie, documentCodec);
+        long expiresAt = ttlNanos == Long.MAX_VALUE ? Long.MAX_VALUE : nanoClock.getAsLong() + ttlNanos;
+        Entry entry = new Entry(encoded, expiresAt);
+        synchronized (entries) {
+            if (invalidations.get() != loadToken) {
+                return;
+            }
+            removeEntry(id);
+            entries.put(id, entry);
+            currentBytes += entry.sizeInBytes();
+            evictIfNeeded();
+        }
+    }
+
+    /**
+     * Drop the cached entry for a movie that was written
+     */
+    public void invalidate(ObjectId id) {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            removeEntry(id);
+        }
+    }
+
+    public void invalidateAll() {
+        synchronized (entries) {
+            invalidations.incrementAndGet();
+            entries.clear();
+            currentBytes = 0;
+        }
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+
+    public long getEstimatedBytes() {
+        synchronized (entries) {
+            return currentBytes;
+        }
+    }
+
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    public long getExpirationCount() {
+        return expirations.sum();
+    }
+
+    private boolean isExpired(Entry entry) {
+        return ttlNanos != Long.MAX_VALUE && nanoClock.getAsLong() - entry.expiresAtNanos() >= 0;
+    }
+
+    private void removeEntry(ObjectId id) {
+        Entry removed = entries.remove(id);
+        if (removed != null) {
+            currentBytes -= removed.sizeInBytes();
+        }
+    }
+
+    /**
+     * Evicts least recently used entries until both bounds hold (caller holds the lock)
+     */
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<ObjectId, Entry>> eldest = entries.entrySet().iterator();
+        while ((entries.size() > maxEntries || currentBytes > maxBytes) && eldest.hasNext()) {
+            Entry entry = eldest.next().getValue();
+            eldest.remove();
+            currentBytes -= entry.sizeInBytes();
+            evictions.increment();
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.example.app;
+
+import org.bson.BsonReader;
+import org.bson.BsonType;
+import org.bson.BsonWriter;
+import org.bson.codecs.Codec;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hand-written codec that decodes a movie document straight into a {@link Movie},
+ * skipping every field the record does not map instead of building a Document for it.
+ * Values with an unexpected BSON type (sample_mflix has e.g. string years) decode as null.
+ */
+public class MovieCodec implements Codec<Movie> {
+
+    @Override
+    public Movie decode(BsonReader reader, DecoderContext decoderContext) {
+        ObjectId id = null;
+        String title = null;
+        Integer year = null;
+        List<String> genres = null;
+        Integer runtime = null;
+        Double imdbRating = null;
+        Integer imdbVotes = null;
+
+        reader.readStartDocument();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            switch (reader.readName()) {
+                case "_id" -> id = readObjectId(reader);
+                case "title" -> title = readString(reader);
+                case "year" -> year = readInteger(reader);
+                case "genres" -> genres = readStrings(reader);
+                case "runtime" -> runtime = readInteger(reader);
+                case "imdb" -> {
+                    if (reader.getCurrentBsonType() != BsonType.DOCUMENT) {
+                        reader.skipValue();
+                        break;
+                    }
+                    reader.readStartDocument();
+                    while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+                        switch (reader.readName()) {
+                            case "rating" -> imdbRating = readDouble(reader);
+                            case "votes" -> imdbVotes = readInteger(reader);
+                            default -> reader.skipValue();
+                        }
+                    }
+                    reader.readEndDocument();
+                }
+                default -> reader.skipValue();
+            }
+        }
+        reader.readEndDocument();
+
+        return new Movie(id, title, year, genres, runtime, imdbRating, imdbVotes);
+    }
+
+    @Override
+    public void encode(BsonWriter writer, Movie movie, EncoderContext encoderContext) {
+        writer.writeStartDocument();
+        if (movie.id() != null) {
+            writer.writeObjectId("_id", movie.id());
+        }
+        if (movie.title() != null) {
+            writer.writeString("title", movie.title());
+        }
+        if (movie.year() != null) {
+            writer.writeInt32("year", movie.year());
+        }
+        if (movie.genres() != null) {
+            writer.writeStartArray("genres");
+            for (String genre : movie.genres()) {
+                writer.writeString(genre);
+            }
+            writer.writeEndArray();
+        }
+        if (movie.runtime() != null) {
+            writer.writeInt32("runtime", movie.runtime());
+        }
+        if (movie.imdbRating() != null || movie.imdbVotes() != null) {
+            writer.writeStartDocument("imdb");
+            if (movie.imdbRating() != null) {
+                writer.writeDouble("rating", movie.imdbRating());
+            }
+            if (movie.imdbVotes() != null) {
+                writer.writeInt32("votes", movie.imdbVotes());
+            }
+            writer.writeEndDocument();
+        }
+        writer.writeEndDocument();
+    }
+
+    @Override
+    public Class<Movie> getEncoderClass() {
+        return Movie.class;
+    }
+
+    private static ObjectId readObjectId(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.OBJECT_ID) {
+            return reader.readObjectId();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    private static String readString(BsonReader reader) {
+        if (reader.getCurrentBsonType() == BsonType.STRING) {
+            return reader.readString();
+        }
+        reader.skipValue();
+        return null;
+    }
+
+    private static Integer readInteger(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case INT32 -> reader.readInt32();
+            case INT64 -> (int) reader.readInt64();
+            case DOUBLE -> (int) reader.readDouble();
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    private static Double readDouble(BsonReader reader) {
+        return switch (reader.getCurrentBsonType()) {
+            case DOUBLE -> reader.readDouble();
+            case INT32 -> (double) reader.readInt32();
+            case INT64 -> (double) reader.readInt64();
+            default -> {
+                reader.skipValue();
+                yield null;
+            }
+        };
+    }
+
+    private static List<String> readStrings(BsonReader reader) {
+        if (reader.getCurrentBsonType() != BsonType.ARRAY) {
+            reader.skipValue();
+            return null;
+        }
+        List<String> values = new ArrayList<>();
+        reader.readStartArray();
+        while (reader.readBsonType() != BsonType.END_OF_DOCUMENT) {
+            String value = readString(reader);
+            if (value != null) {
+                values.add(value);
+            }
+        }
+        reader.readEndArray();
+        return values;
+    }
+}
@@ -0,0 +1,367 @@
+package com.example.app;
+
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Read-only columnar snapshot of the movies collection for year, genre and rating scans.
+ *
+ * Each column is a primitive array in direct (off-heap) memory: the 12-byte _id, year, runtime and
+ * imdb.votes as ints, imdb.rating as a float, and the genres as a bitset per movie over a genre
+ * dictionary. A movie costs about 28 bytes plus 8 per 64 distinct genres, against several hundred
+ * for a decoded Document. Counts and filters scan the columns directly and allocate nothing per row.
+ *
+ * Missing or non-numeric values are stored as {@link #MISSING} (ints) or NaN (rating) and never
+ * match a filter.
+ */
+public final class MovieColumnarIndex {
+    public static final int MISSING = Integer.MIN_VALUE;
+
+    private static final int ID_BYTES = 12;
+
+    private final int rows;
+    private final ByteBuffer ids;
+    private final IntBuffer years;
+    private final IntBuffer runtimes;
+    private final IntBuffer votes;
+    private final FloatBuffer ratings;
+    private final LongBuffer genreBits;
+    private final int genreWords;
+    private final String[] genreNames;
+    private final Map<String, Integer> genreCodes;
+
+    private MovieColumnarIndex(int rows, ByteBuffer ids, IntBuffer years, IntBuffer runtimes, IntBuffer votes,
+                               FloatBuffer ratings, LongBuffer genreBits, int genreWords, String[] genreNames) {
+        this.rows = rows;
+        this.ids = ids;
+        this.years = years;
+        this.runtimes = runtimes;
+        this.votes = votes;
+        this.ratings = ratings;
+        this.genreBits = genreBits;
+        this.genreWords = genreWords;
+        this.genreNames = genreNames;
+        this.genreCodes = new HashMap<>();
+        for (int i = 0; i < genreNames.length; i++) {
+            genreCodes.put(genreNames[i], i);
+        }
+    }
+
+    /**
+     * Snapshot the whole collection, streaming it so no more than one batch of movies is on the heap at a time
+     */
+    public static MovieColumnarIndex load(MongoDatabase database) {
+        Builder builder = new Builder((int) Math.min(Integer.MAX_VALUE / ID_BYTES,
+                database.getCollection("movies").estimatedDocumentCount()));
+        try (MongoCursor<Movie> cursor = MovieRepository.typedCollection(database.getCollection("movies"))
+                .find()
+                .projection(MovieFields.projection(MovieFields.ID, MovieFields.YEAR, MovieFields.GENRES,
+                        MovieFields.RUNTIME, MovieFields.IMDB_RATING, MovieFields.IMDB_VOTES))
+                .batchSize(1000)
+                .cursor()) {
+            while (cursor.hasNext()) {
+                builder.add(cursor.next());
+            }
+        }
+        return builder.build();
+    }
+
+    public static MovieColumnarIndex of(List<Movie> movies) {
+        Builder builder = new Builder(movies.size());
+        for (Movie movie : movies) {
+            builder.add(movie);
+        }
+        return builder.build();
+    }
+
+    public int size() {
+        return rows;
+    }
+
+    /**
+     * Distinct genres, in dictionary order
+     */
+    public List<String> genres() {
+        return List.of(genreNames);
+    }
+
+    public int countMoviesByYear(int year) {
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (years.get(row) == year) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int countMoviesByGenre(String genre) {
+        Integer code = genreCodes.get(genre);
+        if (code == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int row = 0; row < rows; row++) {
+            if (hasGenre(row, code)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Movies with fromYear <= year <= toYear and imdb.rating >= minRating, of the genre unless it is null.
+     * Pass Double.NEGATIVE_INFINITY as minRating to include unrated movies.
+     */
+    public int countMovies(String genre, int fromYear, int toYear, double minRating) {
+        int count = 0;
+        int code = genreCode(genre);
+        if (code == -2) {
+            return 0;
+        }
+        for (int row = 0; row < rows; row++) {
+            if (matches(row, code, fromYear, toYear, minRating)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Row numbers matching the same filter as {@link #countMovies}; read the values with the *At accessors
+     */
+    public int[] findRows(String genre, int fromYear, int toYear, double minRating) {
+        int code = genreCode(genre);
+        if (code == -2) {
+            return new int[0];
+        }
+        int[] matches = new int[16];
+        int found = 0;
+        for (int row = 0; row < rows; row++) {
+            if (matches(row, code, fromYear, toYear, minRating)) {
+                if (found == matches.length) {
+                    matches = Arrays.copyOf(matches, found * 2);
+                }
+                matches[found++] = row;
+            }
+        }
+        return Arrays.copyOf(matches, found);
+    }
+
+    public List<ObjectId> findMovieIdsByYear(int year) {
+        List<ObjectId> found = new ArrayList<>();
+        for (int row = 0; row < rows; row++) {
+            if (years.get(row) == year) {
+                found.add(idAt(row));
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Mean imdb.rating of the rated movies of a year, NaN when there are none
+     */
+    public double averageRatingByYear(int year) {
+        double sum = 0;
+        int rated = 0;
+        for (int row = 0; row < rows; row++) {
+            float rating = ratings.get(row);
+            if (years.get(row) == year && !Float.isNaN(rating)) {
+                sum += rating;
+                rated++;
+            }
+        }
+        return rated == 0 ? Double.NaN : sum / rated;
+    }
+
+    public ObjectId idAt(int row) {
+        return new ObjectId(ids.duplicate().position(row * ID_BYTES));
+    }
+
+    public int yearAt(int row) {
+        return years.get(row);
+    }
+
+    public int runtimeAt(int row) {
+        return runtimes.get(row);
+    }
+
+    public int votesAt(int row) {
+        return votes.get(row);
+    }
+
+    public double ratingAt(int row) {
+        return ratings.get(row);
+    }
+
+    public List<String> genresAt(int row) {
+        List<String> genres = new ArrayList<>();
+        for (int code = 0; code < genreNames.length; code++) {
+            if (hasGenre(row, code)) {
+                genres.add(genreNames[code]);
+            }
+        }
+        return genres;
+    }
+
+    /**
+     * Off-heap bytes held by the columns (the small genre dictionary on the heap is not included)
+     */
+    public long offHeapBytes() {
+        return (long) rows * (ID_BYTES + Integer.BYTES * 3 + Float.BYTES + (long) Long.BYTES * genreWords);
+    }
+
+    /**
+     * -1 for "any genre", -2 for a genre no movie has, otherwise its dictionary code
+     */
+    private int genreCode(String genre) {
+        if (genre == null) {
+            return -1;
+        }
+        Integer code = genreCodes.get(genre);
+        return code == null ? -2 : code;
+    }
+
+    private boolean matches(int row, int genreCode, int fromYear, int toYear, double minRating) {
+        int year = years.get(row);
+        if (year == MISSING || year < fromYear || year > toYear) {
+            return false;
+        }
+        if (minRating != Double.NEGATIVE_INFINITY) {
+            float rating = ratings.get(row);
+            if (Float.isNaN(rating) || rating < minRating) {
+                return false;
+            }
+        }
+        return genreCode < 0 || hasGenre(row, genreCode);
+    }
+
+    private boolean hasGenre(int row, int code) {
+        return (genreBits.get(row * genreWords + (code >>> 6)) & (1L << (code & 63))) != 0;
+    }
+
+    /**
+     * Appends movies into growable direct columns; genre bitsets are laid out at build() once the
+     * dictionary is complete
+     */
+    private static final class Builder {
+        private int rows;
+        private ByteBuffer ids;
+        private ByteBuffer years;
+        private ByteBuffer runtimes;
+        private ByteBuffer votes;
+        private ByteBuffer ratings;
+        private final Map<String, Integer> genreCodes = new HashMap<>();
+        private final List<String> genreNames = new ArrayList<>();
+        private int[] rowGenreStart = new int[1];
+        private int[] rowGenreCodes = new int[16];
+        private int genreEntries;
+
+        Builder(int expectedRows) {
+            int capacity = Math.max(16, expectedRows);
+            ids = allocate(capacity * ID_BYTES);
+            years = allocate(capacity * Integer.BYTES);
+            runtimes = allocate(capacity * Integer.BYTES);
+            votes = allocate(capacity * Integer.BYTES);
+            ratings = allocate(capacity * Float.BYTES);
+        }
+
+        void add(Movie movie) {
+            if (movie.id() == null) {
+                return;
+            }
+            if (years.remaining() < Integer.BYTES) {
+                ids = grow(ids);
+                years = grow(years);
+                runtimes = grow(runtimes);
+                votes = grow(votes);
+                ratings = grow(ratings);
+            }
+            movie.id().putToByteBuffer(ids);
+            years.putInt(movie.year() == null ? MISSING : movie.year());
+            runtimes.putInt(movie.runtime() == null ? MISSING : movie.runtime());
+            votes.putInt(movie.imdbVotes() == null ? MISSING : movie.imdbVotes());
+            ratings.putFloat(movie.imdbRating() == null ? Float.NaN : movie.imdbRating().floatValue());
+
+            if (rows + 2 > rowGenreStart.length) {
+                rowGenreStart = Arrays.copyOf(rowGenreStart, rowGenreStart.length * 2 + 2);
+            }
+            if (movie.genres() != null) {
+                for (String genre : movie.genres()) {
+                    if (genre == null) {
+                        continue;
+                    }
+                    Integer code = genreCodes.get(genre);
+                    if (code == null) {
+                        code = genreNames.size();
+                        genreCodes.put(genre, code);
+                        genreNames.add(genre);
+                    }
+                    if (genreEntries == rowGenreCodes.length) {
+                        rowGenreCodes = Arrays.copyOf(rowGenreCodes, genreEntries * 2);
+                    }
+                    rowGenreCodes[genreEntries++] = code;
+                }
+            }
+            rows++;
+            rowGenreStart[rows] = genreEntries;
+        }
+
+        MovieColumnarIndex build() {
+            int genreWords = Math.max(1, (genreNames.size() + 63) / 64);
+            LongBuffer genreBits = allocate(Math.max(1, rows) * genreWords * Long.BYTES).asLongBuffer();
+            for (int row = 0; row < rows; row++) {
+                for (int entry = rowGenreStart[row]; entry < rowGenreStart[row + 1]; entry++) {
+                    int code = rowGenreCodes[entry];
+                    int word = row * genreWords + (code >>> 6);
+                    genreBits.put(word, genreBits.get(word) | (1L << (code & 63)));
+                }
+            }
+            return new MovieColumnarIndex(rows,
+                    shrink(ids, rows * ID_BYTES),
+                    shrink(years, rows * Integer.BYTES).asIntBuffer(),
+                    shrink(runtimes, rows * Integer.BYTES).asIntBuffer(),
+                    shrink(votes, rows * Integer.BYTES).asIntBuffer(),
+                    shrink(ratings, rows * Float.BYTES).asFloatBuffer(),
+                    genreBits,
+                    genreWords,
+                    genreNames.toArray(new String[0]));
+        }
+
+        private static ByteBuffer allocate(int bytes) {
+            return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+        }
+
+        private static ByteBuffer grow(ByteBuffer buffer) {
+            ByteBuffer larger = allocate(buffer.capacity() * 2);
+            buffer.flip();
+            larger.put(buffer);
+            return larger;
+        }
+
+        /**
+         * Copy into an exactly sized buffer so unused capacity does not stay reserved
+         */
+        private static ByteBuffer shrink(ByteBuffer buffer, int bytes) {
+            if (buffer.capacity() == bytes) {
+                return buffer.flip().order(ByteOrder.nativeOrder());
+            }
+            ByteBuffer exact = allocate(Math.max(1, bytes));
+            buffer.flip();
+            exact.put(buffer);
+            return exact.flip().order(ByteOrder.nativeOrder());
+        }
+    }
+}
@@ -0,0 +1,574 @@
+package com.example.app;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Accumulators;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocumentBeforeChange;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import org.bson.BsonDocument;
+import org.bson.BsonTimestamp;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Movie counts for dashboards that ask every few seconds, without a collection scan per call.
+ *
+ * estimatedCount() reads the total from collection metadata. countMovies() and
+ * countMoviesByYear() answer from a per-year histogram that is counted once by a $group
+ * aggregation at a snapshot read and then kept exact: writes made through createMovie() and
+ * deleteMovieById() adjust it straight away, and start() follows a change stream from just
+ * after the snapshot for everybody else's writes. Events for writes already counted locally are
+ * recognised and skipped.
+ *
+ * Deletes, replacements and year updates made elsewhere can only be attributed to a year with
+ * the document's pre-image; enable changeStreamPreAndPostImages on the movies collection to get
+ * them. Without one the service falls back to a recount once it has caught up with the stream.
+ * status() tells how current the counts are, and countMoviesByYear(year, maxStaleness) recounts
+ * first when they are older than the caller accepts. Snapshot reads and pre-images need
+ * MongoDB 6.0+ on a replica set or sharded cluster.
+ */
+public class MovieCountService implements AutoCloseable {
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    /**
+     * How current the counts are. countedAt is the last authoritative count; syncedAt the last
+     * time the change stream was drained, so every change committed before then is counted
+     * (null while not following).
+     */
+    public record CountStatus(Instant countedAt, Instant syncedAt, long eventsApplied, long recounts,
+                              boolean following) {
+
+        /**
+         * Age of the newest point at which the counts were known to be exact, null before the first count
+         */
+        public Duration staleness() {
+            Instant reference = syncedAt != null && (countedAt == null || syncedAt.isAfter(countedAt)) ? syncedAt : countedAt;
+            return reference == null ? null : Duration.between(reference, Instant.now());
+        }
+    }
+
+    /**
+     * A local write whose change event must not be counted again, tagged with the count it was applied to
+     */
+    private record PendingWrite(OperationType type, long epoch) {
+    }
+
+    private final MongoClient client;
+    private final MongoCollection<Document> moviesCollection;
+    private final MovieStore writer;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<ObjectId, PendingWrite> pending = new ConcurrentHashMap<>();
+    private final AtomicLong eventsApplied = new AtomicLong();
+    private final AtomicLong recounts = new AtomicLong();
+
+    // guarded by lock; epoch changes whenever a recount replaces the histogram
+    private Map<Integer, Long> byYear = new HashMap<>();
+    private long total;
+    private long epoch;
+    private BsonTimestamp streamStart;
+    private Instant countedAt;
+
+    private volatile Instant syncedAt;
+    private volatile boolean closed;
+    private volatile Thread syncThread;
+
+    /**
+     * writer performs createMovie/deleteMovieById for this service; client is needed for the snapshot session
+     */
+    public MovieCountService(MongoClient client, MongoDatabase database, MovieStore writer) {
+        this.client = client;
+        this.moviesCollection = database.getCollection("movies");
+        this.writer = writer;
+    }
+
+    /**
+     * Count the collection and start following its change stream. Returns once the count is done.
+     */
+    public synchronized void start() {
+        if (syncThread != null) {
+            throw new IllegalStateException("MovieCountService already started");
+        }
+        recount();
+        Thread thread = new Thread(this::follow, "movie-count-sync");
+        thread.setDaemon(true);
+        syncThread = thread;
+        thread.start();
+    }
+
+    /**
+     * Fast mode: the total from collection metadata, without reading any document. It can be off
+     * after an unclean shutdown, and on a sharded cluster it includes orphaned documents.
+     */
+    public long estimatedCount() {
+        return moviesCollection.estimatedDocumentCount();
+    }
+
+    /**
+     * Exact total, from the maintained histogram (counted on first use)
+     */
+    public long countMovies() {
+        ensureCounted();
+        lock.readLock().lock();
+        try {
+            return total;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Movies whose year equals the given one numerically, as MovieRepository counts them
+     */
+    public long countMoviesByYear(int year) {
+        ensureCounted();
+        lock.readLock().lock();
+        try {
+            return byYear.getOrDefault(year, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * As countMoviesByYear(year), recounting first when the counts are older than maxStaleness
+     */
+    public long countMoviesByYear(int year, Duration maxStaleness) {
+        Duration staleness = status().staleness();
+        if (staleness == null || staleness.compareTo(maxStaleness) > 0) {
+            recount();
+        }
+        return countMoviesByYear(year);
+    }
+
+    /**
+     * Movie count per year, for every year with at least one movie
+     */
+    public Map<Integer, Long> histogram() {
+        ensureCounted();
+        lock.readLock().lock();
+        try {
+            return Map.copyOf(byYear);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public CountStatus status() {
+        Instant counted;
+        lock.readLock().lock();
+        try {
+            counted = countedAt;
+        } finally {
+            lock.readLock().unlock();
+        }
+        boolean following = following();
+        return new CountStatus(counted, following ? syncedAt : null, eventsApplied.get(), recounts.get(), following);
+    }
+
+    /**
+     * Authoritative recount: one $group by year at a snapshot, which replaces the histogram. The
+     * change stream restarts just after the snapshot, so no change is missed or counted twice.
+     */
+    public synchronized void recount() {
+        Map<Integer, Long> counted = new HashMap<>();
+        long countedTotal = 0;
+        BsonTimestamp snapshotTime;
+        try (ClientSession session = client.startSession(ClientSessionOptions.builder().snapshot(true).build())) {
+            List<Document> groups = moviesCollection.aggregate(session, List.of(
+                            Aggregates.group("$year", Accumulators.sum("movies", 1))))
+                    .into(new ArrayList<>());
+            for (Document group : groups) {
+                long movies = group.get("movies", Number.class).longValue();
+                countedTotal += movies;
+                Integer year = yearKey(group.get("_id"));
+                if (year != null) {
+                    counted.merge(year, movies, Long::sum);
+                }
+            }
+            snapshotTime = session.getSnapshotTimestamp();
+        }
+
+        lock.writeLock().lock();
+        try {
+            byYear = counted;
+            total = countedTotal;
+            epoch++;
+            pending.clear();
+            streamStart = snapshotTime == null ? null : new BsonTimestamp(snapshotTime.getTime(), snapshotTime.getInc() + 1);
+            countedAt = Instant.now();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        recounts.incrementAndGet();
+    }
+
+    /**
+     * Create - Insert through the writer and count the movie at once. Assigns an ObjectId _id
+     * when the movie has none, so its change event can be recognised.
+     */
+    public ObjectId createMovie(Document movie) {
+        if (movie.get("_id") == null) {
+            movie.put("_id", new ObjectId());
+        }
+        ObjectId id = movie.get("_id") instanceof ObjectId objectId ? objectId : null;
+        long registered = register(id, OperationType.INSERT);
+        ObjectId created;
+        try {
+            created = writer.createMovie(movie);
+        } catch (RuntimeException e) {
+            forget(id);
+            throw e;
+        }
+        applyLocal(registered, movie.get("year"), 1);
+        return created;
+    }
+
+    /**
+     * Delete - Delete through the writer and uncount the movie at once. Its year is looked up
+     * first; a year changed between that lookup and the delete goes unnoticed until a recount.
+     */
+    public long deleteMovieById(ObjectId id) {
+        Movie before = writer.findMovieById(id, MovieFields.YEAR);
+        long registered = register(id, OperationType.DELETE);
+        long deleted;
+        try {
+            deleted = writer.deleteMovieById(id);
+        } catch (RuntimeException e) {
+            forget(id);
+            throw e;
+        }
+        if (deleted == 0 || before == null) {
+            // nothing to count locally; a concurrent insert's delete event is left to the stream
+            forget(id);
+            return deleted;
+        }
+        applyLocal(registered, before.year(), -1);
+        return deleted;
+    }
+
+    /**
+     * Stop following the change stream; the counts keep their last values
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = syncThread;
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    long epoch() {
+        lock.readLock().lock();
+        try {
+            return epoch;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Apply one change event read by a cursor opened for cursorEpoch. Returns false when the
+     * event changes a year that cannot be told without a pre-image, so a recount is needed.
+     * Events from a cursor older than the current count are ignored: the stream is reopened
+     * after the count's snapshot and they come again.
+     */
+    boolean apply(long cursorEpoch, OperationType type, ObjectId id, Document fullDocument,
+                  Document fullDocumentBeforeChange, UpdateDescription updateDescription) {
+        lock.writeLock().lock();
+        try {
+            if (cursorEpoch != epoch) {
+                return true;
+            }
+            PendingWrite local = id == null ? null : pending.get(id);
+            if (local != null && local.type() == type && local.epoch() == epoch) {
+                pending.remove(id);
+                return true;
+            }
+            switch (type) {
+                case INSERT -> {
+                    add(fullDocument == null ? null : fullDocument.get("year"), 1);
+                    total++;
+                }
+                case DELETE -> {
+                    if (fullDocumentBeforeChange == null) {
+                        return false;
+                    }
+                    add(fullDocumentBeforeChange.get("year"), -1);
+                    total--;
+                }
+                case REPLACE -> {
+                    if (fullDocumentBeforeChange == null) {
+                        return false;
+                    }
+                    add(fullDocumentBeforeChange.get("year"), -1);
+                    add(fullDocument == null ? null : fullDocument.get("year"), 1);
+                }
+                case UPDATE -> {
+                    if (updateDescription == null || !changesYear(updateDescription)) {
+                        break;
+                    }
+                    if (fullDocumentBeforeChange == null) {
+                        return false;
+                    }
+                    add(fullDocumentBeforeChange.get("year"), -1);
+                    BsonDocument updated = updateDescription.getUpdatedFields();
+                    add(updated == null ? null : updated.get("year"), 1);
+                }
+                default -> {
+                    return true;
+                }
+            }
+            eventsApplied.incrementAndGet();
+            return true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void follow() {
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = null;
+        long cursorEpoch = -1;
+        BsonDocument resumeToken = null;
+        boolean recountNeeded = false;
+        while (!closed) {
+            try {
+                long current = epoch();
+                if (cursor == null || cursorEpoch != current) {
+                    closeQuietly(cursor);
+                    if (cursorEpoch != current) {
+                        resumeToken = null;
+                    }
+                    cursor = open(resumeToken);
+                    cursorEpoch = current;
+                }
+                Instant polled = Instant.now();
+                ChangeStreamDocument<Document> event = cursor.tryNext();
+                if (event == null) {
+                    if (recountNeeded) {
+                        // caught up with the stream: one recount covers every unattributed event so far;
+                        // the flag stays set if it fails, so the retry path recounts instead
+                        recount();
+                        recountNeeded = false;
+                    } else {
+                        syncedAt = polled;
+                    }
+                } else if (isInvalidating(event.getOperationType())) {
+                    closeQuietly(cursor);
+                    cursor = null;
+                    recount();
+                } else if (!apply(cursorEpoch, event.getOperationType(), documentId(event.getDocumentKey()),
+                        event.getFullDocument(), event.getFullDocumentBeforeChange(), event.getUpdateDescription())) {
+                    recountNeeded = true;
+                }
+                if (cursor != null && cursor.getResumeToken() != null) {
+                    resumeToken = cursor.getResumeToken();
+                }
+            } catch (RuntimeException e) {
+                closeQuietly(cursor);
+                cursor = null;
+                if (!(e instanceof MongoException)
+                        || e instanceof MongoCommandException command && command.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // The token fell off the oplog, or a bug (e.g. a codec failure) may have skipped or
+                    // half-applied an event; a recount restarts the stream from a fresh snapshot
+                    recountNeeded = true;
+                    resumeToken = null;
+                }
+                if (!closed) {
+                    sleep(RETRY_DELAY);
+                }
+                if (recountNeeded && !closed) {
+                    recountNeeded = false;
+                    try {
+                        recount();
+                    } catch (RuntimeException retry) {
+                        recountNeeded = true;
+                    }
+                }
+            }
+        }
+        closeQuietly(cursor);
+    }
+
+    /**
+     * Resume after the last seen token, or start just after the current count's snapshot
+     */
+    private MongoChangeStreamCursor<ChangeStreamDocument<Document>> open(BsonDocument resumeToken) {
+        ChangeStreamIterable<Document> watch = moviesCollection.watch()
+                .fullDocumentBeforeChange(FullDocumentBeforeChange.WHEN_AVAILABLE)
+                .maxAwaitTime(1, TimeUnit.SECONDS);
+        if (resumeToken != null) {
+            watch = watch.resumeAfter(resumeToken);
+        } else {
+            BsonTimestamp start;
+            lock.readLock().lock();
+            try {
+                start = streamStart;
+            } finally {
+                lock.readLock().unlock();
+            }
+            if (start != null) {
+                watch = watch.startAtOperationTime(start);
+            }
+        }
+        return watch.cursor();
+    }
+
+    private boolean following() {
+        Thread thread = syncThread;
+        return thread != null && thread.isAlive() && !closed;
+    }
+
+    private void ensureCounted() {
+        boolean counted;
+        lock.readLock().lock();
+        try {
+            counted = countedAt != null;
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!counted) {
+            recount();
+        }
+    }
+
+    /**
+     * Remember a local write so its change event is skipped; only needed while following the stream
+     */
+    private long register(ObjectId id, OperationType type) {
+        lock.writeLock().lock();
+        try {
+            if (id != null && following()) {
+                pending.put(id, new PendingWrite(type, epoch));
+            }
+            return epoch;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void forget(ObjectId id) {
+        if (id != null) {
+            pending.remove(id);
+        }
+    }
+
+    /**
+     * Count a local write, unless a recount replaced the histogram meanwhile: that count or the
+     * restarted stream accounts for the write instead
+     */
+    private void applyLocal(long registeredEpoch, Object year, int delta) {
+        lock.writeLock().lock();
+        try {
+            if (registeredEpoch == epoch) {
+                add(year, delta);
+                total += delta;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void add(Object year, int delta) {
+        Integer key = yearKey(year);
+        if (key != null) {
+            byYear.merge(key, (long) delta, (count, change) -> count + change == 0 ? null : count + change);
+        }
+    }
+
+    private static boolean changesYear(UpdateDescription update) {
+        if (update.getUpdatedFields() != null) {
+            for (String field : update.getUpdatedFields().keySet()) {
+                if (field.equals("year") || field.startsWith("year.")) {
+                    return true;
+                }
+            }
+        }
+        if (update.getRemovedFields() != null) {
+            for (String field : update.getRemovedFields()) {
+                if (field.equals("year") || field.startsWith("year.")) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static boolean isInvalidating(OperationType type) {
+        return type == OperationType.INVALIDATE || type == OperationType.DROP
+                || type == OperationType.RENAME || type == OperationType.DROP_DATABASE;
+    }
+
+    /**
+     * The year a {year: n} filter would match, for whole-number int, long and double years; null otherwise
+     */
+    static Integer yearKey(Object year) {
+        if (year instanceof BsonValue bson) {
+            year = bson.isNumber() ? (Object) bson.asNumber().doubleValue() : null;
+        }
+        if (year instanceof Integer value) {
+            return value;
+        }
+        if (year instanceof Number number) {
+            double value = number.doubleValue();
+            if (value == Math.rint(value) && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE) {
+                return (int) value;
+            }
+        }
+        return null;
+    }
+
+    private static ObjectId documentId(BsonDocument documentKey) {
+        if (documentKey == null || !documentKey.isObjectId("_id")) {
+            return null;
+        }
+        return documentKey.getObjectId("_id").getValue();
+    }
+
+    private static void closeQuietly(MongoChangeStreamCursor<?> cursor) {
+        if (cursor != null) {
+            try {
+                cursor.close();
+            } catch (RuntimeException e) {
+                // The connection is likely gone already
+            }
+        }
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+    }
+}
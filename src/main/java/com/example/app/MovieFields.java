@@ -0,0 +1,50 @@
+package com.example.app;
+
+import com.mongodb.client.model.Projections;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fields of a movie document that can be requested in a projected read
+ */
+public enum MovieFields {
+    ID("_id"),
+    TITLE("title"),
+    YEAR("year"),
+    GENRES("genres"),
+    RUNTIME("runtime"),
+    IMDB_RATING("imdb.rating"),
+    IMDB_VOTES("imdb.votes");
+
+    private final String path;
+
+    MovieFields(String path) {
+        this.path = path;
+    }
+
+    /**
+     * Dotted path of the field in the movie document
+     */
+    public String path() {
+        return path;
+    }
+
+    /**
+     * Builds a projection including only the given fields. _id is excluded unless requested, and
+     * listed explicitly when it is, so an ID-only projection is not the empty (everything) one;
+     * no fields means every field the Movie record maps.
+     */
+    public static Bson projection(MovieFields... fields) {
+        MovieFields[] requested = fields.length == 0 ? values() : fields;
+        List<String> paths = new ArrayList<>(requested.length);
+        boolean includeId = false;
+        for (MovieFields field : requested) {
+            includeId |= field == ID;
+            paths.add(field.path);
+        }
+        Bson include = Projections.include(paths);
+        return includeId ? include : Projections.fields(include, Projections.excludeId());
+    }
+}
@@ -0,0 +1,153 @@
+package com.example.app;
+
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.IndexModel;
+import com.mongodb.client.model.IndexOptions;
+import com.mongodb.client.model.Indexes;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Declares the indexes the movie queries rely on and reconciles them with the server:
+ * builds whichever are missing and reports the ones queries are not using.
+ */
+public class MovieIndexManager {
+
+    /**
+     * An index the repository's queries need. A text spec is satisfied by any text index,
+     * since a collection can only have one.
+     */
+    public record IndexSpec(String name, Bson keys, boolean text) {
+    }
+
+    /**
+     * Result of a reconciliation: declared indexes that were already present and those built now
+     */
+    public record IndexReport(List<String> present, List<String> created) {
+    }
+
+    /**
+     * Indexes behind findMoviesByYear/countMoviesByYear, findMoviesByGenre, rating sorts,
+     * the keyset listing by year and the PREFIX/TEXT title search modes
+     */
+    public static final List<IndexSpec> MOVIE_INDEXES = List.of(
+            new IndexSpec("year_1", Indexes.ascending("year"), false),
+            new IndexSpec("genres_1", Indexes.ascending("genres"), false),
+            new IndexSpec("imdb.rating_-1", Indexes.descending("imdb.rating"), false),
+            new IndexSpec("year_1_genres_1", Indexes.ascending("year", "genres"), false),
+            new IndexSpec("genres_1_year_1__id_1", Indexes.ascending("genres", "year", "_id"), false),
+            new IndexSpec(MovieRepository.NORMALIZED_TITLE_FIELD + "_1",
+                    Indexes.ascending(MovieRepository.NORMALIZED_TITLE_FIELD), false),
+            new IndexSpec("title_text", Indexes.text("title"), true));
+
+    private final MongoCollection<Document> moviesCollection;
+    private final List<IndexSpec> declared;
+
+    public MovieIndexManager(MongoCollection<Document> moviesCollection) {
+        this(moviesCollection, MOVIE_INDEXES);
+    }
+
+    public MovieIndexManager(MongoCollection<Document> moviesCollection, List<IndexSpec> declared) {
+        this.moviesCollection = moviesCollection;
+        this.declared = declared;
+    }
+
+    /**
+     * Compare the declared indexes with listIndexes() and build the missing ones in one createIndexes call.
+     * An existing index with the same keys counts as present whatever its name.
+     */
+    public IndexReport ensureIndexes() {
+        List<Document> existing = moviesCollection.listIndexes().into(new ArrayList<>());
+        List<IndexSpec> missing = missingIndexes(declared, existing);
+
+        List<String> created = new ArrayList<>();
+        if (!missing.isEmpty()) {
+            List<IndexModel> models = new ArrayList<>();
+            for (IndexSpec spec : missing) {
+                models.add(new IndexModel(spec.keys(), new IndexOptions().name(spec.name())));
+                created.add(spec.name());
+            }
+            moviesCollection.createIndexes(models);
+        }
+
+        List<String> present = new ArrayList<>();
+        for (IndexSpec spec : declared) {
+            if (!missing.contains(spec)) {
+                present.add(spec.name());
+            }
+        }
+        return new IndexReport(present, created);
+    }
+
+    /**
+     * Names of indexes (other than _id_) with no recorded use since the server last restarted,
+     * from $indexStats. Usage counters are per mongod, so on a replica set this reflects the
+     * member that answered.
+     */
+    public List<String> findUnusedIndexes() {
+        List<String> unused = new ArrayList<>();
+        for (Document stats : moviesCollection.aggregate(List.of(new Document("$indexStats", new Document())))) {
+            String name = stats.getString("name");
+            Number ops = stats.getEmbedded(List.of("accesses", "ops"), Number.class);
+            if (!"_id_".equals(name) && (ops == null || ops.longValue() == 0)) {
+                unused.add(name);
+            }
+        }
+        return unused;
+    }
+
+    /**
+     * Declared specs with no matching index in the listIndexes() output
+     */
+    static List<IndexSpec> missingIndexes(List<IndexSpec> declared, List<Document> existing) {
+        List<String> existingKeys = new ArrayList<>();
+        boolean hasTextIndex = false;
+        for (Document index : existing) {
+            Document key = index.get("key", Document.class);
+            if (key == null) {
+                continue;
+            }
+            if (key.containsValue("text")) {
+                hasTextIndex = true;
+            }
+            existingKeys.add(keySignature(key));
+        }
+
+        List<IndexSpec> missing = new ArrayList<>();
+        for (IndexSpec spec : declared) {
+            boolean present = spec.text()
+                    ? hasTextIndex
+                    : existingKeys.contains(keySignature(spec.keys().toBsonDocument()));
+            if (!present) {
+                missing.add(spec);
+            }
+        }
+        return missing;
+    }
+
+    /**
+     * Ordered "field:direction" signature, so 1, 1L and 1.0 compare equal
+     */
+    private static String keySignature(Map<String, ?> key) {
+        StringBuilder signature = new StringBuilder();
+        for (Map.Entry<String, ?> entry : key.entrySet()) {
+            Object value = entry.getValue();
+            if (value instanceof BsonValue bsonValue) {
+                if (bsonValue.isNumber()) {
+                    value = bsonValue.asNumber().doubleValue();
+                } else if (bsonValue.isString()) {
+                    value = bsonValue.asString().getValue();
+                }
+            } else if (value instanceof Number number) {
+                value = number.doubleValue();
+            }
+            signature.append(entry.getKey()).append(':').append(value).append(',');
+        }
+        return signature.toString();
+    }
+}
@@ -0,0 +1,548 @@
+package com.example.app;
+
+import com.mongodb.MongoCommandException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.FullDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Opt-in local replica of the movies collection for read-mostly services.
+ *
+ * start() loads every movie (as {@link Movie} records) and then follows a change stream on a
+ * background thread, so lookups by id, genre, year and rating are answered from memory.
+ * The stream is opened before the initial load; events that overlap the load are applied again,
+ * which is harmless because every event carries the full document.
+ *
+ * If the stream fails (network error, primary step-down) it is resumed from the last resume token.
+ * If it cannot be resumed (token past the oplog window), the collection is dropped or renamed
+ * (invalidate) or applying it fails with a non-driver exception, the view is reloaded from scratch;
+ * readers keep seeing the old contents until the new ones are swapped in. Requires a replica set
+ * or sharded cluster, like any change stream.
+ *
+ * start(MovieSnapshot) returns at once and answers reads from the mapped snapshot file while the
+ * view is filled from it on the sync thread: lookups by id binary-search the file, the genre, year
+ * and rating queries scan and decode it. Until the stream has caught up from the snapshot's resume
+ * token, reads reflect the collection as of the snapshot.
+ */
+public class MovieMaterializedView implements AutoCloseable {
+    private static final int CHANGE_STREAM_HISTORY_LOST = 286;
+    private static final Duration RETRY_DELAY = Duration.ofSeconds(1);
+
+    /**
+     * Approximate heap held by the view: the movies and the secondary indexes over them
+     */
+    public record MemoryReport(int movies, int genres, int years, long estimatedBytes) {
+    }
+
+    /**
+     * Synchronization counters since start(); failures counts every error that interrupted the stream
+     */
+    public record SyncStats(long eventsApplied, long resumes, long fullResyncs, long failures, boolean running,
+                            boolean servingFromSnapshot) {
+    }
+
+    private record RatingKey(double rating, ObjectId id) {
+    }
+
+    private static final Comparator<RatingKey> BEST_RATED_FIRST = Comparator
+            .comparingDouble(RatingKey::rating).reversed()
+            .thenComparing(RatingKey::id);
+
+    /**
+     * The movies and their secondary indexes; replaced wholesale on a full resync
+     */
+    private static final class Snapshot {
+        final Map<ObjectId, Movie> byId = new HashMap<>();
+        final Map<String, Set<ObjectId>> byGenre = new HashMap<>();
+        final Map<Integer, Set<ObjectId>> byYear = new HashMap<>();
+        final TreeSet<RatingKey> byRating = new TreeSet<>(BEST_RATED_FIRST);
+        final Map<String, String> genreNames = new HashMap<>();
+        long estimatedBytes;
+    }
+
+    private final MongoCollection<Movie> typedMoviesCollection;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicLong eventsApplied = new AtomicLong();
+    private final AtomicLong resumes = new AtomicLong();
+    private final AtomicLong fullResyncs = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private Snapshot snapshot = new Snapshot();
+    // set while the view is filled from a snapshot file; reads go to the file until then
+    private volatile MovieSnapshot warming;
+    private volatile boolean closed;
+    private volatile Thread syncThread;
+    private BsonDocument resumeToken;
+
+    public MovieMaterializedView(MongoDatabase database) {
+        this.typedMoviesCollection = MovieRepository.typedCollection(database.getCollection("movies"));
+    }
+
+    /**
+     * Load the collection and start following its change stream. Returns once the initial load is done.
+     */
+    public synchronized void start() {
+        if (syncThread != null) {
+            throw new IllegalStateException("MovieMaterializedView already started");
+        }
+        MongoChangeStreamCursor<ChangeStreamDocument<Movie>> cursor = resync();
+        startSync(cursor);
+    }
+
+    /**
+     * Serve reads from a snapshot file at once, then fill the view from it and resume the change
+     * stream from the token recorded with it on the sync thread, so a restart reads local disk
+     * instead of the whole collection. Without a token this is start(); a token that fell off the
+     * oplog (or a file that fails to decode) makes the sync thread reload from the collection.
+     */
+    public synchronized void start(MovieSnapshot movieSnapshot) {
+        if (syncThread != null) {
+            throw new IllegalStateException("MovieMaterializedView already started");
+        }
+        if (movieSnapshot.resumeToken() == null) {
+            start();
+            return;
+        }
+        warming = movieSnapshot;
+        resumeToken = movieSnapshot.resumeToken();
+        startSync(null);
+    }
+
+    /**
+     * Read - Find a movie by ID
+     */
+    public Movie findMovieById(ObjectId id) {
+        MovieSnapshot file = warming;
+        if (file != null) {
+            return file.findMovieById(id);
+        }
+        lock.readLock().lock();
+        try {
+            return snapshot.byId.get(id);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read - Find up to limit movies of a genre
+     */
+    public List<Movie> findMoviesByGenre(String genre, int limit) {
+        MovieSnapshot file = warming;
+        if (file != null) {
+            return scan(file, movie -> movie.genres() != null && movie.genres().contains(genre), limit);
+        }
+        lock.readLock().lock();
+        try {
+            return collect(snapshot.byGenre.getOrDefault(genre, Set.of()), limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read - Find movies by year
+     */
+    public List<Movie> findMoviesByYear(int year) {
+        MovieSnapshot file = warming;
+        if (file != null) {
+            return scan(file, movie -> movie.year() != null && movie.year() == year, Integer.MAX_VALUE);
+        }
+        lock.readLock().lock();
+        try {
+            return collect(snapshot.byYear.getOrDefault(year, Set.of()), Integer.MAX_VALUE);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Read - The n best-rated movies, optionally restricted to a genre (null for all genres)
+     */
+    public List<Movie> findTopRated(String genre, int n) {
+        MovieSnapshot file = warming;
+        if (file != null) {
+            List<Movie> rated = scan(file, movie -> movie.imdbRating() != null
+                    && (genre == null || (movie.genres() != null && movie.genres().contains(genre))), Integer.MAX_VALUE);
+            rated.sort(Comparator.comparing((Movie movie) -> new RatingKey(movie.imdbRating(), movie.id()), BEST_RATED_FIRST));
+            return new ArrayList<>(rated.subList(0, Math.min(n, rated.size())));
+        }
+        lock.readLock().lock();
+        try {
+            List<Movie> movies = new ArrayList<>(Math.min(n, 64));
+            for (RatingKey key : snapshot.byRating) {
+                if (movies.size() >= n) {
+                    break;
+                }
+                Movie movie = snapshot.byId.get(key.id());
+                if (genre == null || (movie.genres() != null && movie.genres().contains(genre))) {
+                    movies.add(movie);
+                }
+            }
+            return movies;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        MovieSnapshot file = warming;
+        if (file != null) {
+            return file.size();
+        }
+        lock.readLock().lock();
+        try {
+            return snapshot.byId.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public MemoryReport memoryReport() {
+        lock.readLock().lock();
+        try {
+            return new MemoryReport(snapshot.byId.size(), snapshot.byGenre.size(), snapshot.byYear.size(),
+                    snapshot.estimatedBytes);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public SyncStats syncStats() {
+        return new SyncStats(eventsApplied.get(), resumes.get(), fullResyncs.get(), failures.get(),
+                syncThread != null && syncThread.isAlive(), warming != null);
+    }
+
+    /**
+     * Stop following the change stream; the view keeps its last contents
+     */
+    @Override
+    public void close() {
+        closed = true;
+        Thread thread = syncThread;
+        if (thread != null) {
+            try {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void startSync(MongoChangeStreamCursor<ChangeStreamDocument<Movie>> cursor) {
+        Thread thread = new Thread(() -> follow(cursor), "movie-view-sync");
+        thread.setDaemon(true);
+        syncThread = thread;
+        thread.start();
+    }
+
+    private void follow(MongoChangeStreamCursor<ChangeStreamDocument<Movie>> initialCursor) {
+        MongoChangeStreamCursor<ChangeStreamDocument<Movie>> cursor = initialCursor;
+        MovieSnapshot file = warming;
+        if (file != null) {
+            try {
+                List<Movie> movies = new ArrayList<>(file.size());
+                for (Movie movie : file.movies()) {
+                    movies.add(movie);
+                }
+                load(movies);
+            } catch (RuntimeException e) {
+                // Undecodable file: reload from the collection; reads stay on the file until then
+                resumeToken = null;
+            }
+        }
+        while (!closed) {
+            try {
+                if (cursor == null) {
+                    cursor = reopen();
+                }
+                ChangeStreamDocument<Movie> event = cursor.tryNext();
+                if (event != null && !apply(event.getOperationType(), documentId(event.getDocumentKey()),
+                        event.getFullDocument())) {
+                    cursor.close();
+                    cursor = resync();
+                    continue;
+                }
+                BsonDocument token = cursor.getResumeToken();
+                if (token != null) {
+                    resumeToken = token;
+                }
+            } catch (RuntimeException e) {
+                closeQuietly(cursor);
+                cursor = null;
+                failures.incrementAndGet();
+                if (!(e instanceof MongoException)
+                        || e instanceof MongoCommandException command && command.getErrorCode() == CHANGE_STREAM_HISTORY_LOST) {
+                    // The token fell off the oplog, or a bug (e.g. a codec failure) may have left the
+                    // view half-updated; the next attempt reloads everything
+                    resumeToken = null;
+                }
+                if (!closed) {
+                    sleep(RETRY_DELAY);
+                }
+            }
+        }
+        closeQuietly(cursor);
+    }
+
+    /**
+     * Resume after the last seen token, or reload everything when that is no longer possible
+     */
+    private MongoChangeStreamCursor<ChangeStreamDocument<Movie>> reopen() {
+        if (resumeToken == null) {
+            return resync();
+        }
+        MongoChangeStreamCursor<ChangeStreamDocument<Movie>> cursor = typedMoviesCollection.watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .resumeAfter(resumeToken)
+                .maxAwaitTime(1, TimeUnit.SECONDS)
+                .cursor();
+        resumes.incrementAndGet();
+        return cursor;
+    }
+
+    /**
+     * Open a fresh change stream, then load the whole collection into a new snapshot and swap it in
+     */
+    private MongoChangeStreamCursor<ChangeStreamDocument<Movie>> resync() {
+        MongoChangeStreamCursor<ChangeStreamDocument<Movie>> cursor = typedMoviesCollection.watch()
+                .fullDocument(FullDocument.UPDATE_LOOKUP)
+                .maxAwaitTime(1, TimeUnit.SECONDS)
+                .cursor();
+        try {
+            List<Movie> movies = new ArrayList<>();
+            typedMoviesCollection.find().projection(MovieFields.projection()).into(movies);
+            load(movies);
+        } catch (RuntimeException e) {
+            cursor.close();
+            throw e;
+        }
+        resumeToken = cursor.getResumeToken();
+        fullResyncs.incrementAndGet();
+        return cursor;
+    }
+
+    /**
+     * Replace the contents of the view with the given movies
+     */
+    void load(List<Movie> movies) {
+        Snapshot loaded = new Snapshot();
+        for (Movie movie : movies) {
+            insert(loaded, movie);
+        }
+        lock.writeLock().lock();
+        try {
+            snapshot = loaded;
+            warming = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Apply one change event. Returns false when the view must be reloaded (invalidate, drop, rename).
+     */
+    boolean apply(OperationType type, ObjectId id, Movie fullDocument) {
+        switch (type) {
+            case INSERT, UPDATE, REPLACE -> {
+                // fullDocument is null when the movie was deleted before the update lookup ran
+                if (fullDocument != null) {
+                    upsert(fullDocument);
+                } else if (id != null) {
+                    remove(id);
+                }
+            }
+            case DELETE -> {
+                if (id != null) {
+                    remove(id);
+                }
+            }
+            case INVALIDATE, DROP, RENAME, DROP_DATABASE -> {
+                return false;
+            }
+            default -> {
+                return true;
+            }
+        }
+        eventsApplied.incrementAndGet();
+        return true;
+    }
+
+    void upsert(Movie movie) {
+        lock.writeLock().lock();
+        try {
+            Movie previous = snapshot.byId.get(movie.id());
+            if (previous != null) {
+                delete(snapshot, previous);
+            }
+            insert(snapshot, movie);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(ObjectId id) {
+        lock.writeLock().lock();
+        try {
+            Movie previous = snapshot.byId.get(id);
+            if (previous != null) {
+                delete(snapshot, previous);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private static void insert(Snapshot target, Movie movie) {
+        if (movie.id() == null) {
+            return;
+        }
+        Movie stored = withSharedGenreNames(target, movie);
+        target.byId.put(stored.id(), stored);
+        if (stored.genres() != null) {
+            for (String genre : stored.genres()) {
+                target.byGenre.computeIfAbsent(genre, key -> new LinkedHashSet<>()).add(stored.id());
+            }
+        }
+        if (stored.year() != null) {
+            target.byYear.computeIfAbsent(stored.year(), key -> new LinkedHashSet<>()).add(stored.id());
+        }
+        if (stored.imdbRating() != null) {
+            target.byRating.add(new RatingKey(stored.imdbRating(), stored.id()));
+        }
+        target.estimatedBytes += estimateBytes(stored);
+    }
+
+    private static void delete(Snapshot target, Movie movie) {
+        target.byId.remove(movie.id());
+        if (movie.genres() != null) {
+            for (String genre : movie.genres()) {
+                removeFromIndex(target.byGenre, genre, movie.id());
+            }
+        }
+        if (movie.year() != null) {
+            removeFromIndex(target.byYear, movie.year(), movie.id());
+        }
+        if (movie.imdbRating() != null) {
+            target.byRating.remove(new RatingKey(movie.imdbRating(), movie.id()));
+        }
+        target.estimatedBytes -= estimateBytes(movie);
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<ObjectId>> index, K key, ObjectId id) {
+        Set<ObjectId> ids = index.get(key);
+        if (ids != null && ids.remove(id) && ids.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    /**
+     * Genre names repeat across thousands of movies; keep one String instance per genre
+     */
+    private static Movie withSharedGenreNames(Snapshot target, Movie movie) {
+        if (movie.genres() == null) {
+            return movie;
+        }
+        List<String> genres = new ArrayList<>(movie.genres().size());
+        for (String genre : movie.genres()) {
+            if (genre != null) {
+                genres.add(target.genreNames.computeIfAbsent(genre, key -> key));
+            }
+        }
+        return new Movie(movie.id(), movie.title(), movie.year(), List.copyOf(genres),
+                movie.runtime(), movie.imdbRating(), movie.imdbVotes());
+    }
+
+    /**
+     * Rough retained size of one movie and its index entries (compressed-oops 64-bit JVM):
+     * the record and its boxed fields, the title, the genre list, and a map/set node per index
+     */
+    static long estimateBytes(Movie movie) {
+        long bytes = 48 + 24 + 32 + 16;                                  // record, ObjectId, byId node + slot
+        if (movie.title() != null) {
+            bytes += 24 + 16 + movie.title().length();                   // String + Latin-1 array
+        }
+        bytes += movie.year() != null ? 16 + 40 : 0;                     // Integer + byYear set node
+        bytes += movie.runtime() != null ? 16 : 0;
+        bytes += movie.imdbVotes() != null ? 16 : 0;
+        bytes += movie.imdbRating() != null ? 16 + 24 + 40 : 0;          // Double + RatingKey + tree node
+        if (movie.genres() != null) {
+            bytes += 16 + 4L * movie.genres().size() + 40L * movie.genres().size(); // list + byGenre set nodes
+        }
+        return bytes;
+    }
+
+    /**
+     * Movies of the snapshot file that match, decoded one by one from the mapped pages
+     */
+    private static List<Movie> scan(MovieSnapshot file, Predicate<Movie> filter, int limit) {
+        List<Movie> movies = new ArrayList<>();
+        for (Movie movie : file.movies()) {
+            if (movies.size() >= limit) {
+                break;
+            }
+            if (filter.test(movie)) {
+                movies.add(movie);
+            }
+        }
+        return movies;
+    }
+
+    private List<Movie> collect(Set<ObjectId> ids, int limit) {
+        List<Movie> movies = new ArrayList<>(Math.min(ids.size(), limit));
+        for (ObjectId id : ids) {
+            if (movies.size() >= limit) {
+                break;
+            }
+            movies.add(snapshot.byId.get(id));
+        }
+        return movies;
+    }
+
+    private static ObjectId documentId(BsonDocument documentKey) {
+        if (documentKey == null || !documentKey.isObjectId("_id")) {
+            return null;
+        }
+        return documentKey.getObjectId("_id").getValue();
+    }
+
+    private static void closeQuietly(MongoChangeStreamCursor<?> cursor) {
+        if (cursor != null) {
+            try {
+                cursor.close();
+            } catch (RuntimeException e) {
+                // The connection is likely gone already
+            }
+        }
+    }
+
+    private void sleep(Duration duration) {
+        try {
+            Thread.sleep(duration.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            closed = true;
+        }
+    }
+}
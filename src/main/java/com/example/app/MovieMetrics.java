@@ -0,0 +1,100 @@
+package com.example.app;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Groups the repository's client-side metrics with the driver's command metrics and exposes
+ * them through JMX or any {@link MetricsSink}.
+ *
+ * Typical wiring: pass {@link #commandMetrics()} to the client settings as a CommandListener
+ * and {@link #repositoryMetrics()} to the MovieRepository.
+ */
+public class MovieMetrics implements MovieMetricsMXBean {
+    public static final String OBJECT_NAME = "com.example.app:type=MovieMetrics";
+
+    /**
+     * Snapshot of both sides at one point in time
+     */
+    public record Report(
+            Map<String, RepositoryMetrics.OperationSnapshot> operations,
+            Map<String, CommandMetrics.CommandSnapshot> commands) {
+    }
+
+    private final RepositoryMetrics repositoryMetrics;
+    private final CommandMetrics commandMetrics;
+
+    public MovieMetrics() {
+        this(new RepositoryMetrics(), new CommandMetrics());
+    }
+
+    public MovieMetrics(RepositoryMetrics repositoryMetrics, CommandMetrics commandMetrics) {
+        this.repositoryMetrics = repositoryMetrics;
+        this.commandMetrics = commandMetrics;
+    }
+
+    public RepositoryMetrics repositoryMetrics() {
+        return repositoryMetrics;
+    }
+
+    public CommandMetrics commandMetrics() {
+        return commandMetrics;
+    }
+
+    public Report report() {
+        return new Report(repositoryMetrics.snapshot(), commandMetrics.snapshot());
+    }
+
+    public void publishTo(MetricsSink sink) {
+        sink.publish(report());
+    }
+
+    /**
+     * Register this instance with the platform MBean server under {@link #OBJECT_NAME}
+     */
+    public ObjectName registerMBean() throws JMException {
+        ObjectName name = new ObjectName(OBJECT_NAME);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+        return name;
+    }
+
+    @Override
+    public Map<String, Long> getOperations() {
+        Map<String, Long> attributes = new LinkedHashMap<>();
+        repositoryMetrics.snapshot().forEach((method, snapshot) -> {
+            putLatency(attributes, method, snapshot.latency());
+            attributes.put(method + ".errors", snapshot.errors());
+            attributes.put(method + ".timeouts", snapshot.timeouts());
+            attributes.put(method + ".hedges", snapshot.hedges());
+            attributes.put(method + ".hedgeWins", snapshot.hedgeWins());
+        });
+        return attributes;
+    }
+
+    @Override
+    public Map<String, Long> getCommands() {
+        Map<String, Long> attributes = new LinkedHashMap<>();
+        commandMetrics.snapshot().forEach((command, snapshot) -> {
+            putLatency(attributes, command, snapshot.duration());
+            attributes.put(command + ".failures", snapshot.failures());
+            attributes.put(command + ".replySamples", snapshot.replySamples());
+            attributes.put(command + ".replyBytes", snapshot.replyBytes());
+            attributes.put(command + ".meanReplyBytes", Math.round(snapshot.meanReplyBytes()));
+            attributes.put(command + ".maxReplyBytes", snapshot.maxReplyBytes());
+        });
+        return attributes;
+    }
+
+    private static void putLatency(Map<String, Long> attributes, String prefix, LatencyHistogram.Snapshot latency) {
+        attributes.put(prefix + ".count", latency.count());
+        attributes.put(prefix + ".meanNanos", Math.round(latency.mean()));
+        attributes.put(prefix + ".p50Nanos", latency.p50());
+        attributes.put(prefix + ".p90Nanos", latency.p90());
+        attributes.put(prefix + ".p99Nanos", latency.p99());
+        attributes.put(prefix + ".p999Nanos", latency.p999());
+        attributes.put(prefix + ".maxNanos", latency.max());
+    }
+}
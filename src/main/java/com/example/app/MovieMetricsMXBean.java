@@ -0,0 +1,22 @@
+package com.example.app;
+
+import java.util.Map;
+
+/**
+ * JMX view of {@link MovieMetrics}. Keys are "name.statistic", e.g. "findMovieById.p99Nanos"
+ * or "find.meanReplyBytes", so any JMX console can browse them without custom types.
+ */
+public interface MovieMetricsMXBean {
+
+    /**
+     * Client-side latency (count, errors, meanNanos, p50Nanos, p90Nanos, p99Nanos, p999Nanos, maxNanos),
+     * timeouts, hedges and hedgeWins per repository method
+     */
+    Map<String, Long> getOperations();
+
+    /**
+     * Command duration (count, failures, meanNanos, p50Nanos, p90Nanos, p99Nanos, p999Nanos, maxNanos)
+     * and reply size (replySamples, replyBytes, meanReplyBytes, maxReplyBytes, when measured) per driver command
+     */
+    Map<String, Long> getCommands();
+}
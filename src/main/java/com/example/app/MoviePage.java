@@ -0,0 +1,16 @@
+package com.example.app;
+
+import org.bson.Document;
+
+import java.util.List;
+
+/**
+ * One page of a keyset-paginated listing. Pass nextPageToken back to fetch the following page;
+ * it is null on the last page.
+ */
+public record MoviePage(List<Document> movies, String nextPageToken) {
+
+    public boolean hasNextPage() {
+        return nextPageToken != null;
+    }
+}
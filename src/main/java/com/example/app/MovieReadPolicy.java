@@ -0,0 +1,56 @@
+package com.example.app;
+
+import java.time.Duration;
+import java.util.Properties;
+
+/**
+ * Time budget and hedging for movie reads, read from config.properties:
+ *
+ *   app.read.timeoutMs          per-call time budget, 0 for none (0)
+ *   app.read.hedge.enabled      hedge secondaryPreferred reads with {@link HedgedMovieReader} (false)
+ *   app.read.hedge.percentile   latency percentile after which a second read is sent (95)
+ *   app.read.hedge.minDelayMs   never hedge sooner than this, and the delay used until enough
+ *                               latencies have been recorded to estimate the percentile (10)
+ *
+ * The timeout covers the whole call (server selection, connection checkout and the server's
+ * own maxTimeMS) and fails it with a MongoOperationTimeoutException once spent.
+ */
+public record MovieReadPolicy(Duration timeout, boolean hedgeEnabled, int hedgePercentile, Duration hedgeMinDelay) {
+
+    public MovieReadPolicy {
+        if (timeout.isNegative() || hedgeMinDelay.isNegative()) {
+            throw new IllegalArgumentException("timeout and hedgeMinDelay must not be negative");
+        }
+        if (hedgePercentile < 1 || hedgePercentile > 99) {
+            throw new IllegalArgumentException("hedgePercentile must be between 1 and 99: " + hedgePercentile);
+        }
+    }
+
+    public static MovieReadPolicy defaults() {
+        return from(new Properties());
+    }
+
+    public static MovieReadPolicy from(Properties properties) {
+        int percentile = MongoClientTuning.intProperty(properties, "app.read.hedge.percentile", 95, 1);
+        if (percentile > 99) {
+            throw new IllegalArgumentException(
+                    "Valor no válido para app.read.hedge.percentile: " + percentile + " (máximo 99)");
+        }
+        return new MovieReadPolicy(
+                Duration.ofMillis(MongoClientTuning.intProperty(properties, "app.read.timeoutMs", 0, 0)),
+                MongoClientTuning.booleanProperty(properties, "app.read.hedge.enabled", false),
+                percentile,
+                Duration.ofMillis(MongoClientTuning.intProperty(properties, "app.read.hedge.minDelayMs", 10, 0)));
+    }
+
+    public boolean hasTimeout() {
+        return !timeout.isZero();
+    }
+
+    /**
+     * The repository with this policy's time budget applied to every call, or the repository itself without one
+     */
+    public MovieRepository applyTo(MovieRepository repository) {
+        return hasTimeout() ? repository.withTimeout(timeout) : repository;
+    }
+}
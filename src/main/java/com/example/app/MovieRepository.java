@@ -1,120 +1,786 @@
 package com.example.app;
 
+import com.example.app.RepositoryMetrics.Operation;
+import com.mongodb.ReadPreference;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.MongoIterable;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Field;
 import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Sorts;
 import com.mongodb.client.model.Updates;
 import com.mongodb.client.result.DeleteResult;
 import com.mongodb.client.result.UpdateResult;
+import org.bson.BsonDocument;
+import org.bson.BsonType;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.configuration.CodecRegistries;
 import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Repository class for performing CRUD operations on the movies collection
  */
-public class MovieRepository {
+public class MovieRepository implements MovieStore {
+    /**
+     * Default number of documents fetched per cursor round trip by the streaming reads
+     */
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    /**
+     * Lowercased copy of the title, kept for index-backed case-insensitive prefix search
+     */
+    public static final String NORMALIZED_TITLE_FIELD = "title_lower";
+
+    static final Bson MOVIES_PAGE_SORT = Sorts.ascending("_id");
+    static final List<String> MOVIES_PAGE_KEY = List.of("_id");
+    static final Bson GENRE_PAGE_SORT = Sorts.ascending("year", "_id");
+    static final List<String> GENRE_PAGE_KEY = List.of("year", "_id");
+
     private final MongoCollection<Document> moviesCollection;
+    private final MongoCollection<Movie> typedMoviesCollection;
+    private final MongoCollection<RawBsonDocument> rawMoviesCollection;
+    private final MovieIndexManager indexManager;
+    private final RepositoryMetrics metrics;
+    private volatile MovieIndexManager.IndexReport indexReport;
 
     public MovieRepository(MongoDatabase database) {
+        this(database, new RepositoryMetrics());
+    }
+
+    /**
+     * Repository recording the latency and errors of every operation into the given metrics
+     */
+    public MovieRepository(MongoDatabase database, RepositoryMetrics metrics) {
+        this.metrics = metrics;
         this.moviesCollection = database.getCollection("movies");
+        this.typedMoviesCollection = typedCollection(moviesCollection);
+        this.rawMoviesCollection = moviesCollection.withDocumentClass(RawBsonDocument.class);
+        this.indexManager = new MovieIndexManager(moviesCollection);
+    }
+
+    /**
+     * A view of base reading and writing through moviesCollection (base's collection with
+     * different settings); it shares base's metrics and index manager
+     */
+    protected MovieRepository(MovieRepository base, MongoCollection<Document> moviesCollection) {
+        this.metrics = base.metrics;
+        this.moviesCollection = moviesCollection;
+        this.typedMoviesCollection = typedCollection(moviesCollection);
+        this.rawMoviesCollection = moviesCollection.withDocumentClass(RawBsonDocument.class);
+        this.indexManager = base.indexManager;
+    }
+
+    @Override
+    public RepositoryMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * This repository with a time budget on every call: server selection, connection checkout and
+     * the server's maxTimeMS all come out of it, and the call fails with a
+     * MongoOperationTimeoutException once it is spent. A stream must be consumed within the budget.
+     */
+    public MovieRepository withTimeout(Duration timeout) {
+        if (timeout.isNegative()) {
+            throw new IllegalArgumentException("timeout must not be negative: " + timeout);
+        }
+        return derive(moviesCollection.withTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS));
+    }
+
+    /**
+     * This repository reading with the given read preference
+     */
+    public MovieRepository withReadPreference(ReadPreference readPreference) {
+        return derive(moviesCollection.withReadPreference(readPreference));
+    }
+
+    /**
+     * The view returned by withTimeout / withReadPreference; subclasses override it to keep their behaviour
+     */
+    protected MovieRepository derive(MongoCollection<Document> moviesCollection) {
+        return new MovieRepository(this, moviesCollection);
     }
 
     /**
      * Create - Insert a new movie document
      */
+    @Override
     public ObjectId createMovie(Document movie) {
-        moviesCollection.insertOne(movie);
-        return movie.getObjectId("_id");
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            addNormalizedTitle(movie);
+            moviesCollection.insertOne(movie);
+            return movie.getObjectId("_id");
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.CREATE_MOVIE, System.nanoTime() - start, failure);
+        }
     }
 
     /**
      * Read - Find a movie by ID
      */
+    @Override
     public Document findMovieById(ObjectId id) {
-        return moviesCollection.find(Filters.eq("_id", id)).first();
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return moviesCollection.find(Filters.eq("_id", id)).first();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIE_BY_ID, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - Find several movies by ID in one round trip ($in). Duplicate IDs are sent once;
+     * IDs with no movie are absent from the returned map.
+     */
+    @Override
+    public Map<ObjectId, Document> findMoviesByIds(Collection<ObjectId> ids) {
+        if (ids.isEmpty()) {
+            return new HashMap<>();
+        }
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            Set<ObjectId> distinct = new LinkedHashSet<>(ids);
+            Map<ObjectId, Document> movies = new HashMap<>(distinct.size() * 2);
+            List<Document> found = moviesCollection.find(Filters.in("_id", distinct))
+                    .batchSize(distinct.size())
+                    .into(new ArrayList<>(distinct.size()));
+            for (Document movie : found) {
+                movies.put(movie.getObjectId("_id"), movie);
+            }
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIES_BY_IDS, System.nanoTime() - start, failure);
+        }
     }
 
     /**
      * Read - Find movies by title (case-insensitive partial match)
      */
+    @Override
     public List<Document> findMoviesByTitle(String title) {
-        List<Document> movies = new ArrayList<>();
-        Bson filter = Filters.regex("title", title, "i");
-        moviesCollection.find(filter).into(movies);
-        return movies;
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            List<Document> movies = new ArrayList<>();
+            Bson filter = Filters.regex("title", title, "i");
+            moviesCollection.find(filter).into(movies);
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIES_BY_TITLE, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - Find movies by title using the given search mode
+     */
+    @Override
+    public List<Document> findMoviesByTitle(String title, TitleSearchMode mode) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            List<Document> movies = new ArrayList<>();
+            moviesCollection.find(titleFilter(title, mode)).into(movies);
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIES_BY_TITLE, System.nanoTime() - start, failure);
+        }
     }
 
     /**
      * Read - Find movies by year
      */
+    @Override
     public List<Document> findMoviesByYear(int year) {
-        List<Document> movies = new ArrayList<>();
-        moviesCollection.find(Filters.eq("year", year)).into(movies);
-        return movies;
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            List<Document> movies = new ArrayList<>();
+            moviesCollection.find(Filters.eq("year", year)).into(movies);
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIES_BY_YEAR, System.nanoTime() - start, failure);
+        }
     }
 
     /**
      * Read - Find movies by genre
      */
+    @Override
     public List<Document> findMoviesByGenre(String genre) {
-        List<Document> movies = new ArrayList<>();
-        Bson filter = Filters.in("genres", genre);
-        moviesCollection.find(filter).limit(10).into(movies);
-        return movies;
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            List<Document> movies = new ArrayList<>();
+            Bson filter = Filters.in("genres", genre);
+            moviesCollection.find(filter).limit(10).into(movies);
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIES_BY_GENRE, System.nanoTime() - start, failure);
+        }
     }
 
     /**
      * Read - Get all movies (with limit)
      */
+    @Override
     public List<Document> getAllMovies(int limit) {
-        List<Document> movies = new ArrayList<>();
-        moviesCollection.find().limit(limit).into(movies);
-        return movies;
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            List<Document> movies = new ArrayList<>();
+            moviesCollection.find().limit(limit).into(movies);
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.GET_ALL_MOVIES, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - Find a movie by ID, decoding only the requested fields
+     */
+    @Override
+    public Movie findMovieById(ObjectId id, MovieFields... fields) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return typedMoviesCollection
+                    .find(Filters.eq("_id", id))
+                    .projection(MovieFields.projection(fields))
+                    .first();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIE_BY_ID, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - One page of all movies in _id order. Pass null for the first page and the
+     * returned nextPageToken for the following ones; each page costs one indexed range query
+     * however deep it is.
+     */
+    @Override
+    public MoviePage getMoviesPage(int pageSize, String pageToken) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return fetchPage(moviesPageFilter(pageToken), MOVIES_PAGE_SORT, pageSize, MOVIES_PAGE_KEY);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.GET_MOVIES_PAGE, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - One page of a genre's movies ordered by (year, _id). Pass null for the first page
+     * and the returned nextPageToken for the following ones. Movies whose year is not numeric
+     * are left out, since they cannot be placed in the year order.
+     */
+    @Override
+    public MoviePage findMoviesByGenrePage(String genre, int pageSize, String pageToken) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return fetchPage(genrePageFilter(genre, pageToken), GENRE_PAGE_SORT, pageSize, GENRE_PAGE_KEY);
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIES_BY_GENRE_PAGE, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - Find movies by title (case-insensitive partial match), decoding only the requested fields
+     */
+    @Override
+    public List<Movie> findMoviesByTitle(String title, MovieFields... fields) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            List<Movie> movies = new ArrayList<>();
+            Bson filter = Filters.regex("title", title, "i");
+            typedMoviesCollection.find(filter).projection(MovieFields.projection(fields)).into(movies);
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIES_BY_TITLE, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - Find movies by title using the given search mode, decoding only the requested fields
+     */
+    @Override
+    public List<Movie> findMoviesByTitle(String title, TitleSearchMode mode, MovieFields... fields) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            List<Movie> movies = new ArrayList<>();
+            typedMoviesCollection.find(titleFilter(title, mode)).projection(MovieFields.projection(fields)).into(movies);
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIES_BY_TITLE, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - Find movies by year, decoding only the requested fields
+     */
+    @Override
+    public List<Movie> findMoviesByYear(int year, MovieFields... fields) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            List<Movie> movies = new ArrayList<>();
+            typedMoviesCollection.find(Filters.eq("year", year)).projection(MovieFields.projection(fields)).into(movies);
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIES_BY_YEAR, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - Find movies by genre (limited to 10), decoding only the requested fields
+     */
+    @Override
+    public List<Movie> findMoviesByGenre(String genre, MovieFields... fields) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            List<Movie> movies = new ArrayList<>();
+            Bson filter = Filters.in("genres", genre);
+            typedMoviesCollection.find(filter).projection(MovieFields.projection(fields)).limit(10).into(movies);
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIES_BY_GENRE, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - Get all movies (with limit), decoding only the requested fields
+     */
+    @Override
+    public List<Movie> getAllMovies(int limit, MovieFields... fields) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            List<Movie> movies = new ArrayList<>();
+            typedMoviesCollection.find().projection(MovieFields.projection(fields)).limit(limit).into(movies);
+            return movies;
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.GET_ALL_MOVIES, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - Stream movies by title (case-insensitive partial match) with the default batch size
+     */
+    public Stream<Document> streamMoviesByTitle(String title) {
+        return streamMoviesByTitle(title, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Read - Stream movies by title (case-insensitive partial match), fetching
+     * at most batchSize documents per round trip. Close the stream to release the cursor.
+     */
+    @Override
+    public Stream<Document> streamMoviesByTitle(String title, int batchSize) {
+        Bson filter = Filters.regex("title", title, "i");
+        return stream(moviesCollection.find(filter).batchSize(checkBatchSize(batchSize)));
+    }
+
+    /**
+     * Read - Stream movies by year with the default batch size
+     */
+    public Stream<Document> streamMoviesByYear(int year) {
+        return streamMoviesByYear(year, DEFAULT_BATCH_SIZE);
+    }
+
+    /**
+     * Read - Stream movies by year, fetching at most batchSize documents per round trip.
+     * Close the stream to release the cursor.
+     */
+    @Override
+    public Stream<Document> streamMoviesByYear(int year, int batchSize) {
+        return stream(moviesCollection.find(Filters.eq("year", year)).batchSize(checkBatchSize(batchSize)));
+    }
+
+    /**
+     * Read - Stream all movies (with limit), fetching at most batchSize documents per round trip.
+     * A limit of 0 streams the whole collection. Close the stream to release the cursor.
+     */
+    @Override
+    public Stream<Document> streamAllMovies(int limit, int batchSize) {
+        return stream(moviesCollection.find().limit(limit).batchSize(checkBatchSize(batchSize)));
+    }
+
+    /**
+     * Read - Find a movie by ID without decoding it. Fields are decoded only when accessed
+     * (RawBsonDocument.get), so forwarding the document costs no decode at all.
+     */
+    public RawBsonDocument findRawMovieById(ObjectId id) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return rawMoviesCollection.find(Filters.eq("_id", id)).first();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.FIND_MOVIE_BY_ID, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Read - Stream raw movies by title (case-insensitive partial match); see {@link RawMovieWriter}
+     * to forward them as BSON or JSON. Close the stream to release the cursor.
+     */
+    public Stream<RawBsonDocument> streamRawMoviesByTitle(String title, int batchSize) {
+        Bson filter = Filters.regex("title", title, "i");
+        return stream(rawMoviesCollection.find(filter).batchSize(checkBatchSize(batchSize)));
+    }
+
+    /**
+     * Read - Stream raw movies by year. Close the stream to release the cursor.
+     */
+    public Stream<RawBsonDocument> streamRawMoviesByYear(int year, int batchSize) {
+        return stream(rawMoviesCollection.find(Filters.eq("year", year)).batchSize(checkBatchSize(batchSize)));
+    }
+
+    /**
+     * Read - Stream all raw movies (with limit, 0 for none). Close the stream to release the cursor.
+     */
+    public Stream<RawBsonDocument> streamRawAllMovies(int limit, int batchSize) {
+        return stream(rawMoviesCollection.find().limit(limit).batchSize(checkBatchSize(batchSize)));
     }
 
     /**
      * Update - Update a movie's rating
      */
+    @Override
     public long updateMovieRating(ObjectId id, Object rating) {
-        Bson filter = Filters.eq("_id", id);
-        Bson update = Updates.set("imdb.rating", rating);
-        UpdateResult result = moviesCollection.updateOne(filter, update);
-        return result.getModifiedCount();
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            Bson filter = Filters.eq("_id", id);
+            Bson update = Updates.set("imdb.rating", rating);
+            UpdateResult result = moviesCollection.updateOne(filter, update);
+            return result.getModifiedCount();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.UPDATE_MOVIE_RATING, System.nanoTime() - start, failure);
+        }
     }
 
     /**
      * Update - Add a genre to a movie
      */
+    @Override
     public long addGenreToMovie(ObjectId id, String genre) {
-        Bson filter = Filters.eq("_id", id);
-        Bson update = Updates.addToSet("genres", genre);
-        UpdateResult result = moviesCollection.updateOne(filter, update);
-        return result.getModifiedCount();
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            Bson filter = Filters.eq("_id", id);
+            Bson update = Updates.addToSet("genres", genre);
+            UpdateResult result = moviesCollection.updateOne(filter, update);
+            return result.getModifiedCount();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.ADD_GENRE_TO_MOVIE, System.nanoTime() - start, failure);
+        }
     }
 
     /**
      * Delete - Delete a movie by ID
      */
+    @Override
     public long deleteMovieById(ObjectId id) {
-        DeleteResult result = moviesCollection.deleteOne(Filters.eq("_id", id));
-        return result.getDeletedCount();
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            DeleteResult result = moviesCollection.deleteOne(Filters.eq("_id", id));
+            return result.getDeletedCount();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.DELETE_MOVIE_BY_ID, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * Build any missing declared index (see {@link MovieIndexManager#MOVIE_INDEXES}) and backfill
+     * the normalized title on documents that do not have it yet. Runs once per repository;
+     * later calls return the first report.
+     */
+    public MovieIndexManager.IndexReport ensureIndexes() {
+        MovieIndexManager.IndexReport report = indexReport;
+        if (report == null) {
+            synchronized (this) {
+                report = indexReport;
+                if (report == null) {
+                    report = indexManager.ensureIndexes();
+                    backfillNormalizedTitles();
+                    indexReport = report;
+                }
+            }
+        }
+        return report;
+    }
+
+    /**
+     * Indexes that no query has used since the server started, for spotting dead or bypassed indexes
+     */
+    public List<String> findUnusedIndexes() {
+        return indexManager.findUnusedIndexes();
+    }
+
+    private void backfillNormalizedTitles() {
+        // $toLower matches normalizeTitle: both only fold ASCII letters
+        moviesCollection.updateMany(
+                Filters.and(Filters.type("title", BsonType.STRING), Filters.exists(NORMALIZED_TITLE_FIELD, false)),
+                List.of(Aggregates.set(new Field<>(NORMALIZED_TITLE_FIELD, new Document("$toLower", "$title")))));
+    }
+
+    /**
+     * Create a writer that batches inserts, rating updates, genre additions and deletes
+     * into unordered bulk writes. Close it to flush the remaining operations.
+     */
+    public MovieBulkWriter newBulkWriter(int maxBatchSize, Duration flushInterval, int maxPendingOperations) {
+        return new MovieBulkWriter(moviesCollection, maxBatchSize, flushInterval, maxPendingOperations);
     }
 
     /**
      * Count total movies
      */
+    @Override
     public long countMovies() {
-        return moviesCollection.countDocuments();
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return moviesCollection.countDocuments();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.COUNT_MOVIES, System.nanoTime() - start, failure);
+        }
     }
 
     /**
      * Count movies by filter
      */
+    @Override
     public long countMoviesByYear(int year) {
-        return moviesCollection.countDocuments(Filters.eq("year", year));
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return moviesCollection.countDocuments(Filters.eq("year", year));
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.record(Operation.COUNT_MOVIES_BY_YEAR, System.nanoTime() - start, failure);
+        }
+    }
+
+    /**
+     * The same collection decoding to {@link Movie} through MovieCodec
+     */
+    static MongoCollection<Movie> typedCollection(MongoCollection<Document> moviesCollection) {
+        return moviesCollection
+                .withCodecRegistry(CodecRegistries.fromRegistries(
+                        CodecRegistries.fromCodecs(new MovieCodec()),
+                        moviesCollection.getCodecRegistry()))
+                .withDocumentClass(Movie.class);
+    }
+
+    private static int checkBatchSize(int batchSize) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("batchSize must be positive: " + batchSize);
+        }
+        return batchSize;
+    }
+
+    /**
+     * Wraps a lazily iterated cursor in a sequential stream that closes the cursor on close()
+     */
+    private static <T> Stream<T> stream(MongoIterable<T> iterable) {
+        MongoCursor<T> cursor = iterable.cursor();
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize(
+                cursor, Spliterator.ORDERED | Spliterator.NONNULL);
+        return StreamSupport.stream(spliterator, false).onClose(cursor::close);
+    }
+
+    /**
+     * Builds the title filter for a search mode
+     */
+    static Bson titleFilter(String title, TitleSearchMode mode) {
+        return switch (mode) {
+            case PREFIX -> Filters.regex(NORMALIZED_TITLE_FIELD, "^" + escapeRegex(normalizeTitle(title)));
+            case TEXT -> Filters.and(Filters.text(title), Filters.regex("title", escapeRegex(title), "i"));
+            case REGEX -> Filters.regex("title", title, "i");
+        };
+    }
+
+    /**
+     * Lowercases ASCII letters only, matching the server's $toLower used by the backfill
+     */
+    static String normalizeTitle(String title) {
+        StringBuilder normalized = new StringBuilder(title.length());
+        for (int i = 0; i < title.length(); i++) {
+            char c = title.charAt(i);
+            normalized.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+        }
+        return normalized.toString();
+    }
+
+    /**
+     * Sets the normalized title on a movie about to be inserted
+     */
+    static void addNormalizedTitle(Document movie) {
+        Object title = movie.get("title");
+        if (title instanceof String) {
+            movie.put(NORMALIZED_TITLE_FIELD, normalizeTitle((String) title));
+        }
+    }
+
+    private static String escapeRegex(String text) {
+        StringBuilder escaped = new StringBuilder(text.length() + 8);
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if ("\\^$.|?*+()[]{}".indexOf(c) >= 0) {
+                escaped.append('\\');
+            }
+            escaped.append(c);
+        }
+        return escaped.toString();
+    }
+
+    /**
+     * Fetches pageSize + 1 documents so the presence of a next page is known without another query
+     */
+    private MoviePage fetchPage(Bson filter, Bson sort, int pageSize, List<String> keyFields) {
+        checkPageSize(pageSize);
+        List<Document> movies = new ArrayList<>(pageSize + 1);
+        moviesCollection.find(filter).sort(sort).limit(pageSize + 1).into(movies);
+        return toPage(movies, pageSize, keyFields);
+    }
+
+    /**
+     * Movies after the page token in _id order (all of them for the first page)
+     */
+    static Bson moviesPageFilter(String pageToken) {
+        if (pageToken == null) {
+            return Filters.empty();
+        }
+        BsonDocument lastKey = PageToken.decode(pageToken);
+        return Filters.gt("_id", lastKey.get("_id"));
+    }
+
+    /**
+     * A genre's movies with a numeric year after the page token in (year, _id) order
+     */
+    static Bson genrePageFilter(String genre, String pageToken) {
+        Bson filter = Filters.and(Filters.in("genres", genre), Filters.type("year", "number"));
+        if (pageToken == null) {
+            return filter;
+        }
+        BsonDocument lastKey = PageToken.decode(pageToken);
+        return Filters.and(filter, Filters.or(
+                Filters.gt("year", lastKey.get("year")),
+                Filters.and(Filters.eq("year", lastKey.get("year")), Filters.gt("_id", lastKey.get("_id")))));
+    }
+
+    static int checkPageSize(int pageSize) {
+        if (pageSize <= 0) {
+            throw new IllegalArgumentException("pageSize must be positive: " + pageSize);
+        }
+        return pageSize;
+    }
+
+    /**
+     * The page of up to pageSize + 1 fetched movies, with a token for the next one if there was an extra movie
+     */
+    static MoviePage toPage(List<Document> movies, int pageSize, List<String> keyFields) {
+        if (movies.size() <= pageSize) {
+            return new MoviePage(movies, null);
+        }
+        movies.remove(pageSize);
+
+        BsonDocument last = movies.get(pageSize - 1).toBsonDocument();
+        BsonDocument lastKey = new BsonDocument();
+        for (String field : keyFields) {
+            lastKey.put(field, last.get(field));
+        }
+        return new MoviePage(movies, PageToken.encode(lastKey));
     }
 }
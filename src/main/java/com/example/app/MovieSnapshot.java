@@ -0,0 +1,392 @@
+package com.example.app;
+
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.types.ObjectId;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A local, read-only copy of the movies collection in one memory-mapped file, so a restarted
+ * service can answer reads at once instead of re-querying the cluster to warm up.
+ *
+ * The file holds every movie as raw BSON (each document starts with its own int32 length),
+ * followed by an index of (_id, offset) entries sorted by _id, and the change stream resume
+ * token that was current when the copy began. Lookups binary-search the mapped index and decode
+ * only the movie asked for, straight from the mapped pages; nothing is read from disk until it
+ * is touched. A snapshot is written to a temporary file in the same directory and moved over the
+ * old one atomically, so readers see either the old or the new file, never a partial one.
+ *
+ * Layout, little-endian like BSON itself:
+ *   header   "MFLXSNAP", int version, int count, long createdAt (epoch ms),
+ *            long indexOffset, int tokenLength, resume token (raw BSON, may be empty)
+ *   movies   count raw BSON documents, in collection order
+ *   index    count entries of 12-byte ObjectId + long offset, sorted by ObjectId
+ *
+ * MovieMaterializedView.start(snapshot) loads from a snapshot and resumes the change stream
+ * from its token. Every movie needs an ObjectId _id, as in sample_mflix.
+ */
+public final class MovieSnapshot {
+    private static final byte[] MAGIC = "MFLXSNAP".getBytes(StandardCharsets.US_ASCII);
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 36;
+    private static final int INDEX_ENTRY_BYTES = 20;
+    private static final int WRITE_BUFFER_BYTES = 1 << 20;
+    private static final MovieCodec MOVIE_CODEC = new MovieCodec();
+
+    private record IndexEntry(ObjectId id, long offset) {
+    }
+
+    private final Path file;
+    private final ByteBuffer mapped;
+    private final int count;
+    private final int indexOffset;
+    private final Instant createdAt;
+    private final BsonDocument resumeToken;
+
+    private MovieSnapshot(Path file, ByteBuffer mapped, int count, int indexOffset, Instant createdAt,
+                          BsonDocument resumeToken) {
+        this.file = file;
+        this.mapped = mapped;
+        this.count = count;
+        this.indexOffset = indexOffset;
+        this.createdAt = createdAt;
+        this.resumeToken = resumeToken;
+    }
+
+    /**
+     * Copy the movies collection into file. The change stream is opened before the copy, so
+     * resuming from the recorded token replays every change the copy may have missed; replayed
+     * events carry the full document and are harmless to apply twice.
+     */
+    public static MovieSnapshot write(Path file, MongoDatabase database) throws IOException {
+        MongoCollection<RawBsonDocument> rawCollection = database.getCollection("movies", RawBsonDocument.class);
+        try (MongoChangeStreamCursor<ChangeStreamDocument<RawBsonDocument>> stream = rawCollection.watch()
+                .maxAwaitTime(1, TimeUnit.SECONDS)
+                .cursor();
+             MongoCursor<RawBsonDocument> movies = rawCollection.find().batchSize(1000).cursor()) {
+            BsonDocument token = stream.getResumeToken();
+            write(file, () -> movies, token);
+        }
+        return open(file);
+    }
+
+    /**
+     * Write the given movies and resume token (null for none) to file, replacing it atomically
+     */
+    static void write(Path file, Iterable<RawBsonDocument> movies, BsonDocument resumeToken) throws IOException {
+        Path directory = file.toAbsolutePath().getParent();
+        Path temporary = Files.createTempFile(directory, file.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                writeTo(channel, movies, resumeToken);
+                channel.force(true);
+            }
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Map an existing snapshot file. Only the header and resume token are read here.
+     */
+    public static MovieSnapshot open(Path file) throws IOException {
+        MappedByteBuffer mapped;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " is larger than 2 GB and cannot be mapped at once");
+            }
+            if (size < HEADER_BYTES) {
+                throw new IOException("Snapshot " + file + " is truncated (" + size + " bytes)");
+            }
+            mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+        }
+        ByteBuffer buffer = mapped.order(ByteOrder.LITTLE_ENDIAN);
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (!Arrays.equals(magic, MAGIC)) {
+            throw new IOException(file + " is not a movie snapshot");
+        }
+        int version = buffer.getInt(8);
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version + " in " + file);
+        }
+        int count = buffer.getInt(12);
+        long createdAt = buffer.getLong(16);
+        long indexOffset = buffer.getLong(24);
+        int tokenLength = buffer.getInt(32);
+        if (count < 0 || tokenLength < 0 || HEADER_BYTES + (long) tokenLength > indexOffset
+                || indexOffset + (long) count * INDEX_ENTRY_BYTES != buffer.capacity()) {
+            throw new IOException("Snapshot " + file + " is truncated or corrupt");
+        }
+        BsonDocument token = null;
+        if (tokenLength > 0) {
+            byte[] bytes = new byte[tokenLength];
+            buffer.get(HEADER_BYTES, bytes);
+            token = new RawBsonDocument(bytes);
+        }
+        return new MovieSnapshot(file, buffer, count, (int) indexOffset, Instant.ofEpochMilli(createdAt), token);
+    }
+
+    public Path file() {
+        return file;
+    }
+
+    public int size() {
+        return count;
+    }
+
+    /**
+     * When the copy began; the movies are at least this current
+     */
+    public Instant createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * Resume token of a change stream opened just before the copy, null if none was recorded
+     */
+    public BsonDocument resumeToken() {
+        return resumeToken;
+    }
+
+    /**
+     * Read - Find a movie by ID, decoding only the fields of {@link Movie}
+     */
+    public Movie findMovieById(ObjectId id) {
+        int slot = slotOf(id);
+        return slot < 0 ? null : decode(offsetAt(slot));
+    }
+
+    /**
+     * Raw read - The whole stored document, copied out of the mapping
+     */
+    public RawBsonDocument findRawById(ObjectId id) {
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return null;
+        }
+        int offset = offsetAt(slot);
+        byte[] bytes = new byte[mapped.getInt(offset)];
+        mapped.get(offset, bytes);
+        return new RawBsonDocument(bytes);
+    }
+
+    /**
+     * Every movie in _id order, decoded one at a time as the iteration reaches it
+     */
+    public Iterable<Movie> movies() {
+        return () -> new Iterator<>() {
+            private int slot;
+
+            @Override
+            public boolean hasNext() {
+                return slot < count;
+            }
+
+            @Override
+            public Movie next() {
+                if (slot >= count) {
+                    throw new NoSuchElementException();
+                }
+                return decode(offsetAt(slot++));
+            }
+        };
+    }
+
+    private Movie decode(int offset) {
+        ByteBuffer document = mapped.slice(offset, mapped.getInt(offset));
+        try (BsonBinaryReader reader = new BsonBinaryReader(document)) {
+            return MOVIE_CODEC.decode(reader, DecoderContext.builder().build());
+        }
+    }
+
+    /**
+     * Binary search of the sorted index; -1 when the id is not in the snapshot
+     */
+    private int slotOf(ObjectId id) {
+        if (id == null) {
+            return -1;
+        }
+        byte[] wanted = id.toByteArray();
+        int low = 0;
+        int high = count - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int compared = compareIdAt(middle, wanted);
+            if (compared < 0) {
+                low = middle + 1;
+            } else if (compared > 0) {
+                high = middle - 1;
+            } else {
+                return middle;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares the stored id in slot with wanted byte by byte, unsigned, as ObjectId.compareTo does
+     */
+    private int compareIdAt(int slot, byte[] wanted) {
+        int entry = indexOffset + slot * INDEX_ENTRY_BYTES;
+        for (int i = 0; i < wanted.length; i++) {
+            int compared = Integer.compare(mapped.get(entry + i) & 0xff, wanted[i] & 0xff);
+            if (compared != 0) {
+                return compared;
+            }
+        }
+        return 0;
+    }
+
+    private int offsetAt(int slot) {
+        return (int) mapped.getLong(indexOffset + slot * INDEX_ENTRY_BYTES + 12);
+    }
+
+    private static void writeTo(FileChannel channel, Iterable<RawBsonDocument> movies, BsonDocument resumeToken)
+            throws IOException {
+        long createdAt = System.currentTimeMillis();
+        byte[] token = resumeToken == null ? new byte[0] : rawBytes(resumeToken);
+        ByteBuffer buffer = ByteBuffer.allocate(WRITE_BUFFER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(new byte[HEADER_BYTES]);
+        long position = HEADER_BYTES;
+        position += put(channel, buffer, ByteBuffer.wrap(token));
+
+        List<IndexEntry> index = new ArrayList<>();
+        for (RawBsonDocument movie : movies) {
+            BsonValue id = movie.get("_id");
+            if (id == null || !id.isObjectId()) {
+                throw new IllegalArgumentException("_id must be an ObjectId: " + id);
+            }
+            index.add(new IndexEntry(id.asObjectId().getValue(), position));
+            position += put(channel, buffer, movie.getByteBuffer().asNIO());
+        }
+        if (position > Integer.MAX_VALUE - (long) index.size() * INDEX_ENTRY_BYTES) {
+            throw new IllegalArgumentException("Snapshot would exceed 2 GB (" + index.size() + " movies)");
+        }
+
+        index.sort(Comparator.comparing(IndexEntry::id));
+        long indexOffset = position;
+        ObjectId previous = null;
+        ByteBuffer entry = ByteBuffer.allocate(INDEX_ENTRY_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        for (IndexEntry indexEntry : index) {
+            if (indexEntry.id().equals(previous)) {
+                throw new IllegalArgumentException("Duplicate _id " + previous);
+            }
+            previous = indexEntry.id();
+            entry.clear();
+            entry.put(indexEntry.id().toByteArray()).putLong(indexEntry.offset()).flip();
+            put(channel, buffer, entry);
+        }
+        flush(channel, buffer);
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN)
+                .put(MAGIC)
+                .putInt(VERSION)
+                .putInt(index.size())
+                .putLong(createdAt)
+                .putLong(indexOffset)
+                .putInt(token.length)
+                .flip();
+        while (header.hasRemaining()) {
+            channel.write(header, header.position());
+        }
+    }
+
+    /**
+     * Append bytes through the write buffer; returns how many were appended
+     */
+    private static int put(FileChannel channel, ByteBuffer buffer, ByteBuffer bytes) throws IOException {
+        int length = bytes.remaining();
+        if (length > buffer.remaining()) {
+            flush(channel, buffer);
+        }
+        if (length > buffer.remaining()) {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } else {
+            buffer.put(bytes);
+        }
+        return length;
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private static byte[] rawBytes(BsonDocument document) {
+        RawBsonDocument raw = document instanceof RawBsonDocument rawDocument
+                ? rawDocument : new RawBsonDocument(document, new BsonDocumentCodec());
+        ByteBuffer bytes = raw.getByteBuffer().asNIO();
+        byte[] copy = new byte[bytes.remaining()];
+        bytes.get(copy);
+        return copy;
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2 || !(args[0].equals("write") || args[0].equals("info"))) {
+            System.err.println("Usage: MovieSnapshot write <file.snap>");
+            System.err.println("       MovieSnapshot info <file.snap>");
+            System.exit(2);
+            return;
+        }
+        Path file = Path.of(args[1]);
+        try {
+            MovieSnapshot snapshot;
+            if (args[0].equals("write")) {
+                String connectionString = ConfigManager.getConnectionString();
+                long start = System.nanoTime();
+                try (MongoClient mongoClient = MongoClients.create(App.buildClientSettings(
+                        connectionString, ConfigManager.getClientTuning(), null, null))) {
+                    snapshot = write(file, mongoClient.getDatabase("sample_mflix"));
+                }
+                System.out.printf("✓ Wrote %,d movies in %.1f s%n", snapshot.size(),
+                        (System.nanoTime() - start) / 1e9);
+            } else {
+                snapshot = open(file);
+            }
+            System.out.printf("%s: %,d movies, %.1f MB, created %s, resume token %s%n", file, snapshot.size(),
+                    Files.size(file) / 1e6, snapshot.createdAt(),
+                    snapshot.resumeToken() == null ? "none" : "recorded");
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Snapshot failed: " + e.getMessage());
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.app;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * The movie operations the application relies on, independent of where the movies live.
+ * {@link MovieRepository} implements it on MongoDB and {@link InMemoryMovieStore} on the heap,
+ * with the same matching, limit and count semantics (MovieStoreConformanceTest checks both).
+ *
+ * Every returned Document belongs to the caller: changing it does not change the stored movie.
+ */
+public interface MovieStore {
+
+    /**
+     * Latency and errors of every call, per operation
+     */
+    RepositoryMetrics getMetrics();
+
+    /**
+     * Insert a movie, assigning an _id when it has none and adding the normalized title
+     * to the given document; a duplicate _id fails with a duplicate-key MongoWriteException
+     */
+    ObjectId createMovie(Document movie);
+
+    Document findMovieById(ObjectId id);
+
+    /**
+     * Movies found for the given IDs keyed by _id; missing IDs are absent
+     */
+    Map<ObjectId, Document> findMoviesByIds(Collection<ObjectId> ids);
+
+    /**
+     * Case-insensitive, unanchored regex match on title
+     */
+    List<Document> findMoviesByTitle(String title);
+
+    List<Document> findMoviesByTitle(String title, TitleSearchMode mode);
+
+    /**
+     * Movies whose year equals the given one numerically (2010 and 2010.0 both match)
+     */
+    List<Document> findMoviesByYear(int year);
+
+    /**
+     * At most 10 movies listing the genre
+     */
+    List<Document> findMoviesByGenre(String genre);
+
+    /**
+     * At most limit movies, in no particular order; 0 for all of them
+     */
+    List<Document> getAllMovies(int limit);
+
+    Movie findMovieById(ObjectId id, MovieFields... fields);
+
+    List<Movie> findMoviesByTitle(String title, MovieFields... fields);
+
+    List<Movie> findMoviesByTitle(String title, TitleSearchMode mode, MovieFields... fields);
+
+    List<Movie> findMoviesByYear(int year, MovieFields... fields);
+
+    List<Movie> findMoviesByGenre(String genre, MovieFields... fields);
+
+    List<Movie> getAllMovies(int limit, MovieFields... fields);
+
+    /**
+     * One page of all movies in _id order; pass null, then each returned nextPageToken
+     */
+    MoviePage getMoviesPage(int pageSize, String pageToken);
+
+    /**
+     * One page of a genre's numeric-year movies in (year, _id) order
+     */
+    MoviePage findMoviesByGenrePage(String genre, int pageSize, String pageToken);
+
+    /**
+     * Close the stream when done; batchSize must be positive
+     */
+    Stream<Document> streamMoviesByTitle(String title, int batchSize);
+
+    Stream<Document> streamMoviesByYear(int year, int batchSize);
+
+    Stream<Document> streamAllMovies(int limit, int batchSize);
+
+    /**
+     * Number of movies modified: 0 when missing or already at that rating
+     */
+    long updateMovieRating(ObjectId id, Object rating);
+
+    /**
+     * Number of movies modified: 0 when missing or already listing the genre
+     */
+    long addGenreToMovie(ObjectId id, String genre);
+
+    long deleteMovieById(ObjectId id);
+
+    long countMovies();
+
+    long countMoviesByYear(int year);
+
+    /**
+     * Create a loader that coalesces concurrent findMovieById-style lookups into findMoviesByIds
+     * batches. Close it to send the pending lookups.
+     */
+    default MovieBatchLoader newBatchLoader(int maxBatchSize, Duration window) {
+        return new MovieBatchLoader(this::findMoviesByIds, maxBatchSize, window);
+    }
+}
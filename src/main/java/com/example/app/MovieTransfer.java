@@ -0,0 +1,369 @@
+package com.example.app;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.MongoException;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonParseException;
+import org.bson.json.JsonWriterSettings;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Bulk import and export of the movies collection as NDJSON (one Extended JSON document per line),
+ * optionally gzip- or zstd-compressed (chosen from the .gz / .zst file extension).
+ *
+ * Import reads the file through a FileChannel on the calling thread and hands chunks of lines to
+ * parser threads over a bounded queue; each parser turns its chunk into one unordered insertMany.
+ * The import fails fast: the first malformed line or rejected batch stops the reader, and the
+ * error (with its line number) is thrown once the in-flight batches have finished.
+ *
+ * Export streams a cursor of raw BSON straight to JSON text, so documents are never decoded
+ * into Document objects.
+ *
+ * Run from the command line:
+ *   MovieTransfer import movies.ndjson.gz [--threads N] [--batch N]
+ *   MovieTransfer export movies.ndjson.gz
+ */
+public class MovieTransfer {
+
+    public enum Compression {
+        NONE,
+        GZIP,
+        ZSTD;
+
+        public static Compression forFile(Path file) {
+            String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+            if (name.endsWith(".gz")) {
+                return GZIP;
+            }
+            if (name.endsWith(".zst") || name.endsWith(".zstd")) {
+                return ZSTD;
+            }
+            return NONE;
+        }
+    }
+
+    /**
+     * parserThreads threads parse and insert; at most queueCapacity chunks of batchSize lines wait for them
+     */
+    public record ImportOptions(int parserThreads, int batchSize, int queueCapacity) {
+
+        public ImportOptions {
+            if (parserThreads <= 0 || batchSize <= 0 || queueCapacity <= 0) {
+                throw new IllegalArgumentException("parserThreads, batchSize and queueCapacity must be positive");
+            }
+        }
+
+        public static ImportOptions defaults() {
+            int threads = Runtime.getRuntime().availableProcessors();
+            return new ImportOptions(threads, 1000, threads * 2);
+        }
+    }
+
+    /**
+     * Documents and file bytes (compressed, if the file is) transferred in the elapsed time
+     */
+    public record TransferStats(long documents, long bytes, Duration elapsed) {
+
+        public double documentsPerSecond() {
+            return elapsed.isZero() ? 0 : documents / (elapsed.toNanos() / 1e9);
+        }
+
+        public double megabytesPerSecond() {
+            return elapsed.isZero() ? 0 : bytes / 1e6 / (elapsed.toNanos() / 1e9);
+        }
+    }
+
+    private record Chunk(long firstLine, List<String> lines) {
+    }
+
+    private static final long POLL_MILLIS = 100;
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MongoCollection<Document> moviesCollection;
+    private final Consumer<TransferStats> progress;
+
+    /**
+     * progress is called about once a second with the running totals
+     */
+    public MovieTransfer(MongoDatabase database, Consumer<TransferStats> progress) {
+        this.moviesCollection = database.getCollection("movies");
+        this.progress = progress;
+    }
+
+    public TransferStats importFile(Path file, ImportOptions options) throws IOException {
+        long start = System.nanoTime();
+        AtomicLong imported = new AtomicLong();
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        AtomicBoolean readerDone = new AtomicBoolean();
+        BlockingQueue<Chunk> chunks = new ArrayBlockingQueue<>(options.queueCapacity());
+
+        List<Thread> parsers = new ArrayList<>(options.parserThreads());
+        for (int i = 0; i < options.parserThreads(); i++) {
+            Thread parser = new Thread(() -> parseAndInsert(chunks, readerDone, imported, failure), "movie-import-" + i);
+            parser.setDaemon(true);
+            parser.start();
+            parsers.add(parser);
+        }
+
+        long bytes = 0;
+        boolean completed = false;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+             BufferedReader reader = new BufferedReader(new InputStreamReader(
+                     decompress(Channels.newInputStream(channel), Compression.forFile(file)),
+                     StandardCharsets.UTF_8), 1 << 20)) {
+            long lineNumber = 0;
+            long firstLine = 1;
+            long lastProgress = start;
+            List<String> lines = new ArrayList<>(options.batchSize());
+            String line;
+            while (failure.get() == null && (line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                if (lines.isEmpty()) {
+                    firstLine = lineNumber;
+                }
+                lines.add(line);
+                if (lines.size() == options.batchSize()) {
+                    put(chunks, new Chunk(firstLine, lines));
+                    lines = new ArrayList<>(options.batchSize());
+                    long now = System.nanoTime();
+                    if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                        lastProgress = now;
+                        progress.accept(new TransferStats(imported.get(), channel.position(), Duration.ofNanos(now - start)));
+                    }
+                }
+            }
+            if (!lines.isEmpty() && failure.get() == null) {
+                put(chunks, new Chunk(firstLine, lines));
+            }
+            bytes = channel.position();
+            completed = true;
+        } finally {
+            if (!completed) {
+                // the reader's own exception is thrown; the parsers skip what is still queued
+                failure.compareAndSet(null, new MongoException("Import aborted"));
+            }
+            // a flag rather than a queued end marker, so this can neither block on a full queue nor throw
+            readerDone.set(true);
+            for (Thread parser : parsers) {
+                join(parser);
+            }
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        TransferStats stats = new TransferStats(imported.get(), bytes, Duration.ofNanos(System.nanoTime() - start));
+        progress.accept(stats);
+        return stats;
+    }
+
+    /**
+     * Export the movies matching filter (Filters.empty() for all) as NDJSON in the given JSON mode
+     */
+    public TransferStats exportFile(Path file, Bson filter, JsonMode jsonMode) throws IOException {
+        long start = System.nanoTime();
+        long lastProgress = start;
+        long exported = 0;
+        JsonWriterSettings settings = JsonWriterSettings.builder().outputMode(jsonMode).build();
+        long bytes;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             Writer writer = new OutputStreamWriter(compress(new BufferedOutputStream(
+                     Channels.newOutputStream(channel), 1 << 20), Compression.forFile(file)), StandardCharsets.UTF_8);
+             MongoCursor<RawBsonDocument> cursor = moviesCollection.withDocumentClass(RawBsonDocument.class)
+                     .find(filter)
+                     .batchSize(1000)
+                     .cursor()) {
+            while (cursor.hasNext()) {
+                writer.write(cursor.next().toJson(settings));
+                writer.write('\n');
+                exported++;
+                long now = System.nanoTime();
+                if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                    lastProgress = now;
+                    progress.accept(new TransferStats(exported, channel.position(), Duration.ofNanos(now - start)));
+                }
+            }
+        }
+        // counted once closing the writer has finished the compressed stream and flushed every buffer
+        bytes = Files.size(file);
+        TransferStats stats = new TransferStats(exported, bytes, Duration.ofNanos(System.nanoTime() - start));
+        progress.accept(stats);
+        return stats;
+    }
+
+    private void parseAndInsert(BlockingQueue<Chunk> chunks, AtomicBoolean readerDone, AtomicLong imported,
+                                AtomicReference<RuntimeException> failure) {
+        while (true) {
+            Chunk chunk;
+            try {
+                chunk = chunks.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            if (chunk == null) {
+                if (!readerDone.get()) {
+                    continue;
+                }
+                // the reader queues its last chunk before setting the flag, so look once more
+                chunk = chunks.poll();
+                if (chunk == null) {
+                    return;
+                }
+            }
+            if (failure.get() != null) {
+                continue;
+            }
+            try {
+                List<Document> batch = new ArrayList<>(chunk.lines().size());
+                for (int i = 0; i < chunk.lines().size(); i++) {
+                    batch.add(parse(chunk.lines().get(i), chunk.firstLine() + i));
+                }
+                moviesCollection.insertMany(batch, new InsertManyOptions().ordered(false));
+                imported.addAndGet(batch.size());
+            } catch (MongoBulkWriteException e) {
+                imported.addAndGet(e.getWriteResult().getInsertedCount());
+                failure.compareAndSet(null, new MongoException("Batch starting at line " + chunk.firstLine()
+                        + " had " + e.getWriteErrors().size() + " rejected document(s): "
+                        + e.getWriteErrors().get(0).getMessage(), e));
+            } catch (RuntimeException e) {
+                failure.compareAndSet(null, e);
+            }
+        }
+    }
+
+    private static Document parse(String line, long lineNumber) {
+        try {
+            Document movie = Document.parse(line);
+            MovieRepository.addNormalizedTitle(movie);
+            return movie;
+        } catch (JsonParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid JSON on line " + lineNumber + ": " + e.getMessage(), e);
+        }
+    }
+
+    private static void put(BlockingQueue<Chunk> chunks, Chunk chunk) {
+        try {
+            chunks.put(chunk);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new MongoException("Interrupted while queueing import batch");
+        }
+    }
+
+    private static void join(Thread thread) {
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static InputStream decompress(InputStream in, Compression compression) throws IOException {
+        return switch (compression) {
+            case NONE -> in;
+            case GZIP -> new GZIPInputStream(in, 1 << 16);
+            case ZSTD -> (InputStream) zstdStream("com.github.luben.zstd.ZstdInputStream", InputStream.class, in);
+        };
+    }
+
+    private static OutputStream compress(OutputStream out, Compression compression) throws IOException {
+        return switch (compression) {
+            case NONE -> out;
+            case GZIP -> new GZIPOutputStream(out, 1 << 16);
+            case ZSTD -> (OutputStream) zstdStream("com.github.luben.zstd.ZstdOutputStream", OutputStream.class, out);
+        };
+    }
+
+    /**
+     * zstd needs zstd-jni on the classpath, as for db.compressors; it is looked up reflectively
+     * so the dependency stays optional
+     */
+    private static Object zstdStream(String className, Class<?> streamType, Object stream) {
+        try {
+            return Class.forName(className).getConstructor(streamType).newInstance(stream);
+        } catch (ClassNotFoundException e) {
+            throw new IllegalArgumentException("zstd compression requires zstd-jni on the classpath (" + className + ")");
+        } catch (ReflectiveOperationException e) {
+            throw new UncheckedIOException(new IOException("Could not open zstd stream", e));
+        }
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 2 || !(args[0].equals("import") || args[0].equals("export"))) {
+            System.err.println("Usage: MovieTransfer import <file.ndjson[.gz|.zst]> [--threads N] [--batch N]");
+            System.err.println("       MovieTransfer export <file.ndjson[.gz|.zst]>");
+            System.exit(2);
+            return;
+        }
+        Path file = Path.of(args[1]);
+        ImportOptions defaults = ImportOptions.defaults();
+        int threads = defaults.parserThreads();
+        int batchSize = defaults.batchSize();
+        for (int i = 2; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--threads" -> threads = Integer.parseInt(args[i + 1]);
+                case "--batch" -> batchSize = Integer.parseInt(args[i + 1]);
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+
+        try (MongoClient mongoClient = MongoClients.create(App.buildClientSettings(
+                ConfigManager.getConnectionString(), ConfigManager.getClientTuning(), null, null))) {
+            MovieTransfer transfer = new MovieTransfer(mongoClient.getDatabase("sample_mflix"), stats ->
+                    System.out.printf("  %,d documents, %.1f MB, %.0f docs/s%n",
+                            stats.documents(), stats.bytes() / 1e6, stats.documentsPerSecond()));
+            TransferStats stats = args[0].equals("import")
+                    ? transfer.importFile(file, new ImportOptions(threads, batchSize, threads * 2))
+                    : transfer.exportFile(file, new Document(), JsonMode.RELAXED);
+            System.out.printf("✓ %s %,d documents in %.1f s (%.0f docs/s, %.1f MB/s)%n",
+                    args[0].equals("import") ? "Imported" : "Exported", stats.documents(),
+                    stats.elapsed().toMillis() / 1000.0, stats.documentsPerSecond(), stats.megabytesPerSecond());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("Transfer failed: " + e.getMessage());
+            System.exit(1);
+        }
+        System.exit(0);
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.app;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+
+/**
+ * Opaque continuation token for keyset pagination: the sort key of the last returned
+ * document, BSON-encoded so values keep their type, then base64url-encoded.
+ */
+final class PageToken {
+
+    private PageToken() {
+    }
+
+    static String encode(BsonDocument lastKey) {
+        ByteBuffer buffer = new RawBsonDocument(lastKey, new BsonDocumentCodec()).getByteBuffer().asNIO();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    static BsonDocument decode(String token) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            return new BsonDocumentCodec().decode(new BsonBinaryReader(ByteBuffer.wrap(bytes)),
+                    DecoderContext.builder().build());
+        } catch (RuntimeException e) {
+            // Malformed base64 or truncated/garbled BSON
+            throw new IllegalArgumentException("Invalid page token: " + token, e);
+        }
+    }
+}
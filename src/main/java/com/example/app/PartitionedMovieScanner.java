@@ -0,0 +1,243 @@
+package com.example.app;
+
+import com.mongodb.MongoInterruptedException;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Aggregates;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.Projections;
+import com.mongodb.client.model.Sorts;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Full scan of the movies collection split into _id ranges that are read on parallel cursors,
+ * so decoding and the consumer's work spread over several threads (and, on a sharded cluster,
+ * several shards) instead of one.
+ *
+ * Range boundaries come from $bucketAuto over a $sample of the _ids. The first and last ranges
+ * are open-ended, so every movie falls in exactly one range and the scan delivers the same
+ * documents as a single find() over the collection, in a different order. Range queries on _id
+ * only match values of the bound's BSON type, so a collection holding non-ObjectId _ids is
+ * scanned as a single partition.
+ */
+public class PartitionedMovieScanner {
+
+    /**
+     * Movies with lowerBound <= _id < upperBound; a null bound leaves that side open
+     */
+    public record Partition(int index, ObjectId lowerBound, ObjectId upperBound) {
+
+        public Bson filter() {
+            if (lowerBound == null && upperBound == null) {
+                return Filters.empty();
+            }
+            if (lowerBound == null) {
+                return Filters.lt("_id", upperBound);
+            }
+            if (upperBound == null) {
+                return Filters.gte("_id", lowerBound);
+            }
+            return Filters.and(Filters.gte("_id", lowerBound), Filters.lt("_id", upperBound));
+        }
+    }
+
+    /**
+     * Movies read from one partition in the elapsed time; finished once its cursor is exhausted
+     */
+    public record PartitionProgress(Partition partition, long documents, Duration elapsed, boolean finished) {
+
+        public double documentsPerSecond() {
+            return elapsed.isZero() ? 0 : documents / (elapsed.toNanos() / 1e9);
+        }
+    }
+
+    /**
+     * Totals of a whole scan and the final progress of each of its partitions
+     */
+    public record ScanStats(long documents, Duration elapsed, List<PartitionProgress> partitions) {
+
+        public double documentsPerSecond() {
+            return elapsed.isZero() ? 0 : documents / (elapsed.toNanos() / 1e9);
+        }
+    }
+
+    /**
+     * _ids sampled per requested partition; more samples give more even partitions
+     */
+    static final int SAMPLES_PER_PARTITION = 1000;
+
+    private static final long PROGRESS_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+
+    private final MongoCollection<Document> moviesCollection;
+    private final int parallelism;
+    private final int batchSize;
+    private final Consumer<PartitionProgress> progress;
+
+    /**
+     * At most parallelism partitions are read at once, each cursor fetching batchSize movies per
+     * round trip. progress is called about once a second per partition and when one finishes.
+     */
+    public PartitionedMovieScanner(MongoDatabase database, int parallelism, int batchSize,
+                                   Consumer<PartitionProgress> progress) {
+        if (parallelism <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("parallelism and batchSize must be positive");
+        }
+        this.moviesCollection = database.getCollection("movies");
+        this.parallelism = parallelism;
+        this.batchSize = batchSize;
+        this.progress = progress;
+    }
+
+    /**
+     * Split the collection into about partitionCount _id ranges (fewer when it is small or its
+     * _ids are not all ObjectIds)
+     */
+    public List<Partition> partitions(int partitionCount) {
+        if (partitionCount <= 0) {
+            throw new IllegalArgumentException("partitionCount must be positive");
+        }
+        return partitionsFor(splitPoints(partitionCount));
+    }
+
+    /**
+     * Scan every movie, handing each one to consumer exactly once. consumer is called from
+     * several threads at once and must be thread-safe. The first failure, whether reading or
+     * in consumer, stops the other partitions and is rethrown.
+     */
+    public ScanStats scan(int partitionCount, Consumer<Document> consumer) {
+        return scan(partitions(partitionCount), consumer);
+    }
+
+    ScanStats scan(List<Partition> partitions, Consumer<Document> consumer) {
+        long start = System.nanoTime();
+        AtomicBoolean cancelled = new AtomicBoolean();
+        AtomicInteger threadNumber = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(parallelism, partitions.size()), task -> {
+            Thread thread = new Thread(task, "movie-scan-" + threadNumber.getAndIncrement());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<PartitionProgress>> futures = new ArrayList<>(partitions.size());
+            for (Partition partition : partitions) {
+                futures.add(executor.submit(() -> scanPartition(partition, consumer, cancelled)));
+            }
+
+            List<PartitionProgress> results = new ArrayList<>(partitions.size());
+            RuntimeException failure = null;
+            for (Future<PartitionProgress> future : futures) {
+                try {
+                    results.add(future.get());
+                } catch (ExecutionException e) {
+                    if (e.getCause() instanceof Error error) {
+                        throw error;
+                    }
+                    if (failure == null) {
+                        failure = (RuntimeException) e.getCause();
+                    } else if (failure != e.getCause()) {
+                        failure.addSuppressed(e.getCause());
+                    }
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+
+            long documents = results.stream().mapToLong(PartitionProgress::documents).sum();
+            return new ScanStats(documents, Duration.ofNanos(System.nanoTime() - start), results);
+        } catch (InterruptedException e) {
+            cancelled.set(true);
+            Thread.currentThread().interrupt();
+            throw new MongoInterruptedException("Interrupted while scanning movies", e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * One partition per gap between the sorted split points, with the outer two open-ended
+     */
+    static List<Partition> partitionsFor(List<ObjectId> splitPoints) {
+        List<Partition> partitions = new ArrayList<>(splitPoints.size() + 1);
+        ObjectId lower = null;
+        for (ObjectId upper : splitPoints) {
+            partitions.add(new Partition(partitions.size(), lower, upper));
+            lower = upper;
+        }
+        partitions.add(new Partition(partitions.size(), lower, null));
+        return partitions;
+    }
+
+    /**
+     * The lower bounds of all but the first $bucketAuto bucket of sampled _ids. None when a
+     * single partition is asked for, the collection is empty or its smallest or largest _id is
+     * not an ObjectId: _ids sort by BSON type first, so if both ends are ObjectIds every _id is.
+     */
+    List<ObjectId> splitPoints(int partitionCount) {
+        if (partitionCount == 1 || !(edgeId(1) instanceof ObjectId) || !(edgeId(-1) instanceof ObjectId)) {
+            return List.of();
+        }
+        List<ObjectId> splitPoints = new ArrayList<>(partitionCount - 1);
+        boolean firstBucket = true;
+        for (Document bucket : moviesCollection.aggregate(List.of(
+                        Aggregates.sample(partitionCount * SAMPLES_PER_PARTITION),
+                        Aggregates.project(Projections.include("_id")),
+                        Aggregates.bucketAuto("$_id", partitionCount)))
+                .allowDiskUse(true)) {
+            // the first bucket starts at the smallest sampled _id; its partition is open below instead
+            if (firstBucket) {
+                firstBucket = false;
+                continue;
+            }
+            splitPoints.add(bucket.get("_id", Document.class).getObjectId("min"));
+        }
+        return splitPoints;
+    }
+
+    private Object edgeId(int direction) {
+        Document edge = moviesCollection.find()
+                .projection(Projections.include("_id"))
+                .sort(direction > 0 ? Sorts.ascending("_id") : Sorts.descending("_id"))
+                .first();
+        return edge == null ? null : edge.get("_id");
+    }
+
+    private PartitionProgress scanPartition(Partition partition, Consumer<Document> consumer, AtomicBoolean cancelled) {
+        long start = System.nanoTime();
+        long lastProgress = start;
+        long documents = 0;
+        try (MongoCursor<Document> cursor = moviesCollection.find(partition.filter()).batchSize(batchSize).cursor()) {
+            while (!cancelled.get() && cursor.hasNext()) {
+                consumer.accept(cursor.next());
+                documents++;
+                long now = System.nanoTime();
+                if (now - lastProgress >= PROGRESS_INTERVAL_NANOS) {
+                    lastProgress = now;
+                    progress.accept(new PartitionProgress(partition, documents, Duration.ofNanos(now - start), false));
+                }
+            }
+        } catch (RuntimeException | Error e) {
+            cancelled.set(true);
+            throw e;
+        }
+        PartitionProgress finished = new PartitionProgress(partition, documents,
+                Duration.ofNanos(System.nanoTime() - start), !cancelled.get());
+        progress.accept(finished);
+        return finished;
+    }
+}
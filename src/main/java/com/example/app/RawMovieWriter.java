@@ -0,0 +1,108 @@
+package com.example.app;
+
+import org.bson.BsonBinaryReader;
+import org.bson.RawBsonDocument;
+import org.bson.json.JsonWriter;
+import org.bson.json.JsonWriterSettings;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Writes raw movie documents to an OutputStream without decoding them into Documents.
+ *
+ * BSON output copies each document's bytes as they came off the wire (the concatenated format
+ * mongodump and bsondump use). JSON output pipes the bytes through a JsonWriter straight into
+ * the stream, so no intermediate Document or String is built per movie. The target stream is
+ * flushed but not closed; the movie stream is consumed but left for the caller to close.
+ */
+public final class RawMovieWriter {
+
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private RawMovieWriter() {
+    }
+
+    /**
+     * Concatenated BSON documents; returns how many were written
+     */
+    public static long writeBson(Stream<RawBsonDocument> movies, OutputStream out) throws IOException {
+        long written = 0;
+        byte[] copy = null;
+        Iterator<RawBsonDocument> iterator = movies.iterator();
+        while (iterator.hasNext()) {
+            ByteBuffer bytes = iterator.next().getByteBuffer().asNIO();
+            if (bytes.hasArray()) {
+                out.write(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            } else {
+                if (copy == null || copy.length < bytes.remaining()) {
+                    copy = new byte[bytes.remaining()];
+                }
+                int length = bytes.remaining();
+                bytes.get(copy, 0, length);
+                out.write(copy, 0, length);
+            }
+            written++;
+        }
+        out.flush();
+        return written;
+    }
+
+    /**
+     * One JSON document per line (NDJSON); returns how many were written
+     */
+    public static long writeJsonLines(Stream<RawBsonDocument> movies, OutputStream out,
+                                      JsonWriterSettings settings) throws IOException {
+        Writer writer = utf8Writer(out);
+        long written = 0;
+        Iterator<RawBsonDocument> iterator = movies.iterator();
+        while (iterator.hasNext()) {
+            writeJson(iterator.next(), writer, settings);
+            writer.write('\n');
+            written++;
+        }
+        writer.flush();
+        return written;
+    }
+
+    /**
+     * A single JSON array of documents, as an HTTP response body would carry them; returns how many were written
+     */
+    public static long writeJsonArray(Stream<RawBsonDocument> movies, OutputStream out,
+                                      JsonWriterSettings settings) throws IOException {
+        Writer writer = utf8Writer(out);
+        long written = 0;
+        writer.write('[');
+        Iterator<RawBsonDocument> iterator = movies.iterator();
+        while (iterator.hasNext()) {
+            if (written > 0) {
+                writer.write(',');
+            }
+            writeJson(iterator.next(), writer, settings);
+            written++;
+        }
+        writer.write(']');
+        writer.flush();
+        return written;
+    }
+
+    /**
+     * Pipes one document's BSON bytes into JSON text on the writer
+     */
+    static void writeJson(RawBsonDocument movie, Writer writer, JsonWriterSettings settings) {
+        try (BsonBinaryReader reader = new BsonBinaryReader(movie.getByteBuffer().asNIO())) {
+            new JsonWriter(writer, settings).pipe(reader);
+        }
+    }
+
+    private static Writer utf8Writer(OutputStream out) {
+        return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+    }
+}
@@ -0,0 +1,181 @@
+package com.example.app;
+
+import com.mongodb.MongoExecutionTimeoutException;
+import com.mongodb.MongoTimeoutException;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Client-side latency histogram and error count per MovieRepository operation. The time covers
+ * the whole call as the caller sees it: filter construction, the round trip(s) and decoding.
+ * Compare it with the server-side command durations in {@link CommandMetrics} to tell the two apart.
+ */
+public class RepositoryMetrics {
+
+    /**
+     * One entry per repository operation; overloads (plain and projected reads) share an entry
+     */
+    public enum Operation {
+        CREATE_MOVIE("createMovie"),
+        FIND_MOVIE_BY_ID("findMovieById"),
+        FIND_MOVIES_BY_IDS("findMoviesByIds"),
+        FIND_MOVIES_BY_TITLE("findMoviesByTitle"),
+        FIND_MOVIES_BY_YEAR("findMoviesByYear"),
+        FIND_MOVIES_BY_GENRE("findMoviesByGenre"),
+        GET_ALL_MOVIES("getAllMovies"),
+        GET_MOVIES_PAGE("getMoviesPage"),
+        FIND_MOVIES_BY_GENRE_PAGE("findMoviesByGenrePage"),
+        UPDATE_MOVIE_RATING("updateMovieRating"),
+        ADD_GENRE_TO_MOVIE("addGenreToMovie"),
+        DELETE_MOVIE_BY_ID("deleteMovieById"),
+        COUNT_MOVIES("countMovies"),
+        COUNT_MOVIES_BY_YEAR("countMoviesByYear");
+
+        private final String methodName;
+
+        Operation(String methodName) {
+            this.methodName = methodName;
+        }
+
+        public String methodName() {
+            return methodName;
+        }
+    }
+
+    /**
+     * Latency in nanoseconds of every call (failed ones included), how many of them threw and how
+     * many of those ran out of time. hedges counts the reads {@link HedgedMovieReader} sent twice,
+     * hedgeWins those where the second read answered first.
+     */
+    public record OperationSnapshot(LatencyHistogram.Snapshot latency, long errors, long timeouts,
+                                    long hedges, long hedgeWins) {
+
+        public double timeoutRate() {
+            return latency.count() == 0 ? 0 : (double) timeouts / latency.count();
+        }
+
+        /**
+         * Hedged reads per logical read; each hedged read records two calls in latency
+         */
+        public double hedgeRate() {
+            long reads = latency.count() - hedges;
+            return reads <= 0 ? 0 : (double) hedges / reads;
+        }
+    }
+
+    private final Map<Operation, LatencyHistogram> latencies = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> errors = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> timeouts = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> hedges = new EnumMap<>(Operation.class);
+    private final Map<Operation, LongAdder> hedgeWins = new EnumMap<>(Operation.class);
+
+    public RepositoryMetrics() {
+        for (Operation operation : Operation.values()) {
+            latencies.put(operation, new LatencyHistogram());
+            errors.put(operation, new LongAdder());
+            timeouts.put(operation, new LongAdder());
+            hedges.put(operation, new LongAdder());
+            hedgeWins.put(operation, new LongAdder());
+        }
+    }
+
+    /**
+     * Times call. The lambda passed in is usually a capturing one, allocated on every call; hot
+     * paths such as MovieRepository time inline and report through {@link #record(Operation, long, Throwable)}.
+     */
+    public <T> T time(Operation operation, Supplier<T> call) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            T result = call.get();
+            failed = false;
+            return result;
+        } catch (RuntimeException e) {
+            recordTimeout(operation, e);
+            throw e;
+        } finally {
+            record(operation, System.nanoTime() - start, failed);
+        }
+    }
+
+    /**
+     * Times call without boxing the result; see {@link #time}
+     */
+    public long timeLong(Operation operation, LongSupplier call) {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            long result = call.getAsLong();
+            failed = false;
+            return result;
+        } catch (RuntimeException e) {
+            recordTimeout(operation, e);
+            throw e;
+        } finally {
+            record(operation, System.nanoTime() - start, failed);
+        }
+    }
+
+    public void record(Operation operation, long elapsedNanos, boolean failed) {
+        latencies.get(operation).record(elapsedNanos);
+        if (failed) {
+            errors.get(operation).increment();
+        }
+    }
+
+    /**
+     * A call timed by the caller, which may have completed on another thread (see {@link AsyncMovieRepository});
+     * error is null when it succeeded
+     */
+    public void record(Operation operation, long elapsedNanos, Throwable error) {
+        record(operation, elapsedNanos, error != null);
+        if (error != null) {
+            recordTimeout(operation, error);
+        }
+    }
+
+    /**
+     * A read that was sent a second time; secondWon when the second one answered first
+     */
+    public void recordHedge(Operation operation, boolean secondWon) {
+        hedges.get(operation).increment();
+        if (secondWon) {
+            hedgeWins.get(operation).increment();
+        }
+    }
+
+    /**
+     * The live latency histogram of one operation
+     */
+    public LatencyHistogram latency(Operation operation) {
+        return latencies.get(operation);
+    }
+
+    private void recordTimeout(Operation operation, Throwable e) {
+        // Client-side budget spent (CSOT, server selection, pool checkout) or server maxTimeMS exceeded
+        if (e instanceof MongoTimeoutException || e instanceof MongoExecutionTimeoutException) {
+            timeouts.get(operation).increment();
+        }
+    }
+
+    /**
+     * Operations that have been called at least once, keyed by method name, in declaration order
+     */
+    public Map<String, OperationSnapshot> snapshot() {
+        Map<String, OperationSnapshot> snapshot = new LinkedHashMap<>();
+        for (Operation operation : Operation.values()) {
+            LatencyHistogram.Snapshot latency = latencies.get(operation).snapshot();
+            if (latency.count() > 0) {
+                snapshot.put(operation.methodName(), new OperationSnapshot(latency,
+                        errors.get(operation).sum(), timeouts.get(operation).sum(),
+                        hedges.get(operation).sum(), hedgeWins.get(operation).sum()));
+            }
+        }
+        return snapshot;
+    }
+}
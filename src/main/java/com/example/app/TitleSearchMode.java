@@ -0,0 +1,24 @@
+package com.example.app;
+
+/**
+ * How findMoviesByTitle matches the search text against movie titles
+ */
+public enum TitleSearchMode {
+    /**
+     * Case-insensitive "title starts with" match on the normalized title field.
+     * Anchored and case-sensitive on the lowercased value, so it is answered from the title_lower index.
+     */
+    PREFIX,
+
+    /**
+     * Word search through the collection's text index, then filtered to titles containing the
+     * search text (case-insensitive). Stop words such as "the" on their own match nothing.
+     */
+    TEXT,
+
+    /**
+     * Original unanchored case-insensitive regex on title. Matches anywhere in the title
+     * but scans the whole collection.
+     */
+    REGEX
+}
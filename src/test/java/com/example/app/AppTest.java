@@ -4,7 +4,11 @@ import com.mongodb.ConnectionString;
 import com.mongodb.MongoClientSettings;
 import com.mongodb.ServerApi;
 import com.mongodb.ServerApiVersion;
+import com.mongodb.ReadPreference;
 import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
 import static org.junit.jupiter.api.Assertions.*;
 
 /**
@@ -38,4 +42,27 @@ class AppTest {
         assertNotNull(connStr);
         assertEquals("cluster0.g2mpfuw.mongodb.net", connStr.getHosts().get(0));
     }
+
+    @Test
+    void testClientSettingsApplyTuning() {
+        String connectionString = "mongodb+srv://metalex84:<db_password>@cluster0.g2mpfuw.mongodb.net/?appName=Cluster0";
+        Properties properties = new Properties();
+        properties.setProperty("db.pool.maxSize", "20");
+        properties.setProperty("db.pool.minSize", "2");
+        properties.setProperty("db.pool.maxWaitTimeMs", "500");
+        properties.setProperty("db.readPreference", "nearest");
+        ConnectionPoolMetrics poolMetrics = new ConnectionPoolMetrics();
+        CommandMetrics commandMetrics = new CommandMetrics();
+
+        MongoClientSettings settings = App.buildClientSettings(
+                connectionString, MongoClientTuning.from(properties), poolMetrics, commandMetrics);
+
+        assertEquals(ServerApiVersion.V1, settings.getServerApi().getVersion());
+        assertEquals(20, settings.getConnectionPoolSettings().getMaxSize());
+        assertEquals(2, settings.getConnectionPoolSettings().getMinSize());
+        assertEquals(500, settings.getConnectionPoolSettings().getMaxWaitTime(TimeUnit.MILLISECONDS));
+        assertTrue(settings.getConnectionPoolSettings().getConnectionPoolListeners().contains(poolMetrics));
+        assertEquals(ReadPreference.nearest(), settings.getReadPreference());
+        assertTrue(settings.getCommandListeners().contains(commandMetrics));
+    }
 }
@@ -0,0 +1,223 @@
+package com.example.app;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.reactivestreams.client.FindPublisher;
+import com.mongodb.reactivestreams.client.MongoCollection;
+import com.mongodb.reactivestreams.client.MongoDatabase;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for AsyncMovieRepository
+ */
+class AsyncMovieRepositoryTest {
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    @Mock
+    private MongoCollection<Movie> mockTypedCollection;
+
+    private AsyncMovieRepository asyncRepository;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        when(mockCollection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(mockCollection.withCodecRegistry(any())).thenReturn(mockCollection);
+        when(mockCollection.withDocumentClass(any())).thenReturn((MongoCollection) mockTypedCollection);
+        asyncRepository = new AsyncMovieRepository(mockDatabase);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    @DisplayName("Should complete with the count the driver publishes")
+    void testCountMovies() {
+        when(mockCollection.countDocuments()).thenReturn(publisherOf(21349L));
+
+        assertEquals(21349L, asyncRepository.countMovies().join());
+        assertEquals(1, asyncRepository.getMetrics().snapshot().get("countMovies").latency().count());
+    }
+
+    @Test
+    @DisplayName("Should complete with null when no movie has the id")
+    void testFindMovieByIdMissing() {
+        when(mockCollection.find(any(Bson.class))).thenReturn(findPublisher(new ArrayList<>(), new ArrayList<>()));
+
+        assertNull(asyncRepository.findMovieById(new ObjectId()).join());
+    }
+
+    @Test
+    @DisplayName("Should send the shared title filter and field projection")
+    void testFindMoviesByTitleProjection() {
+        Movie movie = new Movie(new ObjectId(), "The Matrix", null, null, null, null, null);
+        List<String> calls = new ArrayList<>();
+        Bson[] filter = new Bson[1];
+        when(mockTypedCollection.find(any(Bson.class))).thenAnswer(invocation -> {
+            filter[0] = invocation.getArgument(0);
+            return findPublisher(List.of(movie), calls);
+        });
+
+        List<Movie> movies = asyncRepository.findMoviesByTitle("matrix", MovieFields.TITLE).join();
+
+        assertEquals(List.of(movie), movies);
+        assertEquals(toBson(MovieRepository.titleFilter("matrix", TitleSearchMode.REGEX)), toBson(filter[0]));
+        assertEquals(List.of("projection " + toBson(MovieFields.projection(MovieFields.TITLE))), calls);
+    }
+
+    @Test
+    @DisplayName("Should fetch one extra movie and return a next-page token")
+    void testGetMoviesPage() {
+        List<Document> movies = List.of(
+                new Document("_id", new ObjectId()), new Document("_id", new ObjectId()), new Document("_id", new ObjectId()));
+        List<String> calls = new ArrayList<>();
+        when(mockCollection.find(any(Bson.class))).thenReturn(findPublisher(movies, calls));
+
+        MoviePage page = asyncRepository.getMoviesPage(2, null).join();
+
+        assertEquals(movies.subList(0, 2), page.movies());
+        assertTrue(page.hasNextPage());
+        assertTrue(calls.contains("limit 3"), "calls: " + calls);
+    }
+
+    @Test
+    @DisplayName("Should fail the future instead of throwing for an invalid page size")
+    void testInvalidPageSize() {
+        when(mockCollection.find(any(Bson.class))).thenReturn(findPublisher(new ArrayList<>(), new ArrayList<>()));
+
+        CompletionException thrown = assertThrows(CompletionException.class,
+                () -> asyncRepository.getMoviesPage(0, null).join());
+        assertTrue(thrown.getCause() instanceof IllegalArgumentException);
+    }
+
+    @Test
+    @DisplayName("Should return futures before the driver answers and run lookups side by side")
+    void testFanOut() {
+        List<Subscriber<? super Long>> pending = new ArrayList<>();
+        when(mockCollection.countDocuments(any(Bson.class))).thenReturn(pending::add);
+
+        CompletableFuture<Long> first = asyncRepository.countMoviesByYear(2010);
+        CompletableFuture<Long> second = asyncRepository.countMoviesByYear(2011);
+
+        // both queries are in flight at once, with no thread waiting on either
+        assertEquals(2, pending.size());
+        assertFalse(first.isDone());
+        for (Subscriber<? super Long> subscriber : pending) {
+            subscriber.onSubscribe(new NoOpSubscription());
+            subscriber.onNext(866L);
+            subscriber.onComplete();
+        }
+        assertEquals(1732L, first.thenCombine(second, Long::sum).join());
+    }
+
+    @Test
+    @DisplayName("Should complete exceptionally with the driver exception and count the error")
+    void testFailurePropagates() {
+        when(mockCollection.countDocuments()).thenReturn(subscriber -> {
+            subscriber.onSubscribe(new NoOpSubscription());
+            subscriber.onError(new MongoException("server unavailable"));
+        });
+
+        CompletionException thrown = assertThrows(CompletionException.class,
+                () -> asyncRepository.countMovies().join());
+        assertTrue(thrown.getCause() instanceof MongoException);
+        assertEquals(1, asyncRepository.getMetrics().snapshot().get("countMovies").errors());
+    }
+
+    @Test
+    @DisplayName("Should look up several ids with one query")
+    void testFindMoviesByIds() {
+        ObjectId id = new ObjectId();
+        Document movie = new Document("_id", id).append("title", "Heat");
+        when(mockCollection.find(any(Bson.class))).thenReturn(findPublisher(List.of(movie), new ArrayList<>()));
+
+        Map<ObjectId, Document> movies = asyncRepository.findMoviesByIds(List.of(id, id, new ObjectId())).join();
+
+        assertEquals(Map.of(id, movie), movies);
+    }
+
+    private static BsonDocument toBson(Bson bson) {
+        return bson.toBsonDocument(BsonDocument.class, MongoClientSettings.getDefaultCodecRegistry());
+    }
+
+    /**
+     * Publisher emitting a single item once it is requested
+     */
+    private static <T> Publisher<T> publisherOf(T item) {
+        return subscriber -> {
+            subscriber.onSubscribe(new NoOpSubscription());
+            subscriber.onNext(item);
+            subscriber.onComplete();
+        };
+    }
+
+    /**
+     * FindPublisher emitting items (first() emits only the first one) and logging its builder calls
+     */
+    @SuppressWarnings("unchecked")
+    private static <T> FindPublisher<T> findPublisher(List<T> items, List<String> calls) {
+        return (FindPublisher<T>) Proxy.newProxyInstance(FindPublisher.class.getClassLoader(),
+                new Class<?>[] {FindPublisher.class}, (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "subscribe" -> {
+                            Subscriber<T> subscriber = (Subscriber<T>) args[0];
+                            subscriber.onSubscribe(new NoOpSubscription());
+                            items.forEach(subscriber::onNext);
+                            subscriber.onComplete();
+                            return null;
+                        }
+                        case "first" -> {
+                            return items.isEmpty() ? findPublisher(items, calls) : publisherOf(items.get(0));
+                        }
+                        case "toString" -> {
+                            return "findPublisher" + items;
+                        }
+                        default -> {
+                            calls.add(method.getName() + " " + (args[0] instanceof Bson bson ? toBson(bson) : args[0]));
+                            return proxy;
+                        }
+                    }
+                });
+    }
+
+    private static class NoOpSubscription implements Subscription {
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
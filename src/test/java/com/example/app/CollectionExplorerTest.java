@@ -0,0 +1,159 @@
+package com.example.app;
+
+import com.mongodb.MongoException;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.ListCollectionNamesIterable;
+import org.bson.Document;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for CollectionExplorer
+ */
+class CollectionExplorerTest {
+
+    private static final List<String> NAMES = List.of("movies", "comments", "users", "theaters", "sessions", "embedded_movies");
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private ListCollectionNamesIterable mockNames;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.listCollectionNames()).thenReturn(mockNames);
+        when(mockNames.into(any())).thenAnswer(invocation -> {
+            List<String> target = invocation.getArgument(0);
+            target.addAll(NAMES);
+            return target;
+        });
+        for (int i = 0; i < NAMES.size(); i++) {
+            String name = NAMES.get(i);
+            long count = (i + 1) * 1000L;
+            MongoCollection<Document> collection = mock(MongoCollection.class);
+            FindIterable<Document> find = mock(FindIterable.class);
+            when(collection.estimatedDocumentCount()).thenAnswer(invocation -> slowly(count));
+            when(collection.countDocuments()).thenReturn(count + 1);
+            when(collection.find()).thenReturn(find);
+            when(find.limit(anyInt())).thenReturn(find);
+            when(find.first()).thenReturn(name.equals("sessions") ? null : new Document("_id", name));
+            when(mockDatabase.getCollection(name)).thenReturn(collection);
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    private long slowly(long value) throws InterruptedException {
+        maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+        try {
+            Thread.sleep(30);
+            return value;
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    @Test
+    @DisplayName("Should summarize every collection in listing order using estimated counts")
+    void testExplore() {
+        CollectionExplorer.ExplorationReport report =
+                new CollectionExplorer(mockDatabase, new CollectionExplorer.Settings(3, false)).explore();
+
+        assertEquals(NAMES, report.collections().stream().map(CollectionExplorer.CollectionSummary::name).toList());
+        CollectionExplorer.CollectionSummary movies = report.collections().get(0);
+        assertEquals(1000L, movies.documentCount());
+        assertFalse(movies.exactCount());
+        assertEquals(new Document("_id", "movies"), movies.sample());
+        assertNull(report.collections().get(4).sample());
+        assertEquals(3, report.concurrency());
+    }
+
+    @Test
+    @DisplayName("Should never query more collections at once than the configured cap")
+    void testConcurrencyCap() {
+        new CollectionExplorer(mockDatabase, new CollectionExplorer.Settings(2, false)).explore();
+
+        assertTrue(maxInFlight.get() <= 2, "max in flight " + maxInFlight.get());
+        assertTrue(maxInFlight.get() >= 1);
+    }
+
+    @Test
+    @DisplayName("Should use countDocuments when exact counts are requested")
+    void testExactCounts() {
+        CollectionExplorer.ExplorationReport report =
+                new CollectionExplorer(mockDatabase, new CollectionExplorer.Settings(4, true)).explore();
+
+        assertEquals(1001L, report.collections().get(0).documentCount());
+        assertTrue(report.collections().get(0).exactCount());
+        verify(mockDatabase.getCollection("movies"), never()).estimatedDocumentCount();
+    }
+
+    @Test
+    @DisplayName("Should report a failing collection without stopping the others")
+    void testFailureIsolated() {
+        MongoCollection<Document> users = mockDatabase.getCollection("users");
+        when(users.estimatedDocumentCount()).thenThrow(new MongoException("not authorized on users"));
+
+        CollectionExplorer.ExplorationReport report =
+                new CollectionExplorer(mockDatabase, CollectionExplorer.Settings.defaults()).explore();
+
+        assertEquals("not authorized on users", report.collections().get(2).error());
+        assertNull(report.collections().get(3).error());
+        assertEquals(NAMES.size(), report.collections().size());
+    }
+
+    @Test
+    @DisplayName("Should record an unexpected exception as that collection's error")
+    void testUnexpectedExceptionIsolated() {
+        MongoCollection<Document> theaters = mockDatabase.getCollection("theaters");
+        when(theaters.find()).thenThrow(new IllegalStateException("codec not found"));
+
+        CollectionExplorer.ExplorationReport report =
+                new CollectionExplorer(mockDatabase, CollectionExplorer.Settings.defaults()).explore();
+
+        assertEquals("java.lang.IllegalStateException: codec not found", report.collections().get(3).error());
+        assertNull(report.collections().get(2).error());
+        assertEquals(NAMES.size(), report.collections().size());
+    }
+
+    @Test
+    @DisplayName("Should parse and validate the exploration settings")
+    void testSettings() {
+        Properties properties = new Properties();
+        properties.setProperty("app.explore.concurrency", "16");
+        properties.setProperty("app.explore.exactCounts", "TRUE");
+        assertEquals(new CollectionExplorer.Settings(16, true), CollectionExplorer.Settings.from(properties));
+        assertEquals(new CollectionExplorer.Settings(8, false), CollectionExplorer.Settings.defaults());
+
+        properties.setProperty("app.explore.exactCounts", "yes");
+        assertThrows(IllegalArgumentException.class, () -> CollectionExplorer.Settings.from(properties));
+        properties.setProperty("app.explore.exactCounts", "false");
+        properties.setProperty("app.explore.concurrency", "0");
+        assertThrows(IllegalArgumentException.class, () -> CollectionExplorer.Settings.from(properties));
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.app;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.ReadPreference;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for HedgedMovieReader
+ */
+class HedgedMovieReaderTest {
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final AtomicInteger reads = new AtomicInteger();
+    private MovieRepository repository;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        when(mockCollection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(mockCollection.withCodecRegistry(any())).thenReturn(mockCollection);
+        when(mockCollection.withReadPreference(any())).thenReturn(mockCollection);
+        repository = new MovieRepository(mockDatabase);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        executor.shutdownNow();
+        closeable.close();
+    }
+
+    /**
+     * Each find answers with read(n), n being the 1-based number of the read
+     */
+    @SuppressWarnings("unchecked")
+    private void answerReads(IntFunction<Document> read) {
+        FindIterable<Document> iterable = mock(FindIterable.class);
+        when(mockCollection.find(any(Bson.class))).thenReturn(iterable);
+        when(iterable.first()).thenAnswer(invocation -> read.apply(reads.incrementAndGet()));
+    }
+
+    private static Document sleepThen(long millis, Document movie) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return movie;
+    }
+
+    private static MovieReadPolicy hedging(long minDelayMillis) {
+        return new MovieReadPolicy(Duration.ZERO, true, 95, Duration.ofMillis(minDelayMillis));
+    }
+
+    @Test
+    @DisplayName("Should return a fast read without hedging it")
+    void testFastReadNotHedged() {
+        ObjectId id = new ObjectId();
+        answerReads(n -> new Document("_id", id));
+        HedgedMovieReader reader = new HedgedMovieReader(repository, hedging(500), executor);
+
+        assertEquals(id, reader.findMovieById(id).getObjectId("_id"));
+
+        assertEquals(1, reads.get());
+        assertEquals(0, repository.getMetrics().snapshot().get("findMovieById").hedges());
+        verify(mockCollection).withReadPreference(ReadPreference.secondaryPreferred());
+    }
+
+    @Test
+    @DisplayName("Should send a second read after the delay and return whichever answers first")
+    void testSlowReadHedged() {
+        ObjectId id = new ObjectId();
+        answerReads(n -> n == 1
+                ? sleepThen(2_000, new Document("_id", id).append("from", "slow replica"))
+                : new Document("_id", id).append("from", "fast replica"));
+        HedgedMovieReader reader = new HedgedMovieReader(repository, hedging(20), executor);
+
+        long start = System.nanoTime();
+        Document movie = reader.findMovieById(id);
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals("fast replica", movie.getString("from"));
+        assertTrue(elapsedMillis < 1_500, "waited " + elapsedMillis + " ms for the slow read");
+        RepositoryMetrics.OperationSnapshot snapshot = repository.getMetrics().snapshot().get("findMovieById");
+        assertEquals(1, snapshot.hedges());
+        assertEquals(1, snapshot.hedgeWins());
+    }
+
+    @Test
+    @DisplayName("Should keep the first read's answer when it still arrives first")
+    void testFirstReadStillWins() {
+        ObjectId id = new ObjectId();
+        answerReads(n -> n == 1
+                ? sleepThen(60, new Document("_id", id).append("from", "first"))
+                : sleepThen(2_000, new Document("_id", id).append("from", "second")));
+        HedgedMovieReader reader = new HedgedMovieReader(repository, hedging(20), executor);
+
+        assertEquals("first", reader.findMovieById(id).getString("from"));
+        RepositoryMetrics.OperationSnapshot snapshot = repository.getMetrics().snapshot().get("findMovieById");
+        assertEquals(1, snapshot.hedges());
+        assertEquals(0, snapshot.hedgeWins());
+    }
+
+    @Test
+    @DisplayName("Should fail only when both reads fail")
+    void testBothReadsFail() {
+        answerReads(n -> {
+            sleepThen(n == 1 ? 60 : 0, null);
+            throw new MongoException("read " + n + " failed");
+        });
+        HedgedMovieReader reader = new HedgedMovieReader(repository, hedging(20), executor);
+
+        MongoException error = assertThrows(MongoException.class, () -> reader.findMovieById(new ObjectId()));
+        assertTrue(error.getMessage().startsWith("read "));
+        assertEquals(2, reads.get());
+    }
+
+    @Test
+    @DisplayName("Should read once on the caller's thread when hedging is disabled")
+    void testHedgingDisabled() {
+        Thread caller = Thread.currentThread();
+        Thread[] readThread = new Thread[1];
+        answerReads(n -> {
+            readThread[0] = Thread.currentThread();
+            return sleepThen(50, new Document());
+        });
+        HedgedMovieReader reader = new HedgedMovieReader(repository,
+                new MovieReadPolicy(Duration.ZERO, false, 95, Duration.ofMillis(1)), executor);
+
+        assertNotNull(reader.findMovieById(new ObjectId()));
+        assertEquals(1, reads.get());
+        assertSame(caller, readThread[0]);
+    }
+
+    @Test
+    @DisplayName("Should hedge at the minimum delay until enough latencies are recorded, then at the percentile")
+    void testHedgeDelay() {
+        HedgedMovieReader reader = new HedgedMovieReader(repository, hedging(5), executor);
+        RepositoryMetrics metrics = repository.getMetrics();
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(5), reader.hedgeDelayNanos(RepositoryMetrics.Operation.FIND_MOVIES_BY_YEAR));
+
+        for (int i = 1; i <= 100; i++) {
+            metrics.record(RepositoryMetrics.Operation.FIND_MOVIES_BY_GENRE, TimeUnit.MILLISECONDS.toNanos(i), false);
+        }
+        long delay = reader.hedgeDelayNanos(RepositoryMetrics.Operation.FIND_MOVIES_BY_GENRE);
+        long p95 = TimeUnit.MILLISECONDS.toNanos(95);
+        assertTrue(delay >= p95 && delay <= p95 + p95 / 16, "delay " + delay);
+    }
+}
@@ -0,0 +1,67 @@
+package com.example.app;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for InMemoryMovieStore: the shared MovieStore conformance suite plus its own
+ * concurrency guarantees
+ */
+class InMemoryMovieStoreTest extends MovieStoreConformanceTest {
+
+    @Override
+    protected MovieStore createStore() {
+        return new InMemoryMovieStore();
+    }
+
+    @Test
+    @DisplayName("Should keep indexes consistent under concurrent genre additions and deletes")
+    void testConcurrentUpdates() throws Exception {
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            ids.add(store.createMovie(new Document("title", "Movie " + i).append("year", 2000)
+                    .append("genres", new ArrayList<>(List.of("Drama")))));
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> tasks = new ArrayList<>();
+            for (int thread = 0; thread < 8; thread++) {
+                String genre = "Genre " + thread;
+                tasks.add(executor.submit(() -> ids.forEach(id -> store.addGenreToMovie(id, genre))));
+            }
+            tasks.add(executor.submit(() -> ids.subList(0, 50).forEach(store::deleteMovieById)));
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(150, store.countMovies());
+        assertEquals(150, store.countMoviesByYear(2000));
+        for (ObjectId id : ids.subList(50, 200)) {
+            assertEquals(9, store.findMovieById(id).getList("genres", String.class).size());
+        }
+        assertEquals(150, store.findMoviesByGenrePage("Genre 3", 500, null).movies().size());
+    }
+
+    @Test
+    @DisplayName("Should match TEXT mode as a literal case-insensitive substring")
+    void testTextMode() {
+        store.createMovie(new Document("title", "What (If)?"));
+        store.createMovie(new Document("title", "What If"));
+
+        assertEquals(1, store.findMoviesByTitle("what (if)?", TitleSearchMode.TEXT).size());
+    }
+}
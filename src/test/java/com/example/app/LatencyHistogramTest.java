@@ -0,0 +1,61 @@
+package com.example.app;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LatencyHistogram
+ */
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Should map every value into a bucket whose bounds contain it")
+    void testBucketBounds() {
+        Random random = new Random(1);
+        for (int i = 0; i < 100_000; i++) {
+            long value = (random.nextLong() >>> 1) >>> random.nextInt(63);
+            int index = LatencyHistogram.bucketIndex(value);
+            assertTrue(value <= LatencyHistogram.bucketUpperBound(index), "value " + value);
+            assertTrue(index == 0 || value > LatencyHistogram.bucketUpperBound(index - 1), "value " + value);
+        }
+        assertEquals(15, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(15)));
+        assertEquals(Long.MAX_VALUE, LatencyHistogram.bucketUpperBound(LatencyHistogram.bucketIndex(Long.MAX_VALUE)));
+    }
+
+    @Test
+    @DisplayName("Should report percentiles within the bucket precision")
+    void testPercentiles() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long micros = 1; micros <= 1000; micros++) {
+            histogram.record(micros * 1000);
+        }
+
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(1000, snapshot.count());
+        assertEquals(500_500.0, snapshot.mean(), 0.001);
+        assertEquals(1_000_000, snapshot.max());
+        assertWithin(500_000, snapshot.p50());
+        assertWithin(900_000, snapshot.p90());
+        assertWithin(990_000, snapshot.p99());
+        assertEquals(1_000_000, snapshot.p999());
+    }
+
+    @Test
+    @DisplayName("Should report zeros when empty and clamp negative values")
+    void testEmptyAndNegative() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(new LatencyHistogram.Snapshot(0, 0, 0, 0, 0, 0, 0), histogram.snapshot());
+
+        histogram.record(-5);
+        assertEquals(1, histogram.snapshot().count());
+        assertEquals(0, histogram.snapshot().p99());
+    }
+
+    private static void assertWithin(long expected, long actual) {
+        assertTrue(actual >= expected && actual <= expected * 1.0625, "expected ~" + expected + " but was " + actual);
+    }
+}
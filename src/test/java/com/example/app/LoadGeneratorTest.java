@@ -0,0 +1,183 @@
+package com.example.app;
+
+import org.junit.jupiter.api.*;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for LoadGenerator, run against InMemoryMovieStore
+ */
+class LoadGeneratorTest {
+
+    @Test
+    @DisplayName("Should read the app.load.* settings and reject out-of-range values")
+    void testSettings() {
+        LoadGenerator.Settings defaults = LoadGenerator.Settings.defaults();
+        assertEquals(90, defaults.readPercent());
+        assertFalse(defaults.openLoop());
+        assertEquals(0.99, defaults.zipfTheta());
+
+        Properties properties = new Properties();
+        properties.setProperty("app.load.targetOpsPerSecond", "500");
+        properties.setProperty("app.load.zipfTheta", "0.5");
+        properties.setProperty("app.load.soak", "true");
+        LoadGenerator.Settings settings = LoadGenerator.Settings.from(properties);
+        assertTrue(settings.openLoop());
+        assertEquals(0.5, settings.zipfTheta());
+        assertTrue(settings.soak());
+
+        properties.setProperty("app.load.zipfTheta", "1");
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.Settings.from(properties));
+        properties.setProperty("app.load.zipfTheta", "0.9");
+        properties.setProperty("app.load.readPercent", "101");
+        assertThrows(IllegalArgumentException.class, () -> LoadGenerator.Settings.from(properties));
+    }
+
+    @Test
+    @DisplayName("Should draw skewed Zipfian ranks within bounds, and uniform ones at theta 0")
+    void testZipfian() {
+        Random random = new Random(7);
+        int[] counts = new int[1000];
+        LoadGenerator.Zipfian zipfian = new LoadGenerator.Zipfian(counts.length, 0.99);
+        for (int i = 0; i < 200_000; i++) {
+            counts[zipfian.next(random)]++;
+        }
+        int top10 = 0;
+        for (int i = 0; i < 10; i++) {
+            top10 += counts[i];
+        }
+        // about 39% of draws land on the 10 hottest of 1000 keys at theta 0.99
+        assertTrue(top10 > 60_000 && top10 < 95_000, "top 10 got " + top10);
+        assertTrue(counts[0] > counts[1] && counts[1] > counts[10] && counts[10] > counts[500]);
+
+        int[] uniform = new int[10];
+        LoadGenerator.Zipfian flat = new LoadGenerator.Zipfian(uniform.length, 0);
+        for (int i = 0; i < 100_000; i++) {
+            uniform[flat.next(random)]++;
+        }
+        for (int count : uniform) {
+            assertTrue(count > 8_000 && count < 12_000, "uniform bucket got " + count);
+        }
+        assertEquals(0, new LoadGenerator.Zipfian(1, 0.99).next(random));
+    }
+
+    @Test
+    @DisplayName("Should run a closed loop over every operation and report each interval")
+    void testClosedLoop() {
+        InMemoryMovieStore store = new InMemoryMovieStore();
+        LoadGenerator.seed(store, 500, new Random(1));
+        Set<Method> called = ConcurrentHashMap.newKeySet();
+        LoadGenerator.Settings settings = new LoadGenerator.Settings(70, 0, 4, Duration.ofMillis(600),
+                200, 0.99, Duration.ofMillis(200), true, 0);
+        List<LoadGenerator.IntervalReport> reported = new ArrayList<>();
+
+        LoadGenerator.LoadReport report = new LoadGenerator(recording(store, called), settings).run(reported::add);
+
+        assertEquals(3, reported.size());
+        assertEquals(reported, report.intervals());
+        assertTrue(report.operations() > 100, "only " + report.operations() + " operations");
+        assertEquals(0, report.errors());
+        assertNotNull(reported.get(0).jvm());
+        assertNull(reported.get(0).pool());
+        assertEquals(report.operations(), reported.stream().mapToLong(LoadGenerator.IntervalReport::operations).sum(), 4);
+
+        // every MovieStore operation, each overload included, was called by the workers themselves
+        for (Method method : MovieStore.class.getMethods()) {
+            if (!method.isDefault() && !method.getName().equals("getMetrics")) {
+                assertTrue(called.contains(method), method + " never called");
+            }
+        }
+        // scratch movies were cleaned up
+        assertEquals(500, store.countMovies());
+    }
+
+    /**
+     * A MovieStore that notes which of its methods the load workers call
+     */
+    private static MovieStore recording(MovieStore store, Set<Method> called) {
+        return (MovieStore) Proxy.newProxyInstance(MovieStore.class.getClassLoader(), new Class<?>[]{MovieStore.class},
+                (proxy, method, args) -> {
+                    if (Thread.currentThread().getName().startsWith("load-")) {
+                        called.add(method);
+                    }
+                    try {
+                        return method.invoke(store, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    @Test
+    @DisplayName("Should charge queueing behind slow calls to response time and run every scheduled call in an open loop")
+    void testCoordinatedOmissionCorrection() {
+        InMemoryMovieStore store = new InMemoryMovieStore(new SlowMetrics(Duration.ofMillis(20)));
+        LoadGenerator.seed(store, 50, new Random(1));
+        // one worker, a call every 10 ms, each taking 20 ms: the schedule falls further behind every call
+        LoadGenerator.Settings settings = new LoadGenerator.Settings(100, 100, 1, Duration.ofMillis(800),
+                50, 0, Duration.ofMillis(800), false, 0);
+
+        List<LoadGenerator.IntervalReport> reported = new ArrayList<>();
+
+        LoadGenerator.LoadReport report = new LoadGenerator(store, settings).run(reported::add);
+
+        // every slot scheduled before the end runs, even the ones the backlog pushes past it
+        assertEquals(80, report.operations());
+        assertEquals(80, reported.stream().mapToLong(LoadGenerator.IntervalReport::operations).sum());
+        assertTrue(report.serviceTime().p99() < Duration.ofMillis(100).toNanos());
+        assertTrue(report.responseTime().max() > Duration.ofMillis(200).toNanos());
+        assertTrue(report.responseTime().p50() > 5 * report.serviceTime().p50());
+    }
+
+    @Test
+    @DisplayName("Should refuse to run against an empty store")
+    void testEmptyStore() {
+        LoadGenerator generator = new LoadGenerator(new InMemoryMovieStore(), LoadGenerator.Settings.defaults());
+
+        assertThrows(IllegalStateException.class, () -> generator.run(interval -> { }));
+    }
+
+    /**
+     * Metrics that make every store call take at least the given time
+     */
+    private static final class SlowMetrics extends RepositoryMetrics {
+        private final long delayMillis;
+
+        SlowMetrics(Duration delay) {
+            this.delayMillis = delay.toMillis();
+        }
+
+        @Override
+        public <T> T time(Operation operation, Supplier<T> call) {
+            pause();
+            return super.time(operation, call);
+        }
+
+        @Override
+        public long timeLong(Operation operation, LongSupplier call) {
+            pause();
+            return super.timeLong(operation, call);
+        }
+
+        private void pause() {
+            try {
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
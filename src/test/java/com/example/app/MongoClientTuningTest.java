@@ -0,0 +1,110 @@
+package com.example.app;
+
+import com.mongodb.ConnectionString;
+import com.mongodb.MongoClientSettings;
+import com.mongodb.ReadPreference;
+import com.mongodb.WriteConcern;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MongoClientTuning parsing and validation
+ */
+class MongoClientTuningTest {
+
+    private static Properties properties(String... keyValues) {
+        Properties properties = new Properties();
+        for (int i = 0; i < keyValues.length; i += 2) {
+            properties.setProperty(keyValues[i], keyValues[i + 1]);
+        }
+        return properties;
+    }
+
+    @Test
+    @DisplayName("Should leave every setting unset when no tuning keys are set")
+    void testDefaults() {
+        MongoClientTuning tuning = MongoClientTuning.defaults();
+
+        assertNull(tuning.maxPoolSize());
+        assertNull(tuning.minPoolSize());
+        assertNull(tuning.maxWaitTimeMs());
+        assertNull(tuning.compressors());
+        assertNull(tuning.readPreference());
+        assertNull(tuning.writeConcern());
+    }
+
+    @Test
+    @DisplayName("Should keep connection string options for keys that are not set, and override the ones that are")
+    void testConnectionStringOptionsSurvive() {
+        String uri = "mongodb://db.example.com/?maxPoolSize=7&minPoolSize=3&w=2&readPreference=secondary"
+                + "&compressors=zlib&connectTimeoutMS=1500&socketTimeoutMS=2500&maxIdleTimeMS=9000";
+
+        MongoClientSettings untouched = MongoClientTuning.defaults()
+                .applyTo(MongoClientSettings.builder().applyConnectionString(new ConnectionString(uri)), null)
+                .build();
+        assertEquals(7, untouched.getConnectionPoolSettings().getMaxSize());
+        assertEquals(3, untouched.getConnectionPoolSettings().getMinSize());
+        assertEquals(9000, untouched.getConnectionPoolSettings().getMaxConnectionIdleTime(TimeUnit.MILLISECONDS));
+        assertEquals(new WriteConcern(2), untouched.getWriteConcern());
+        assertEquals(ReadPreference.secondary(), untouched.getReadPreference());
+        assertEquals(1, untouched.getCompressorList().size());
+        assertEquals(1500, untouched.getSocketSettings().getConnectTimeout(TimeUnit.MILLISECONDS));
+        assertEquals(2500, untouched.getSocketSettings().getReadTimeout(TimeUnit.MILLISECONDS));
+
+        MongoClientSettings overridden = MongoClientTuning.from(properties("db.pool.maxSize", "20", "db.writeConcern", "majority"))
+                .applyTo(MongoClientSettings.builder().applyConnectionString(new ConnectionString(uri)), null)
+                .build();
+        assertEquals(20, overridden.getConnectionPoolSettings().getMaxSize());
+        assertEquals(3, overridden.getConnectionPoolSettings().getMinSize());
+        assertEquals(WriteConcern.MAJORITY, overridden.getWriteConcern());
+        assertEquals(ReadPreference.secondary(), overridden.getReadPreference());
+    }
+
+    @Test
+    @DisplayName("Should parse typed pool and transport settings")
+    void testParsing() {
+        MongoClientTuning tuning = MongoClientTuning.from(properties(
+                "db.pool.maxSize", "50",
+                "db.pool.minSize", "5",
+                "db.pool.maxConnecting", "4",
+                "db.pool.maxWaitTimeMs", "2000",
+                "db.readTimeoutMs", "15000",
+                "db.compressors", " zlib ",
+                "db.readPreference", "secondaryPreferred",
+                "db.writeConcern", "2"));
+
+        assertEquals(50, tuning.maxPoolSize());
+        assertEquals(5, tuning.minPoolSize());
+        assertEquals(4, tuning.maxConnecting());
+        assertEquals(2000, tuning.maxWaitTimeMs());
+        assertEquals(15000, tuning.readTimeoutMs());
+        assertEquals(List.of("zlib"), tuning.compressors());
+        assertEquals(ReadPreference.secondaryPreferred(), tuning.readPreference());
+        assertEquals(new WriteConcern(2), tuning.writeConcern());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid values naming the offending key")
+    void testValidation() {
+        IllegalArgumentException notANumber = assertThrows(IllegalArgumentException.class,
+                () -> MongoClientTuning.from(properties("db.pool.maxSize", "many")));
+        assertTrue(notANumber.getMessage().contains("db.pool.maxSize"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> MongoClientTuning.from(properties("db.pool.maxSize", "0")));
+        assertThrows(IllegalArgumentException.class,
+                () -> MongoClientTuning.from(properties("db.pool.maxSize", "5", "db.pool.minSize", "10")));
+        assertThrows(IllegalArgumentException.class,
+                () -> MongoClientTuning.from(properties("db.compressors", "lz4")));
+        assertThrows(IllegalArgumentException.class,
+                () -> MongoClientTuning.from(properties("db.readPreference", "closest")));
+        assertThrows(IllegalArgumentException.class,
+                () -> MongoClientTuning.from(properties("db.writeConcern", "most")));
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.app;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for MovieAnalytics pipelines and result decoding
+ */
+class MovieAnalyticsTest {
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    private final List<List<? extends Bson>> pipelines = new ArrayList<>();
+    private final List<Boolean> diskUse = new ArrayList<>();
+    private List<Document> results = List.of();
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        when(mockCollection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(mockCollection.withCodecRegistry(any())).thenReturn(mockCollection);
+        when(mockCollection.aggregate(any())).thenAnswer(invocation -> {
+            pipelines.add(invocation.getArgument(0));
+            AggregateIterable<Document> iterable = mock(AggregateIterable.class);
+            when(iterable.allowDiskUse(anyBoolean())).thenAnswer(allow -> {
+                diskUse.add(allow.getArgument(0));
+                return iterable;
+            });
+            when(iterable.into(any())).thenAnswer(into -> {
+                List<Document> target = into.getArgument(0);
+                target.addAll(results);
+                return target;
+            });
+            when(iterable.first()).thenAnswer(first -> results.isEmpty() ? null : results.get(0));
+            return iterable;
+        });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    private static List<String> stageNames(List<? extends Bson> pipeline) {
+        return pipeline.stream().map(stage -> stage.toBsonDocument().getFirstKey()).toList();
+    }
+
+    @Test
+    @DisplayName("Should group by genre on the server and decode counts and mean ratings")
+    void testStatsByGenre() {
+        results = List.of(
+                new Document("_id", "Drama").append("movies", 12385).append("averageRating", 6.8),
+                new Document("_id", "Short").append("movies", 2).append("averageRating", null));
+
+        List<MovieAnalytics.GenreStats> stats = new MovieAnalytics(mockDatabase, true).statsByGenre();
+
+        assertEquals(List.of(
+                new MovieAnalytics.GenreStats("Drama", 12385, 6.8),
+                new MovieAnalytics.GenreStats("Short", 2, null)), stats);
+        assertEquals(List.of("$unwind", "$group", "$sort"), stageNames(pipelines.get(0)));
+        assertEquals(List.of(true), diskUse);
+    }
+
+    @Test
+    @DisplayName("Should decode per-year stats ignoring the number type returned for the year")
+    void testStatsByYear() {
+        results = List.of(new Document("_id", 2010.0).append("movies", 970L).append("averageRating", 6.4));
+
+        List<MovieAnalytics.YearStats> stats = new MovieAnalytics(mockDatabase).statsByYear();
+
+        assertEquals(List.of(new MovieAnalytics.YearStats(2010, 970, 6.4)), stats);
+        assertEquals(List.of("$match", "$group", "$sort"), stageNames(pipelines.get(0)));
+        assertEquals(List.of(false), diskUse);
+    }
+
+    @Test
+    @DisplayName("Should fill empty runtime buckets and report out-of-range movies separately")
+    void testRuntimeHistogram() {
+        results = List.of(
+                new Document("_id", 60).append("movies", 5000),
+                new Document("_id", "other").append("movies", 42));
+
+        MovieAnalytics.RuntimeHistogram histogram =
+                new MovieAnalytics(mockDatabase).runtimeHistogram(List.of(0, 60, 90, 120));
+
+        assertEquals(List.of(
+                new MovieAnalytics.RuntimeBucket(0, 60, 0),
+                new MovieAnalytics.RuntimeBucket(60, 90, 5000),
+                new MovieAnalytics.RuntimeBucket(90, 120, 0)), histogram.buckets());
+        assertEquals(42, histogram.outOfRange());
+        BsonDocument bucket = pipelines.get(0).get(1).toBsonDocument().getDocument("$bucket");
+        assertEquals("$runtime", bucket.getString("groupBy").getValue());
+        assertEquals("other", bucket.getString("default").getValue());
+    }
+
+    @Test
+    @DisplayName("Should reject runtime boundaries that are too few or not ascending")
+    void testRuntimeBoundaryValidation() {
+        MovieAnalytics analytics = new MovieAnalytics(mockDatabase);
+        assertThrows(IllegalArgumentException.class, () -> analytics.runtimeHistogram(List.of(60)));
+        assertThrows(IllegalArgumentException.class, () -> analytics.runtimeHistogram(List.of(0, 90, 60)));
+        assertTrue(pipelines.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should compute all statistics in one $facet round trip")
+    void testOverview() {
+        results = List.of(new Document("byGenre", List.of(new Document("_id", "Drama").append("movies", 3).append("averageRating", 7.0)))
+                .append("byYear", List.of(new Document("_id", 1999).append("movies", 3).append("averageRating", 7.0)))
+                .append("runtimes", List.of(new Document("_id", 90).append("movies", 3))));
+
+        MovieAnalytics.Overview overview = new MovieAnalytics(mockDatabase).overview(List.of(0, 90, 180));
+
+        assertEquals(1, pipelines.size());
+        BsonDocument facet = pipelines.get(0).get(0).toBsonDocument().getDocument("$facet");
+        assertEquals(List.of("byGenre", "byYear", "runtimes"), new ArrayList<>(facet.keySet()));
+        assertEquals(List.of(new MovieAnalytics.GenreStats("Drama", 3, 7.0)), overview.byGenre());
+        assertEquals(List.of(new MovieAnalytics.YearStats(1999, 3, 7.0)), overview.byYear());
+        assertEquals(3, overview.runtimes().buckets().get(1).movies());
+    }
+
+    @Test
+    @DisplayName("Should build a top-N pipeline that sorts by rating, limits and projects")
+    void testTopRatedPipeline() {
+        List<Bson> pipeline = MovieAnalytics.topRatedPipeline("Action", 5, MovieFields.TITLE, MovieFields.IMDB_RATING);
+
+        assertEquals(List.of("$match", "$sort", "$limit", "$project"), stageNames(pipeline));
+        assertEquals(BsonDocument.parse("{'imdb.rating': -1, _id: 1}"),
+                pipeline.get(1).toBsonDocument().getDocument("$sort"));
+        assertEquals(5, pipeline.get(2).toBsonDocument().getInt32("$limit").getValue());
+        assertEquals(BsonDocument.parse("{title: 1, 'imdb.rating': 1, _id: 0}"),
+                pipeline.get(3).toBsonDocument().getDocument("$project"));
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.app;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MovieBatchLoader
+ */
+class MovieBatchLoaderTest {
+
+    private final Map<ObjectId, Document> movies = new HashMap<>();
+    private final List<List<ObjectId>> batches = Collections.synchronizedList(new ArrayList<>());
+
+    private Map<ObjectId, Document> find(Collection<ObjectId> ids) {
+        batches.add(new ArrayList<>(ids));
+        Map<ObjectId, Document> found = new HashMap<>();
+        for (ObjectId id : ids) {
+            if (movies.containsKey(id)) {
+                found.put(id, movies.get(id));
+            }
+        }
+        return found;
+    }
+
+    private ObjectId addMovie(String title) {
+        ObjectId id = new ObjectId();
+        movies.put(id, new Document("_id", id).append("title", title));
+        return id;
+    }
+
+    @Test
+    @DisplayName("Should coalesce lookups made within the window into one query")
+    void testCoalescesWithinWindow() throws Exception {
+        ObjectId first = addMovie("First");
+        ObjectId second = addMovie("Second");
+        ObjectId missing = new ObjectId();
+
+        try (MovieBatchLoader loader = new MovieBatchLoader(this::find, 100, Duration.ofMillis(50))) {
+            CompletableFuture<Document> a = loader.load(first);
+            CompletableFuture<Document> b = loader.load(second);
+            CompletableFuture<Document> c = loader.load(missing);
+
+            assertEquals("First", a.get(5, TimeUnit.SECONDS).getString("title"));
+            assertEquals("Second", b.get(5, TimeUnit.SECONDS).getString("title"));
+            assertNull(c.get(5, TimeUnit.SECONDS));
+            assertEquals(1, loader.getBatchCount());
+        }
+        assertEquals(List.of(List.of(first, second, missing)), batches);
+    }
+
+    @Test
+    @DisplayName("Should send a batch as soon as it reaches the maximum size")
+    void testSendsFullBatchImmediately() throws Exception {
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            ids.add(addMovie("Movie " + i));
+        }
+
+        try (MovieBatchLoader loader = new MovieBatchLoader(this::find, 2, Duration.ofHours(1))) {
+            List<CompletableFuture<Document>> results = new ArrayList<>();
+            for (ObjectId id : ids) {
+                results.add(loader.load(id));
+            }
+            assertTrue(results.get(0).isDone());
+            assertTrue(results.get(3).isDone());
+            assertFalse(results.get(4).isDone());
+
+            loader.flush();
+            for (int i = 0; i < 5; i++) {
+                assertEquals("Movie " + i, results.get(i).get().getString("title"));
+            }
+        }
+        assertEquals(List.of(2, 2, 1), batches.stream().map(List::size).toList());
+    }
+
+    @Test
+    @DisplayName("Should share the future of an ID that is already queued or in flight")
+    void testDeduplicatesInFlightIds() throws Exception {
+        ObjectId id = addMovie("Shared");
+        CountDownLatch querying = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        try (MovieBatchLoader loader = new MovieBatchLoader(ids -> {
+            querying.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return find(ids);
+        }, 100, Duration.ofMillis(10))) {
+            CompletableFuture<Document> queued = loader.load(id);
+            assertSame(queued, loader.load(id));
+
+            assertTrue(querying.await(5, TimeUnit.SECONDS));
+            assertSame(queued, loader.load(id));
+            release.countDown();
+
+            assertEquals("Shared", queued.get(5, TimeUnit.SECONDS).getString("title"));
+            assertEquals(3, loader.getRequestCount());
+            assertEquals(2, loader.getDeduplicatedCount());
+
+            // Completed lookups are not cached
+            assertEquals("Shared", loader.load(id).get(5, TimeUnit.SECONDS).getString("title"));
+        }
+        assertEquals(List.of(List.of(id), List.of(id)), batches);
+    }
+
+    @Test
+    @DisplayName("Should fail every lookup of a batch whose query failed")
+    void testFailurePropagates() {
+        try (MovieBatchLoader loader = new MovieBatchLoader(ids -> {
+            throw new IllegalStateException("server down");
+        }, 100, Duration.ofMillis(10))) {
+            CompletableFuture<Document> a = loader.load(new ObjectId());
+            CompletableFuture<Document> b = loader.load(new ObjectId());
+
+            ExecutionException error = assertThrows(ExecutionException.class, () -> a.get(5, TimeUnit.SECONDS));
+            assertEquals("server down", error.getCause().getMessage());
+            assertThrows(ExecutionException.class, () -> b.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    @DisplayName("Should return only the movies found from loadAll")
+    void testLoadAll() throws Exception {
+        ObjectId first = addMovie("First");
+        ObjectId missing = new ObjectId();
+
+        try (MovieBatchLoader loader = new MovieBatchLoader(this::find, 100, Duration.ofMillis(10))) {
+            Map<ObjectId, Document> found = loader.loadAll(List.of(first, missing, first)).get(5, TimeUnit.SECONDS);
+
+            assertEquals(1, found.size());
+            assertEquals("First", found.get(first).getString("title"));
+        }
+    }
+
+    @Test
+    @DisplayName("Should send pending lookups on close and reject new ones")
+    void testCloseFlushes() {
+        ObjectId id = addMovie("Pending");
+        MovieBatchLoader loader = new MovieBatchLoader(this::find, 100, Duration.ofHours(1));
+        CompletableFuture<Document> pending = loader.load(id);
+
+        loader.close();
+
+        assertEquals("Pending", pending.join().getString("title"));
+        assertThrows(IllegalStateException.class, () -> loader.load(id));
+    }
+
+    @Test
+    @DisplayName("Should complete or reject every lookup that races with close")
+    void testCloseRace() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            MovieBatchLoader loader = new MovieBatchLoader(this::find, 1000, Duration.ofHours(1));
+            List<CompletableFuture<Document>> accepted = Collections.synchronizedList(new ArrayList<>());
+            List<Throwable> unexpected = Collections.synchronizedList(new ArrayList<>());
+            CountDownLatch go = new CountDownLatch(1);
+            List<Thread> threads = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                Thread thread = new Thread(() -> {
+                    try {
+                        go.await();
+                        for (int i = 0; i < 50; i++) {
+                            accepted.add(loader.load(new ObjectId()));
+                        }
+                    } catch (IllegalStateException e) {
+                        // closed: rejected before it was queued
+                    } catch (Throwable e) {
+                        unexpected.add(e);
+                    }
+                });
+                thread.start();
+                threads.add(thread);
+            }
+            go.countDown();
+            loader.close();
+            for (Thread thread : threads) {
+                thread.join(TimeUnit.SECONDS.toMillis(5));
+            }
+
+            assertEquals(List.of(), unexpected);
+            for (CompletableFuture<Document> future : accepted) {
+                // a lookup queued after close drained the buffer would never be sent
+                assertTrue(future.isDone(), "lookup accepted but never sent");
+            }
+        }
+    }
+}
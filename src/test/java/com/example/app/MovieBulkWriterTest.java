@@ -0,0 +1,218 @@
+package com.example.app;
+
+import com.mongodb.MongoBulkWriteException;
+import com.mongodb.ServerAddress;
+import com.mongodb.bulk.BulkWriteError;
+import com.mongodb.bulk.BulkWriteResult;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.model.BulkWriteOptions;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for MovieBulkWriter
+ */
+class MovieBulkWriterTest {
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    private MovieBulkWriter newWriter(int maxBatchSize) {
+        // Long interval so only size-based and explicit flushes happen during the test
+        return new MovieBulkWriter(mockCollection, maxBatchSize, Duration.ofMinutes(10), maxBatchSize * 4);
+    }
+
+    @Test
+    @DisplayName("Should send one bulk write when the batch is full")
+    void testFlushBySize() {
+        when(mockCollection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.unacknowledged());
+
+        try (MovieBulkWriter writer = newWriter(2)) {
+            CompletableFuture<MovieBulkWriter.OperationResult> first = writer.updateMovieRating(new ObjectId(), 7.5);
+            verify(mockCollection, never()).bulkWrite(anyList(), any(BulkWriteOptions.class));
+
+            CompletableFuture<MovieBulkWriter.OperationResult> second = writer.addGenreToMovie(new ObjectId(), "Drama");
+            verify(mockCollection, times(1)).bulkWrite(anyList(), any(BulkWriteOptions.class));
+
+            assertTrue(first.join().succeeded());
+            assertEquals(MovieBulkWriter.OperationType.ADD_GENRE, second.join().type());
+            assertEquals(1, writer.getBatchCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should report write errors against the failing operation only")
+    void testPerOperationFailures() {
+        BulkWriteError duplicateKey = new BulkWriteError(11000, "E11000 duplicate key", new BsonDocument(), 1);
+        MongoBulkWriteException exception = new MongoBulkWriteException(
+                BulkWriteResult.acknowledged(1, 0, 0, 0, List.of(), List.of()),
+                List.of(duplicateKey), null, new ServerAddress(), Set.of());
+        when(mockCollection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenThrow(exception);
+
+        try (MovieBulkWriter writer = newWriter(2)) {
+            CompletableFuture<MovieBulkWriter.OperationResult> ok = writer.insertMovie(new Document("title", "A"));
+            CompletableFuture<MovieBulkWriter.OperationResult> failed = writer.insertMovie(new Document("title", "B"));
+
+            assertTrue(ok.join().succeeded());
+            assertFalse(failed.join().succeeded());
+            assertEquals("E11000 duplicate key", failed.join().error());
+            assertEquals(1, writer.getSucceededCount());
+            assertEquals(1, writer.getFailedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should fail the whole batch on an exception without a message, and on an Error")
+    void testBatchFailures() {
+        when(mockCollection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenThrow(new NullPointerException());
+
+        try (MovieBulkWriter writer = newWriter(2)) {
+            CompletableFuture<MovieBulkWriter.OperationResult> first = writer.deleteMovieById(new ObjectId());
+            CompletableFuture<MovieBulkWriter.OperationResult> second = writer.deleteMovieById(new ObjectId());
+
+            assertFalse(first.join().succeeded());
+            assertFalse(second.join().succeeded());
+            assertEquals("java.lang.NullPointerException", first.join().error());
+            assertEquals(0, writer.getSucceededCount());
+            assertEquals(2, writer.getFailedCount());
+        }
+
+        when(mockCollection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenThrow(new OutOfMemoryError("heap"));
+        try (MovieBulkWriter writer = newWriter(10)) {
+            CompletableFuture<MovieBulkWriter.OperationResult> pending = writer.deleteMovieById(new ObjectId());
+
+            assertThrows(OutOfMemoryError.class, writer::flush);
+            assertTrue(pending.isCompletedExceptionally());
+            assertEquals(1, writer.getFailedCount());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject flush intervals shorter than a millisecond")
+    void testInvalidFlushInterval() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new MovieBulkWriter(mockCollection, 10, Duration.ZERO, 40));
+        assertThrows(IllegalArgumentException.class,
+                () -> new MovieBulkWriter(mockCollection, 10, Duration.ofNanos(500_000), 40));
+    }
+
+    @Test
+    @DisplayName("Should assign an _id to inserted movies up front")
+    void testInsertAssignsId() {
+        when(mockCollection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.unacknowledged());
+        Document movie = new Document("title", "New Movie");
+
+        try (MovieBulkWriter writer = newWriter(10)) {
+            CompletableFuture<MovieBulkWriter.OperationResult> result = writer.insertMovie(movie);
+            writer.flush();
+
+            assertNotNull(movie.getObjectId("_id"));
+            assertEquals(movie.getObjectId("_id"), result.join().movieId());
+        }
+    }
+
+    @Test
+    @DisplayName("Should flush pending operations on close")
+    void testCloseFlushes() {
+        when(mockCollection.bulkWrite(anyList(), any(BulkWriteOptions.class)))
+                .thenReturn(BulkWriteResult.unacknowledged());
+
+        MovieBulkWriter writer = newWriter(10);
+        CompletableFuture<MovieBulkWriter.OperationResult> result = writer.deleteMovieById(new ObjectId());
+        assertFalse(result.isDone());
+
+        writer.close();
+
+        assertTrue(result.join().succeeded());
+        assertThrows(IllegalStateException.class, () -> writer.deleteMovieById(new ObjectId()));
+    }
+
+    @Test
+    @DisplayName("Should reject an operation that was waiting for capacity when the writer closed")
+    void testSubmitWaitingDuringClose() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        when(mockCollection.bulkWrite(anyList(), any(BulkWriteOptions.class))).thenAnswer(invocation -> {
+            inFlight.incrementAndGet();
+            release.await();
+            return BulkWriteResult.unacknowledged();
+        });
+
+        // batches of 2, 8 pending at most: four full batches stuck in bulkWrite use all the capacity
+        MovieBulkWriter writer = newWriter(2);
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 1; i <= 4; i++) {
+            Thread batch = new Thread(() -> {
+                writer.deleteMovieById(new ObjectId());
+                writer.deleteMovieById(new ObjectId());
+            });
+            batch.start();
+            threads.add(batch);
+            awaitTrue(() -> inFlight.get() == threads.size());
+        }
+        AtomicReference<Object> outcome = new AtomicReference<>();
+        Thread late = new Thread(() -> {
+            try {
+                outcome.set(writer.deleteMovieById(new ObjectId()));
+            } catch (IllegalStateException e) {
+                outcome.set(e);
+            }
+        });
+        late.start();
+        awaitTrue(() -> late.getState() == Thread.State.WAITING);
+
+        writer.close();
+        release.countDown();
+        late.join(5000);
+        for (Thread batch : threads) {
+            batch.join(5000);
+        }
+
+        // before, it joined the buffer after close() had flushed it and its future never completed
+        assertTrue(outcome.get() instanceof IllegalStateException, "accepted after close: " + outcome.get());
+        assertEquals(8, writer.getSucceededCount());
+    }
+
+    private static void awaitTrue(BooleanSupplier condition) throws InterruptedException {
+        for (int i = 0; i < 500 && !condition.getAsBoolean(); i++) {
+            Thread.sleep(10);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
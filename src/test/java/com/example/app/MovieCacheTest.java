@@ -0,0 +1,112 @@
+package com.example.app;
+
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MovieCache
+ */
+class MovieCacheTest {
+
+    private final AtomicLong clock = new AtomicLong();
+
+    private static Document movie(ObjectId id, String title) {
+        return new Document("_id", id)
+                .append("title", title)
+                .append("genres", List.of("Drama"))
+                .append("imdb", new Document("rating", 7.0));
+    }
+
+    @Test
+    @DisplayName("Should count hits and misses and return independent copies")
+    void testHitsAndMisses() {
+        MovieCache cache = new MovieCache(10, 0, Duration.ZERO, clock::get);
+        ObjectId id = new ObjectId();
+
+        assertNull(cache.get(id));
+        cache.put(id, movie(id, "Cached"), cache.loadToken());
+
+        Document first = cache.get(id);
+        assertEquals("Cached", first.getString("title"));
+        first.put("title", "Changed by caller");
+        assertEquals("Cached", cache.get(id).getString("title"));
+
+        assertEquals(2, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    @DisplayName("Should evict the least recently used entry when full")
+    void testLruEviction() {
+        MovieCache cache = new MovieCache(2, 0, Duration.ZERO, clock::get);
+        ObjectId a = new ObjectId();
+        ObjectId b = new ObjectId();
+        ObjectId c = new ObjectId();
+
+        cache.put(a, movie(a, "A"), cache.loadToken());
+        cache.put(b, movie(b, "B"), cache.loadToken());
+        cache.get(a);
+        cache.put(c, movie(c, "C"), cache.loadToken());
+
+        assertNotNull(cache.get(a));
+        assertNull(cache.get(b));
+        assertNotNull(cache.get(c));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    @DisplayName("Should keep the cache under the byte bound")
+    void testByteBound() {
+        ObjectId probe = new ObjectId();
+        MovieCache sizing = new MovieCache(10, 0, Duration.ZERO, clock::get);
+        sizing.put(probe, movie(probe, "Movie"), sizing.loadToken());
+        long entryBytes = sizing.getEstimatedBytes();
+
+        MovieCache cache = new MovieCache(100, entryBytes * 3, Duration.ZERO, clock::get);
+        for (int i = 0; i < 10; i++) {
+            ObjectId id = new ObjectId();
+            cache.put(id, movie(id, "Movie"), cache.loadToken());
+        }
+
+        assertEquals(3, cache.size());
+        assertTrue(cache.getEstimatedBytes() <= entryBytes * 3);
+        assertEquals(7, cache.getEvictionCount());
+    }
+
+    @Test
+    @DisplayName("Should expire entries after the TTL")
+    void testTtl() {
+        MovieCache cache = new MovieCache(10, 0, Duration.ofSeconds(5), clock::get);
+        ObjectId id = new ObjectId();
+        cache.put(id, movie(id, "Short lived"), cache.loadToken());
+
+        clock.addAndGet(Duration.ofSeconds(4).toNanos());
+        assertNotNull(cache.get(id));
+
+        clock.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertNull(cache.get(id));
+        assertEquals(1, cache.getExpirationCount());
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    @DisplayName("Should drop a load that raced with an invalidation")
+    void testInvalidationRace() {
+        MovieCache cache = new MovieCache(10, 0, Duration.ZERO, clock::get);
+        ObjectId id = new ObjectId();
+
+        long token = cache.loadToken();
+        cache.invalidate(id);
+        cache.put(id, movie(id, "Stale"), token);
+
+        assertNull(cache.get(id));
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.app;
+
+import org.bson.BsonDocument;
+import org.bson.BsonDocumentReader;
+import org.bson.BsonDocumentWriter;
+import org.bson.Document;
+import org.bson.codecs.DecoderContext;
+import org.bson.codecs.EncoderContext;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MovieCodec
+ */
+class MovieCodecTest {
+
+    private final MovieCodec codec = new MovieCodec();
+
+    private Movie decode(Document document) {
+        BsonDocument bson = document.toBsonDocument();
+        return codec.decode(new BsonDocumentReader(bson), DecoderContext.builder().build());
+    }
+
+    @Test
+    @DisplayName("Should decode mapped fields and skip the rest")
+    void testDecodeFullDocument() {
+        ObjectId id = new ObjectId();
+        Document document = new Document("_id", id)
+                .append("title", "Test Movie")
+                .append("year", 2024)
+                .append("genres", List.of("Drama", "Action"))
+                .append("plot", "A test plot")
+                .append("cast", List.of("Actor 1", "Actor 2"))
+                .append("runtime", 120)
+                .append("awards", new Document("wins", 2))
+                .append("imdb", new Document("rating", 8.5).append("votes", 10000).append("id", 42));
+
+        Movie movie = decode(document);
+
+        assertEquals(new Movie(id, "Test Movie", 2024, List.of("Drama", "Action"), 120, 8.5, 10000), movie);
+    }
+
+    @Test
+    @DisplayName("Should leave projected-out fields null")
+    void testDecodeProjectedDocument() {
+        Movie movie = decode(new Document("title", "Only Title"));
+
+        assertEquals("Only Title", movie.title());
+        assertNull(movie.id());
+        assertNull(movie.year());
+        assertNull(movie.genres());
+        assertNull(movie.imdbRating());
+    }
+
+    @Test
+    @DisplayName("Should tolerate mistyped values found in sample_mflix")
+    void testDecodeMistypedValues() {
+        Movie movie = decode(new Document("title", "Odd Movie")
+                .append("year", "2012è")
+                .append("imdb", new Document("rating", "").append("votes", 1500L)));
+
+        assertEquals("Odd Movie", movie.title());
+        assertNull(movie.year());
+        assertNull(movie.imdbRating());
+        assertEquals(1500, movie.imdbVotes());
+    }
+
+    @Test
+    @DisplayName("Should round-trip a movie through encode and decode")
+    void testRoundTrip() {
+        Movie original = new Movie(new ObjectId(), "Round Trip", 1999, List.of("Sci-Fi"), 136, 8.7, 2000000);
+
+        BsonDocument bson = new BsonDocument();
+        codec.encode(new BsonDocumentWriter(bson), original, EncoderContext.builder().build());
+
+        assertEquals(original, codec.decode(new BsonDocumentReader(bson), DecoderContext.builder().build()));
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.app;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for MovieColumnarIndex, checked against straightforward scans over the same movies
+ */
+class MovieColumnarIndexTest {
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    @Mock
+    private MongoCollection<Movie> mockMovieCollection;
+
+    private AutoCloseable closeable;
+    private List<Movie> movies;
+    private MovieColumnarIndex index;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        when(mockCollection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(mockCollection.withCodecRegistry(any())).thenReturn(mockCollection);
+        when(mockCollection.withDocumentClass(Movie.class)).thenReturn(mockMovieCollection);
+
+        // 70 genres so the bitset needs two words per movie; some values missing
+        Random random = new Random(9);
+        movies = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            List<String> genres = new ArrayList<>();
+            for (int g = 0; g < 1 + random.nextInt(3); g++) {
+                String genre = "Genre" + random.nextInt(70);
+                if (!genres.contains(genre)) {
+                    genres.add(genre);
+                }
+            }
+            movies.add(new Movie(new ObjectId(), "Movie " + i,
+                    i % 50 == 0 ? null : 1990 + random.nextInt(20),
+                    i % 97 == 0 ? null : genres,
+                    80 + random.nextInt(100),
+                    i % 30 == 0 ? null : Math.round(random.nextDouble() * 90) / 10.0 + 1.0,
+                    random.nextInt(100_000)));
+        }
+        index = MovieColumnarIndex.of(movies);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    @DisplayName("Should count movies by year like a scan over the movies")
+    void testCountByYear() {
+        for (int year = 1989; year <= 2010; year++) {
+            int expected = year;
+            assertEquals(movies.stream().filter(m -> m.year() != null && m.year() == expected).count(),
+                    index.countMoviesByYear(year), "year " + year);
+        }
+        assertEquals(0, index.countMoviesByYear(MovieColumnarIndex.MISSING + 1));
+    }
+
+    @Test
+    @DisplayName("Should filter by genre, year range and minimum rating")
+    void testCombinedFilter() {
+        String genre = "Genre65";
+        long expected = movies.stream()
+                .filter(m -> m.genres() != null && m.genres().contains(genre))
+                .filter(m -> m.year() != null && m.year() >= 1995 && m.year() <= 2004)
+                .filter(m -> m.imdbRating() != null && m.imdbRating() >= 5.0)
+                .count();
+
+        assertEquals(expected, index.countMovies(genre, 1995, 2004, 5.0));
+        int[] rows = index.findRows(genre, 1995, 2004, 5.0);
+        assertEquals(expected, rows.length);
+        for (int row : rows) {
+            Movie movie = movies.get(row);
+            assertEquals(movie.id(), index.idAt(row));
+            assertEquals(movie.year(), index.yearAt(row));
+            assertEquals(movie.runtime(), index.runtimeAt(row));
+            assertEquals(movie.imdbVotes(), index.votesAt(row));
+            assertEquals(movie.imdbRating(), index.ratingAt(row), 1e-5);
+            assertEquals(movie.genres().stream().sorted().toList(), index.genresAt(row).stream().sorted().toList());
+        }
+        assertEquals(0, index.countMovies("Unknown", 0, 3000, Double.NEGATIVE_INFINITY));
+    }
+
+    @Test
+    @DisplayName("Should include unrated movies only when no minimum rating is given")
+    void testUnratedMovies() {
+        long withYear = movies.stream().filter(m -> m.year() != null).count();
+        assertEquals(withYear, index.countMovies(null, Integer.MIN_VALUE + 1, Integer.MAX_VALUE, Double.NEGATIVE_INFINITY));
+        assertTrue(index.countMovies(null, Integer.MIN_VALUE + 1, Integer.MAX_VALUE, 0.0) < withYear);
+    }
+
+    @Test
+    @DisplayName("Should count genres and average ratings from the columns")
+    void testGenreCountsAndAverages() {
+        assertEquals(movies.stream().filter(m -> m.genres() != null && m.genres().contains("Genre0")).count(),
+                index.countMoviesByGenre("Genre0"));
+        assertEquals(70, index.genres().size());
+
+        double expected = movies.stream()
+                .filter(m -> m.year() != null && m.year() == 2000 && m.imdbRating() != null)
+                .mapToDouble(Movie::imdbRating).average().orElse(Double.NaN);
+        assertEquals(expected, index.averageRatingByYear(2000), 1e-4);
+        assertTrue(Double.isNaN(index.averageRatingByYear(1800)));
+        assertEquals(movies.stream().filter(m -> m.year() != null && m.year() == 2000).map(Movie::id).toList(),
+                index.findMovieIdsByYear(2000));
+    }
+
+    @Test
+    @DisplayName("Should use a few dozen off-heap bytes per movie")
+    void testFootprint() {
+        // 12 id + 4 year + 4 runtime + 4 votes + 4 rating + 2 * 8 genre words
+        assertEquals(2000L * 44, index.offHeapBytes());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Should grow its columns when loading more movies than the estimated count")
+    void testLoad() {
+        FindIterable<Movie> find = mock(FindIterable.class);
+        MongoCursor<Movie> cursor = mock(MongoCursor.class);
+        Iterator<Movie> source = movies.iterator();
+        when(mockCollection.estimatedDocumentCount()).thenReturn(10L);
+        when(mockMovieCollection.find()).thenReturn(find);
+        when(find.projection(any())).thenReturn(find);
+        when(find.batchSize(anyInt())).thenReturn(find);
+        when(find.cursor()).thenReturn(cursor);
+        when(cursor.hasNext()).thenAnswer(invocation -> source.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> source.next());
+
+        MovieColumnarIndex loaded = MovieColumnarIndex.load(mockDatabase);
+
+        assertEquals(movies.size(), loaded.size());
+        assertEquals(index.countMovies("Genre3", 1990, 2000, 3.0), loaded.countMovies("Genre3", 1990, 2000, 3.0));
+        assertEquals(movies.get(1999).id(), loaded.idAt(1999));
+    }
+}
@@ -0,0 +1,316 @@
+package com.example.app;
+
+import com.mongodb.ClientSessionOptions;
+import com.mongodb.MongoException;
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.ClientSession;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import com.mongodb.client.model.changestream.UpdateDescription;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonObjectId;
+import org.bson.BsonTimestamp;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for MovieCountService, with InMemoryMovieStore as the writer
+ */
+class MovieCountServiceTest {
+
+    @Mock
+    private MongoClient mockClient;
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    @Mock
+    private ClientSession mockSession;
+
+    private final List<Document> groups = new ArrayList<>();
+    private final List<List<?>> pipelines = new CopyOnWriteArrayList<>();
+    private final AtomicInteger aggregateCalls = new AtomicInteger();
+    private volatile int failingAggregateCall;
+    private InMemoryMovieStore store;
+    private MovieCountService service;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        when(mockClient.startSession(any(ClientSessionOptions.class))).thenReturn(mockSession);
+        when(mockSession.getSnapshotTimestamp()).thenReturn(new BsonTimestamp(1_700_000_000, 4));
+        AggregateIterable<Document> aggregate = mock(AggregateIterable.class);
+        when(mockCollection.aggregate(any(ClientSession.class), anyList())).thenAnswer(invocation -> {
+            if (aggregateCalls.incrementAndGet() == failingAggregateCall) {
+                throw new MongoException("not primary");
+            }
+            pipelines.add(invocation.getArgument(1));
+            return aggregate;
+        });
+        when(aggregate.into(any())).thenAnswer(invocation -> {
+            List<Document> target = invocation.getArgument(0);
+            target.addAll(groups);
+            return target;
+        });
+        groups.add(new Document("_id", 1995).append("movies", 40));
+        groups.add(new Document("_id", 2010.0).append("movies", 25));
+        groups.add(new Document("_id", "2010è").append("movies", 2));
+        groups.add(new Document("_id", null).append("movies", 3));
+
+        store = new InMemoryMovieStore();
+        service = new MovieCountService(mockClient, mockDatabase, store);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        service.close();
+        closeable.close();
+    }
+
+    @Test
+    @DisplayName("Should count once by year, grouping numeric years and keeping others in the total only")
+    void testInitialCount() {
+        assertEquals(70, service.countMovies());
+        assertEquals(40, service.countMoviesByYear(1995));
+        assertEquals(25, service.countMoviesByYear(2010));
+        assertEquals(0, service.countMoviesByYear(2011));
+        assertEquals(2, service.histogram().size());
+
+        assertEquals(1, pipelines.size());
+        assertEquals(1, service.status().recounts());
+        assertNotNull(service.status().countedAt());
+        assertFalse(service.status().following());
+    }
+
+    @Test
+    @DisplayName("Should take the fast total from collection metadata")
+    void testEstimatedCount() {
+        when(mockCollection.estimatedDocumentCount()).thenReturn(23_539L);
+
+        assertEquals(23_539L, service.estimatedCount());
+        assertTrue(pipelines.isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should adjust counts at once for writes made through the service")
+    void testLocalWrites() {
+        service.countMovies();
+
+        ObjectId id = service.createMovie(new Document("title", "Local").append("year", 1995));
+        assertEquals(71, service.countMovies());
+        assertEquals(41, service.countMoviesByYear(1995));
+        assertNotNull(store.findMovieById(id));
+
+        assertEquals(1, service.deleteMovieById(id));
+        assertEquals(0, service.deleteMovieById(id));
+        assertEquals(70, service.countMovies());
+        assertEquals(40, service.countMoviesByYear(1995));
+        assertEquals(1, pipelines.size());
+    }
+
+    @Test
+    @DisplayName("Should apply inserts, deletes, replacements and year updates from the change stream")
+    void testApplyEvents() {
+        service.countMovies();
+        long epoch = service.epoch();
+        ObjectId id = new ObjectId();
+
+        assertTrue(service.apply(epoch, OperationType.INSERT, id, new Document("year", 2010), null, null));
+        assertEquals(26, service.countMoviesByYear(2010));
+
+        UpdateDescription ratingOnly = new UpdateDescription(List.of(), BsonDocument.parse("{'imdb.rating': 8.0}"));
+        assertTrue(service.apply(epoch, OperationType.UPDATE, id, null, null, ratingOnly));
+
+        UpdateDescription newYear = new UpdateDescription(List.of(), new BsonDocument("year", new BsonInt32(1995)));
+        assertTrue(service.apply(epoch, OperationType.UPDATE, id, null, new Document("year", 2010), newYear));
+        assertEquals(25, service.countMoviesByYear(2010));
+        assertEquals(41, service.countMoviesByYear(1995));
+
+        assertTrue(service.apply(epoch, OperationType.REPLACE, id, new Document("year", 2001), new Document("year", 1995), null));
+        assertEquals(40, service.countMoviesByYear(1995));
+        assertEquals(1, service.countMoviesByYear(2001));
+
+        assertTrue(service.apply(epoch, OperationType.DELETE, id, null, new Document("year", 2001), null));
+        assertEquals(0, service.countMoviesByYear(2001));
+        assertEquals(70, service.countMovies());
+        assertEquals(5, service.status().eventsApplied());
+    }
+
+    @Test
+    @DisplayName("Should ask for a recount when a change cannot be attributed to a year")
+    void testUnattributedEvents() {
+        service.countMovies();
+        long epoch = service.epoch();
+        UpdateDescription newYear = new UpdateDescription(List.of(), new BsonDocument("year", new BsonInt32(1995)));
+
+        assertFalse(service.apply(epoch, OperationType.DELETE, new ObjectId(), null, null, null));
+        assertFalse(service.apply(epoch, OperationType.UPDATE, new ObjectId(), null, null, newYear));
+        assertFalse(service.apply(epoch, OperationType.REPLACE, new ObjectId(), new Document("year", 1995), null, null));
+        assertEquals(70, service.countMovies());
+    }
+
+    @Test
+    @DisplayName("Should ignore events from a cursor opened before the latest recount")
+    void testStaleCursorEvents() {
+        service.countMovies();
+        long before = service.epoch();
+        service.recount();
+
+        assertTrue(service.apply(before, OperationType.INSERT, new ObjectId(), new Document("year", 1995), null, null));
+
+        assertEquals(40, service.countMoviesByYear(1995));
+        assertEquals(before + 1, service.epoch());
+    }
+
+    @Test
+    @DisplayName("Should recount only when the counts are older than the caller accepts")
+    void testMaxStaleness() throws Exception {
+        service.countMovies();
+        Thread.sleep(5);
+
+        service.countMoviesByYear(1995, Duration.ofMinutes(1));
+        assertEquals(1, service.status().recounts());
+
+        groups.set(0, new Document("_id", 1995).append("movies", 42));
+        assertEquals(42, service.countMoviesByYear(1995, Duration.ofMillis(1)));
+        assertEquals(2, service.status().recounts());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Should follow the stream after start and not count its own writes twice")
+    void testStartAndLocalWriteDeduplication() {
+        ChangeStreamIterable<Document> watch = mock(ChangeStreamIterable.class);
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = mock(MongoChangeStreamCursor.class);
+        when(mockCollection.watch()).thenReturn(watch);
+        when(watch.fullDocumentBeforeChange(any())).thenReturn(watch);
+        when(watch.maxAwaitTime(anyLong(), any())).thenReturn(watch);
+        when(watch.startAtOperationTime(any())).thenReturn(watch);
+        when(watch.resumeAfter(any())).thenReturn(watch);
+        when(watch.cursor()).thenReturn(cursor);
+        when(cursor.getResumeToken()).thenReturn(BsonDocument.parse("{_data: '8263'}"));
+        when(cursor.tryNext()).thenReturn(null);
+
+        service.start();
+        assertTrue(service.status().following());
+        assertThrows(IllegalStateException.class, service::start);
+
+        Document movie = new Document("title", "Own write").append("year", 1995);
+        ObjectId id = service.createMovie(movie);
+        assertEquals(41, service.countMoviesByYear(1995));
+
+        // the insert event for our own write arrives afterwards and is skipped; another one is counted
+        long epoch = service.epoch();
+        assertTrue(service.apply(epoch, OperationType.INSERT, id, movie, null, null));
+        assertEquals(41, service.countMoviesByYear(1995));
+        assertTrue(service.apply(epoch, OperationType.INSERT, new ObjectId(), new Document("year", 1995), null, null));
+        assertEquals(42, service.countMoviesByYear(1995));
+
+        service.close();
+        assertFalse(service.status().following());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Should retry the recount an unattributed event needs when the first attempt fails")
+    void testFailedRecountIsRetried() throws Exception {
+        ChangeStreamIterable<Document> watch = mock(ChangeStreamIterable.class);
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = mock(MongoChangeStreamCursor.class);
+        ChangeStreamDocument<Document> deleteWithoutPreImage = new ChangeStreamDocument<>(
+                OperationType.DELETE.getValue(), BsonDocument.parse("{_data: '8264'}"), null, null, null, null,
+                new BsonDocument("_id", new BsonObjectId(new ObjectId())), null, null, null, null, null, null, null);
+        AtomicInteger polls = new AtomicInteger();
+        when(mockCollection.watch()).thenReturn(watch);
+        when(watch.fullDocumentBeforeChange(any())).thenReturn(watch);
+        when(watch.maxAwaitTime(anyLong(), any())).thenReturn(watch);
+        when(watch.startAtOperationTime(any())).thenReturn(watch);
+        when(watch.resumeAfter(any())).thenReturn(watch);
+        when(watch.cursor()).thenReturn(cursor);
+        when(cursor.tryNext()).thenAnswer(invocation -> polls.getAndIncrement() == 0 ? deleteWithoutPreImage : null);
+
+        // the recount on catching up (after the one in start) fails; it must be retried, not forgotten
+        failingAggregateCall = 2;
+        service.start();
+        try {
+            for (int i = 0; i < 500 && service.status().recounts() < 2; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, service.status().recounts());
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Should keep following and recount when the stream throws a non-driver exception")
+    void testUnexpectedExceptionForcesRecount() throws Exception {
+        ChangeStreamIterable<Document> watch = mock(ChangeStreamIterable.class);
+        MongoChangeStreamCursor<ChangeStreamDocument<Document>> cursor = mock(MongoChangeStreamCursor.class);
+        AtomicInteger polls = new AtomicInteger();
+        when(mockCollection.watch()).thenReturn(watch);
+        when(watch.fullDocumentBeforeChange(any())).thenReturn(watch);
+        when(watch.maxAwaitTime(anyLong(), any())).thenReturn(watch);
+        when(watch.startAtOperationTime(any())).thenReturn(watch);
+        when(watch.resumeAfter(any())).thenReturn(watch);
+        when(watch.cursor()).thenReturn(cursor);
+        when(cursor.tryNext()).thenAnswer(invocation -> {
+            if (polls.getAndIncrement() == 0) {
+                throw new IllegalStateException("codec not found");
+            }
+            return null;
+        });
+
+        service.start();
+        try {
+            for (int i = 0; i < 500 && service.status().recounts() < 2; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, service.status().recounts());
+            assertTrue(service.status().following());
+        } finally {
+            service.close();
+        }
+    }
+
+    @Test
+    @DisplayName("Should map whole-number int, long and double years and reject the rest")
+    void testYearKey() {
+        assertEquals(2010, MovieCountService.yearKey(2010));
+        assertEquals(2010, MovieCountService.yearKey(2010L));
+        assertEquals(2010, MovieCountService.yearKey(2010.0));
+        assertEquals(2010, MovieCountService.yearKey(new BsonInt32(2010)));
+        assertNull(MovieCountService.yearKey(2010.5));
+        assertNull(MovieCountService.yearKey("2010"));
+        assertNull(MovieCountService.yearKey(null));
+    }
+}
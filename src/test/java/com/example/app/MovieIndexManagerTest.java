@@ -0,0 +1,73 @@
+package com.example.app;
+
+import org.bson.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the index diff in MovieIndexManager
+ */
+class MovieIndexManagerTest {
+
+    private static Document index(String name, Document key) {
+        return new Document("v", 2).append("key", key).append("name", name);
+    }
+
+    private static List<String> names(List<MovieIndexManager.IndexSpec> specs) {
+        return specs.stream().map(MovieIndexManager.IndexSpec::name).toList();
+    }
+
+    @Test
+    @DisplayName("Should report every declared index missing on a fresh collection")
+    void testFreshCollection() {
+        List<Document> existing = List.of(index("_id_", new Document("_id", 1)));
+
+        List<MovieIndexManager.IndexSpec> missing =
+                MovieIndexManager.missingIndexes(MovieIndexManager.MOVIE_INDEXES, existing);
+
+        assertEquals(names(MovieIndexManager.MOVIE_INDEXES), names(missing));
+    }
+
+    @Test
+    @DisplayName("Should match existing indexes by key pattern, not name or number type")
+    void testMatchByKeys() {
+        List<Document> existing = List.of(
+                index("_id_", new Document("_id", 1)),
+                index("by_year", new Document("year", 1.0)),
+                index("genres_1", new Document("genres", 1L)),
+                index("year_genres", new Document("year", 1).append("genres", 1)));
+
+        List<MovieIndexManager.IndexSpec> missing =
+                MovieIndexManager.missingIndexes(MovieIndexManager.MOVIE_INDEXES, existing);
+
+        assertEquals(List.of("imdb.rating_-1", "genres_1_year_1__id_1", "title_lower_1", "title_text"), names(missing));
+    }
+
+    @Test
+    @DisplayName("Should treat key order and direction as significant")
+    void testOrderAndDirection() {
+        List<Document> existing = List.of(
+                index("genres_year", new Document("genres", 1).append("year", 1)),
+                index("rating_asc", new Document("imdb.rating", 1)));
+
+        List<String> missing = names(MovieIndexManager.missingIndexes(MovieIndexManager.MOVIE_INDEXES, existing));
+
+        assertTrue(missing.contains("year_1_genres_1"));
+        assertTrue(missing.contains("imdb.rating_-1"));
+    }
+
+    @Test
+    @DisplayName("Should accept any existing text index for the title text spec")
+    void testExistingTextIndex() {
+        List<Document> existing = List.of(index("cast_text_fullplot_text_genres_text_title_text",
+                new Document("_fts", "text").append("_ftsx", 1)));
+
+        List<String> missing = names(MovieIndexManager.missingIndexes(MovieIndexManager.MOVIE_INDEXES, existing));
+
+        assertFalse(missing.contains("title_text"));
+    }
+}
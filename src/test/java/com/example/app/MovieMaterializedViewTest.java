@@ -0,0 +1,318 @@
+package com.example.app;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.ChangeStreamIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoChangeStreamCursor;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.changestream.ChangeStreamDocument;
+import com.mongodb.client.model.changestream.OperationType;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for MovieMaterializedView
+ */
+class MovieMaterializedViewTest {
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    @Mock
+    private MongoCollection<Movie> mockMovieCollection;
+
+    private MovieMaterializedView view;
+    private AutoCloseable closeable;
+
+    private final ObjectId titanic = new ObjectId();
+    private final ObjectId heat = new ObjectId();
+    private final ObjectId up = new ObjectId();
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        when(mockCollection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(mockCollection.withCodecRegistry(any())).thenReturn(mockCollection);
+        when(mockCollection.withDocumentClass(Movie.class)).thenReturn(mockMovieCollection);
+        view = new MovieMaterializedView(mockDatabase);
+        view.load(List.of(
+                movie(titanic, "Titanic", 1997, List.of("Drama", "Romance"), 7.7),
+                movie(heat, "Heat", 1995, List.of("Action", "Crime", "Drama"), 8.2),
+                movie(up, "Up", 2009, List.of("Animation"), 8.3)));
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        view.close();
+        closeable.close();
+    }
+
+    private static Movie movie(ObjectId id, String title, Integer year, List<String> genres, Double rating) {
+        return new Movie(id, title, year, genres, 120, rating, 1000);
+    }
+
+    private static List<String> titles(List<Movie> movies) {
+        return movies.stream().map(Movie::title).toList();
+    }
+
+    @Test
+    @DisplayName("Should answer id, genre, year and rating queries from memory")
+    void testQueries() {
+        assertEquals("Titanic", view.findMovieById(titanic).title());
+        assertNull(view.findMovieById(new ObjectId()));
+        assertEquals(List.of("Titanic", "Heat"), titles(view.findMoviesByGenre("Drama", 10)));
+        assertEquals(1, view.findMoviesByGenre("Drama", 1).size());
+        assertEquals(List.of("Heat"), titles(view.findMoviesByYear(1995)));
+        assertEquals(List.of("Up", "Heat"), titles(view.findTopRated(null, 2)));
+        assertEquals(List.of("Heat", "Titanic"), titles(view.findTopRated("Drama", 5)));
+    }
+
+    @Test
+    @DisplayName("Should move a replaced movie between secondary indexes")
+    void testUpdateEvent() {
+        assertTrue(view.apply(OperationType.UPDATE, titanic,
+                movie(titanic, "Titanic", 1997, List.of("Romance"), 8.9)));
+
+        assertEquals(List.of("Heat"), titles(view.findMoviesByGenre("Drama", 10)));
+        assertEquals(List.of("Titanic", "Up"), titles(view.findTopRated(null, 2)));
+        assertEquals(3, view.size());
+        assertEquals(1, view.syncStats().eventsApplied());
+    }
+
+    @Test
+    @DisplayName("Should drop deleted movies from every index")
+    void testDeleteEvent() {
+        assertTrue(view.apply(OperationType.DELETE, heat, null));
+
+        assertNull(view.findMovieById(heat));
+        assertEquals(List.of(), view.findMoviesByYear(1995));
+        assertEquals(List.of("Titanic"), titles(view.findMoviesByGenre("Drama", 10)));
+        assertEquals(List.of(), view.findMoviesByGenre("Crime", 10));
+        assertEquals(2, view.memoryReport().movies());
+    }
+
+    @Test
+    @DisplayName("Should treat an update without a looked-up document as a delete")
+    void testUpdateOfDeletedMovie() {
+        assertTrue(view.apply(OperationType.UPDATE, up, null));
+        assertNull(view.findMovieById(up));
+    }
+
+    @Test
+    @DisplayName("Should ask for a full resync on invalidate, drop and rename")
+    void testInvalidate() {
+        assertFalse(view.apply(OperationType.INVALIDATE, null, null));
+        assertFalse(view.apply(OperationType.DROP, null, null));
+        assertFalse(view.apply(OperationType.RENAME, null, null));
+        assertEquals(3, view.size(), "contents are kept until the reload replaces them");
+    }
+
+    @Test
+    @DisplayName("Should keep the memory estimate consistent across upserts and deletes")
+    void testMemoryReport() {
+        MovieMaterializedView.MemoryReport before = view.memoryReport();
+        assertEquals(3, before.movies());
+        assertEquals(5, before.genres());
+        assertEquals(3, before.years());
+        assertTrue(before.estimatedBytes() > 0);
+
+        ObjectId extra = new ObjectId();
+        view.upsert(movie(extra, "Extra", 2001, List.of("Drama"), 5.0));
+        view.upsert(movie(extra, "Extra", 2001, List.of("Drama"), 6.0));
+        view.remove(extra);
+
+        assertEquals(before, view.memoryReport());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Should load the collection on start and follow the change stream")
+    void testStart() throws Exception {
+        ChangeStreamIterable<Movie> watch = mock(ChangeStreamIterable.class);
+        MongoChangeStreamCursor<ChangeStreamDocument<Movie>> cursor = mock(MongoChangeStreamCursor.class);
+        FindIterable<Movie> find = mock(FindIterable.class);
+        when(mockMovieCollection.watch()).thenReturn(watch);
+        when(watch.fullDocument(any())).thenReturn(watch);
+        when(watch.maxAwaitTime(anyLong(), any())).thenReturn(watch);
+        when(watch.cursor()).thenReturn(cursor);
+        when(cursor.getResumeToken()).thenReturn(BsonDocument.parse("{_data: '8263'}"));
+        when(cursor.tryNext()).thenReturn(null);
+        when(mockMovieCollection.find()).thenReturn(find);
+        when(find.projection(any())).thenReturn(find);
+        when(find.into(any())).thenAnswer(invocation -> {
+            List<Movie> target = invocation.getArgument(0);
+            target.add(movie(new ObjectId(), "Only", 2020, List.of("Drama"), 7.0));
+            return target;
+        });
+
+        MovieMaterializedView started = new MovieMaterializedView(mockDatabase);
+        started.start();
+        try {
+            assertEquals(1, started.size());
+            assertEquals(1, started.syncStats().fullResyncs());
+            assertTrue(started.syncStats().running());
+            assertThrows(IllegalStateException.class, started::start);
+        } finally {
+            started.close();
+        }
+        assertFalse(started.syncStats().running());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Should reload and count the failure when applying the stream throws a non-driver exception")
+    void testUnexpectedExceptionForcesResync() throws Exception {
+        ChangeStreamIterable<Movie> watch = mock(ChangeStreamIterable.class);
+        MongoChangeStreamCursor<ChangeStreamDocument<Movie>> cursor = mock(MongoChangeStreamCursor.class);
+        FindIterable<Movie> find = mock(FindIterable.class);
+        when(mockMovieCollection.watch()).thenReturn(watch);
+        when(watch.fullDocument(any())).thenReturn(watch);
+        when(watch.maxAwaitTime(anyLong(), any())).thenReturn(watch);
+        when(watch.cursor()).thenReturn(cursor);
+        when(cursor.getResumeToken()).thenReturn(BsonDocument.parse("{_data: '8263'}"));
+        int[] polls = new int[1];
+        when(cursor.tryNext()).thenAnswer(invocation -> {
+            if (polls[0]++ == 0) {
+                throw new IllegalStateException("codec not found");
+            }
+            return null;
+        });
+        when(mockMovieCollection.find()).thenReturn(find);
+        when(find.projection(any())).thenReturn(find);
+        when(find.into(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        MovieMaterializedView started = new MovieMaterializedView(mockDatabase);
+        started.start();
+        try {
+            for (int i = 0; i < 300 && started.syncStats().fullResyncs() < 2; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(1, started.syncStats().failures());
+            assertEquals(2, started.syncStats().fullResyncs());
+            assertEquals(0, started.syncStats().resumes());
+            assertTrue(started.syncStats().running());
+        } finally {
+            started.close();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Should start from a snapshot file and resume the stream from its token")
+    void testStartFromSnapshot() throws Exception {
+        ChangeStreamIterable<Movie> watch = mock(ChangeStreamIterable.class);
+        MongoChangeStreamCursor<ChangeStreamDocument<Movie>> cursor = mock(MongoChangeStreamCursor.class);
+        AtomicReference<BsonDocument> resumedAfter = new AtomicReference<>();
+        when(mockMovieCollection.watch()).thenReturn(watch);
+        when(watch.fullDocument(any())).thenReturn(watch);
+        when(watch.maxAwaitTime(anyLong(), any())).thenReturn(watch);
+        when(watch.resumeAfter(any())).thenAnswer(invocation -> {
+            resumedAfter.set(invocation.getArgument(0));
+            return watch;
+        });
+        when(watch.cursor()).thenReturn(cursor);
+        when(cursor.tryNext()).thenReturn(null);
+
+        Path directory = Files.createTempDirectory("movie-view");
+        Path file = directory.resolve("movies.snap");
+        ObjectId only = new ObjectId();
+        BsonDocument token = BsonDocument.parse("{_data: '8263'}");
+        MovieSnapshot.write(file, List.of(new RawBsonDocument(new Document("_id", only)
+                .append("title", "Only").append("year", 2020).append("genres", List.of("Drama")),
+                new DocumentCodec())), token);
+
+        MovieMaterializedView started = new MovieMaterializedView(mockDatabase);
+        try {
+            started.start(MovieSnapshot.open(file));
+            assertEquals("Only", started.findMovieById(only).title());
+            assertEquals(1, started.findMoviesByYear(2020).size());
+            for (int i = 0; i < 100 && resumedAfter.get() == null; i++) {
+                Thread.sleep(10);
+            }
+            assertEquals(token, resumedAfter.get());
+            assertEquals(0, started.syncStats().fullResyncs());
+        } finally {
+            started.close();
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    @DisplayName("Should answer from the snapshot file while filling the view, and the same once filled")
+    void testReadsWhileFillingFromSnapshot() throws Exception {
+        ChangeStreamIterable<Movie> watch = mock(ChangeStreamIterable.class);
+        MongoChangeStreamCursor<ChangeStreamDocument<Movie>> cursor = mock(MongoChangeStreamCursor.class);
+        when(mockMovieCollection.watch()).thenReturn(watch);
+        when(watch.fullDocument(any())).thenReturn(watch);
+        when(watch.maxAwaitTime(anyLong(), any())).thenReturn(watch);
+        when(watch.resumeAfter(any())).thenReturn(watch);
+        when(watch.cursor()).thenReturn(cursor);
+        when(cursor.tryNext()).thenReturn(null);
+
+        Path directory = Files.createTempDirectory("movie-view");
+        Path file = directory.resolve("movies.snap");
+        List<RawBsonDocument> documents = new ArrayList<>();
+        List<String> genres = List.of("Drama", "Comedy", "Action", "Horror");
+        ObjectId first = null;
+        for (int i = 0; i < 20_000; i++) {
+            ObjectId id = new ObjectId();
+            first = first == null ? id : first;
+            documents.add(new RawBsonDocument(new Document("_id", id).append("title", "Movie " + i)
+                    .append("year", 1950 + i % 70).append("genres", List.of(genres.get(i % 4)))
+                    .append("imdb", new Document("rating", (i % 90) / 10.0)), new DocumentCodec()));
+        }
+        MovieSnapshot.write(file, documents, BsonDocument.parse("{_data: '8263'}"));
+
+        MovieMaterializedView started = new MovieMaterializedView(mockDatabase);
+        try {
+            // start() returns before the view is filled; these are answered from the mapped file
+            started.start(MovieSnapshot.open(file));
+            assertEquals("Movie 0", started.findMovieById(first).title());
+            assertEquals(20_000, started.size());
+            List<Movie> comedies = started.findMoviesByGenre("Comedy", 10);
+            List<Movie> year = started.findMoviesByYear(1960);
+            List<Movie> topRated = started.findTopRated("Drama", 5);
+
+            for (int i = 0; i < 500 && started.syncStats().servingFromSnapshot(); i++) {
+                Thread.sleep(10);
+            }
+            assertFalse(started.syncStats().servingFromSnapshot());
+            assertEquals(20_000, started.memoryReport().movies());
+            assertEquals(comedies, started.findMoviesByGenre("Comedy", 10));
+            assertEquals(year, started.findMoviesByYear(1960));
+            assertEquals(topRated, started.findTopRated("Drama", 5));
+            assertEquals(10, comedies.size());
+            assertEquals(8.8, topRated.get(0).imdbRating());
+        } finally {
+            started.close();
+            Files.deleteIfExists(file);
+            Files.deleteIfExists(directory);
+        }
+    }
+}
@@ -0,0 +1,176 @@
+package com.example.app;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.MongoException;
+import com.mongodb.MongoOperationTimeoutException;
+import com.mongodb.RequestContext;
+import com.mongodb.ServerAddress;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.connection.ClusterId;
+import com.mongodb.connection.ConnectionDescription;
+import com.mongodb.connection.ServerId;
+import com.mongodb.event.CommandFailedEvent;
+import com.mongodb.event.CommandSucceededEvent;
+import org.bson.BsonDocument;
+import org.bson.BsonInt32;
+import org.bson.BsonString;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for RepositoryMetrics, CommandMetrics and their MovieMetrics/JMX view
+ */
+class MovieMetricsTest {
+
+    private static final ConnectionDescription CONNECTION =
+            new ConnectionDescription(new ServerId(new ClusterId(), new ServerAddress()));
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    private MovieMetrics metrics;
+    private MovieRepository movieRepository;
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        when(mockCollection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(mockCollection.withCodecRegistry(any())).thenReturn(mockCollection);
+        metrics = new MovieMetrics();
+        movieRepository = new MovieRepository(mockDatabase, metrics.repositoryMetrics());
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    @DisplayName("Should record a latency sample per call and count failed calls as errors")
+    void testRepositoryOperations() {
+        when(mockCollection.countDocuments()).thenReturn(21349L);
+        when(mockCollection.countDocuments(any(Bson.class))).thenThrow(new MongoException("timed out"));
+
+        movieRepository.countMovies();
+        movieRepository.countMovies();
+        assertThrows(MongoException.class, () -> movieRepository.countMoviesByYear(2010));
+
+        Map<String, RepositoryMetrics.OperationSnapshot> operations = metrics.report().operations();
+        assertEquals(2, operations.get("countMovies").latency().count());
+        assertEquals(0, operations.get("countMovies").errors());
+        assertEquals(1, operations.get("countMoviesByYear").latency().count());
+        assertEquals(1, operations.get("countMoviesByYear").errors());
+        assertFalse(operations.containsKey("findMovieById"), "operations never called are left out");
+    }
+
+    @Test
+    @DisplayName("Should count calls that ran out of time separately from other errors")
+    void testTimeoutsCounted() {
+        when(mockCollection.countDocuments()).thenThrow(new MongoOperationTimeoutException("budget spent"));
+        when(mockCollection.countDocuments(any(Bson.class))).thenThrow(new MongoException("duplicate key"));
+
+        assertThrows(MongoOperationTimeoutException.class, () -> movieRepository.countMovies());
+        assertThrows(MongoException.class, () -> movieRepository.countMoviesByYear(2010));
+        metrics.repositoryMetrics().recordHedge(RepositoryMetrics.Operation.COUNT_MOVIES, true);
+
+        Map<String, RepositoryMetrics.OperationSnapshot> operations = metrics.report().operations();
+        assertEquals(1, operations.get("countMovies").timeouts());
+        assertEquals(1.0, operations.get("countMovies").timeoutRate());
+        assertEquals(1, operations.get("countMovies").hedgeWins());
+        assertEquals(1, operations.get("countMoviesByYear").errors());
+        assertEquals(0, operations.get("countMoviesByYear").timeouts());
+        assertEquals(1L, metrics.getOperations().get("countMovies.timeouts"));
+    }
+
+    @Test
+    @DisplayName("Should record command durations, failures and reply sizes per command name")
+    void testCommandListener() {
+        metrics = new MovieMetrics(new RepositoryMetrics(), new CommandMetrics(1));
+        CommandMetrics commands = metrics.commandMetrics();
+        BsonDocument reply = new BsonDocument("ok", new BsonInt32(1)).append("note", new BsonString("x".repeat(100)));
+        commands.commandSucceeded(succeeded("find", reply, 2));
+        commands.commandSucceeded(succeeded("find", reply, 4));
+        commands.commandFailed(new CommandFailedEvent(null, 1, 3, CONNECTION, "sample_mflix", "insert",
+                TimeUnit.MILLISECONDS.toNanos(1), new MongoException("duplicate key")));
+
+        CommandMetrics.CommandSnapshot find = metrics.report().commands().get("find");
+        long replySize = CommandMetrics.replySize(reply);
+        assertEquals(2, find.duration().count());
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(4), find.duration().max());
+        assertEquals(2, find.replySamples());
+        assertEquals(2 * replySize, find.replyBytes());
+        assertEquals(replySize, find.maxReplyBytes());
+        assertEquals(replySize, find.meanReplyBytes(), 0.001);
+        assertEquals(1, metrics.report().commands().get("insert").failures());
+    }
+
+    @Test
+    @DisplayName("Should measure no reply sizes by default, and every n-th reply per command when sampled")
+    void testReplySampling() {
+        BsonDocument reply = new BsonDocument("ok", new BsonInt32(1));
+        metrics.commandMetrics().commandSucceeded(succeeded("find", reply, 1));
+        CommandMetrics.CommandSnapshot unmeasured = metrics.report().commands().get("find");
+        assertEquals(1, unmeasured.duration().count());
+        assertEquals(0, unmeasured.replySamples());
+        assertEquals(0, unmeasured.meanReplyBytes());
+
+        CommandMetrics sampled = new CommandMetrics(3);
+        for (int i = 0; i < 7; i++) {
+            sampled.commandSucceeded(succeeded("find", reply, 1));
+        }
+        sampled.commandSucceeded(succeeded("getMore", reply, 1));
+        assertEquals(3, sampled.snapshot().get("find").replySamples());
+        assertEquals(3 * 13, sampled.snapshot().get("find").replyBytes());
+        assertEquals(13, sampled.snapshot().get("find").meanReplyBytes(), 0.001);
+        assertEquals(1, sampled.snapshot().get("getMore").replySamples());
+        assertThrows(IllegalArgumentException.class, () -> new CommandMetrics(-1));
+    }
+
+    @Test
+    @DisplayName("Should measure reply sizes as their encoded BSON length")
+    void testReplySize() {
+        BsonDocument reply = new BsonDocument("ok", new BsonInt32(1));
+        // int32 document: 4 length + (1 type + "ok\0" + 4 value) + 1 terminator
+        assertEquals(13, CommandMetrics.replySize(reply));
+    }
+
+    @Test
+    @DisplayName("Should flatten both sides into JMX attributes and publish reports to a sink")
+    void testJmxViewAndSink() {
+        when(mockCollection.countDocuments()).thenReturn(1L);
+        movieRepository.countMovies();
+        metrics.commandMetrics().commandSucceeded(succeeded("count", new BsonDocument("n", new BsonInt32(1)), 1));
+
+        Map<String, Long> operations = metrics.getOperations();
+        assertEquals(1L, operations.get("countMovies.count"));
+        assertEquals(0L, operations.get("countMovies.errors"));
+        assertTrue(operations.containsKey("countMovies.p99Nanos"));
+        assertEquals(TimeUnit.MILLISECONDS.toNanos(1), metrics.getCommands().get("count.maxNanos"));
+
+        MovieMetrics.Report[] published = new MovieMetrics.Report[1];
+        metrics.publishTo(report -> published[0] = report);
+        assertEquals(1, published[0].operations().get("countMovies").latency().count());
+    }
+
+    private static CommandSucceededEvent succeeded(String command, BsonDocument reply, long millis) {
+        return new CommandSucceededEvent((RequestContext) null, 1, 2, CONNECTION, "sample_mflix", command, reply,
+                TimeUnit.MILLISECONDS.toNanos(millis));
+    }
+}
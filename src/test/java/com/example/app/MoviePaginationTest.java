@@ -0,0 +1,227 @@
+package com.example.app;
+
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoDatabase;
+import org.bson.BsonArray;
+import org.bson.BsonDocument;
+import org.bson.BsonValue;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Walks whole listings page by page through MovieRepository's keyset pagination.
+ * The mocked collection evaluates the filter, sort and limit the repository sends against
+ * an in-memory dataset, so every page goes through the real query construction.
+ */
+class MoviePaginationTest {
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    private MovieRepository movieRepository;
+    private AutoCloseable closeable;
+    private final List<Document> movies = new ArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        when(mockCollection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(mockCollection.withCodecRegistry(any())).thenReturn(mockCollection);
+        when(mockCollection.find(any(Bson.class))).thenAnswer(invocation -> evaluating(invocation.getArgument(0)));
+        movieRepository = new MovieRepository(mockDatabase);
+
+        // Few distinct years so many movies share a year and the _id tie-break matters
+        Random random = new Random(3);
+        List<String> genres = List.of("Drama", "Action", "Comedy");
+        for (int i = 0; i < 137; i++) {
+            Object year = i % 23 == 0 ? "1999è" : 1990 + random.nextInt(6);
+            movies.add(new Document("_id", new ObjectId())
+                    .append("title", "Movie " + i)
+                    .append("year", year)
+                    .append("genres", List.of(genres.get(random.nextInt(genres.size())), "Drama")));
+        }
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    @DisplayName("Should visit every movie exactly once in _id order")
+    void testWalkAllMovies() {
+        List<Object> visited = new ArrayList<>();
+        String token = null;
+        int pages = 0;
+        do {
+            MoviePage page = movieRepository.getMoviesPage(10, token);
+            assertTrue(page.movies().size() <= 10);
+            page.movies().forEach(movie -> visited.add(movie.get("_id")));
+            token = page.nextPageToken();
+            pages++;
+        } while (token != null);
+
+        List<Object> expected = movies.stream()
+                .map(movie -> (Object) movie.getObjectId("_id"))
+                .sorted(Comparator.comparing(id -> (ObjectId) id))
+                .toList();
+        assertEquals(expected, visited);
+        assertEquals(14, pages);
+    }
+
+    @Test
+    @DisplayName("Should visit every numeric-year movie of a genre exactly once in (year, _id) order")
+    void testWalkGenreByYear() {
+        List<Document> visited = new ArrayList<>();
+        String token = null;
+        do {
+            MoviePage page = movieRepository.findMoviesByGenrePage("Action", 7, token);
+            visited.addAll(page.movies());
+            token = page.nextPageToken();
+        } while (token != null);
+
+        Set<Object> distinct = new HashSet<>();
+        visited.forEach(movie -> assertTrue(distinct.add(movie.get("_id")), "duplicate " + movie.get("_id")));
+
+        List<Document> expected = movies.stream()
+                .filter(movie -> movie.get("year") instanceof Integer)
+                .filter(movie -> movie.getList("genres", String.class).contains("Action"))
+                .sorted(Comparator.comparing((Document movie) -> movie.getInteger("year"))
+                        .thenComparing(movie -> movie.getObjectId("_id")))
+                .toList();
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    @DisplayName("Should end with a null token when the last page is exactly full")
+    void testExactLastPage() {
+        MoviePage page = movieRepository.getMoviesPage(movies.size(), null);
+
+        assertEquals(movies.size(), page.movies().size());
+        assertFalse(page.hasNextPage());
+    }
+
+    @Test
+    @DisplayName("Should reject a malformed page token")
+    void testInvalidToken() {
+        assertThrows(IllegalArgumentException.class, () -> movieRepository.getMoviesPage(10, "not-a-token"));
+    }
+
+    /**
+     * A FindIterable that applies the captured filter, sort and limit to the in-memory movies on into()
+     */
+    @SuppressWarnings("unchecked")
+    private FindIterable<Document> evaluating(Bson filter) {
+        FindIterable<Document> iterable = mock(FindIterable.class);
+        BsonDocument[] sort = {new BsonDocument()};
+        int[] limit = {0};
+        when(iterable.sort(any())).thenAnswer(invocation -> {
+            sort[0] = invocation.<Bson>getArgument(0).toBsonDocument();
+            return iterable;
+        });
+        when(iterable.limit(anyInt())).thenAnswer(invocation -> {
+            limit[0] = invocation.getArgument(0);
+            return iterable;
+        });
+        when(iterable.into(any())).thenAnswer(invocation -> {
+            List<Document> target = invocation.getArgument(0);
+            BsonDocument query = filter.toBsonDocument();
+            movies.stream()
+                    .filter(movie -> matches(movie.toBsonDocument(), query))
+                    .sorted((a, b) -> compareBySort(a.toBsonDocument(), b.toBsonDocument(), sort[0]))
+                    .limit(limit[0] == 0 ? Long.MAX_VALUE : limit[0])
+                    .forEach(target::add);
+            return target;
+        });
+        return iterable;
+    }
+
+    private static boolean matches(BsonDocument movie, BsonDocument query) {
+        for (Map.Entry<String, BsonValue> clause : query.entrySet()) {
+            String key = clause.getKey();
+            BsonValue condition = clause.getValue();
+            boolean ok;
+            if (key.equals("$and")) {
+                ok = condition.asArray().stream().allMatch(part -> matches(movie, part.asDocument()));
+            } else if (key.equals("$or")) {
+                ok = condition.asArray().stream().anyMatch(part -> matches(movie, part.asDocument()));
+            } else if (condition.isDocument() && condition.asDocument().keySet().stream().allMatch(k -> k.startsWith("$"))) {
+                ok = condition.asDocument().entrySet().stream()
+                        .allMatch(op -> matchesOperator(movie.get(key), op.getKey(), op.getValue()));
+            } else {
+                ok = matchesOperator(movie.get(key), "$eq", condition);
+            }
+            if (!ok) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matchesOperator(BsonValue value, String operator, BsonValue operand) {
+        if (value == null) {
+            return false;
+        }
+        return switch (operator) {
+            case "$eq" -> value.isArray() ? value.asArray().contains(operand) : compare(value, operand) == 0;
+            case "$gt" -> sameTypeBracket(value, operand) && compare(value, operand) > 0;
+            case "$in" -> {
+                BsonArray candidates = operand.asArray();
+                yield value.isArray()
+                        ? value.asArray().stream().anyMatch(candidates::contains)
+                        : candidates.contains(value);
+            }
+            case "$type" -> operand.asString().getValue().equals("number") && value.isNumber();
+            default -> throw new AssertionError("Unsupported operator " + operator);
+        };
+    }
+
+    private static boolean sameTypeBracket(BsonValue a, BsonValue b) {
+        return (a.isNumber() && b.isNumber()) || a.getBsonType() == b.getBsonType();
+    }
+
+    private static int compare(BsonValue a, BsonValue b) {
+        if (a.isNumber() && b.isNumber()) {
+            return Double.compare(a.asNumber().doubleValue(), b.asNumber().doubleValue());
+        }
+        if (a.isObjectId() && b.isObjectId()) {
+            return a.asObjectId().getValue().compareTo(b.asObjectId().getValue());
+        }
+        return a.equals(b) ? 0 : a.toString().compareTo(b.toString());
+    }
+
+    private static int compareBySort(BsonDocument a, BsonDocument b, BsonDocument sort) {
+        for (Map.Entry<String, BsonValue> key : sort.entrySet()) {
+            int result = compare(a.get(key.getKey()), b.get(key.getKey())) * key.getValue().asNumber().intValue();
+            if (result != 0) {
+                return result;
+            }
+        }
+        return 0;
+    }
+}
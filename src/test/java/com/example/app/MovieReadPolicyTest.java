@@ -0,0 +1,59 @@
+package com.example.app;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MovieReadPolicy
+ */
+class MovieReadPolicyTest {
+
+    @Test
+    @DisplayName("Should default to no timeout and no hedging")
+    void testDefaults() {
+        MovieReadPolicy policy = MovieReadPolicy.defaults();
+
+        assertFalse(policy.hasTimeout());
+        assertFalse(policy.hedgeEnabled());
+        assertEquals(95, policy.hedgePercentile());
+        assertEquals(Duration.ofMillis(10), policy.hedgeMinDelay());
+    }
+
+    @Test
+    @DisplayName("Should read every app.read key")
+    void testFromProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("app.read.timeoutMs", "250");
+        properties.setProperty("app.read.hedge.enabled", "true");
+        properties.setProperty("app.read.hedge.percentile", "90");
+        properties.setProperty("app.read.hedge.minDelayMs", "3");
+
+        MovieReadPolicy policy = MovieReadPolicy.from(properties);
+
+        assertEquals(new MovieReadPolicy(Duration.ofMillis(250), true, 90, Duration.ofMillis(3)), policy);
+        assertTrue(policy.hasTimeout());
+    }
+
+    @Test
+    @DisplayName("Should reject invalid values naming the key")
+    void testInvalidValues() {
+        Properties percentile = new Properties();
+        percentile.setProperty("app.read.hedge.percentile", "100");
+        Properties timeout = new Properties();
+        timeout.setProperty("app.read.timeoutMs", "-5");
+        Properties enabled = new Properties();
+        enabled.setProperty("app.read.hedge.enabled", "yes");
+
+        assertTrue(assertThrows(IllegalArgumentException.class, () -> MovieReadPolicy.from(percentile))
+                .getMessage().contains("app.read.hedge.percentile"));
+        assertTrue(assertThrows(IllegalArgumentException.class, () -> MovieReadPolicy.from(timeout))
+                .getMessage().contains("app.read.timeoutMs"));
+        assertTrue(assertThrows(IllegalArgumentException.class, () -> MovieReadPolicy.from(enabled))
+                .getMessage().contains("app.read.hedge.enabled"));
+    }
+}
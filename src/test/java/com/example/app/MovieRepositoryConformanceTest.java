@@ -0,0 +1,35 @@
+package com.example.app;
+
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import com.mongodb.client.MongoDatabase;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assumptions;
+
+/**
+ * The MovieStore conformance suite against a real server. Skipped unless a disposable
+ * deployment is given: mvn test -Dtest.mongo.uri=mongodb://localhost:27017
+ * (its mflix_conformance database is dropped before every test).
+ */
+class MovieRepositoryConformanceTest extends MovieStoreConformanceTest {
+
+    private static final String URI = System.getProperty("test.mongo.uri");
+
+    private MongoClient client;
+
+    @Override
+    protected MovieStore createStore() {
+        Assumptions.assumeTrue(URI != null && !URI.isBlank(), "test.mongo.uri not set");
+        client = MongoClients.create(URI);
+        MongoDatabase database = client.getDatabase("mflix_conformance");
+        database.drop();
+        return new MovieRepository(database);
+    }
+
+    @AfterEach
+    void closeClient() {
+        if (client != null) {
+            client.close();
+        }
+    }
+}
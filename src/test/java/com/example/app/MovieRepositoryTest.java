@@ -1,17 +1,35 @@
 package com.example.app;
 
+import com.mongodb.MongoClientSettings;
+import com.mongodb.client.FindIterable;
 import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
 import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import org.bson.BsonDocument;
 import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
 import org.bson.types.ObjectId;
 import org.junit.jupiter.api.*;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 /**
@@ -27,6 +45,18 @@ class MovieRepositoryTest {
     @Mock
     private MongoCollection<Document> mockCollection;
 
+    @Mock
+    private MongoCollection<Movie> mockMovieCollection;
+
+    @Mock
+    private MongoCollection<RawBsonDocument> mockRawCollection;
+
+    @Mock
+    private FindIterable<Document> mockFindIterable;
+
+    @Mock
+    private MongoCursor<Document> mockCursor;
+
     private MovieRepository movieRepository;
     private AutoCloseable closeable;
 
@@ -34,6 +64,10 @@ class MovieRepositoryTest {
     void setUp() {
         closeable = MockitoAnnotations.openMocks(this);
         when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        when(mockCollection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(mockCollection.withCodecRegistry(any())).thenReturn(mockCollection);
+        when(mockCollection.withDocumentClass(Movie.class)).thenReturn(mockMovieCollection);
+        when(mockCollection.withDocumentClass(RawBsonDocument.class)).thenReturn(mockRawCollection);
         movieRepository = new MovieRepository(mockDatabase);
     }
 
@@ -175,4 +209,141 @@ class MovieRepositoryTest {
         assertTrue(retrievedGenres.contains("Thriller"));
         assertFalse(retrievedGenres.contains("Comedy"));
     }
+
+    @Test
+    @DisplayName("Should stream movies lazily from the cursor and close it")
+    void testStreamMoviesByYear() {
+        Document first = new Document("title", "First Movie").append("year", 2010);
+        Document second = new Document("title", "Second Movie").append("year", 2010);
+        when(mockCollection.find(any(Bson.class))).thenReturn(mockFindIterable);
+        when(mockFindIterable.batchSize(anyInt())).thenReturn(mockFindIterable);
+        when(mockFindIterable.cursor()).thenReturn(mockCursor);
+        when(mockCursor.hasNext()).thenReturn(true, true, false);
+        when(mockCursor.next()).thenReturn(first, second);
+
+        try (Stream<Document> movies = movieRepository.streamMoviesByYear(2010, 50)) {
+            Iterator<Document> iterator = movies.iterator();
+            assertEquals("First Movie", iterator.next().getString("title"));
+            verify(mockCursor, never()).close();
+            assertEquals("Second Movie", iterator.next().getString("title"));
+            assertFalse(iterator.hasNext());
+        }
+
+        verify(mockFindIterable).batchSize(50);
+        verify(mockCursor).close();
+    }
+
+    @Test
+    @DisplayName("Should return the raw document from the raw collection without decoding it")
+    @SuppressWarnings("unchecked")
+    void testFindRawMovieById() {
+        ObjectId id = new ObjectId();
+        RawBsonDocument raw = RawBsonDocument.parse(new Document("_id", id).append("title", "Raw Movie").toJson());
+        FindIterable<RawBsonDocument> rawIterable = mock(FindIterable.class);
+        when(mockRawCollection.find(any(Bson.class))).thenReturn(rawIterable);
+        when(rawIterable.first()).thenReturn(raw);
+
+        RawBsonDocument found = movieRepository.findRawMovieById(id);
+
+        assertSame(raw, found);
+        assertEquals("Raw Movie", found.getString("title").getValue());
+        verify(mockCollection, never()).find(any(Bson.class));
+        assertEquals(1, movieRepository.getMetrics().snapshot().get("findMovieById").latency().count());
+    }
+
+    @Test
+    @DisplayName("Should fetch several movies with one $in query and key them by _id")
+    void testFindMoviesByIds() {
+        ObjectId first = new ObjectId();
+        ObjectId second = new ObjectId();
+        ObjectId missing = new ObjectId();
+        when(mockCollection.find(any(Bson.class))).thenReturn(mockFindIterable);
+        when(mockFindIterable.batchSize(anyInt())).thenReturn(mockFindIterable);
+        when(mockFindIterable.into(any())).thenAnswer(invocation -> {
+            List<Document> target = invocation.getArgument(0);
+            target.add(new Document("_id", first).append("title", "First"));
+            target.add(new Document("_id", second).append("title", "Second"));
+            return target;
+        });
+
+        Map<ObjectId, Document> movies = movieRepository.findMoviesByIds(List.of(first, second, missing, first));
+
+        assertEquals(2, movies.size());
+        assertEquals("Second", movies.get(second).getString("title"));
+        verify(mockCollection).find(Filters.in("_id", new LinkedHashSet<>(List.of(first, second, missing))));
+        verify(mockFindIterable).batchSize(3);
+    }
+
+    @Test
+    @DisplayName("Should not query for an empty ID list")
+    void testFindMoviesByIdsEmpty() {
+        assertTrue(movieRepository.findMoviesByIds(List.of()).isEmpty());
+        verify(mockCollection, never()).find(any(Bson.class));
+    }
+
+    @Test
+    @DisplayName("Should read through a collection with the time budget applied")
+    @SuppressWarnings("unchecked")
+    void testWithTimeout() {
+        ObjectId id = new ObjectId();
+        MongoCollection<Document> timedCollection = mock(MongoCollection.class);
+        when(mockCollection.withTimeout(250, TimeUnit.MILLISECONDS)).thenReturn(timedCollection);
+        when(timedCollection.getCodecRegistry()).thenReturn(MongoClientSettings.getDefaultCodecRegistry());
+        when(timedCollection.withCodecRegistry(any())).thenReturn(timedCollection);
+        when(timedCollection.find(any(Bson.class))).thenReturn(mockFindIterable);
+        when(mockFindIterable.first()).thenReturn(new Document("_id", id));
+
+        MovieRepository timed = movieRepository.withTimeout(Duration.ofMillis(250));
+
+        assertEquals(id, timed.findMovieById(id).getObjectId("_id"));
+        verify(mockCollection, never()).find(any(Bson.class));
+        assertSame(movieRepository.getMetrics(), timed.getMetrics());
+        assertThrows(IllegalArgumentException.class, () -> movieRepository.withTimeout(Duration.ofMillis(-1)));
+    }
+
+    @Test
+    @DisplayName("Should reject a non-positive batch size")
+    void testStreamRejectsInvalidBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> movieRepository.streamMoviesByYear(2010, 0));
+    }
+
+    @Test
+    @DisplayName("Should project only the requested fields")
+    void testProjectionForRequestedFields() {
+        assertEquals(BsonDocument.parse("{title: 1, year: 1, _id: 0}"),
+                MovieFields.projection(MovieFields.TITLE, MovieFields.YEAR).toBsonDocument());
+        assertEquals(BsonDocument.parse("{_id: 1, 'imdb.rating': 1}"),
+                MovieFields.projection(MovieFields.ID, MovieFields.IMDB_RATING).toBsonDocument());
+        // an empty projection would return whole documents
+        assertEquals(BsonDocument.parse("{_id: 1}"), MovieFields.projection(MovieFields.ID).toBsonDocument());
+    }
+
+    @Test
+    @DisplayName("Should build an anchored prefix filter on the normalized title")
+    void testPrefixTitleFilter() {
+        BsonDocument filter = MovieRepository.titleFilter("The (Matrix", TitleSearchMode.PREFIX).toBsonDocument();
+
+        assertEquals("^the \\(matrix",
+                filter.getRegularExpression(MovieRepository.NORMALIZED_TITLE_FIELD).getPattern());
+    }
+
+    @Test
+    @DisplayName("Should keep the unanchored case-insensitive regex as fallback")
+    void testRegexTitleFilter() {
+        BsonDocument filter = MovieRepository.titleFilter("Titanic", TitleSearchMode.REGEX).toBsonDocument();
+
+        assertEquals("Titanic", filter.getRegularExpression("title").getPattern());
+        assertEquals("i", filter.getRegularExpression("title").getOptions());
+    }
+
+    @Test
+    @DisplayName("Should store the normalized title when creating a movie")
+    void testCreateMovieAddsNormalizedTitle() {
+        Document movie = new Document("title", "Amélie GOES West");
+
+        movieRepository.createMovie(movie);
+
+        verify(mockCollection).insertOne(movie);
+        assertEquals("amélie goes west", movie.getString(MovieRepository.NORMALIZED_TITLE_FIELD));
+    }
 }
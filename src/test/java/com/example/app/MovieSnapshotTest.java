@@ -0,0 +1,167 @@
+package com.example.app;
+
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.DocumentCodec;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MovieSnapshot
+ */
+class MovieSnapshotTest {
+
+    private Path directory;
+    private Path file;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        directory = Files.createTempDirectory("movie-snapshot");
+        file = directory.resolve("movies.snap");
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.toList()) {
+                Files.delete(path);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    private static RawBsonDocument raw(ObjectId id, String title, int year) {
+        return new RawBsonDocument(new Document("_id", id)
+                .append("title", title)
+                .append("year", year)
+                .append("genres", List.of("Drama"))
+                .append("plot", "A plot that Movie does not decode.")
+                .append("imdb", new Document("rating", 7.5).append("votes", 1200)), new DocumentCodec());
+    }
+
+    @Test
+    @DisplayName("Should find every movie by _id from the mapped file, and nothing else")
+    void testRoundTrip() throws IOException {
+        List<RawBsonDocument> movies = new ArrayList<>();
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            ObjectId id = new ObjectId();
+            ids.add(id);
+            movies.add(raw(id, "Movie " + i, 1950 + i % 70));
+        }
+        // written in an order unrelated to _id order
+        List<RawBsonDocument> shuffled = new ArrayList<>(movies);
+        Collections.shuffle(shuffled, new Random(3));
+        MovieSnapshot.write(file, shuffled, null);
+
+        MovieSnapshot snapshot = MovieSnapshot.open(file);
+        assertEquals(500, snapshot.size());
+        assertNull(snapshot.resumeToken());
+        for (int i = 0; i < ids.size(); i++) {
+            Movie movie = snapshot.findMovieById(ids.get(i));
+            assertEquals("Movie " + i, movie.title());
+            assertEquals(1950 + i % 70, movie.year());
+            assertEquals(7.5, movie.imdbRating());
+            assertEquals(1200, movie.imdbVotes());
+        }
+        assertNull(snapshot.findMovieById(new ObjectId()));
+        assertNull(snapshot.findMovieById(null));
+        assertNull(snapshot.findRawById(new ObjectId()));
+
+        RawBsonDocument stored = snapshot.findRawById(ids.get(7));
+        assertEquals(movies.get(7), stored);
+        assertEquals("A plot that Movie does not decode.", stored.getString("plot").getValue());
+
+        List<ObjectId> iterated = new ArrayList<>();
+        for (Movie movie : snapshot.movies()) {
+            iterated.add(movie.id());
+        }
+        assertEquals(ids.stream().sorted().toList(), iterated);
+    }
+
+    @Test
+    @DisplayName("Should keep the resume token and creation time")
+    void testResumeToken() throws IOException {
+        BsonDocument token = BsonDocument.parse("{_data: '826541A2B3000000012B022C0100296E5A1004'}");
+        long before = System.currentTimeMillis();
+        MovieSnapshot.write(file, List.of(raw(new ObjectId(), "Heat", 1995)), token);
+
+        MovieSnapshot snapshot = MovieSnapshot.open(file);
+        assertEquals(token, snapshot.resumeToken());
+        assertTrue(snapshot.createdAt().toEpochMilli() >= before);
+        assertEquals(1, snapshot.size());
+    }
+
+    @Test
+    @DisplayName("Should write an empty collection")
+    void testEmpty() throws IOException {
+        MovieSnapshot.write(file, List.of(), null);
+
+        MovieSnapshot snapshot = MovieSnapshot.open(file);
+        assertEquals(0, snapshot.size());
+        assertNull(snapshot.findMovieById(new ObjectId()));
+        assertFalse(snapshot.movies().iterator().hasNext());
+    }
+
+    @Test
+    @DisplayName("Should replace the file atomically and leave the old one intact on failure")
+    void testAtomicReplace() throws IOException {
+        ObjectId heat = new ObjectId();
+        MovieSnapshot.write(file, List.of(raw(heat, "Heat", 1995)), null);
+        MovieSnapshot old = MovieSnapshot.open(file);
+
+        ObjectId duplicate = new ObjectId();
+        assertThrows(IllegalArgumentException.class, () -> MovieSnapshot.write(file,
+                List.of(raw(duplicate, "Up", 2009), raw(duplicate, "Up again", 2009)), null));
+        RawBsonDocument stringId = new RawBsonDocument(new Document("_id", "tt0113277"), new DocumentCodec());
+        assertThrows(IllegalArgumentException.class, () -> MovieSnapshot.write(file, List.of(stringId), null));
+        assertEquals("Heat", MovieSnapshot.open(file).findMovieById(heat).title());
+
+        ObjectId up = new ObjectId();
+        MovieSnapshot.write(file, List.of(raw(up, "Up", 2009)), null);
+        assertEquals("Up", MovieSnapshot.open(file).findMovieById(up).title());
+        assertNull(MovieSnapshot.open(file).findMovieById(heat));
+        // a mapping of the replaced file keeps reading the old contents
+        assertEquals("Heat", old.findMovieById(heat).title());
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(List.of(file), files.toList());
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject files that are not snapshots, truncated or from another version")
+    void testCorruptFiles() throws IOException {
+        Files.writeString(file, "not a snapshot, just some text long enough for a header");
+        assertThrows(IOException.class, () -> MovieSnapshot.open(file));
+
+        Files.write(file, new byte[10]);
+        assertThrows(IOException.class, () -> MovieSnapshot.open(file));
+
+        MovieSnapshot.write(file, List.of(raw(new ObjectId(), "Heat", 1995)), null);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> MovieSnapshot.open(file));
+
+        ByteBuffer header = ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        header.putInt(8, 99);
+        Files.write(file, bytes, StandardOpenOption.TRUNCATE_EXISTING);
+        IOException version = assertThrows(IOException.class, () -> MovieSnapshot.open(file));
+        assertTrue(version.getMessage().contains("99"));
+    }
+}
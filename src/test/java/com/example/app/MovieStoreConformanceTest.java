@@ -0,0 +1,271 @@
+package com.example.app;
+
+import com.mongodb.ErrorCategory;
+import com.mongodb.MongoWriteException;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Behaviour every MovieStore must share. Subclasses supply an empty store; each test seeds
+ * the movies it needs through createMovie, so the same assertions run against MongoDB and
+ * against the in-memory engine.
+ */
+abstract class MovieStoreConformanceTest {
+
+    protected MovieStore store;
+
+    /**
+     * A store holding no movies
+     */
+    protected abstract MovieStore createStore();
+
+    @BeforeEach
+    void setUpStore() {
+        store = createStore();
+    }
+
+    private ObjectId movie(String title, Object year, String... genres) {
+        return store.createMovie(new Document("title", title)
+                .append("year", year)
+                .append("genres", List.of(genres))
+                .append("imdb", new Document("rating", 7.0).append("votes", 100)));
+    }
+
+    private static Set<String> titles(List<Document> movies) {
+        return movies.stream().map(movie -> movie.getString("title")).collect(Collectors.toSet());
+    }
+
+    @Test
+    @DisplayName("Should assign an _id and the normalized title on create and return the stored movie")
+    void testCreateAndFind() {
+        Document movie = new Document("title", "The Matrix").append("year", 1999);
+
+        ObjectId id = store.createMovie(movie);
+
+        assertEquals(id, movie.getObjectId("_id"));
+        assertEquals("the matrix", movie.getString(MovieRepository.NORMALIZED_TITLE_FIELD));
+        Document found = store.findMovieById(id);
+        assertEquals("The Matrix", found.getString("title"));
+        assertEquals("the matrix", found.getString(MovieRepository.NORMALIZED_TITLE_FIELD));
+        assertNull(store.findMovieById(new ObjectId()));
+    }
+
+    @Test
+    @DisplayName("Should hand out copies that do not change the stored movie")
+    void testReturnedDocumentsAreCopies() {
+        ObjectId id = movie("Heat", 1995, "Crime");
+
+        Document found = store.findMovieById(id);
+        found.put("title", "Changed");
+        found.getList("genres", String.class).add("Drama");
+
+        Document again = store.findMovieById(id);
+        assertEquals("Heat", again.getString("title"));
+        assertEquals(List.of("Crime"), again.getList("genres", String.class));
+    }
+
+    @Test
+    @DisplayName("Should reject a duplicate _id as a duplicate-key write error")
+    void testDuplicateId() {
+        ObjectId id = movie("Alien", 1979, "Horror");
+
+        MongoWriteException error = assertThrows(MongoWriteException.class,
+                () -> store.createMovie(new Document("_id", id).append("title", "Aliens")));
+
+        assertEquals(ErrorCategory.DUPLICATE_KEY, ErrorCategory.fromErrorCode(error.getError().getCode()));
+        assertEquals("Alien", store.findMovieById(id).getString("title"));
+    }
+
+    @Test
+    @DisplayName("Should match titles with a case-insensitive unanchored regex")
+    void testTitleRegex() {
+        movie("The Dark Knight", 2008, "Action");
+        movie("Dark City", 1998, "Sci-Fi");
+        movie("Knightfall", 2001, "Drama");
+        movie("Brightness", 2012, "Drama");
+
+        assertEquals(Set.of("The Dark Knight", "Dark City"), titles(store.findMoviesByTitle("dark")));
+        assertEquals(Set.of("Dark City"), titles(store.findMoviesByTitle("^dark")));
+        assertEquals(Set.of("The Dark Knight", "Knightfall"), titles(store.findMoviesByTitle("KNIGHT")));
+        assertEquals(Set.of("Dark City"), titles(store.findMoviesByTitle("dark", TitleSearchMode.PREFIX)));
+        assertTrue(store.findMoviesByTitle("nothing like this").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should match years numerically and ignore non-numeric years")
+    void testYearMatching() {
+        movie("Int Year", 2010, "Drama");
+        movie("Double Year", 2010.0, "Drama");
+        movie("Other Year", 2011, "Drama");
+        movie("String Year", "2010è", "Drama");
+
+        assertEquals(Set.of("Int Year", "Double Year"), titles(store.findMoviesByYear(2010)));
+        assertEquals(2, store.countMoviesByYear(2010));
+        assertEquals(0, store.countMoviesByYear(1900));
+        assertEquals(4, store.countMovies());
+        try (Stream<Document> movies = store.streamMoviesByYear(2010, 1)) {
+            assertEquals(Set.of("Int Year", "Double Year"), titles(movies.toList()));
+        }
+    }
+
+    @Test
+    @DisplayName("Should return at most 10 movies of a genre")
+    void testGenreLimit() {
+        for (int i = 0; i < 12; i++) {
+            movie("Drama " + i, 2000 + i, "Drama", i % 2 == 0 ? "Comedy" : "Romance");
+        }
+        movie("Western", 1960, "Western");
+
+        List<Document> dramas = store.findMoviesByGenre("Drama");
+        assertEquals(10, dramas.size());
+        assertTrue(dramas.stream().allMatch(movie -> movie.getList("genres", String.class).contains("Drama")));
+        assertEquals(6, store.findMoviesByGenre("Comedy").size());
+        assertEquals(Set.of("Western"), titles(store.findMoviesByGenre("Western")));
+        assertTrue(store.findMoviesByGenre("Musical").isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should limit getAllMovies, with 0 meaning no limit")
+    void testGetAllMovies() {
+        for (int i = 0; i < 5; i++) {
+            movie("Movie " + i, 2000, "Drama");
+        }
+
+        assertEquals(3, store.getAllMovies(3).size());
+        assertEquals(5, store.getAllMovies(0).size());
+        try (Stream<Document> movies = store.streamAllMovies(2, 10)) {
+            assertEquals(2, movies.count());
+        }
+        assertThrows(IllegalArgumentException.class, () -> store.streamAllMovies(0, 0));
+    }
+
+    @Test
+    @DisplayName("Should report one modification only when the rating actually changes")
+    void testUpdateRating() {
+        ObjectId id = movie("Up", 2009, "Animation");
+
+        assertEquals(1, store.updateMovieRating(id, 8.3));
+        assertEquals(0, store.updateMovieRating(id, 8.3));
+        assertEquals(0, store.updateMovieRating(new ObjectId(), 5.0));
+        assertEquals(8.3, store.findMovieById(id).get("imdb", Document.class).getDouble("rating"));
+    }
+
+    @Test
+    @DisplayName("Should add a genre once and find the movie by it afterwards")
+    void testAddGenre() {
+        ObjectId id = movie("Alien", 1979, "Horror");
+
+        assertEquals(1, store.addGenreToMovie(id, "Sci-Fi"));
+        assertEquals(0, store.addGenreToMovie(id, "Sci-Fi"));
+        assertEquals(0, store.addGenreToMovie(new ObjectId(), "Sci-Fi"));
+
+        assertEquals(List.of("Horror", "Sci-Fi"), store.findMovieById(id).getList("genres", String.class));
+        assertEquals(Set.of("Alien"), titles(store.findMoviesByGenre("Sci-Fi")));
+    }
+
+    @Test
+    @DisplayName("Should delete once and forget the movie everywhere")
+    void testDelete() {
+        ObjectId id = movie("Psycho", 1960, "Thriller");
+        movie("Spartacus", 1960, "History");
+
+        assertEquals(1, store.deleteMovieById(id));
+        assertEquals(0, store.deleteMovieById(id));
+
+        assertNull(store.findMovieById(id));
+        assertEquals(1, store.countMoviesByYear(1960));
+        assertTrue(store.findMoviesByGenre("Thriller").isEmpty());
+        assertEquals(1, store.countMovies());
+    }
+
+    @Test
+    @DisplayName("Should fetch several movies by ID, leaving out the missing ones")
+    void testFindMoviesByIds() {
+        ObjectId first = movie("First", 2000, "Drama");
+        ObjectId second = movie("Second", 2001, "Drama");
+        ObjectId missing = new ObjectId();
+
+        Map<ObjectId, Document> movies = store.findMoviesByIds(List.of(first, second, missing, first));
+
+        assertEquals(Set.of(first, second), movies.keySet());
+        assertEquals("Second", movies.get(second).getString("title"));
+        assertTrue(store.findMoviesByIds(List.of()).isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should decode only the requested fields in projected reads")
+    void testProjectedReads() {
+        ObjectId id = movie("Vertigo", 1958, "Mystery", "Romance");
+
+        Movie titleAndYear = store.findMovieById(id, MovieFields.TITLE, MovieFields.YEAR);
+        assertEquals(new Movie(null, "Vertigo", 1958, null, null, null, null), titleAndYear);
+
+        Movie everything = store.findMovieById(id, MovieFields.values());
+        assertEquals(id, everything.id());
+        assertEquals(List.of("Mystery", "Romance"), everything.genres());
+        assertEquals(7.0, everything.imdbRating());
+
+        assertEquals(List.of(1958), store.findMoviesByYear(1958, MovieFields.YEAR).stream().map(Movie::year).toList());
+        assertEquals("Vertigo", store.findMoviesByGenre("Mystery", MovieFields.TITLE).get(0).title());
+    }
+
+    @Test
+    @DisplayName("Should page through all movies in _id order and a genre in (year, _id) order")
+    void testPagination() {
+        List<ObjectId> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(movie("Movie " + i, 2003 - i % 3, "Drama"));
+        }
+        movie("Yearless", "unknown", "Drama");
+
+        List<ObjectId> visited = new ArrayList<>();
+        String token = null;
+        do {
+            MoviePage page = store.getMoviesPage(3, token);
+            page.movies().forEach(movie -> visited.add(movie.getObjectId("_id")));
+            token = page.nextPageToken();
+        } while (token != null);
+        assertEquals(8, visited.size());
+        assertEquals(visited.stream().sorted().toList(), visited);
+
+        List<Document> byYear = new ArrayList<>();
+        token = null;
+        do {
+            MoviePage page = store.findMoviesByGenrePage("Drama", 2, token);
+            byYear.addAll(page.movies());
+            token = page.nextPageToken();
+        } while (token != null);
+        assertEquals(7, byYear.size());
+        assertEquals(new HashSet<>(ids), byYear.stream().map(movie -> movie.getObjectId("_id")).collect(Collectors.toSet()));
+        for (int i = 1; i < byYear.size(); i++) {
+            Document previous = byYear.get(i - 1);
+            Document current = byYear.get(i);
+            int byYearOrder = Integer.compare(previous.getInteger("year"), current.getInteger("year"));
+            assertTrue(byYearOrder < 0 || (byYearOrder == 0
+                    && previous.getObjectId("_id").compareTo(current.getObjectId("_id")) < 0));
+        }
+    }
+
+    @Test
+    @DisplayName("Should record every call in the store's metrics")
+    void testMetrics() {
+        movie("Counted", 2000, "Drama");
+        store.countMovies();
+        store.countMovies();
+
+        Map<String, RepositoryMetrics.OperationSnapshot> operations = store.getMetrics().snapshot();
+        assertEquals(1, operations.get("createMovie").latency().count());
+        assertEquals(2, operations.get("countMovies").latency().count());
+    }
+}
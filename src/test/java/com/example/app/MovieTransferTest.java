@@ -0,0 +1,202 @@
+package com.example.app;
+
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Filters;
+import com.mongodb.client.model.InsertManyOptions;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.conversions.Bson;
+import org.bson.json.JsonMode;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.io.BufferedReader;
+import java.io.EOFException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for MovieTransfer
+ */
+class MovieTransferTest {
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    @TempDir
+    Path tempDir;
+
+    private MovieTransfer transfer;
+    private AutoCloseable closeable;
+    private final List<List<Document>> insertedBatches = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        when(mockCollection.insertMany(anyList(), any(InsertManyOptions.class))).thenAnswer(invocation -> {
+            insertedBatches.add(new ArrayList<>(invocation.<List<Document>>getArgument(0)));
+            return null;
+        });
+        transfer = new MovieTransfer(mockDatabase, stats -> { });
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    @DisplayName("Should import every line of a gzipped NDJSON file in bounded batches")
+    void testImportGzip() throws Exception {
+        Path file = tempDir.resolve("movies.ndjson.gz");
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 250; i++) {
+                writer.write("{\"title\": \"Movie " + i + "\", \"year\": " + (1990 + i % 20) + "}\n");
+                if (i % 50 == 0) {
+                    writer.write("\n");
+                }
+            }
+        }
+
+        MovieTransfer.TransferStats stats = transfer.importFile(file, new MovieTransfer.ImportOptions(3, 40, 2));
+
+        assertEquals(250, stats.documents());
+        assertEquals(Files.size(file), stats.bytes());
+        List<Document> inserted = insertedBatches.stream().flatMap(List::stream).toList();
+        assertEquals(250, inserted.size());
+        assertTrue(insertedBatches.stream().allMatch(batch -> batch.size() <= 40));
+        assertTrue(inserted.stream().allMatch(movie -> movie.getString("title_lower").startsWith("movie ")));
+    }
+
+    @Test
+    @DisplayName("Should stop and report the line number of the first malformed document")
+    void testImportFailsFast() throws Exception {
+        Path file = tempDir.resolve("movies.ndjson");
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            lines.add(i == 57 ? "{\"title\": \"Broken\"" : "{\"title\": \"Movie " + i + "\"}");
+        }
+        Files.write(file, lines);
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> transfer.importFile(file, new MovieTransfer.ImportOptions(2, 10, 2)));
+
+        assertTrue(error.getMessage().contains("line 58"), error.getMessage());
+        assertTrue(insertedBatches.stream().noneMatch(batch -> batch.stream()
+                .anyMatch(movie -> movie.getString("title").equals("Movie 50"))));
+    }
+
+    @Test
+    @DisplayName("Should throw the reader's error, not a queueing one, when a compressed file is truncated")
+    void testImportTruncatedFile() throws Exception {
+        Path file = tempDir.resolve("movies.ndjson.gz");
+        try (Writer writer = new OutputStreamWriter(new GZIPOutputStream(Files.newOutputStream(file)), StandardCharsets.UTF_8)) {
+            for (int i = 0; i < 5000; i++) {
+                writer.write("{\"title\": \"Movie " + i + "\", \"plot\": \"" + "x".repeat(i % 97) + "\"}\n");
+            }
+        }
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length / 2));
+
+        assertThrows(EOFException.class, () -> transfer.importFile(file, new MovieTransfer.ImportOptions(2, 10, 1)));
+        assertTrue(insertedBatches.stream().mapToInt(List::size).sum() < 5000);
+    }
+
+    @Test
+    @DisplayName("Should export raw documents as one JSON line each and read back the same movies")
+    @SuppressWarnings("unchecked")
+    void testExportRoundTrip() throws Exception {
+        List<RawBsonDocument> movies = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            movies.add(RawBsonDocument.parse(new Document("_id", new ObjectId())
+                    .append("title", "Movie " + i)
+                    .append("imdb", new Document("rating", 7.5)).toJson()));
+        }
+        MongoCollection<RawBsonDocument> rawCollection = mock(MongoCollection.class);
+        FindIterable<RawBsonDocument> iterable = mock(FindIterable.class);
+        MongoCursor<RawBsonDocument> cursor = mock(MongoCursor.class);
+        Iterator<RawBsonDocument> iterator = movies.iterator();
+        when(mockCollection.withDocumentClass(RawBsonDocument.class)).thenReturn(rawCollection);
+        when(rawCollection.find(any(Bson.class))).thenReturn(iterable);
+        when(iterable.batchSize(anyInt())).thenReturn(iterable);
+        when(iterable.cursor()).thenReturn(cursor);
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+
+        Path file = tempDir.resolve("export.ndjson.gz");
+        MovieTransfer.TransferStats stats = transfer.exportFile(file, Filters.empty(), JsonMode.RELAXED);
+
+        assertEquals(5, stats.documents());
+        assertEquals(Files.size(file), stats.bytes());
+        List<String> lines;
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(Files.newInputStream(file)), StandardCharsets.UTF_8))) {
+            lines = reader.lines().toList();
+        }
+        assertEquals(5, lines.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(Document.parse(movies.get(i).toJson()), Document.parse(lines.get(i)));
+        }
+    }
+
+    @Test
+    @DisplayName("Should reject .zst files when zstd-jni is not on the classpath")
+    void testZstdUnavailable() throws Exception {
+        Assumptions.assumeTrue(!isOnClasspath("com.github.luben.zstd.ZstdInputStream"));
+        Path file = tempDir.resolve("movies.ndjson.zst");
+        try (OutputStream out = Files.newOutputStream(file)) {
+            out.write(new byte[]{0x28, (byte) 0xB5, 0x2F, (byte) 0xFD});
+        }
+
+        IllegalArgumentException error = assertThrows(IllegalArgumentException.class,
+                () -> transfer.importFile(file, MovieTransfer.ImportOptions.defaults()));
+        assertTrue(error.getMessage().contains("zstd-jni"));
+    }
+
+    @Test
+    @DisplayName("Should pick compression from the file extension")
+    void testCompressionForFile() {
+        assertEquals(MovieTransfer.Compression.GZIP, MovieTransfer.Compression.forFile(Path.of("a.ndjson.GZ")));
+        assertEquals(MovieTransfer.Compression.ZSTD, MovieTransfer.Compression.forFile(Path.of("a.ndjson.zst")));
+        assertEquals(MovieTransfer.Compression.NONE, MovieTransfer.Compression.forFile(Path.of("a.json")));
+    }
+
+    private static boolean isOnClasspath(String className) {
+        try {
+            Class.forName(className);
+            return true;
+        } catch (ClassNotFoundException e) {
+            return false;
+        }
+    }
+}
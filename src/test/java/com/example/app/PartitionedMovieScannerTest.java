@@ -0,0 +1,207 @@
+package com.example.app;
+
+import com.mongodb.client.AggregateIterable;
+import com.mongodb.client.FindIterable;
+import com.mongodb.client.MongoCollection;
+import com.mongodb.client.MongoCursor;
+import com.mongodb.client.MongoDatabase;
+import com.mongodb.client.model.Sorts;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.conversions.Bson;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.*;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for PartitionedMovieScanner
+ */
+class PartitionedMovieScannerTest {
+
+    @Mock
+    private MongoDatabase mockDatabase;
+
+    @Mock
+    private MongoCollection<Document> mockCollection;
+
+    private PartitionedMovieScanner scanner;
+    private final List<PartitionedMovieScanner.PartitionProgress> progress = Collections.synchronizedList(new ArrayList<>());
+    private AutoCloseable closeable;
+
+    @BeforeEach
+    void setUp() {
+        closeable = MockitoAnnotations.openMocks(this);
+        when(mockDatabase.getCollection(anyString())).thenReturn(mockCollection);
+        scanner = new PartitionedMovieScanner(mockDatabase, 3, 50, progress::add);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        closeable.close();
+    }
+
+    @Test
+    @DisplayName("Should cover the _id space with adjacent ranges open at both ends")
+    void testPartitionFilters() {
+        ObjectId first = new ObjectId();
+        ObjectId second = new ObjectId();
+
+        List<PartitionedMovieScanner.Partition> partitions = PartitionedMovieScanner.partitionsFor(List.of(first, second));
+
+        assertEquals(3, partitions.size());
+        assertEquals(new BsonDocument(), PartitionedMovieScanner.partitionsFor(List.of()).get(0).filter().toBsonDocument());
+        assertEquals(new Document("_id", new Document("$lt", first)).toBsonDocument(),
+                partitions.get(0).filter().toBsonDocument());
+        assertEquals(new Document("$and", List.of(new Document("_id", new Document("$gte", first)),
+                        new Document("_id", new Document("$lt", second)))).toBsonDocument(),
+                partitions.get(1).filter().toBsonDocument());
+        assertEquals(new Document("_id", new Document("$gte", second)).toBsonDocument(),
+                partitions.get(2).filter().toBsonDocument());
+        assertEquals(List.of(0, 1, 2), partitions.stream().map(PartitionedMovieScanner.Partition::index).toList());
+    }
+
+    @Test
+    @DisplayName("Should deliver every movie exactly once and report each partition")
+    void testScanMatchesSingleCursor() {
+        List<Document> movies = movies(500);
+        List<PartitionedMovieScanner.Partition> partitions = PartitionedMovieScanner.partitionsFor(List.of(
+                movies.get(100).getObjectId("_id"), movies.get(250).getObjectId("_id"), movies.get(400).getObjectId("_id")));
+        stubPartitions(movies, partitions);
+        Map<ObjectId, Integer> seen = new ConcurrentHashMap<>();
+
+        PartitionedMovieScanner.ScanStats stats = scanner.scan(partitions, movie -> seen.merge(movie.getObjectId("_id"), 1, Integer::sum));
+
+        assertEquals(500, stats.documents());
+        assertEquals(500, seen.size());
+        assertTrue(seen.values().stream().allMatch(count -> count == 1));
+        assertEquals(List.of(100L, 150L, 150L, 100L),
+                stats.partitions().stream().map(PartitionedMovieScanner.PartitionProgress::documents).toList());
+        assertEquals(4, progress.stream().filter(PartitionedMovieScanner.PartitionProgress::finished).count());
+    }
+
+    @Test
+    @DisplayName("Should stop the scan and rethrow the first consumer failure")
+    void testScanFailure() {
+        List<Document> movies = movies(200);
+        List<PartitionedMovieScanner.Partition> partitions = PartitionedMovieScanner.partitionsFor(
+                List.of(movies.get(100).getObjectId("_id")));
+        stubPartitions(movies, partitions);
+        ObjectId poison = movies.get(150).getObjectId("_id");
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> scanner.scan(partitions, movie -> {
+            if (movie.getObjectId("_id").equals(poison)) {
+                throw new IllegalStateException("bad movie");
+            }
+        }));
+
+        assertEquals("bad movie", error.getMessage());
+    }
+
+    @Test
+    @DisplayName("Should split at the $bucketAuto bucket minimums after the first")
+    @SuppressWarnings("unchecked")
+    void testSplitPoints() {
+        List<Document> movies = movies(3);
+        stubEdges(movies.get(0).get("_id"), movies.get(2).get("_id"));
+        List<ObjectId> bucketMins = List.of(new ObjectId(), new ObjectId(), new ObjectId());
+        List<Document> buckets = new ArrayList<>();
+        for (ObjectId min : bucketMins) {
+            buckets.add(new Document("_id", new Document("min", min).append("max", new ObjectId())).append("count", 1000));
+        }
+        AggregateIterable<Document> aggregate = mock(AggregateIterable.class);
+        when(mockCollection.aggregate(anyList())).thenReturn(aggregate);
+        when(aggregate.allowDiskUse(anyBoolean())).thenReturn(aggregate);
+        MongoCursor<Document> bucketCursor = cursorOver(buckets);
+        when(aggregate.iterator()).thenReturn(bucketCursor);
+
+        List<PartitionedMovieScanner.Partition> partitions = scanner.partitions(3);
+
+        assertEquals(3, partitions.size());
+        assertNull(partitions.get(0).lowerBound());
+        assertEquals(bucketMins.get(1), partitions.get(0).upperBound());
+        assertEquals(bucketMins.get(2), partitions.get(2).lowerBound());
+        assertNull(partitions.get(2).upperBound());
+    }
+
+    @Test
+    @DisplayName("Should fall back to one partition when an _id is not an ObjectId")
+    void testMixedIdTypes() {
+        stubEdges("legacy-id", new ObjectId());
+
+        List<PartitionedMovieScanner.Partition> partitions = scanner.partitions(4);
+
+        assertEquals(1, partitions.size());
+        assertEquals(new BsonDocument(), partitions.get(0).filter().toBsonDocument());
+        assertThrows(IllegalArgumentException.class, () -> scanner.partitions(0));
+    }
+
+    private static List<Document> movies(int count) {
+        List<Document> movies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            movies.add(new Document("_id", new ObjectId()).append("title", "Movie " + i));
+        }
+        return movies;
+    }
+
+    /**
+     * Answer each partition's find with a cursor over the movies inside its bounds
+     */
+    @SuppressWarnings("unchecked")
+    private void stubPartitions(List<Document> movies, List<PartitionedMovieScanner.Partition> partitions) {
+        Map<BsonDocument, FindIterable<Document>> byFilter = new HashMap<>();
+        for (PartitionedMovieScanner.Partition partition : partitions) {
+            List<Document> inRange = movies.stream().filter(movie -> {
+                ObjectId id = movie.getObjectId("_id");
+                return (partition.lowerBound() == null || id.compareTo(partition.lowerBound()) >= 0)
+                        && (partition.upperBound() == null || id.compareTo(partition.upperBound()) < 0);
+            }).toList();
+            FindIterable<Document> iterable = mock(FindIterable.class);
+            MongoCursor<Document> cursor = cursorOver(inRange);
+            when(iterable.batchSize(anyInt())).thenReturn(iterable);
+            when(iterable.cursor()).thenReturn(cursor);
+            byFilter.put(partition.filter().toBsonDocument(), iterable);
+        }
+        when(mockCollection.find(any(Bson.class)))
+                .thenAnswer(invocation -> byFilter.get(invocation.<Bson>getArgument(0).toBsonDocument()));
+    }
+
+    @SuppressWarnings("unchecked")
+    private void stubEdges(Object smallestId, Object largestId) {
+        FindIterable<Document> find = mock(FindIterable.class);
+        FindIterable<Document> ascending = mock(FindIterable.class);
+        FindIterable<Document> descending = mock(FindIterable.class);
+        when(mockCollection.find()).thenReturn(find);
+        when(find.projection(any())).thenReturn(find);
+        when(find.sort(any())).thenAnswer(invocation -> Sorts.ascending("_id").toBsonDocument()
+                .equals(invocation.<Bson>getArgument(0).toBsonDocument()) ? ascending : descending);
+        when(ascending.first()).thenReturn(new Document("_id", smallestId));
+        when(descending.first()).thenReturn(new Document("_id", largestId));
+    }
+
+    @SuppressWarnings("unchecked")
+    private static MongoCursor<Document> cursorOver(List<Document> documents) {
+        MongoCursor<Document> cursor = mock(MongoCursor.class);
+        Iterator<Document> iterator = documents.iterator();
+        when(cursor.hasNext()).thenAnswer(invocation -> iterator.hasNext());
+        when(cursor.next()).thenAnswer(invocation -> iterator.next());
+        return cursor;
+    }
+}
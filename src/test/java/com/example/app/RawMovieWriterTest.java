@@ -0,0 +1,91 @@
+package com.example.app;
+
+import org.bson.BsonBinaryReader;
+import org.bson.BsonDocument;
+import org.bson.Document;
+import org.bson.RawBsonDocument;
+import org.bson.codecs.BsonDocumentCodec;
+import org.bson.codecs.DecoderContext;
+import org.bson.json.JsonMode;
+import org.bson.json.JsonWriterSettings;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for RawMovieWriter
+ */
+class RawMovieWriterTest {
+
+    private final JsonWriterSettings relaxed = JsonWriterSettings.builder().outputMode(JsonMode.RELAXED).build();
+
+    @Test
+    @DisplayName("Should copy each document's bytes unchanged as concatenated BSON")
+    void testWriteBson() throws Exception {
+        List<RawBsonDocument> movies = movies(3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(3, RawMovieWriter.writeBson(movies.stream(), out));
+
+        ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+        List<BsonDocument> read = new ArrayList<>();
+        while (buffer.hasRemaining()) {
+            read.add(new BsonDocumentCodec().decode(new BsonBinaryReader(buffer), DecoderContext.builder().build()));
+        }
+        assertEquals(movies, read);
+    }
+
+    @Test
+    @DisplayName("Should write the same JSON as toJson, one document per line")
+    void testWriteJsonLines() throws Exception {
+        List<RawBsonDocument> movies = movies(3);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(3, RawMovieWriter.writeJsonLines(movies.stream(), out, relaxed));
+
+        String[] lines = out.toString(StandardCharsets.UTF_8).split("\n");
+        assertEquals(3, lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(movies.get(i).toJson(relaxed), lines[i]);
+        }
+    }
+
+    @Test
+    @DisplayName("Should write a parseable JSON array, including an empty one")
+    void testWriteJsonArray() throws Exception {
+        List<RawBsonDocument> movies = movies(2);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        assertEquals(2, RawMovieWriter.writeJsonArray(movies.stream(), out, relaxed));
+
+        String json = out.toString(StandardCharsets.UTF_8);
+        assertEquals("[" + movies.get(0).toJson(relaxed) + "," + movies.get(1).toJson(relaxed) + "]", json);
+        assertEquals("Movie 1", Document.parse("{\"movies\": " + json + "}")
+                .getList("movies", Document.class).get(1).getString("title"));
+
+        ByteArrayOutputStream empty = new ByteArrayOutputStream();
+        assertEquals(0, RawMovieWriter.writeJsonArray(Stream.empty(), empty, relaxed));
+        assertEquals("[]", empty.toString(StandardCharsets.UTF_8));
+    }
+
+    private static List<RawBsonDocument> movies(int count) {
+        List<RawBsonDocument> movies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            movies.add(RawBsonDocument.parse(new Document("_id", new ObjectId())
+                    .append("title", "Movie " + i)
+                    .append("year", 2000 + i)
+                    .append("genres", List.of("Drama", "Comedy"))
+                    .append("imdb", new Document("rating", 6.5 + i).append("votes", 1200)).toJson()));
+        }
+        return movies;
+    }
+}